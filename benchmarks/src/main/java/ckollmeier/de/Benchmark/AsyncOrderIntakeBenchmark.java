@@ -0,0 +1,131 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.AsyncShopService;
+import ckollmeier.de.Entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded order intake through {@link AsyncShopService} against calling {@link ckollmeier.de.ShopService#addOrder} directly.
+ * <p>
+ * Every invocation places a window of orders: the direct variant one after another, the asynchronous variant by
+ * submitting the whole window to the shards before waiting for it. With few hot products the direct variant
+ * contends on the stripe locks, the shards never do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AsyncOrderIntakeBenchmark {
+    /**
+     * orders placed per invocation.
+     */
+    private static final int WINDOW = 64;
+    /**
+     * number of pregenerated orders per thread, a power of two.
+     */
+    private static final int ORDERS = 1 << 10;
+    /**
+     * products in the catalog.
+     */
+    private static final int CATALOG_SIZE = 10000;
+
+    @Param({"1", "10"})
+    private int linesPerOrder;
+
+    private ShopFixture fixture;
+    private AsyncShopService asyncShopService;
+
+    /**
+     * Builds the catalog and starts the shards once per trial.
+     */
+    @Setup
+    public void setUp() {
+        fixture = ShopFixture.create(CATALOG_SIZE, linesPerOrder, UnitMixEnum.SAME);
+        asyncShopService = new AsyncShopService(fixture.shopService());
+    }
+
+    /**
+     * Stops the shards.
+     */
+    @TearDown
+    public void tearDown() {
+        asyncShopService.close();
+    }
+
+    /**
+     * Per-thread sequence of placed orders.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Order[] orders = new Order[ORDERS];
+        private int next;
+
+        /**
+         * Generates the orders of this thread, the fixture's random generator is shared and not thread-safe.
+         *
+         * @param benchmark the shared benchmark state
+         */
+        @Setup
+        public void setUp(final AsyncOrderIntakeBenchmark benchmark) {
+            synchronized (benchmark) {
+                for (int i = 0; i < ORDERS; i++) {
+                    orders[i] = benchmark.fixture.newOrder(benchmark.linesPerOrder);
+                }
+            }
+        }
+
+        private Order nextOrder() {
+            return orders[next++ & (ORDERS - 1)];
+        }
+    }
+
+    /**
+     * @param thread    the per-thread state
+     * @param blackhole receives the placed orders
+     */
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void addOrder(final ThreadState thread, final Blackhole blackhole) {
+        for (int i = 0; i < WINDOW; i++) {
+            blackhole.consume(fixture.shopService().addOrder(thread.nextOrder()));
+        }
+    }
+
+    /**
+     * @param thread    the per-thread state
+     * @param blackhole receives the placed orders
+     */
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void addOrderAsync(final ThreadState thread, final Blackhole blackhole) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Optional<Order>>[] placed = new CompletableFuture[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            placed[i] = asyncShopService.addOrder(thread.nextOrder());
+        }
+        for (CompletableFuture<Optional<Order>> order : placed) {
+            blackhole.consume(order.join());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.OrderResult;
+import ckollmeier.de.ShopService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placing a burst of orders by {@link ShopService#addOrders} against calling {@link ShopService#addOrder} per order.
+ * <p>
+ * Both place the same orders with the same outcome, the score is the time per burst. The catalog is rebuilt every
+ * iteration so the placed orders do not pile up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchOrderBenchmark {
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    @Param({"1", "10"})
+    private int linesPerOrder;
+
+    @Param({"PARTIAL", "ALL_OR_NOTHING"})
+    private ReservationModeEnum reservationMode;
+
+    private ShopService shopService;
+    private List<Order> batch;
+
+    /**
+     * Builds the catalog and one burst of orders.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(catalogSize, linesPerOrder, UnitMixEnum.MIXED);
+        shopService = fixture.shopService();
+        shopService.setReservationMode(reservationMode);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(fixture.nextOrder());
+        }
+    }
+
+    /**
+     * @param blackhole receives the placed orders
+     */
+    @Benchmark
+    public void addOrderOneByOne(final Blackhole blackhole) {
+        for (Order order : batch) {
+            blackhole.consume(shopService.addOrder(order));
+        }
+    }
+
+    /**
+     * @return the results of the burst
+     */
+    @Benchmark
+    public List<OrderResult> addOrders() {
+        return shopService.addOrders(batch);
+    }
+}
@@ -0,0 +1,89 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Import.CatalogImporter;
+import ckollmeier.de.Import.ImportResult;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of {@link CatalogImporter}, importing a product file and the matching stock file.
+ * <p>
+ * The score is per row, since every invocation imports {@link #ROWS} rows of each file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CatalogImportBenchmark {
+    private static final int ROWS = 100000;
+
+    @Param({"100", "1000", "10000"})
+    private int batchSize;
+
+    @Param({"1", "4", "16"})
+    private int parallelism;
+
+    private String productFile;
+    private String stockFile;
+    private ProductRepository productRepository;
+    private StockRepository stockRepository;
+    private CatalogImporter importer;
+
+    /**
+     * Generates the files once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        StringBuilder products = new StringBuilder(CatalogImporter.PRODUCT_HEADER).append('\n');
+        StringBuilder stock = new StringBuilder(CatalogImporter.STOCK_HEADER).append('\n');
+        for (int i = 0; i < ROWS; i++) {
+            products.append("p-").append(i).append(",Product ").append(i)
+                    .append(",\"Imported product, number ").append(i).append("\",1,KG\n");
+            stock.append("p-").append(i).append(',').append(i % 1000).append(".5,KG,").append(i % 100).append(".99\n");
+        }
+        productFile = products.toString();
+        stockFile = stock.toString();
+    }
+
+    /**
+     * Empty repositories for every import.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        productRepository = new ProductRepository();
+        stockRepository = new StockRepository();
+        importer = new CatalogImporter(productRepository, stockRepository, ForkJoinPool.commonPool(), batchSize,
+                parallelism);
+    }
+
+    /**
+     * @return result of the stock import
+     * @throws IOException never, the files are in memory
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * ROWS)
+    public ImportResult importCatalog() throws IOException {
+        importer.importProducts(new StringReader(productFile));
+        return importer.importStock(new StringReader(stockFile));
+    }
+}
@@ -0,0 +1,85 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Persistence.EntityCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link EntityCodec} for orders, with the text form of the order as baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntityCodecBenchmark {
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"1", "10", "100"})
+    private int linesPerOrder;
+
+    @Param({"false", "true"})
+    private boolean direct;
+
+    private Order order;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    /**
+     * Encodes one order for the decode benchmark and prints the encoded sizes.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(CATALOG_SIZE, linesPerOrder, UnitMixEnum.SAME);
+        order = fixture.shopService().addOrder(fixture.nextOrder()).orElseThrow();
+        int size = EntityCodec.sizeOf(order);
+        buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        encoded = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        EntityCodec.putOrder(encoded, order);
+        encoded.flip();
+        System.out.println("binary: " + size + " bytes, text: "
+                + order.toString().getBytes(StandardCharsets.UTF_8).length + " bytes");
+    }
+
+    /**
+     * @return the buffer holding the encoded order
+     */
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        EntityCodec.putOrder(buffer, order);
+        return buffer;
+    }
+
+    /**
+     * @return the decoded order
+     */
+    @Benchmark
+    public Order decode() {
+        return EntityCodec.getOrder(encoded.duplicate());
+    }
+
+    /**
+     * @return the order as UTF-8 text
+     */
+    @Benchmark
+    public byte[] encodeText() {
+        return order.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,205 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Http.ShopHttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Closed-loop load test of the HTTP API: requests per second and latency percentiles by number of concurrent clients.
+ * <p>
+ * Starts a {@link ShopHttpServer} in this JVM over a populated catalog and runs every client on its own virtual
+ * thread, each sending its next request as soon as the last one is answered. Clients and server share the machine,
+ * so the numbers show how a single node scales, not what it serves over a network. Every level is warmed up first.
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar ckollmeier.de.Benchmark.HttpLoadTest
+ * </pre>
+ * System properties: {@code clients} (comma-separated levels, default 1,4,16,64,256), {@code seconds} (measurement
+ * per level, default 10), {@code warmupSeconds} (default 3), {@code catalogSize} (default 10000), {@code linesPerOrder}
+ * (default 5) and {@code orderPercent} (share of order placements, the rest reads stock, default 20).
+ */
+public final class HttpLoadTest {
+    /**
+     * number of pregenerated requests per kind, must be a power of two.
+     */
+    private static final int REQUEST_POOL_SIZE = 1024;
+    private static final int PERCENT = 100;
+    private static final int BAD_REQUEST = 400;
+    /**
+     * seconds a client may take beyond the end of the measurement to return.
+     */
+    private static final int CLIENT_GRACE_SECONDS = 60;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final int INITIAL_LATENCIES = 1 << 12;
+    private static final long SEED = 42L;
+
+    private final HttpClient client;
+    private final HttpRequest[] reads;
+    private final HttpRequest[] orders;
+    private final int orderPercent;
+
+    /**
+     * Latencies and failures of one client.
+     */
+    private static final class ClientResult {
+        private long[] latencies = new long[INITIAL_LATENCIES];
+        private int count;
+        private long errors;
+
+        private void record(final long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    private HttpLoadTest(final HttpClient client, final HttpRequest[] reads, final HttpRequest[] orders,
+                         final int orderPercent) {
+        this.client = client;
+        this.reads = reads;
+        this.orders = orders;
+        this.orderPercent = orderPercent;
+    }
+
+    /**
+     * @param args unused, the test is configured by system properties
+     * @throws IOException          if the server cannot be started
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int[] clientLevels = Arrays.stream(System.getProperty("clients", "1,4,16,64,256").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        Duration measurement = Duration.ofSeconds(Integer.getInteger("seconds", 10));
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("warmupSeconds", 3));
+        ShopFixture fixture = ShopFixture.create(Integer.getInteger("catalogSize", 10000), 1, UnitMixEnum.SAME);
+
+        try (ShopHttpServer server = ShopHttpServer.start(fixture.shopService(), new InetSocketAddress("127.0.0.1", 0))) {
+            URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+            ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+            HttpLoadTest loadTest = new HttpLoadTest(client, readRequests(fixture, base),
+                    orderRequests(fixture, base, Integer.getInteger("linesPerOrder", 5)),
+                    Integer.getInteger("orderPercent", 20));
+
+            System.out.printf("%8s %12s %12s %10s %10s %10s %8s%n",
+                    "clients", "requests", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+            for (int clients : clientLevels) {
+                loadTest.run(clientExecutor, clients, warmup);
+                loadTest.report(clients, measurement, loadTest.run(clientExecutor, clients, measurement));
+            }
+            clientExecutor.shutdown();
+        }
+    }
+
+    private static HttpRequest[] readRequests(final ShopFixture fixture, final URI base) {
+        int[] indexes = fixture.randomProductIndexes(REQUEST_POOL_SIZE);
+        HttpRequest[] requests = new HttpRequest[REQUEST_POOL_SIZE];
+        for (int i = 0; i < REQUEST_POOL_SIZE; i++) {
+            requests[i] = HttpRequest.newBuilder(base.resolve("/stock/" + fixture.products().get(indexes[i]).id())).GET().build();
+        }
+        return requests;
+    }
+
+    private static HttpRequest[] orderRequests(final ShopFixture fixture, final URI base, final int linesPerOrder) {
+        int[] indexes = fixture.randomProductIndexes(REQUEST_POOL_SIZE * (Integer.highestOneBit(Math.max(1, linesPerOrder - 1)) << 1));
+        HttpRequest[] requests = new HttpRequest[REQUEST_POOL_SIZE];
+        for (int i = 0; i < REQUEST_POOL_SIZE; i++) {
+            StringBuilder body = new StringBuilder("{\"lines\":[");
+            for (int line = 0; line < linesPerOrder; line++) {
+                body.append(line == 0 ? "" : ",").append("{\"productId\":\"")
+                        .append(fixture.products().get(indexes[i * linesPerOrder + line]).id())
+                        .append("\",\"quantity\":1}");
+            }
+            requests[i] = HttpRequest.newBuilder(base.resolve("/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append("]}").toString()))
+                    .build();
+        }
+        return requests;
+    }
+
+    private List<ClientResult> run(final ExecutorService executor, final int clients, final Duration duration)
+            throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        List<Future<ClientResult>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            long seed = SEED + i;
+            futures.add(executor.submit(() -> runClient(new SplittableRandom(seed), end)));
+        }
+        List<ClientResult> results = new ArrayList<>(clients);
+        for (Future<ClientResult> future : futures) {
+            try {
+                results.add(future.get(duration.toSeconds() + CLIENT_GRACE_SECONDS, TimeUnit.SECONDS));
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("Client failed", e);
+            }
+        }
+        return results;
+    }
+
+    private ClientResult runClient(final SplittableRandom random, final long end) {
+        ClientResult result = new ClientResult();
+        while (System.nanoTime() < end) {
+            boolean order = random.nextInt(PERCENT) < orderPercent;
+            HttpRequest request = order ? orders[random.nextInt(REQUEST_POOL_SIZE)] : reads[random.nextInt(REQUEST_POOL_SIZE)];
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                result.record(System.nanoTime() - start);
+                if (response.statusCode() >= BAD_REQUEST) {
+                    result.errors++;
+                }
+            } catch (IOException e) {
+                result.errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void report(final int clients, final Duration duration, final List<ClientResult> results) {
+        int total = results.stream().mapToInt(result -> result.count).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        long errors = 0;
+        for (ClientResult result : results) {
+            System.arraycopy(result.latencies, 0, latencies, offset, result.count);
+            offset += result.count;
+            errors += result.errors;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%8d %12d %12.0f %10.3f %10.3f %10.3f %8d%n", clients, total,
+                total / (duration.toNanos() / NANOS_PER_SECOND),
+                percentile(latencies, P50), percentile(latencies, P99), percentile(latencies, P999), errors);
+    }
+
+    private static double percentile(final long[] sortedLatencies, final double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / NANOS_PER_MILLI;
+    }
+}
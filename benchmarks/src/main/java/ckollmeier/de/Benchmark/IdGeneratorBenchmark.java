@@ -0,0 +1,52 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Repository.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids generated per second by all cores at once, random UUIDs against {@link IdGenerator#TIME_ORDERED}.
+ * <p>
+ * Scaling with core count is measured by repeating with {@code -t 1}, {@code -t 2}, ...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IdGeneratorBenchmark {
+    @Param({"RANDOM", "TIME_ORDERED"})
+    private String generatorName;
+
+    private IdGenerator generator;
+
+    /**
+     * Picks the generator.
+     */
+    @Setup
+    public void setUp() {
+        generator = "RANDOM".equals(generatorName) ? IdGenerator.RANDOM : IdGenerator.TIME_ORDERED;
+    }
+
+    /**
+     * @return a new id as entities get it
+     */
+    @Benchmark
+    public String nextString() {
+        return generator.nextString();
+    }
+}
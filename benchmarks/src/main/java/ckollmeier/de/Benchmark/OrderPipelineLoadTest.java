@@ -0,0 +1,147 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.WaitStrategyEnum;
+import ckollmeier.de.Pipeline.OrderPipeline;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load test of order intake: latency percentiles at a fixed arrival rate, through the
+ * {@link OrderPipeline} or by calling {@link ckollmeier.de.ShopService#addOrder} directly.
+ * <p>
+ * One producer thread sends the orders at the rate, each at its scheduled time. The latency of an order is measured
+ * from its scheduled time to its acknowledgement, so a producer falling behind shows as latency instead of hiding
+ * it. Every run is preceded by a warm-up at the same rate.
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar ckollmeier.de.Benchmark.OrderPipelineLoadTest
+ * </pre>
+ * System properties: {@code intake} ({@code pipeline} or {@code direct}, default pipeline), {@code rate} (orders
+ * per second, default 100000), {@code seconds} (default 10), {@code warmupSeconds} (default 3),
+ * {@code waitStrategy} (default BUSY_SPIN), {@code bufferSize} (default 16384), {@code catalogSize} (default 10000)
+ * and {@code linesPerOrder} (default 1).
+ */
+public final class OrderPipelineLoadTest {
+    /**
+     * number of pregenerated orders cycled through, a power of two.
+     */
+    private static final int ORDER_POOL_SIZE = 1 << 12;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final ShopFixture fixture;
+    private final Order[] orders = new Order[ORDER_POOL_SIZE];
+
+    private OrderPipelineLoadTest(final ShopFixture fixture, final int linesPerOrder) {
+        this.fixture = fixture;
+        for (int i = 0; i < ORDER_POOL_SIZE; i++) {
+            orders[i] = fixture.newOrder(linesPerOrder);
+        }
+    }
+
+    /**
+     * @param args unused, the test is configured by system properties
+     * @throws InterruptedException if interrupted while waiting for acknowledgements
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        boolean direct = "direct".equals(System.getProperty("intake", "pipeline"));
+        int rate = Integer.getInteger("rate", 100000);
+        int seconds = Integer.getInteger("seconds", 10);
+        int warmupSeconds = Integer.getInteger("warmupSeconds", 3);
+        WaitStrategyEnum waitStrategy = WaitStrategyEnum.valueOf(System.getProperty("waitStrategy", "BUSY_SPIN"));
+        ShopFixture fixture = ShopFixture.create(Integer.getInteger("catalogSize", 10000), 1, UnitMixEnum.SAME);
+        OrderPipelineLoadTest loadTest = new OrderPipelineLoadTest(fixture, Integer.getInteger("linesPerOrder", 1));
+
+        System.out.printf("%10s %10s %12s %10s %10s %10s %10s %8s%n",
+                "intake", "rate", "orders/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "rejected");
+        if (direct) {
+            loadTest.runDirect(rate, warmupSeconds);
+            loadTest.report("direct", rate, loadTest.runDirect(rate, seconds));
+            return;
+        }
+        try (OrderPipeline pipeline = OrderPipeline.start(fixture.stockRepository(), fixture.orderRepository(),
+                ReservationModeEnum.PARTIAL, waitStrategy, Integer.getInteger("bufferSize", OrderPipeline.DEFAULT_BUFFER_SIZE))) {
+            loadTest.runPipeline(pipeline, rate, warmupSeconds);
+            loadTest.report("pipeline", rate, loadTest.runPipeline(pipeline, rate, seconds));
+        }
+    }
+
+    /**
+     * Latencies of one run, written by the acknowledging thread.
+     */
+    private static final class Run {
+        private final long[] latencies;
+        private final long started = System.nanoTime();
+        private final AtomicLong acknowledged = new AtomicLong();
+        private volatile long rejected;
+        private long finished;
+
+        private Run(final int orders) {
+            latencies = new long[orders];
+        }
+    }
+
+    private Run runPipeline(final OrderPipeline pipeline, final int rate, final int seconds) throws InterruptedException {
+        int count = rate * seconds;
+        Run run = new Run(count);
+        long interval = NANOS_PER_SECOND / rate;
+        for (int i = 0; i < count; i++) {
+            long scheduled = run.started + i * interval;
+            awaitSchedule(scheduled);
+            int index = i;
+            pipeline.publish(orders[i & (ORDER_POOL_SIZE - 1)], result -> {
+                run.latencies[index] = System.nanoTime() - scheduled;
+                if (!result.isPlaced()) {
+                    run.rejected++;
+                }
+                run.acknowledged.incrementAndGet();
+            });
+        }
+        while (run.acknowledged.get() < count) {
+            Thread.sleep(1);
+        }
+        run.finished = System.nanoTime();
+        return run;
+    }
+
+    private Run runDirect(final int rate, final int seconds) {
+        int count = rate * seconds;
+        Run run = new Run(count);
+        long interval = NANOS_PER_SECOND / rate;
+        for (int i = 0; i < count; i++) {
+            long scheduled = run.started + i * interval;
+            awaitSchedule(scheduled);
+            if (fixture.shopService().addOrder(orders[i & (ORDER_POOL_SIZE - 1)]).isEmpty()) {
+                run.rejected++;
+            }
+            run.latencies[i] = System.nanoTime() - scheduled;
+        }
+        run.finished = System.nanoTime();
+        return run;
+    }
+
+    private static void awaitSchedule(final long scheduled) {
+        while (System.nanoTime() < scheduled) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void report(final String intake, final int rate, final Run run) {
+        long[] latencies = run.latencies.clone();
+        Arrays.sort(latencies);
+        System.out.printf("%10s %10d %12.0f %10.3f %10.3f %10.3f %10.3f %8d%n", intake, rate,
+                latencies.length * (double) NANOS_PER_SECOND / (run.finished - run.started),
+                percentile(latencies, P50), percentile(latencies, P99), percentile(latencies, P999),
+                latencies[latencies.length - 1] / NANOS_PER_MILLI, run.rejected);
+    }
+
+    private static double percentile(final long[] sortedLatencies, final double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,85 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Pricing.OrderPricer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing of large orders by {@link OrderPricer} against multiplying and summing {@link BigDecimal}s per line.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per order: the pricer allocates the subtotals and the total only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderPricingBenchmark {
+    /**
+     * number of orders cycled through, must be a power of two.
+     */
+    private static final int ORDERS = 16;
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    @Param({"10", "1000", "5000"})
+    private int linesPerOrder;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private final OrderPricer orderPricer = new OrderPricer();
+    private Order[] orders;
+    private int next;
+
+    /**
+     * Builds the catalog and the orders once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(catalogSize, 1, unitMix);
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = fixture.newOrder(linesPerOrder);
+        }
+    }
+
+    /**
+     * @return the priced order
+     */
+    @Benchmark
+    public Order price() {
+        return orderPricer.price(orders[next++ & (ORDERS - 1)]);
+    }
+
+    /**
+     * @return the total of the order, priced line by line with {@link BigDecimal} arithmetic
+     */
+    @Benchmark
+    public BigDecimal priceWithBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderProduct line : orders[next++ & (ORDERS - 1)].products()) {
+            BigDecimal subTotal = line.getQuantity().multiply(line.getStockArticle().price());
+            line.setPriceSubTotal(subTotal);
+            total = total.add(subTotal);
+        }
+        return total;
+    }
+}
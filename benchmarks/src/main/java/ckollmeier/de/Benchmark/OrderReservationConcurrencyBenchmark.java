@@ -0,0 +1,114 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of all-or-nothing order reservations through {@link StockRepository#reserveAll}.
+ * <p>
+ * Retries and contended locks are printed after each trial, see {@link ckollmeier.de.Repository.ReservationMetrics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderReservationConcurrencyBenchmark {
+    /**
+     * number of pregenerated orders per thread, a power of two.
+     */
+    private static final int ORDERS = 1 << 10;
+    /**
+     * products in the catalog.
+     */
+    private static final int CATALOG_SIZE = 10000;
+
+    @Param({"1", "10", "100"})
+    private int linesPerOrder;
+
+    @Param({"64", "10000"})
+    private int hotProducts;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private ShopFixture fixture;
+    private StockRepository stockRepository;
+
+    /**
+     * Builds the catalog once per trial.
+     */
+    @Setup
+    public void setUp() {
+        fixture = ShopFixture.create(CATALOG_SIZE, 1, unitMix);
+        stockRepository = fixture.stockRepository();
+    }
+
+    /**
+     * Prints the reservation counters of the trial.
+     */
+    @TearDown
+    public void tearDown() {
+        System.out.println(stockRepository.getReservationMetrics());
+    }
+
+    /**
+     * Per-thread sequence of reserved orders.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private List<List<OrderProduct>> orders;
+        private int next;
+
+        /**
+         * Draws the order lines of this thread from the hot products.
+         *
+         * @param benchmark the shared benchmark state
+         */
+        @Setup
+        public void setUp(final OrderReservationConcurrencyBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            orders = new ArrayList<>(ORDERS);
+            for (int i = 0; i < ORDERS; i++) {
+                List<OrderProduct> lines = new ArrayList<>(benchmark.linesPerOrder);
+                for (int line = 0; line < benchmark.linesPerOrder; line++) {
+                    int index = random.nextInt(benchmark.hotProducts);
+                    OrderProduct orderProduct = new OrderProduct(benchmark.fixture.stockArticles().get(index));
+                    orderProduct.setQuantity(BigDecimal.ONE, benchmark.unitMix.requestUnit(index));
+                    lines.add(orderProduct);
+                }
+                orders.add(lines);
+            }
+        }
+    }
+
+    /**
+     * @param thread the per-thread state
+     * @return whether all lines were reserved
+     */
+    @Benchmark
+    public boolean reserveAll(final ThreadState thread) {
+        return stockRepository.reserveAll(thread.orders.get(thread.next++ & (ORDERS - 1)));
+    }
+}
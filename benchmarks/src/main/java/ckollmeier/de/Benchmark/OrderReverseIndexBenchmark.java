@@ -0,0 +1,95 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the orders containing a product by the reverse index of {@link OrderRepository} compared to filtering all
+ * orders, and the cost of keeping the index when orders are added and removed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderReverseIndexBenchmark {
+    private static final int LINES_PER_ORDER = 3;
+    /**
+     * number of precomputed lookups, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"100000", "1000000"})
+    private int orderCount;
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private ShopFixture fixture;
+    private OrderRepository orderRepository;
+    private String[] productIds;
+    private int next;
+
+    /**
+     * Places the orders and picks the looked up products.
+     */
+    @Setup
+    public void setUp() {
+        fixture = ShopFixture.create(catalogSize, LINES_PER_ORDER, UnitMixEnum.SAME);
+        orderRepository = fixture.orderRepository();
+        for (int i = 0; i < orderCount; i++) {
+            orderRepository.addOrder(fixture.nextOrder().withId(null));
+        }
+        int[] indexes = fixture.randomProductIndexes(LOOKUPS);
+        productIds = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            productIds[i] = fixture.products().get(indexes[i]).id();
+        }
+    }
+
+    /**
+     * @return ids of the orders containing a product
+     */
+    @Benchmark
+    public List<String> findOrderIdsByProductId() {
+        return orderRepository.findOrderIdsByProductId(productIds[next++ & (LOOKUPS - 1)]);
+    }
+
+    /**
+     * @return ids of the orders containing a product, found by looking at every line of every order
+     */
+    @Benchmark
+    public List<String> filterAllOrders() {
+        String productId = productIds[next++ & (LOOKUPS - 1)];
+        return orderRepository.stream()
+                .filter(order -> order.products().stream().anyMatch(line -> productId.equals(line.productId())))
+                .map(Order::id)
+                .toList();
+    }
+
+    /**
+     * Adds an order, which indexes its lines, and removes it again to keep the number of orders constant.
+     *
+     * @return the removed order
+     */
+    @Benchmark
+    public Object addAndRemoveOrder() {
+        Order order = orderRepository.addOrder(fixture.nextOrder().withId(null)).orElseThrow();
+        return orderRepository.removeOrder(order);
+    }
+}
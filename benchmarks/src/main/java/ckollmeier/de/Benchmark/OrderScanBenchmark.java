@@ -0,0 +1,104 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walking all orders of {@link OrderRepository} page by page and as sequential and parallel stream, and looking
+ * single orders up by id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderScanBenchmark {
+    private static final int CATALOG_SIZE = 1000;
+    private static final int LINES_PER_ORDER = 3;
+    private static final long SEED = 42L;
+
+    @Param({"100000", "1000000"})
+    private int orderCount;
+
+    @Param({"100", "10000"})
+    private int pageSize;
+
+    private OrderRepository orderRepository;
+    private List<String> ids;
+    private SplittableRandom random;
+
+    /**
+     * Places the orders once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(CATALOG_SIZE, LINES_PER_ORDER, UnitMixEnum.SAME);
+        orderRepository = fixture.orderRepository();
+        ids = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            ids.add(orderRepository.addOrder(fixture.nextOrder()).orElseThrow().id());
+        }
+        random = new SplittableRandom(SEED);
+    }
+
+    /**
+     * @return number of order lines
+     */
+    @Benchmark
+    public long scanPages() {
+        long lines = 0;
+        List<Order> page = orderRepository.scan(null, pageSize);
+        while (!page.isEmpty()) {
+            for (Order order : page) {
+                lines += order.products().size();
+            }
+            page = orderRepository.scan(page.get(page.size() - 1).id(), pageSize);
+        }
+        return lines;
+    }
+
+    /**
+     * @return number of order lines
+     */
+    @Benchmark
+    public long stream() {
+        return orderRepository.stream().mapToLong(order -> order.products().size()).sum();
+    }
+
+    /**
+     * @return number of order lines
+     */
+    @Benchmark
+    public long parallelStream() {
+        return orderRepository.stream().parallel().mapToLong(order -> order.products().size()).sum();
+    }
+
+    /**
+     * @return the found order
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<Order> find() {
+        return orderRepository.find(ids.get(random.nextInt(ids.size())));
+    }
+}
@@ -0,0 +1,125 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocompletion by {@link ProductRepository#searchByName} and the cost of keeping the name index on add and remove.
+ * <p>
+ * The setup prints the memory per product: the estimate of the index and the measured heap of the whole repository,
+ * i.e. the index plus the map by id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProductNameSearchBenchmark {
+    /**
+     * number of precomputed prefixes, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 12;
+    /**
+     * seed so that every fork sees the same names.
+     */
+    private static final long SEED = 42L;
+    private static final String[] WORDS = {"Apple", "Banana", "Bread", "Butter", "Cheese", "Chocolate", "Coffee",
+            "Flour", "Honey", "Juice", "Milk", "Pasta", "Rice", "Salt", "Sugar", "Tea", "Tomato", "Water", "Wine", "Yogurt"};
+    private static final int TOP_K = 10;
+    private static final int GC_ROUNDS = 5;
+
+    @Param({"10000", "100000", "500000"})
+    private int catalogSize;
+
+    @Param({"1", "3", "8"})
+    private int prefixLength;
+
+    private ProductRepository productRepository;
+    private String[] prefixes;
+    private Product[] extraProducts;
+    private int next;
+
+    /**
+     * Builds the catalog and the searched prefixes and reports the memory per product.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Product[] products = new Product[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            products[i] = product(random, i);
+        }
+        long before = usedHeap();
+        productRepository = new ProductRepository();
+        for (Product product : products) {
+            productRepository.addProduct(product);
+        }
+        long after = usedHeap();
+        System.out.printf("%nname index: %.1f bytes/product estimated, repository: %.1f bytes/product measured%n",
+                (double) productRepository.estimateNameIndexBytes() / catalogSize,
+                (double) (after - before) / catalogSize);
+        prefixes = new String[LOOKUPS];
+        extraProducts = new Product[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String name = products[random.nextInt(catalogSize)].name();
+            prefixes[i] = name.substring(0, Math.min(prefixLength, name.length())).toLowerCase();
+            extraProducts[i] = product(random, catalogSize + i);
+        }
+    }
+
+    private static Product product(final SplittableRandom random, final int index) {
+        return ProductBuilder.builder()
+                .name(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + index)
+                .description("Benchmark product " + index)
+                .content(BigDecimal.ONE)
+                .unit(UnitEnum.PCS)
+                .build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the top matches of a prefix
+     */
+    @Benchmark
+    public List<Product> searchByName() {
+        return productRepository.searchByName(prefixes[next++ & (LOOKUPS - 1)], TOP_K);
+    }
+
+    /**
+     * Adds a product, which inserts it into the name index, and removes it again to keep the catalog size constant.
+     *
+     * @return the removed product
+     */
+    @Benchmark
+    public Object addAndRemoveProduct() {
+        Product product = extraProducts[next++ & (LOOKUPS - 1)];
+        Product added = productRepository.addProduct(product);
+        return productRepository.removeProduct(added);
+    }
+}
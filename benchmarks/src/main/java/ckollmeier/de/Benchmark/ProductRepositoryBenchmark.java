@@ -0,0 +1,110 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ProductRepository} lookups, the duplicate check on add and removal with catalog size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProductRepositoryBenchmark {
+    /**
+     * number of precomputed lookups, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 16;
+    /**
+     * seed so that every fork sees the same lookups.
+     */
+    private static final long SEED = 42L;
+
+    @Param({"1000", "10000", "100000", "500000"})
+    private int catalogSize;
+
+    private ProductRepository productRepository;
+    private String[] ids;
+    private String[] missingIds;
+    private Product[] extraProducts;
+    private int next;
+
+    /**
+     * Builds the catalog, the looked up ids and the products that are added and removed again.
+     */
+    @Setup
+    public void setUp() {
+        productRepository = new ProductRepository();
+        String[] catalogIds = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            catalogIds[i] = productRepository.addProduct(product(i)).id();
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        ids = new String[LOOKUPS];
+        missingIds = new String[LOOKUPS];
+        extraProducts = new Product[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = catalogIds[random.nextInt(catalogSize)];
+            missingIds[i] = UUID.randomUUID().toString();
+            extraProducts[i] = product(catalogSize + i).withId(missingIds[i]);
+        }
+    }
+
+    private static Product product(final int index) {
+        return ProductBuilder.builder()
+                .name("Product " + index)
+                .description("Benchmark product " + index)
+                .content(BigDecimal.ONE)
+                .unit(UnitEnum.PCS)
+                .build();
+    }
+
+    /**
+     * @return the found product
+     */
+    @Benchmark
+    public Optional<Product> find() {
+        return productRepository.find(ids[next++ & (LOOKUPS - 1)]);
+    }
+
+    /**
+     * @return empty, the id is not in the catalog
+     */
+    @Benchmark
+    public Optional<Product> findMissing() {
+        return productRepository.find(missingIds[next++ & (LOOKUPS - 1)]);
+    }
+
+    /**
+     * Adds a product, which includes the duplicate check, and removes it again to keep the catalog size constant.
+     *
+     * @return the removed product
+     */
+    @Benchmark
+    public Optional<Product> addAndRemoveProduct() {
+        Product product = extraProducts[next++ & (LOOKUPS - 1)];
+        productRepository.addProduct(product);
+        return productRepository.removeProductWithId(product.id());
+    }
+}
@@ -0,0 +1,113 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Enum.SearchOperatorEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.ScoredProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked full-text search by {@link ProductRepository#searchByDescription} over generated descriptions.
+ * <p>
+ * Description terms follow a Zipf-like distribution over a vocabulary, so a query mixes terms of short and long
+ * posting lists; the most frequent term is contained in most descriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProductTextSearchBenchmark {
+    /**
+     * number of precomputed queries, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 10;
+    /**
+     * seed so that every fork sees the same descriptions.
+     */
+    private static final long SEED = 42L;
+    private static final int VOCABULARY = 20_000;
+    private static final int TERMS_PER_DESCRIPTION = 20;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int TOP_K = 10;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"1", "2", "4"})
+    private int termsPerQuery;
+
+    @Param({"AND", "OR"})
+    private SearchOperatorEnum operator;
+
+    private ProductRepository productRepository;
+    private String[] queries;
+    private int next;
+
+    /**
+     * Builds the catalog and the queries.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        productRepository = new ProductRepository();
+        List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < catalogSize; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int term = 0; term < TERMS_PER_DESCRIPTION; term++) {
+                description.append("term").append(zipf(random)).append(' ');
+            }
+            batch.add(ProductBuilder.builder()
+                    .name("Product " + i)
+                    .description(description.toString())
+                    .content(BigDecimal.ONE)
+                    .unit(UnitEnum.PCS)
+                    .build());
+            if (batch.size() == BATCH_SIZE) {
+                productRepository.addProducts(batch);
+                batch.clear();
+            }
+        }
+        productRepository.addProducts(batch);
+        queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            StringBuilder query = new StringBuilder();
+            for (int term = 0; term < termsPerQuery; term++) {
+                query.append("term").append(zipf(random)).append(' ');
+            }
+            queries[i] = query.toString();
+        }
+    }
+
+    // rank of a term with probability roughly proportional to 1 / rank
+    private static int zipf(final SplittableRandom random) {
+        return (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+    }
+
+    /**
+     * @return the best matches of a query
+     */
+    @Benchmark
+    public List<ScoredProduct> searchByDescription() {
+        return productRepository.searchByDescription(queries[next++ & (LOOKUPS - 1)], operator, TOP_K);
+    }
+}
@@ -0,0 +1,168 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderBuilder;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.MutationLog;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import ckollmeier.de.ShopService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Populated repositories and pregenerated orders shared by the benchmarks.
+ */
+public final class ShopFixture {
+    /**
+     * initial stock per product, large enough that no benchmark runs out of stock.
+     */
+    private static final BigDecimal INITIAL_STOCK = new BigDecimal("1000000000");
+    /**
+     * number of pregenerated orders that are cycled through.
+     */
+    private static final int ORDER_POOL_SIZE = 1024;
+    /**
+     * seed so that every fork sees the same catalog and orders.
+     */
+    private static final long SEED = 42L;
+
+    private final OrderRepository orderRepository;
+    private final StockRepository stockRepository;
+    private final ProductRepository productRepository;
+    private final ShopService shopService;
+    private final List<Product> products = new ArrayList<>();
+    private final List<StockArticle> stockArticles = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private final UnitMixEnum unitMix;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private int nextOrder;
+
+    private ShopFixture(final UnitMixEnum unitMix, final MutationLog mutationLog) {
+        this.unitMix = unitMix;
+        orderRepository = new OrderRepository(mutationLog);
+        stockRepository = new StockRepository(mutationLog);
+        productRepository = new ProductRepository(mutationLog);
+        shopService = new ShopService(orderRepository, stockRepository, productRepository);
+    }
+
+    /**
+     * Builds a catalog of {@code catalogSize} products, each with stock, and a pool of orders.
+     *
+     * @param catalogSize   number of products in the catalog
+     * @param linesPerOrder number of order lines per pregenerated order
+     * @param unitMix       units used for stock and requested quantities
+     * @return the populated fixture
+     */
+    public static ShopFixture create(final int catalogSize, final int linesPerOrder, final UnitMixEnum unitMix) {
+        return create(catalogSize, linesPerOrder, unitMix, MutationLog.NONE);
+    }
+
+    /**
+     * Builds a catalog like {@link #create(int, int, UnitMixEnum)} with repositories logging to the given log.
+     *
+     * @param catalogSize   number of products in the catalog
+     * @param linesPerOrder number of order lines per pregenerated order
+     * @param unitMix       units used for stock and requested quantities
+     * @param mutationLog   log receiving the mutations of the repositories
+     * @return the populated fixture
+     */
+    public static ShopFixture create(final int catalogSize, final int linesPerOrder, final UnitMixEnum unitMix,
+                                     final MutationLog mutationLog) {
+        ShopFixture fixture = new ShopFixture(unitMix, mutationLog);
+        for (int i = 0; i < catalogSize; i++) {
+            UnitEnum stockUnit = unitMix.stockUnit(i);
+            Product product = fixture.productRepository.addProduct(ProductBuilder.builder()
+                    .name("Product " + i)
+                    .description("Benchmark product " + i)
+                    .content(BigDecimal.ONE)
+                    .unit(stockUnit)
+                    .build());
+            fixture.products.add(product);
+            fixture.stockArticles.add(fixture.stockRepository.addProduct(product, INITIAL_STOCK, stockUnit, BigDecimal.TEN));
+        }
+        for (int i = 0; i < ORDER_POOL_SIZE; i++) {
+            fixture.orders.add(fixture.newOrder(linesPerOrder));
+        }
+        return fixture;
+    }
+
+    /**
+     * Generates an order outside the pool, e.g. for orders too large to pregenerate a pool of.
+     *
+     * @param linesPerOrder number of order lines
+     * @return an order without id over random products of the catalog
+     */
+    public Order newOrder(final int linesPerOrder) {
+        List<OrderProduct> lines = new ArrayList<>(linesPerOrder);
+        for (int line = 0; line < linesPerOrder; line++) {
+            int index = random.nextInt(stockArticles.size());
+            OrderProduct orderProduct = new OrderProduct(stockArticles.get(index));
+            orderProduct.setQuantity(BigDecimal.ONE, unitMix.requestUnit(index));
+            lines.add(orderProduct);
+        }
+        return OrderBuilder.builder().products(lines).build();
+    }
+
+    /**
+     * @return the next pregenerated order, cycling through the pool
+     */
+    public Order nextOrder() {
+        Order order = orders.get(nextOrder);
+        nextOrder = (nextOrder + 1) % orders.size();
+        return order;
+    }
+
+    /**
+     * Draws random product indexes up front so that the benchmarks do not measure the random generator.
+     *
+     * @param count number of indexes, must be a power of two so callers can cycle with a mask
+     * @return indexes into {@link #products()} and {@link #stockArticles()}
+     */
+    public int[] randomProductIndexes(final int count) {
+        if (Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("count must be a power of two");
+        }
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = random.nextInt(products.size());
+        }
+        return indexes;
+    }
+
+    public ShopService shopService() {
+        return shopService;
+    }
+
+    public StockRepository stockRepository() {
+        return stockRepository;
+    }
+
+    public ProductRepository productRepository() {
+        return productRepository;
+    }
+
+    public OrderRepository orderRepository() {
+        return orderRepository;
+    }
+
+    public List<Product> products() {
+        return products;
+    }
+
+    public List<StockArticle> stockArticles() {
+        return stockArticles;
+    }
+
+    public UnitMixEnum unitMix() {
+        return unitMix;
+    }
+}
@@ -0,0 +1,119 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Enum.ValidationPolicyEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
+import ckollmeier.de.ShopService;
+import ckollmeier.de.ValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order hot path: {@link ShopService#addOrder} and {@link ShopService#removeOrder}.
+ * <p>
+ * The validation metrics printed after each trial show how much of the time is spent validating.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShopServiceOrderBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"1", "10", "100"})
+    private int linesPerOrder;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    @Param({"FULL", "STRUCTURAL"})
+    private ValidationPolicyEnum inputValidation;
+
+    private ShopFixture fixture;
+    private ShopService shopService;
+
+    /**
+     * Builds the catalog once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        fixture = ShopFixture.create(catalogSize, linesPerOrder, unitMix);
+        shopService = fixture.shopService();
+        ValidationUtils.setPolicy(ValidationScopeEnum.INPUT, inputValidation);
+        ValidationUtils.getMetrics().reset();
+    }
+
+    /**
+     * Prints the validation metrics of the trial.
+     */
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        System.out.println(ValidationUtils.getMetrics());
+        ValidationUtils.setPolicy(ValidationScopeEnum.INPUT, ValidationPolicyEnum.FULL);
+    }
+
+    /**
+     * Order placed for a single {@link #removeOrder(PlacedOrder)}, kept apart from the shared state so the
+     * other benchmarks have no per-invocation setup.
+     */
+    @State(Scope.Thread)
+    public static class PlacedOrder {
+        private Order order;
+
+        /**
+         * Places the order to remove.
+         *
+         * @param benchmark the shared benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(final ShopServiceOrderBenchmark benchmark) {
+            order = benchmark.shopService.addOrder(benchmark.fixture.nextOrder()).orElseThrow();
+        }
+
+        /**
+         * Removes the order if the invocation did not, so the repository does not grow.
+         *
+         * @param benchmark the shared benchmark state
+         */
+        @TearDown(Level.Invocation)
+        public void tearDown(final ShopServiceOrderBenchmark benchmark) {
+            if (benchmark.shopService.findOrder(order.id()).isPresent()) {
+                benchmark.shopService.removeOrder(order);
+            }
+        }
+    }
+
+    /**
+     * @return the placed order
+     */
+    @Benchmark
+    public Optional<Order> addOrder() {
+        return shopService.addOrder(fixture.nextOrder());
+    }
+
+    /**
+     * @param placedOrder order placed for this call
+     * @return the removed order
+     */
+    @Benchmark
+    public Optional<Order> removeOrder(final PlacedOrder placedOrder) {
+        return shopService.removeOrder(placedOrder.order);
+    }
+}
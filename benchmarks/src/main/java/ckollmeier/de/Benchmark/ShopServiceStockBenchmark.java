@@ -0,0 +1,85 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Repository.StockFilter;
+import ckollmeier.de.Repository.StockRepository;
+import ckollmeier.de.ShopService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full inventory listing through {@link ShopService#getAllStock()} in catalog order, through the parallel
+ * partition scan of {@link StockRepository#findAll()}, and streamed without a list through
+ * {@link ShopService#streamStock(StockFilter)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShopServiceStockBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private ShopService shopService;
+    private StockRepository stockRepository;
+
+    /**
+     * Builds the catalog once per trial.
+     */
+    @Setup
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(catalogSize, 1, unitMix);
+        shopService = fixture.shopService();
+        stockRepository = fixture.stockRepository();
+    }
+
+    /**
+     * @return all stock articles
+     */
+    @Benchmark
+    public List<StockArticle> getAllStock() {
+        return shopService.getAllStock();
+    }
+
+    /**
+     * @return all stock articles, in no particular order
+     */
+    @Benchmark
+    public List<StockArticle> findAll() {
+        return stockRepository.findAll();
+    }
+
+    /**
+     * @param blackhole consumes every streamed stock article
+     */
+    @Benchmark
+    public void streamStock(final Blackhole blackhole) {
+        shopService.streamStock(StockFilter.ALL).forEach(blackhole::consume);
+    }
+
+    /**
+     * @return number of stock articles in stock, counted in parallel
+     */
+    @Benchmark
+    public long streamStockParallel() {
+        return shopService.streamStock(StockFilter.ALL).parallel().filter(stockArticle -> stockArticle.quantity().signum() > 0).count();
+    }
+}
@@ -0,0 +1,134 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Persistence.Snapshot;
+import ckollmeier.de.Persistence.WriteAheadLog;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup: loading a {@link Snapshot} compared to replaying the {@link WriteAheadLog} from the beginning.
+ * <p>
+ * The store is built once per trial with {@code orderCount} orders, everything logged. Each invocation then starts
+ * with empty repositories. For the full size run with {@code -p orderCount=10000000} and a heap of a few GiB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SnapshotStartupBenchmark {
+    private static final int CATALOG_SIZE = 10000;
+    private static final int LINES_PER_ORDER = 3;
+
+    @Param({"100000", "1000000"})
+    private int orderCount;
+
+    private Path directory;
+    private Path logFile;
+    private Path snapshotFile;
+    private ProductRepository productRepository;
+    private StockRepository stockRepository;
+    private OrderRepository orderRepository;
+
+    /**
+     * Builds the store, logging every mutation, and writes a snapshot of it.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        directory = Files.createTempDirectory("benchmark");
+        logFile = directory.resolve("shop.wal");
+        snapshotFile = directory.resolve("shop.snapshot");
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1024, Duration.ofMillis(10))) {
+            ShopFixture fixture = ShopFixture.create(CATALOG_SIZE, LINES_PER_ORDER, UnitMixEnum.SAME, log);
+            for (int i = 0; i < orderCount; i++) {
+                fixture.shopService().addOrder(fixture.nextOrder());
+            }
+            Snapshot.write(snapshotFile, fixture.productRepository(), fixture.stockRepository(),
+                    fixture.orderRepository());
+        }
+        System.out.println("log: " + Files.size(logFile) + " bytes, snapshot: " + Files.size(snapshotFile) + " bytes");
+    }
+
+    /**
+     * Deletes the files of the trial.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        Files.delete(logFile);
+        Files.delete(snapshotFile);
+        Files.delete(directory);
+    }
+
+    /**
+     * Empty repositories for every start, so each one restores the whole store.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        productRepository = new ProductRepository();
+        stockRepository = new StockRepository();
+        orderRepository = new OrderRepository();
+    }
+
+    /**
+     * @return the restored orders
+     * @throws IOException if the snapshot cannot be mapped
+     */
+    @Benchmark
+    public OrderRepository loadSnapshot() throws IOException {
+        Snapshot.open(snapshotFile).loadInto(productRepository, stockRepository, orderRepository);
+        return orderRepository;
+    }
+
+    /**
+     * Maps the snapshot and reads a single order, the cost of a lazy start before the first request.
+     *
+     * @return the read order
+     * @throws IOException if the snapshot cannot be mapped
+     */
+    @Benchmark
+    public Order openSnapshotLazily() throws IOException {
+        Snapshot snapshot = Snapshot.open(snapshotFile);
+        return snapshot.order(snapshot.getOrderCount() / 2);
+    }
+
+    /**
+     * @return the restored orders
+     * @throws IOException if the log cannot be read
+     */
+    @Benchmark
+    public OrderRepository replayLog() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1024, Duration.ZERO)) {
+            ProductRepository products = new ProductRepository(log);
+            StockRepository stock = new StockRepository(log);
+            OrderRepository orders = new OrderRepository(log);
+            log.recover(products, stock, orders);
+            return orders;
+        }
+    }
+}
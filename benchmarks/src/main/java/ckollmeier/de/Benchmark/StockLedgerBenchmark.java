@@ -0,0 +1,109 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Ledger.DailyConsumptionView;
+import ckollmeier.de.Ledger.StockLedger;
+import ckollmeier.de.Ledger.StockLevelView;
+import ckollmeier.de.Ledger.UnitTotalsView;
+import ckollmeier.de.Repository.FixedPointQuantity;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording stock movements in a {@link StockLedger} and reading its views instead of scanning the stock.
+ * <p>
+ * {@link #reserveWithLedger()} compares to {@code StockRepositoryBenchmark.reserveBaseUnits}, the difference is
+ * appending the movement and updating three views. The ledger grows with every reservation, so it is rebuilt for
+ * every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StockLedgerBenchmark {
+    /**
+     * number of precomputed lookups, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private StockRepository stockRepository;
+    private UnitTotalsView unitTotals;
+    private String[] productIds;
+    private long[] requestBaseUnits;
+    private String[] orderIds;
+    private int next;
+
+    /**
+     * Builds the catalog with a ledger and its views.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        StockLedger ledger = new StockLedger();
+        ShopFixture fixture = ShopFixture.create(catalogSize, 1, UnitMixEnum.MIXED, ledger);
+        stockRepository = fixture.stockRepository();
+        ledger.subscribe(new StockLevelView());
+        ledger.subscribe(new DailyConsumptionView(ZoneOffset.UTC));
+        unitTotals = ledger.subscribe(new UnitTotalsView());
+        int[] indexes = fixture.randomProductIndexes(LOOKUPS);
+        productIds = new String[LOOKUPS];
+        requestBaseUnits = new long[LOOKUPS];
+        orderIds = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            productIds[i] = fixture.stockArticles().get(indexes[i]).productId();
+            requestBaseUnits[i] = FixedPointQuantity.toBaseUnits(BigDecimal.ONE, UnitMixEnum.MIXED.requestUnit(indexes[i]));
+            orderIds[i] = "order-" + i;
+        }
+    }
+
+    /**
+     * @return whether one unit was reserved
+     */
+    @Benchmark
+    public boolean reserveWithLedger() {
+        int i = next++ & (LOOKUPS - 1);
+        return stockRepository.reserveBaseUnits(productIds[i], requestBaseUnits[i], orderIds[i]);
+    }
+
+    /**
+     * @return total stock kept in kilogram, read from the view
+     */
+    @Benchmark
+    public long unitTotalFromView() {
+        return unitTotals.total(UnitEnum.KG);
+    }
+
+    /**
+     * @return total stock kept in kilogram, summed over all stock articles
+     */
+    @Benchmark
+    public long unitTotalByScan() {
+        long total = 0;
+        for (StockArticle stockArticle : stockRepository.findAll()) {
+            if (stockArticle.unit() == UnitEnum.KG) {
+                total += FixedPointQuantity.toBaseUnits(stockArticle.quantity(), stockArticle.unit());
+            }
+        }
+        return total;
+    }
+}
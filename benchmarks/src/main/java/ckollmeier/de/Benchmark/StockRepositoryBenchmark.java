@@ -0,0 +1,107 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.FixedPointQuantity;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single line stock operations: {@link StockRepository#isSufficientInStock} and {@link StockRepository#decreaseQuantity}.
+ * <p>
+ * The base unit variants skip the {@link BigDecimal} conversion and should not allocate, check with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StockRepositoryBenchmark {
+    /**
+     * number of precomputed lookups, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private StockRepository stockRepository;
+    private StockArticle[] articles;
+    private UnitEnum[] requestUnits;
+    private String[] productIds;
+    private long[] requestBaseUnits;
+    private int next;
+
+    /**
+     * Builds the catalog and the sequence of looked up articles.
+     */
+    @Setup
+    public void setUp() {
+        ShopFixture fixture = ShopFixture.create(catalogSize, 1, unitMix);
+        stockRepository = fixture.stockRepository();
+        int[] indexes = fixture.randomProductIndexes(LOOKUPS);
+        articles = new StockArticle[LOOKUPS];
+        requestUnits = new UnitEnum[LOOKUPS];
+        productIds = new String[LOOKUPS];
+        requestBaseUnits = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            articles[i] = fixture.stockArticles().get(indexes[i]);
+            requestUnits[i] = unitMix.requestUnit(indexes[i]);
+            productIds[i] = articles[i].productId();
+            requestBaseUnits[i] = FixedPointQuantity.toBaseUnits(BigDecimal.ONE, requestUnits[i]);
+        }
+    }
+
+    /**
+     * @return whether one unit is in stock
+     */
+    @Benchmark
+    public boolean isSufficientInStock() {
+        int i = next++ & (LOOKUPS - 1);
+        return stockRepository.isSufficientInStock(articles[i], BigDecimal.ONE, requestUnits[i]);
+    }
+
+    /**
+     * @return the updated stock article
+     */
+    @Benchmark
+    public StockArticle decreaseQuantity() {
+        int i = next++ & (LOOKUPS - 1);
+        return stockRepository.decreaseQuantity(articles[i], BigDecimal.ONE, requestUnits[i]);
+    }
+
+    /**
+     * @return whether one unit is in stock
+     */
+    @Benchmark
+    public boolean isSufficientInStockBaseUnits() {
+        int i = next++ & (LOOKUPS - 1);
+        return stockRepository.isSufficientInStock(productIds[i], requestBaseUnits[i]);
+    }
+
+    /**
+     * @return whether one unit was reserved
+     */
+    @Benchmark
+    public boolean reserveBaseUnits() {
+        int i = next++ & (LOOKUPS - 1);
+        return stockRepository.reserveBaseUnits(productIds[i], requestBaseUnits[i]);
+    }
+}
@@ -0,0 +1,101 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.StockRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of {@link StockRepository#reserve}.
+ * <p>
+ * Runs on all cores by default, scaling with core count is measured by repeating with {@code -t 1}, {@code -t 2}, ...
+ * {@code hotProducts} controls contention: all threads reserve from the same few products or spread over the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StockRepositoryConcurrencyBenchmark {
+    /**
+     * number of precomputed lookups per thread, a power of two.
+     */
+    private static final int LOOKUPS = 1 << 14;
+    /**
+     * products in the catalog.
+     */
+    private static final int CATALOG_SIZE = 10000;
+
+    @Param({"1", "64", "10000"})
+    private int hotProducts;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private ShopFixture fixture;
+    private StockRepository stockRepository;
+
+    /**
+     * Builds the catalog once per trial.
+     */
+    @Setup
+    public void setUp() {
+        fixture = ShopFixture.create(CATALOG_SIZE, 1, unitMix);
+        stockRepository = fixture.stockRepository();
+    }
+
+    /**
+     * Per-thread sequence of reserved products.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private StockArticle[] articles;
+        private UnitEnum[] requestUnits;
+        private int next;
+
+        /**
+         * Draws the products this thread reserves from.
+         *
+         * @param benchmark the shared benchmark state
+         */
+        @Setup
+        public void setUp(final StockRepositoryConcurrencyBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            articles = new StockArticle[LOOKUPS];
+            requestUnits = new UnitEnum[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                int index = random.nextInt(benchmark.hotProducts);
+                articles[i] = benchmark.fixture.stockArticles().get(index);
+                requestUnits[i] = benchmark.unitMix.requestUnit(index);
+            }
+        }
+    }
+
+    /**
+     * @param thread the per-thread state
+     * @return the updated stock article
+     */
+    @Benchmark
+    public Optional<StockArticle> reserve(final ThreadState thread) {
+        int i = thread.next++ & (LOOKUPS - 1);
+        return stockRepository.reserve(thread.articles[i], BigDecimal.ONE, thread.requestUnits[i]);
+    }
+}
@@ -0,0 +1,102 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Enum.UnitEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit conversion through {@link UnitEnum#conversionFactor}, paid once per order line.
+ * <p>
+ * {@link #computedConversionFactor()} is the former implementation, computing the factor on every call, as
+ * baseline for the precomputed table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UnitEnumBenchmark {
+    /**
+     * number of precomputed unit pairs, a power of two.
+     */
+    private static final int PAIRS = 1 << 10;
+
+    @Param({"SAME", "MIXED"})
+    private UnitMixEnum unitMix;
+
+    private UnitEnum[] from;
+    private UnitEnum[] to;
+    private int next;
+
+    /**
+     * Precomputes the converted unit pairs.
+     */
+    @Setup
+    public void setUp() {
+        from = new UnitEnum[PAIRS];
+        to = new UnitEnum[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = unitMix.stockUnit(i);
+            to[i] = unitMix.requestUnit(i);
+        }
+    }
+
+    /**
+     * @return the conversion factor of the next pair
+     */
+    @Benchmark
+    public BigDecimal conversionFactor() {
+        int i = next++ & (PAIRS - 1);
+        return from[i].conversionFactor(to[i]);
+    }
+
+    /**
+     * @return the conversion factor of the next pair as double
+     */
+    @Benchmark
+    public double conversionFactorAsDouble() {
+        int i = next++ & (PAIRS - 1);
+        return from[i].conversionFactorAsDouble(to[i]);
+    }
+
+    /**
+     * @return the conversion factor of the next pair, computed as before the table
+     */
+    @Benchmark
+    public BigDecimal computedConversionFactor() {
+        int i = next++ & (PAIRS - 1);
+        return computeConversionFactor(from[i], to[i]);
+    }
+
+    private static BigDecimal computeConversionFactor(final UnitEnum fromUnit, final UnitEnum toUnit) {
+        String base = baseShortName(fromUnit);
+        if (!base.equals(baseShortName(toUnit))) {
+            throw new IllegalArgumentException("units not convertible");
+        }
+        BigDecimal intoBase = UnitEnum.getUnitForShort(base).getFactor().divide(fromUnit.getFactor());
+        BigDecimal intoUnit = intoBase.multiply(toUnit.getFactor());
+        return intoUnit.setScale(Math.max(toUnit.getScale(), intoUnit.scale()), RoundingMode.HALF_UP);
+    }
+
+    private static String baseShortName(final UnitEnum unit) {
+        return switch (unit) {
+            case MG, G, KG, T -> "g";
+            case ML, CL, DL, L, M3 -> "l";
+            case PCS -> "p";
+        };
+    }
+}
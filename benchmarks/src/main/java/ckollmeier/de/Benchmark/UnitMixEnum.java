@@ -0,0 +1,47 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Enum.UnitEnum;
+
+/**
+ * Unit combinations used for stock articles and the quantities requested against them.
+ */
+public enum UnitMixEnum {
+    /**
+     * Stock and requests in pieces, every conversion is the identity.
+     */
+    SAME(new UnitEnum[]{UnitEnum.PCS}, new UnitEnum[]{UnitEnum.PCS}),
+    /**
+     * Stock in kg, l and pieces, requests in g, ml and pieces.
+     */
+    MIXED(new UnitEnum[]{UnitEnum.KG, UnitEnum.L, UnitEnum.PCS}, new UnitEnum[]{UnitEnum.G, UnitEnum.ML, UnitEnum.PCS});
+
+    /**
+     * units of the stock articles.
+     */
+    private final UnitEnum[] stockUnits;
+    /**
+     * units of the requested quantities, same family as the stock unit at the same index.
+     */
+    private final UnitEnum[] requestUnits;
+
+    UnitMixEnum(final UnitEnum[] stockUnits, final UnitEnum[] requestUnits) {
+        this.stockUnits = stockUnits;
+        this.requestUnits = requestUnits;
+    }
+
+    /**
+     * @param index running index of the product
+     * @return unit the stock of the product is kept in
+     */
+    public UnitEnum stockUnit(final int index) {
+        return stockUnits[index % stockUnits.length];
+    }
+
+    /**
+     * @param index running index of the product
+     * @return unit quantities for the product are requested in
+     */
+    public UnitEnum requestUnit(final int index) {
+        return requestUnits[index % requestUnits.length];
+    }
+}
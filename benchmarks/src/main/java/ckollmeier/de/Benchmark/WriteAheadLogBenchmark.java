@@ -0,0 +1,92 @@
+package ckollmeier.de.Benchmark;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Persistence.WriteAheadLog;
+import ckollmeier.de.ShopService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShopService#addOrder} with every mutation appended to a {@link WriteAheadLog}.
+ * <p>
+ * Compare the group sizes with each other and with {@link ShopServiceOrderBenchmark}, which does not log at all.
+ * The number of syncs printed after each trial shows how many records share one fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class WriteAheadLogBenchmark {
+    private static final int CATALOG_SIZE = 10000;
+    private static final int LINES_PER_ORDER = 10;
+
+    @Param({"1", "64", "1024"})
+    private int syncEveryRecords;
+
+    @Param({"0", "10"})
+    private int syncIntervalMillis;
+
+    private Path file;
+    private WriteAheadLog log;
+    private ShopFixture fixture;
+    private ShopService shopService;
+
+    /**
+     * Opens a fresh log and builds the catalog, which is logged as well.
+     *
+     * @throws IOException if the log cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        file = Files.createTempFile("benchmark", ".wal");
+        log = WriteAheadLog.open(file, syncEveryRecords, Duration.ofMillis(syncIntervalMillis));
+        fixture = ShopFixture.create(CATALOG_SIZE, LINES_PER_ORDER, UnitMixEnum.SAME, log);
+        shopService = fixture.shopService();
+    }
+
+    /**
+     * Prints the syncs of the trial and deletes the log.
+     *
+     * @throws IOException if the log cannot be closed or deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        log.close();
+        System.out.println("syncs: " + log.getSyncs() + ", log size: " + Files.size(file) + " bytes");
+        Files.delete(file);
+    }
+
+    /**
+     * @return the placed order
+     */
+    @Benchmark
+    public Optional<Order> addOrder() {
+        Order order;
+        synchronized (this) {
+            order = fixture.nextOrder();
+        }
+        return shopService.addOrder(order);
+    }
+}
@@ -0,0 +1,270 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entity.Interface.ProductInterface;
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade of a {@link ShopService} in which every product is only ever changed by one thread.
+ * <p>
+ * The products are split into shards by the hash of their id, and every shard has a single-threaded executor that
+ * runs all stock changes of its products in the order they were submitted. The shards are aligned with the lock
+ * stripes of the stock repository, so a stripe is only ever locked by the thread of its shard and never contended.
+ * <p>
+ * An order whose products all belong to one shard is placed on that shard's thread. The lines of an order spanning
+ * several shards are reserved by each shard on its own, and the order is stored by the shard finishing last, so no
+ * thread waits for another. If an {@link ReservationModeEnum#ALL_OR_NOTHING all-or-nothing} order cannot
+ * be reserved by one shard, the other shards give back what they reserved. Until then, other orders may see that
+ * stock as taken. If the reservation of any shard fails, e.g. on an invalid quantity, the other shards give back
+ * what they reserved before the returned future fails.
+ * <p>
+ * Stock changes through the wrapped service or the repositories themselves still work, but are neither ordered
+ * with the changes of the shards nor free of contention.
+ */
+public final class AsyncShopService implements AutoCloseable {
+    private final ShopService shopService;
+    private final ExecutorService[] shards;
+    private final int mask;
+
+    /**
+     * Creates a facade with one shard per available processor.
+     *
+     * @param shopService service doing the work
+     */
+    public AsyncShopService(final @NonNull ShopService shopService) {
+        this(shopService, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param shopService service doing the work
+     * @param shardCount  number of shards, rounded up to a power of two and at most the number of lock stripes of
+     *                    the stock, so no stripe is shared by two shards
+     */
+    public AsyncShopService(final @NonNull ShopService shopService, final int shardCount) {
+        this.shopService = shopService;
+        // both are powers of two, so each stripe belongs to exactly one shard
+        int size = Math.min(shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1, shopService.stockStripeCount());
+        shards = new ExecutorService[size];
+        for (int i = 0; i < size; i++) {
+            String name = "shop-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * @param productId id of a product
+     * @return index of the shard owning the product, spread like the lock stripes of the repositories
+     */
+    int shardOf(final String productId) {
+        int hash = productId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Places an order according to the {@link ShopService#getReservationMode() reservation mode}, see
+     * {@link ShopService#addOrder(Order)}.
+     *
+     * @param placedOrder order to place
+     * @return the placed order, empty if the order was rejected for lack of stock
+     */
+    public CompletableFuture<Optional<Order>> addOrder(final @NonNull Order placedOrder) {
+        Order order = shopService.withId(placedOrder);
+        List<List<OrderProduct>> linesByShard = linesByShard(order.products());
+        if (linesByShard.size() == 1) {
+            int shard = shardOf(linesByShard.get(0).get(0).productId());
+            return CompletableFuture.supplyAsync(() -> shopService.addOrder(order), shards[shard]);
+        }
+        if (shopService.getReservationMode() == ReservationModeEnum.ALL_OR_NOTHING) {
+            return addOrderAllOrNothing(order, linesByShard);
+        }
+        List<CompletableFuture<List<OrderProduct>>> reservations = new ArrayList<>(linesByShard.size());
+        for (List<OrderProduct> lines : linesByShard) {
+            reservations.add(onShardOf(lines, () -> shopService.reserveEach(lines, order.id())));
+        }
+        return settled(reservations).thenCompose(done -> {
+            List<OrderProduct> reserved = new ArrayList<>(order.products().size());
+            Throwable failure = null;
+            for (CompletableFuture<List<OrderProduct>> reservation : reservations) {
+                Throwable shardFailure = failureOf(reservation);
+                if (shardFailure == null) {
+                    reserved.addAll(reservation.join());
+                } else if (failure == null) {
+                    failure = shardFailure;
+                }
+            }
+            if (failure != null) {
+                return fail(reserved, order.id(), failure);
+            }
+            return store(order.withProducts(reserved), reserved);
+        });
+    }
+
+    private CompletableFuture<Optional<Order>> addOrderAllOrNothing(final Order order, final List<List<OrderProduct>> linesByShard) {
+        List<CompletableFuture<Boolean>> reservations = new ArrayList<>(linesByShard.size());
+        for (List<OrderProduct> lines : linesByShard) {
+            reservations.add(onShardOf(lines, () -> shopService.reserveAll(lines, order.id())));
+        }
+        return settled(reservations).thenCompose(done -> {
+            List<OrderProduct> reserved = new ArrayList<>(order.products().size());
+            boolean complete = true;
+            Throwable failure = null;
+            for (int i = 0; i < linesByShard.size(); i++) {
+                Throwable shardFailure = failureOf(reservations.get(i));
+                if (shardFailure == null && reservations.get(i).join()) {
+                    reserved.addAll(linesByShard.get(i));
+                } else {
+                    complete = false;
+                    if (failure == null) {
+                        failure = shardFailure;
+                    }
+                }
+            }
+            if (failure != null) {
+                return fail(reserved, order.id(), failure);
+            }
+            if (complete) {
+                return store(order, reserved);
+            }
+            return release(reserved, order.id()).thenApply(released -> Optional.<Order>empty());
+        });
+    }
+
+    // runs on the shard finishing last, on failure the reserved lines are given back before the future fails
+    private CompletableFuture<Optional<Order>> store(final Order order, final List<OrderProduct> reserved) {
+        try {
+            return CompletableFuture.completedFuture(shopService.store(order));
+        } catch (RuntimeException e) {
+            return fail(reserved, order.id(), e);
+        }
+    }
+
+    // gives back the reserved lines, then fails with the failure that stopped the order
+    private CompletableFuture<Optional<Order>> fail(final List<OrderProduct> reserved, final String orderId, final Throwable failure) {
+        return release(reserved, orderId).thenCompose(released -> CompletableFuture.failedFuture(failure));
+    }
+
+    // completes once all futures are done, whether they failed or not
+    private static CompletableFuture<Void> settled(final List<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((done, failure) -> null);
+    }
+
+    // the exception a done future failed with, null if it succeeded
+    private static Throwable failureOf(final CompletableFuture<?> future) {
+        return future.handle((result, failure) -> failure instanceof CompletionException ? failure.getCause() : failure).join();
+    }
+
+    private CompletableFuture<Void> release(final List<OrderProduct> reserved, final String orderId) {
+        List<CompletableFuture<Void>> releases = new ArrayList<>();
+        for (List<OrderProduct> lines : linesByShard(reserved)) {
+            releases.add(onShardOf(lines, () -> {
+                shopService.releaseAll(lines, orderId);
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(releases.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Removes an order and gives back its stock on the shards of its products.
+     * <p>
+     * The order is removed before its stock is given back, so removing the same order twice gives back its stock
+     * only once.
+     *
+     * @param order the order to remove
+     * @return the removed order, failed with an {@link IllegalArgumentException} if the order is not stored
+     */
+    public CompletableFuture<Optional<Order>> removeOrder(final @NonNull Order order) {
+        if (order.id() == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Order id cannot be null"));
+        }
+        Optional<Order> removed = shopService.removeStored(order.id());
+        if (removed.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Order with id " + order.id() + " not found"));
+        }
+        return release(removed.get().products(), order.id()).thenApply(released -> removed);
+    }
+
+    /**
+     * Increases the stock of a product on its shard, see {@link ShopService#increaseStock}.
+     *
+     * @param product  the product to increase stock for
+     * @param quantity the quantity to add to the stock
+     * @param unit     the unit of measurement for the stock
+     * @return the updated stock article
+     */
+    public CompletableFuture<StockArticle> increaseStock(final @NonNull ProductInterface product, final @NonNull BigDecimal quantity, final @NonNull UnitEnum unit) {
+        return CompletableFuture.supplyAsync(() -> shopService.increaseStock(product, quantity, unit), shards[shardOf(product.productId())]);
+    }
+
+    /**
+     * Decreases the stock of a product on its shard, see {@link ShopService#decreaseStock}.
+     *
+     * @param product  the product to decrease stock for
+     * @param quantity the quantity to subtract from the stock
+     * @param unit     the unit of measurement for the stock
+     * @return the updated stock article
+     */
+    public CompletableFuture<StockArticle> decreaseStock(final @NonNull ProductInterface product, final @NonNull BigDecimal quantity, final @NonNull UnitEnum unit) {
+        return CompletableFuture.supplyAsync(() -> shopService.decreaseStock(product, quantity, unit), shards[shardOf(product.productId())]);
+    }
+
+    /**
+     * @return the wrapped service, e.g. for reads
+     */
+    public ShopService getShopService() {
+        return shopService;
+    }
+
+    /**
+     * Stops the shards after the submitted operations are done.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    // groups the lines by shard in order of their first line, keeping the order of the lines within a shard
+    private List<List<OrderProduct>> linesByShard(final List<OrderProduct> lines) {
+        List<OrderProduct>[] byShard = newShardLists();
+        List<List<OrderProduct>> grouped = new ArrayList<>();
+        for (OrderProduct line : lines) {
+            int shard = shardOf(line.productId());
+            if (byShard[shard] == null) {
+                byShard[shard] = new ArrayList<>();
+                grouped.add(byShard[shard]);
+            }
+            byShard[shard].add(line);
+        }
+        return grouped;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<OrderProduct>[] newShardLists() {
+        return new List[shards.length];
+    }
+
+    private <T> CompletableFuture<T> onShardOf(final List<OrderProduct> lines, final Supplier<T> action) {
+        return CompletableFuture.supplyAsync(action, shards[shardOf(lines.get(0).productId())]);
+    }
+}
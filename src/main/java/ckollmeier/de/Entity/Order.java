@@ -3,12 +3,29 @@ package ckollmeier.de.Entity;
 import io.soabase.recordbuilder.core.RecordBuilder;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 
+import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * @param id       id of the order
+ * @param products order lines
+ * @param total    sum of the subtotals of the order lines, null until the order has been priced
+ */
 @RecordBuilder
 public record Order(
         @NotBlank(message = "Id must not be empty") String id,
-        @NotNull(message = "Products must not be null") List<OrderProduct> products
+        @NotNull(message = "Products must not be null") List<OrderProduct> products,
+        @PositiveOrZero(message = "Total must be positive or zero") BigDecimal total
 ) implements OrderBuilder.With {
+    /**
+     * Creates an order that has not been priced yet.
+     *
+     * @param id       id of the order
+     * @param products order lines
+     */
+    public Order(final String id, final List<OrderProduct> products) {
+        this(id, products, null);
+    }
 }
@@ -5,6 +5,7 @@ import ckollmeier.de.Enum.UnitEnum;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -12,6 +13,7 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Getter
+@AllArgsConstructor
 @RequiredArgsConstructor
 public final class OrderProduct implements ProductInterface {
     private @NotBlank(message = "Id must not be empty") String id;
@@ -21,6 +23,7 @@ public final class OrderProduct implements ProductInterface {
     @Setter
     private @PositiveOrZero(message = "Quantity must be positive") BigDecimal quantity;
 
+    @Setter
     private @PositiveOrZero(message = "Price must be positive") BigDecimal priceSubTotal;
 
     public void setQuantity(final BigDecimal newQuantity, final UnitEnum unit) {
@@ -0,0 +1,36 @@
+package ckollmeier.de.Entity;
+
+import ckollmeier.de.Enum.StockMovementTypeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import io.soabase.recordbuilder.core.RecordBuilder;
+
+import java.time.Instant;
+
+/**
+ * Immutable change of the stock of one product.
+ *
+ * @param sequence  position of the movement in the ledger, starting at 1
+ * @param productId id of the product
+ * @param type      kind of the movement
+ * @param baseUnits moved quantity in milligram, milliliter or pieces, never negative
+ * @param unit      unit of the stock article, its family gives the meaning of the base units
+ * @param orderId   id of the order causing the movement, null if not caused by an order
+ * @param time      when the movement was recorded
+ */
+@RecordBuilder
+public record StockMovement(
+        long sequence,
+        String productId,
+        StockMovementTypeEnum type,
+        long baseUnits,
+        UnitEnum unit,
+        String orderId,
+        Instant time
+) implements StockMovementBuilder.With {
+    /**
+     * @return the moved quantity, negative for decreases
+     */
+    public long signedBaseUnits() {
+        return type == StockMovementTypeEnum.DECREASED ? -baseUnits : baseUnits;
+    }
+}
@@ -0,0 +1,12 @@
+package ckollmeier.de.Enum;
+
+public enum ReservationModeEnum {
+    /**
+     * Lines without sufficient stock are dropped from the order, the other lines are reserved one by one.
+     */
+    PARTIAL,
+    /**
+     * All lines are reserved together or the order is rejected.
+     */
+    ALL_OR_NOTHING
+}
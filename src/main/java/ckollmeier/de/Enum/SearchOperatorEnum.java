@@ -0,0 +1,12 @@
+package ckollmeier.de.Enum;
+
+public enum SearchOperatorEnum {
+    /**
+     * Products containing all terms of the query.
+     */
+    AND,
+    /**
+     * Products containing any term of the query.
+     */
+    OR
+}
@@ -0,0 +1,16 @@
+package ckollmeier.de.Enum;
+
+public enum StockMovementTypeEnum {
+    /**
+     * A stock article was added with its initial quantity.
+     */
+    ADDED,
+    /**
+     * The stock was increased, e.g. by a delivery or a removed order.
+     */
+    INCREASED,
+    /**
+     * The stock was decreased, e.g. by a reserved order.
+     */
+    DECREASED
+}
@@ -68,6 +68,42 @@ public enum UnitEnum {
      */
     private int scale;
 
+    /**
+     * conversion factors by ordinal of the unit to convert from and to, null if not convertible.
+     */
+    private static final BigDecimal[][] FACTORS;
+    /**
+     * {@link #FACTORS} as doubles, NaN if not convertible.
+     */
+    private static final double[][] DOUBLE_FACTORS;
+    /**
+     * {@link #FACTORS} as longs, 0 if not convertible or not a whole number.
+     */
+    private static final long[][] LONG_FACTORS;
+
+    static {
+        UnitEnum[] units = values();
+        FACTORS = new BigDecimal[units.length][units.length];
+        DOUBLE_FACTORS = new double[units.length][units.length];
+        LONG_FACTORS = new long[units.length][units.length];
+        for (UnitEnum from : units) {
+            for (UnitEnum to : units) {
+                double doubleFactor = Double.NaN;
+                long longFactor = 0;
+                if (from.base.equals(to.base)) {
+                    BigDecimal factor = from.computeConversionFactor(to);
+                    FACTORS[from.ordinal()][to.ordinal()] = factor;
+                    doubleFactor = factor.doubleValue();
+                    if (factor.stripTrailingZeros().scale() <= 0) {
+                        longFactor = factor.longValueExact();
+                    }
+                }
+                DOUBLE_FACTORS[from.ordinal()][to.ordinal()] = doubleFactor;
+                LONG_FACTORS[from.ordinal()][to.ordinal()] = longFactor;
+            }
+        }
+    }
+
     UnitEnum(
             final String unitName,
             final String shortName,
@@ -116,6 +152,14 @@ public enum UnitEnum {
         return getUnitForShort(base);
     }
 
+    /**
+     * @param toUnit unit to compare with
+     * @return true if quantities of this unit can be converted to toUnit
+     */
+    public boolean isConvertibleTo(final UnitEnum toUnit) {
+        return toUnit != null && FACTORS[ordinal()][toUnit.ordinal()] != null;
+    }
+
     /**
      * @param toUnit unit to convert to
      * @return conversion factor to convert to toUnit
@@ -124,9 +168,49 @@ public enum UnitEnum {
         if (toUnit == null) {
             throw new IllegalArgumentException("null not allowed");
         }
-        if (!base.equals(toUnit.base)) {
+        BigDecimal conversion = FACTORS[ordinal()][toUnit.ordinal()];
+        if (conversion == null) {
+            throw new IllegalArgumentException("units not convertible");
+        }
+        return conversion;
+    }
+
+    /**
+     * @param toUnit unit to convert to
+     * @return conversion factor to convert to toUnit as double
+     */
+    public double conversionFactorAsDouble(final UnitEnum toUnit) {
+        if (toUnit == null) {
+            throw new IllegalArgumentException("null not allowed");
+        }
+        double conversion = DOUBLE_FACTORS[ordinal()][toUnit.ordinal()];
+        if (Double.isNaN(conversion)) {
             throw new IllegalArgumentException("units not convertible");
         }
+        return conversion;
+    }
+
+    /**
+     * For fixed-point arithmetic, e.g. {@code G.conversionFactorAsLong(KG)} is 1000.
+     *
+     * @param toUnit unit to convert to, must not be smaller than this unit
+     * @return conversion factor to convert to toUnit as long
+     * @throws IllegalArgumentException if the units are not convertible or the factor is not a whole number
+     */
+    public long conversionFactorAsLong(final UnitEnum toUnit) {
+        if (toUnit == null) {
+            throw new IllegalArgumentException("null not allowed");
+        }
+        long conversion = LONG_FACTORS[ordinal()][toUnit.ordinal()];
+        if (conversion == 0) {
+            throw new IllegalArgumentException(FACTORS[ordinal()][toUnit.ordinal()] == null
+                    ? "units not convertible"
+                    : "conversion factor from " + shortName + " to " + toUnit.shortName + " is not a whole number");
+        }
+        return conversion;
+    }
+
+    private BigDecimal computeConversionFactor(final UnitEnum toUnit) {
         // into base unit
         BigDecimal intoBase = getBaseUnit().factor.divide(factor);
         BigDecimal intoUnit = intoBase.multiply(toUnit.getFactor());
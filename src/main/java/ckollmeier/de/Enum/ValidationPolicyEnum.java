@@ -0,0 +1,16 @@
+package ckollmeier.de.Enum;
+
+public enum ValidationPolicyEnum {
+    /**
+     * All constraints are checked.
+     */
+    FULL,
+    /**
+     * Only checks that required properties are present, for objects derived from already validated ones.
+     */
+    STRUCTURAL,
+    /**
+     * A random sample of the objects is checked fully, all others structurally.
+     */
+    SAMPLED
+}
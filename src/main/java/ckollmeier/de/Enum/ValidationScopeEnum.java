@@ -0,0 +1,16 @@
+package ckollmeier.de.Enum;
+
+public enum ValidationScopeEnum {
+    /**
+     * Objects coming from outside, e.g. user input or the public methods of the repositories.
+     */
+    INPUT,
+    /**
+     * Objects the repositories derive from already validated objects.
+     */
+    INTERNAL,
+    /**
+     * Objects of bulk imports.
+     */
+    BULK
+}
@@ -0,0 +1,45 @@
+package ckollmeier.de.Enum;
+
+import java.util.concurrent.locks.LockSupport;
+
+public enum WaitStrategyEnum {
+    /**
+     * Spins on the CPU: the lowest latency, but every waiting thread keeps a core busy.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(final int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    /**
+     * Spins briefly, then parks for a few microseconds at a time: frees the cores when idle, at the cost of the
+     * wake-up latency.
+     */
+    PARK {
+        @Override
+        public void idle(final int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    /**
+     * attempts spun before parking.
+     */
+    private static final int SPIN_ATTEMPTS = 100;
+    /**
+     * time parked per attempt, the scheduler usually adds some tens of microseconds.
+     */
+    private static final long PARK_NANOS = 1000L;
+
+    /**
+     * Waits a little for work.
+     *
+     * @param attempt number of attempts already waited without work, 0 on the first
+     */
+    public abstract void idle(int attempt);
+}
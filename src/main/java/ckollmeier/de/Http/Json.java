@@ -0,0 +1,252 @@
+package ckollmeier.de.Http;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader for the request bodies of the HTTP API.
+ * <p>
+ * Objects are read into {@link LinkedHashMap}s, arrays into {@link ArrayList}s and numbers into {@link BigDecimal}s,
+ * so prices and quantities keep their exact value. Responses are written by {@link JsonWriter}.
+ */
+final class Json {
+    /**
+     * radix of the four hex digits of a unicode escape.
+     */
+    private static final int HEX = 16;
+    /**
+     * number of hex digits of a unicode escape.
+     */
+    private static final int UNICODE_DIGITS = 4;
+    /**
+     * deepest nesting of objects and arrays read, so a malicious body cannot overflow the stack of the parser.
+     */
+    static final int MAX_DEPTH = 64;
+    /**
+     * most significant digits and decimal places of a number read, so a number like {@code 1e999999999} cannot make
+     * the plain responses of {@link JsonWriter} billions of digits long.
+     */
+    static final int MAX_DIGITS = 64;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Json(final String text) {
+        this.text = text;
+    }
+
+    /**
+     * @param text JSON text
+     * @return the value: a map, list, string, {@link BigDecimal}, boolean or null
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    static Object parse(final String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.position < text.length()) {
+            throw json.error("unexpected content after the value");
+        }
+        return value;
+    }
+
+    /**
+     * @param text JSON text
+     * @return the JSON object
+     * @throws IllegalArgumentException if the text is not a valid JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(final String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Invalid JSON: expected an object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("unexpected end");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> number();
+        };
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        enter();
+        skipWhitespace();
+        if (consume('}')) {
+            depth--;
+            return object;
+        }
+        do {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != '"') {
+                throw error("expected a name");
+            }
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+        } while (consume(','));
+        expect('}');
+        depth--;
+        return object;
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        enter();
+        skipWhitespace();
+        if (consume(']')) {
+            depth--;
+            return array;
+        }
+        do {
+            array.add(value());
+            skipWhitespace();
+        } while (consume(','));
+        expect(']');
+        depth--;
+        return array;
+    }
+
+    // steps into an object or array at the current position
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("nested deeper than " + MAX_DEPTH + " levels");
+        }
+        position++;
+    }
+
+    private String string() {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+            } else if (position < text.length()) {
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> appendUnicode(value);
+                    default -> throw error("invalid escape \\" + escaped);
+                }
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    // appends a unicode escape, a surrogate only as a pair of a high and a low surrogate escape
+    private void appendUnicode(final StringBuilder value) {
+        char c = unicode();
+        if (Character.isHighSurrogate(c) && text.startsWith("\\u", position)) {
+            position += 2;
+            char low = unicode();
+            if (!Character.isLowSurrogate(low)) {
+                throw error("unpaired surrogate in unicode escape");
+            }
+            value.append(c).append(low);
+        } else if (Character.isSurrogate(c)) {
+            throw error("unpaired surrogate in unicode escape");
+        } else {
+            value.append(c);
+        }
+    }
+
+    private char unicode() {
+        if (position + UNICODE_DIGITS > text.length()) {
+            throw error("incomplete unicode escape");
+        }
+        char c = 0;
+        for (int i = 0; i < UNICODE_DIGITS; i++) {
+            // only ASCII hex digits, no sign and no other digits Character.digit knows
+            char digit = text.charAt(position + i);
+            int value = digit <= 'f' ? Character.digit(digit, HEX) : -1;
+            if (value < 0) {
+                throw error("invalid unicode escape");
+            }
+            c = (char) (c << 4 | value);
+        }
+        position += UNICODE_DIGITS;
+        return c;
+    }
+
+    private BigDecimal number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        if (start == position) {
+            throw error("unexpected character '" + text.charAt(position) + "'");
+        }
+        BigDecimal number;
+        try {
+            number = new BigDecimal(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("invalid number");
+        }
+        if (number.precision() > MAX_DIGITS || number.scale() > MAX_DIGITS || number.scale() < -MAX_DIGITS) {
+            position = start;
+            throw error("number with more than " + MAX_DIGITS + " digits or decimal places");
+        }
+        return number;
+    }
+
+    private Object literal(final String literal, final Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("unexpected character '" + text.charAt(position) + "'");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private boolean consume(final char expected) {
+        if (position < text.length() && text.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char expected) {
+        if (!consume(expected)) {
+            throw error("expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException("Invalid JSON at position " + position + ": " + message);
+    }
+}
@@ -0,0 +1,136 @@
+package ckollmeier.de.Http;
+
+import java.math.BigDecimal;
+
+/**
+ * Writes JSON into a {@link StringBuilder}, separating values by commas itself.
+ */
+final class JsonWriter {
+    /**
+     * characters below are control characters that must be escaped.
+     */
+    private static final char FIRST_PRINTABLE = 0x20;
+
+    private final StringBuilder out = new StringBuilder();
+    private boolean separate;
+
+    /**
+     * @return this writer
+     */
+    JsonWriter beginObject() {
+        separator();
+        out.append('{');
+        separate = false;
+        return this;
+    }
+
+    /**
+     * @return this writer
+     */
+    JsonWriter endObject() {
+        out.append('}');
+        separate = true;
+        return this;
+    }
+
+    /**
+     * @return this writer
+     */
+    JsonWriter beginArray() {
+        separator();
+        out.append('[');
+        separate = false;
+        return this;
+    }
+
+    /**
+     * @return this writer
+     */
+    JsonWriter endArray() {
+        out.append(']');
+        separate = true;
+        return this;
+    }
+
+    /**
+     * @param name name of the next value of the current object
+     * @return this writer
+     */
+    JsonWriter name(final String name) {
+        separator();
+        appendString(name);
+        out.append(':');
+        separate = false;
+        return this;
+    }
+
+    /**
+     * @param value string, may be null
+     * @return this writer
+     */
+    JsonWriter value(final String value) {
+        separator();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendString(value);
+        }
+        separate = true;
+        return this;
+    }
+
+    /**
+     * @param value number, written exactly without exponent, may be null
+     * @return this writer
+     */
+    JsonWriter value(final BigDecimal value) {
+        separator();
+        out.append(value == null ? "null" : value.toPlainString());
+        separate = true;
+        return this;
+    }
+
+    /**
+     * @param value number
+     * @return this writer
+     */
+    JsonWriter value(final double value) {
+        separator();
+        out.append(value);
+        separate = true;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separator() {
+        if (separate) {
+            out.append(',');
+        }
+    }
+
+    private void appendString(final String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < FIRST_PRINTABLE) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,376 @@
+package ckollmeier.de.Http;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderBuilder;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.SearchOperatorEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.ShopService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.validation.ConstraintViolationException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server exposing products, stock and orders of a {@link ShopService} as JSON.
+ * <p>
+ * Every request runs on its own virtual thread, so a request blocked on a lock of the repositories does not hold
+ * a platform thread. Endpoints:
+ * <ul>
+ *     <li>{@code GET /products}, optionally with {@code ?prefix=} to search names or {@code ?query=} to search
+ *     descriptions, and {@code ?limit=}; {@code POST /products}; {@code GET} and {@code DELETE /products/{id}}</li>
+ *     <li>{@code GET /stock}; {@code POST /stock}; {@code GET /stock/{productId}}</li>
+ *     <li>{@code POST /orders}; {@code GET} and {@code DELETE /orders/{id}}</li>
+ * </ul>
+ * Invalid requests, including bodies over {@value #MAX_BODY_BYTES} bytes and JSON nested too deeply, are answered
+ * with 400, unknown ids with 404 and orders rejected for lack of stock with 409, each with an {@code error} message.
+ * Unexpected failures are answered with 500 and a generic message.
+ */
+public final class ShopHttpServer implements AutoCloseable {
+    private static final int OK = 200;
+    private static final int CREATED = 201;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int CONFLICT = 409;
+    private static final int INTERNAL_SERVER_ERROR = 500;
+    /**
+     * pending connections the socket accepts before refusing, high enough for load tests with many clients.
+     */
+    private static final int BACKLOG = 1024;
+    /**
+     * seconds {@link #close()} waits for running requests.
+     */
+    private static final int STOP_DELAY_SECONDS = 1;
+    /**
+     * number of products returned by a search without limit.
+     */
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    /**
+     * largest request body read, larger ones are answered with 400 without reading them further.
+     */
+    static final int MAX_BODY_BYTES = 1 << 20;
+    /**
+     * system property of the JDK server that disables Nagle's algorithm on its connections.
+     */
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    static {
+        // headers and body are written separately, with Nagle's algorithm every small response waited for the
+        // delayed acknowledgement of the client, about 40 ms; the JDK reads the property when it creates its first server
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+    }
+
+    private final ShopService shopService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Answer to a request.
+     *
+     * @param status HTTP status code
+     * @param body   JSON body
+     */
+    private record Response(int status, String body) {
+    }
+
+    /**
+     * Handler of the requests of one context.
+     */
+    @FunctionalInterface
+    private interface Route {
+        /**
+         * @param exchange the request
+         * @param id       path segment after the context, null if there is none
+         * @return the response
+         * @throws IOException if the request body cannot be read
+         */
+        Response handle(HttpExchange exchange, String id) throws IOException;
+    }
+
+    private ShopHttpServer(final ShopService shopService, final HttpServer server) {
+        this.shopService = shopService;
+        this.server = server;
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.createContext("/products", exchange -> serve(exchange, "/products", this::products));
+        server.createContext("/stock", exchange -> serve(exchange, "/stock", this::stock));
+        server.createContext("/orders", exchange -> serve(exchange, "/orders", this::orders));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a server on the given address.
+     *
+     * @param shopService service the requests are passed to
+     * @param address     address to listen on, port 0 picks a free port
+     * @return the started server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ShopHttpServer start(final @NonNull ShopService shopService, final @NonNull InetSocketAddress address)
+            throws IOException {
+        ShopHttpServer shopHttpServer = new ShopHttpServer(shopService, HttpServer.create(address, BACKLOG));
+        shopHttpServer.server.start();
+        return shopHttpServer;
+    }
+
+    /**
+     * @return the address the server listens on, with the actual port
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests and waits briefly for running ones.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    private Response products(final HttpExchange exchange, final String id) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (id == null && "GET".equals(method)) {
+            Map<String, String> query = query(exchange);
+            int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_SEARCH_LIMIT;
+            JsonWriter json = new JsonWriter().beginArray();
+            if (query.containsKey("query")) {
+                shopService.searchProductDescriptions(query.get("query"), SearchOperatorEnum.AND, limit)
+                        .forEach(hit -> writeProduct(json, hit.product(), hit.score()));
+            } else {
+                List<Product> products = query.containsKey("prefix")
+                        ? shopService.searchProducts(query.get("prefix"), limit)
+                        : shopService.getAllProducts();
+                products.forEach(product -> writeProduct(json, product, null));
+            }
+            return new Response(OK, json.endArray().toString());
+        }
+        if (id == null && "POST".equals(method)) {
+            Map<String, Object> body = Json.parseObject(body(exchange));
+            Product product = shopService.addProduct(ProductBuilder.builder()
+                    .name(string(body, "name"))
+                    .description(body.containsKey("description") ? string(body, "description") : "")
+                    .content(decimal(body, "content"))
+                    .unit(unit(string(body, "unit")))
+                    .build());
+            return new Response(CREATED, writeProduct(new JsonWriter(), product, null).toString());
+        }
+        if (id != null && "GET".equals(method)) {
+            return found(shopService.findProduct(id).map(product -> writeProduct(new JsonWriter(), product, null)));
+        }
+        if (id != null && "DELETE".equals(method)) {
+            return found(shopService.findProduct(id).flatMap(shopService::removeProduct)
+                    .map(product -> writeProduct(new JsonWriter(), product, null)));
+        }
+        return methodNotAllowed(method);
+    }
+
+    private Response stock(final HttpExchange exchange, final String productId) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (productId == null && "GET".equals(method)) {
+            JsonWriter json = new JsonWriter().beginArray();
+            shopService.getAllStock().forEach(stockArticle -> writeStockArticle(json, stockArticle));
+            return new Response(OK, json.endArray().toString());
+        }
+        if (productId == null && "POST".equals(method)) {
+            Map<String, Object> body = Json.parseObject(body(exchange));
+            Optional<Product> product = shopService.findProduct(string(body, "productId"));
+            if (product.isEmpty()) {
+                return error(NOT_FOUND, "Product " + body.get("productId") + " not found");
+            }
+            StockArticle stockArticle = shopService.addStock(product.get(), decimal(body, "quantity"),
+                    unit(string(body, "unit")), decimal(body, "price"));
+            return new Response(CREATED, writeStockArticle(new JsonWriter(), stockArticle).toString());
+        }
+        if (productId != null && "GET".equals(method)) {
+            return found(shopService.findStock(productId).map(stockArticle -> writeStockArticle(new JsonWriter(), stockArticle)));
+        }
+        return methodNotAllowed(method);
+    }
+
+    private Response orders(final HttpExchange exchange, final String id) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (id == null && "POST".equals(method)) {
+            Map<String, Object> body = Json.parseObject(body(exchange));
+            if (!(body.get("lines") instanceof List<?> lines)) {
+                throw new IllegalArgumentException("Field lines must be an array");
+            }
+            List<OrderProduct> orderProducts = new ArrayList<>(lines.size());
+            for (Object line : lines) {
+                if (!(line instanceof Map<?, ?> fields)) {
+                    throw new IllegalArgumentException("Order lines must be objects");
+                }
+                String productId = string(fields, "productId");
+                StockArticle stockArticle = shopService.findStock(productId)
+                        .orElseThrow(() -> new IllegalArgumentException("Product " + productId + " has no stock"));
+                OrderProduct orderProduct = new OrderProduct(stockArticle);
+                orderProduct.setQuantity(decimal(fields, "quantity"),
+                        fields.containsKey("unit") ? unit(string(fields, "unit")) : stockArticle.unit());
+                orderProducts.add(orderProduct);
+            }
+            return shopService.addOrder(OrderBuilder.builder().products(orderProducts).build())
+                    .map(order -> new Response(CREATED, writeOrder(new JsonWriter(), order).toString()))
+                    .orElseGet(() -> error(CONFLICT, "Not enough stock for order"));
+        }
+        if (id != null && "GET".equals(method)) {
+            return found(shopService.findOrder(id).map(order -> writeOrder(new JsonWriter(), order)));
+        }
+        if (id != null && "DELETE".equals(method)) {
+            return found(shopService.findOrder(id).flatMap(shopService::removeOrder)
+                    .map(order -> writeOrder(new JsonWriter(), order)));
+        }
+        return methodNotAllowed(method);
+    }
+
+    private static void serve(final HttpExchange exchange, final String context, final Route route) {
+        try (exchange) {
+            Response response;
+            try {
+                String path = exchange.getRequestURI().getPath().substring(context.length());
+                String id = path.length() <= 1 ? null : path.substring(1);
+                if ((!path.isEmpty() && path.charAt(0) != '/') || (id != null && id.indexOf('/') >= 0)) {
+                    response = error(NOT_FOUND, "No resource " + exchange.getRequestURI().getPath());
+                } else {
+                    response = route.handle(exchange, id);
+                }
+            } catch (IllegalArgumentException | IllegalStateException | ConstraintViolationException e) {
+                response = error(BAD_REQUEST, e.getMessage());
+            } catch (RuntimeException e) {
+                // the details stay on the server, the default handler of the thread prints them
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                response = error(INTERNAL_SERVER_ERROR, "Internal server error");
+            }
+            byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // the client is gone, there is nobody to answer
+        }
+    }
+
+    private static String body(final HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(final HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String string(final Map<?, ?> fields, final String name) {
+        if (!(fields.get(name) instanceof String value)) {
+            throw new IllegalArgumentException("Field " + name + " must be a string");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(final Map<?, ?> fields, final String name) {
+        if (!(fields.get(name) instanceof BigDecimal value)) {
+            throw new IllegalArgumentException("Field " + name + " must be a number");
+        }
+        return value;
+    }
+
+    // accepts the name of the unit like the console, e.g. KG, or its short name, e.g. kg
+    private static UnitEnum unit(final String unit) {
+        try {
+            return UnitEnum.valueOf(unit);
+        } catch (IllegalArgumentException e) {
+            return UnitEnum.getUnitForShort(unit);
+        }
+    }
+
+    private static Response found(final Optional<JsonWriter> json) {
+        return json.map(value -> new Response(OK, value.toString())).orElseGet(() -> error(NOT_FOUND, "Not found"));
+    }
+
+    private static Response methodNotAllowed(final String method) {
+        return error(METHOD_NOT_ALLOWED, "Method " + method + " not allowed");
+    }
+
+    private static Response error(final int status, final String message) {
+        return new Response(status, new JsonWriter().beginObject().name("error").value(message).endObject().toString());
+    }
+
+    private static JsonWriter writeProduct(final JsonWriter json, final Product product, final Double score) {
+        json.beginObject()
+                .name("id").value(product.id())
+                .name("name").value(product.name())
+                .name("description").value(product.description())
+                .name("content").value(product.content())
+                .name("unit").value(product.unit() == null ? null : product.unit().name());
+        if (score != null) {
+            json.name("score").value(score);
+        }
+        return json.endObject();
+    }
+
+    private static JsonWriter writeStockArticle(final JsonWriter json, final StockArticle stockArticle) {
+        return json.beginObject()
+                .name("id").value(stockArticle.id())
+                .name("productId").value(stockArticle.productId())
+                .name("name").value(stockArticle.name())
+                .name("quantity").value(stockArticle.quantity())
+                .name("unit").value(stockArticle.unit().name())
+                .name("price").value(stockArticle.price())
+                .endObject();
+    }
+
+    private static JsonWriter writeOrder(final JsonWriter json, final Order order) {
+        json.beginObject()
+                .name("id").value(order.id())
+                .name("total").value(order.total())
+                .name("lines").beginArray();
+        for (OrderProduct line : order.products()) {
+            json.beginObject()
+                    .name("productId").value(line.productId())
+                    .name("name").value(line.name())
+                    .name("quantity").value(line.getQuantity())
+                    .name("unit").value(line.unit().name())
+                    .name("priceSubTotal").value(line.getPriceSubTotal())
+                    .endObject();
+        }
+        return json.endArray().endObject();
+    }
+}
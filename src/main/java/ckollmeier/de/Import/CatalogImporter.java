@@ -0,0 +1,287 @@
+package ckollmeier.de.Import;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Entity.StockArticleBuilder;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
+import ckollmeier.de.Repository.IdGenerator;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import ckollmeier.de.ValidationUtils;
+import jakarta.validation.ConstraintViolationException;
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams products and stock positions from CSV files into the repositories.
+ * <p>
+ * The file is read line by line and cut into chunks of {@code batchSize} rows. Chunks are parsed and validated in
+ * {@link ValidationScopeEnum#BULK bulk} on the executor, at most {@code parallelism} at a time, and added by the
+ * reading thread in file order with one batch call per chunk. Rows that cannot be parsed, are invalid or collide
+ * with existing entries are reported and skipped, the import continues with the next row.
+ * <p>
+ * Product files have the header {@value #PRODUCT_HEADER}, an empty id is generated. Stock files have the header
+ * {@value #STOCK_HEADER} and refer to products already in the product repository, so import products first.
+ */
+public final class CatalogImporter {
+    /**
+     * header of product files.
+     */
+    public static final String PRODUCT_HEADER = "id,name,description,content,unit";
+    /**
+     * header of stock files.
+     */
+    public static final String STOCK_HEADER = "productId,quantity,unit,price";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int PRODUCT_COLUMNS = 5;
+    private static final int STOCK_COLUMNS = 4;
+
+    private final ProductRepository productRepository;
+    private final StockRepository stockRepository;
+    private final Executor executor;
+    private final int batchSize;
+    private final int parallelism;
+
+    /**
+     * Creates an importer parsing on the common pool with one chunk per processor in flight.
+     *
+     * @param productRepository repository receiving the products
+     * @param stockRepository   repository receiving the stock
+     */
+    public CatalogImporter(final @NonNull ProductRepository productRepository,
+                           final @NonNull StockRepository stockRepository) {
+        this(productRepository, stockRepository, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param productRepository repository receiving the products
+     * @param stockRepository   repository receiving the stock
+     * @param executor          executor parsing and validating the chunks
+     * @param batchSize         rows per chunk
+     * @param parallelism       chunks parsed at the same time, bounds the rows held in memory
+     */
+    public CatalogImporter(final @NonNull ProductRepository productRepository,
+                           final @NonNull StockRepository stockRepository, final @NonNull Executor executor,
+                           final int batchSize, final int parallelism) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.productRepository = productRepository;
+        this.stockRepository = stockRepository;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param csv product file with header {@value #PRODUCT_HEADER}
+     * @return rows read, imported and skipped
+     * @throws IOException              if reading fails
+     * @throws IllegalArgumentException if the header does not match
+     */
+    public ImportResult importProducts(final @NonNull Reader csv) throws IOException {
+        return importRows(csv, PRODUCT_HEADER, this::parseProduct, productRepository::addProducts);
+    }
+
+    /**
+     * @param csv stock file with header {@value #STOCK_HEADER}
+     * @return rows read, imported and skipped
+     * @throws IOException              if reading fails
+     * @throws IllegalArgumentException if the header does not match
+     */
+    public ImportResult importStock(final @NonNull Reader csv) throws IOException {
+        return importRows(csv, STOCK_HEADER, this::parseStockArticle, stockRepository::addProducts);
+    }
+
+    /**
+     * Rows of a chunk that passed parsing and validation, with the errors of the others.
+     *
+     * @param rows     number of rows in the chunk
+     * @param entities parsed entities
+     * @param lines    line of every parsed entity
+     * @param errors   rows that failed
+     * @param <T>      type of the entities
+     */
+    private record ParsedChunk<T>(int rows, List<T> entities, List<Long> lines, List<ImportError> errors) {
+    }
+
+    private <T> ImportResult importRows(final Reader csv, final String header, final Function<List<String>, T> parser,
+                                        final Function<List<T>, Map<Integer, String>> inserter) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+        String headerLine = reader.readLine();
+        if (headerLine == null || !CsvLine.split(headerLine.strip()).equals(CsvLine.split(header))) {
+            throw new IllegalArgumentException("Expected header " + header);
+        }
+        Deque<CompletableFuture<ParsedChunk<T>>> inFlight = new ArrayDeque<>();
+        List<ImportError> errors = new ArrayList<>();
+        long[] totals = new long[2];
+        long line = 1;
+        long firstLine = 2;
+        List<String> chunk = new ArrayList<>(batchSize);
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (chunk.isEmpty()) {
+                firstLine = line;
+            }
+            chunk.add(text);
+            if (chunk.size() == batchSize) {
+                inFlight.addLast(submit(chunk, firstLine, parser));
+                chunk = new ArrayList<>(batchSize);
+                if (inFlight.size() >= parallelism) {
+                    insert(join(inFlight.removeFirst()), inserter, totals, errors);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inFlight.addLast(submit(chunk, firstLine, parser));
+        }
+        while (!inFlight.isEmpty()) {
+            insert(join(inFlight.removeFirst()), inserter, totals, errors);
+        }
+        return new ImportResult(totals[0], totals[1], errors, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private <T> CompletableFuture<ParsedChunk<T>> submit(final List<String> chunk, final long firstLine,
+                                                         final Function<List<String>, T> parser) {
+        return CompletableFuture.supplyAsync(() -> parse(chunk, firstLine, parser), executor);
+    }
+
+    private static <T> ParsedChunk<T> join(final CompletableFuture<ParsedChunk<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> ParsedChunk<T> parse(final List<String> chunk, final long firstLine,
+                                            final Function<List<String>, T> parser) {
+        int rows = 0;
+        List<T> entities = new ArrayList<>(chunk.size());
+        List<Long> lines = new ArrayList<>(chunk.size());
+        List<ImportError> errors = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String text = chunk.get(i);
+            if (text.isBlank()) {
+                continue;
+            }
+            rows++;
+            long line = firstLine + i;
+            try {
+                entities.add(ValidationUtils.validated(parser.apply(CsvLine.split(text)), ValidationScopeEnum.BULK));
+                lines.add(line);
+            } catch (ConstraintViolationException e) {
+                errors.add(new ImportError(line, describe(e)));
+            } catch (IllegalArgumentException e) {
+                errors.add(new ImportError(line, e.getMessage()));
+            }
+        }
+        return new ParsedChunk<>(rows, entities, lines, errors);
+    }
+
+    private static <T> void insert(final ParsedChunk<T> chunk, final Function<List<T>, Map<Integer, String>> inserter,
+                                   final long[] totals, final List<ImportError> errors) {
+        Map<Integer, String> rejected = inserter.apply(chunk.entities());
+        totals[0] += chunk.rows();
+        totals[1] += chunk.entities().size() - rejected.size();
+        if (rejected.isEmpty()) {
+            errors.addAll(chunk.errors());
+            return;
+        }
+        List<ImportError> chunkErrors = new ArrayList<>(chunk.errors());
+        rejected.forEach((index, message) -> chunkErrors.add(new ImportError(chunk.lines().get(index), message)));
+        chunkErrors.sort(Comparator.comparingLong(ImportError::line));
+        errors.addAll(chunkErrors);
+    }
+
+    private static String describe(final ConstraintViolationException e) {
+        return e.getConstraintViolations().stream()
+                .map(violation -> violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private Product parseProduct(final List<String> fields) {
+        checkColumns(fields, PRODUCT_COLUMNS);
+        String id = fields.get(0).strip();
+        return ProductBuilder.builder()
+                .id(id.isEmpty() ? IdGenerator.TIME_ORDERED.nextString() : id)
+                .name(fields.get(1).strip())
+                .description(fields.get(2).strip())
+                .content(parseDecimal(fields.get(3), "content"))
+                .unit(parseUnit(fields.get(4)))
+                .build();
+    }
+
+    private StockArticle parseStockArticle(final List<String> fields) {
+        checkColumns(fields, STOCK_COLUMNS);
+        String productId = fields.get(0).strip();
+        Product product = productRepository.find(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product with id " + productId + " not found"));
+        BigDecimal quantity = parseDecimal(fields.get(1), "quantity");
+        if (quantity.signum() < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        BigDecimal price = parseDecimal(fields.get(3), "price");
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("Price must be non-negative");
+        }
+        return StockArticleBuilder.builder()
+                .id(IdGenerator.TIME_ORDERED.nextString())
+                .product(product)
+                .quantity(quantity)
+                .unit(parseUnit(fields.get(2)))
+                .price(price)
+                .build();
+    }
+
+    private static void checkColumns(final List<String> fields, final int columns) {
+        if (fields.size() != columns) {
+            throw new IllegalArgumentException("Expected " + columns + " columns but found " + fields.size());
+        }
+    }
+
+    private static BigDecimal parseDecimal(final String field, final String name) {
+        try {
+            return new BigDecimal(field.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + field);
+        }
+    }
+
+    private static UnitEnum parseUnit(final String field) {
+        try {
+            return UnitEnum.valueOf(field.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown unit: " + field);
+        }
+    }
+}
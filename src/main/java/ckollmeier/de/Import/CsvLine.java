@@ -0,0 +1,55 @@
+package ckollmeier.de.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a line of comma separated values.
+ * <p>
+ * Fields may be quoted with double quotes, a quote inside a quoted field is written twice. Quoted fields cannot
+ * span lines.
+ */
+final class CsvLine {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private CsvLine() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @param line line to split
+     * @return the fields, unquoted
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static List<String> split(final String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != QUOTE) {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                    field.append(QUOTE);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Quoted field is not closed");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
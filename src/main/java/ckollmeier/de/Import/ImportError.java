@@ -0,0 +1,10 @@
+package ckollmeier.de.Import;
+
+/**
+ * A row that could not be imported.
+ *
+ * @param line    line of the row in the file, the header is line 1
+ * @param message why the row was skipped
+ */
+public record ImportError(long line, String message) {
+}
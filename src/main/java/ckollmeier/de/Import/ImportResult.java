@@ -0,0 +1,24 @@
+package ckollmeier.de.Import;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of an import.
+ *
+ * @param rows     rows read, without the header
+ * @param imported rows added to the repository
+ * @param errors   skipped rows in file order
+ * @param duration time the import took
+ */
+public record ImportResult(long rows, long imported, List<ImportError> errors, Duration duration) {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * @return rows read per second
+     */
+    public double rowsPerSecond() {
+        long nanos = Math.max(1, duration.toNanos());
+        return rows * NANOS_PER_SECOND / nanos;
+    }
+}
@@ -0,0 +1,73 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Enum.StockMovementTypeEnum;
+import lombok.NonNull;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stock consumed by orders per day and product, derived from the movements.
+ * <p>
+ * Decreases tagged with an order add to the consumption of their day, increases tagged with an order, i.e. released
+ * or removed orders, are subtracted on the day they happen. Movements without an order are corrections of the stock
+ * and do not count.
+ */
+public final class DailyConsumptionView implements StockView {
+    private final ZoneId zone;
+    private final NavigableMap<LocalDate, Map<String, Long>> consumptionByDay = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param zone time zone the days are counted in
+     */
+    public DailyConsumptionView(final @NonNull ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void apply(final StockMovement movement) {
+        if (movement.orderId() == null || movement.type() == StockMovementTypeEnum.ADDED) {
+            return;
+        }
+        LocalDate day = LocalDate.ofInstant(movement.time(), zone);
+        consumptionByDay.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .merge(movement.productId(), -movement.signedBaseUnits(), Long::sum);
+    }
+
+    /**
+     * @param day       the day
+     * @param productId id of the product
+     * @return stock of the product consumed on the day in milligram, milliliter or pieces
+     */
+    public long consumption(final @NonNull LocalDate day, final @NonNull String productId) {
+        Map<String, Long> consumption = consumptionByDay.get(day);
+        return consumption == null ? 0 : consumption.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * @param day the day
+     * @return stock consumed on the day in milligram, milliliter or pieces, by product id
+     */
+    public Map<String, Long> consumption(final @NonNull LocalDate day) {
+        Map<String, Long> consumption = consumptionByDay.get(day);
+        return consumption == null ? Map.of() : Map.copyOf(consumption);
+    }
+
+    /**
+     * @param from first day
+     * @param to   last day
+     * @return stock consumed per day from the first to the last day in milligram, milliliter or pieces, by product
+     *         id, days without consumption are left out
+     */
+    public NavigableMap<LocalDate, Map<String, Long>> consumption(final @NonNull LocalDate from, final @NonNull LocalDate to) {
+        NavigableMap<LocalDate, Map<String, Long>> result = new TreeMap<>();
+        consumptionByDay.subMap(from, true, to, true).forEach((day, consumption) -> result.put(day, Map.copyOf(consumption)));
+        return result;
+    }
+}
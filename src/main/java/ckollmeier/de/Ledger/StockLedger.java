@@ -0,0 +1,263 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Enum.StockMovementTypeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.FixedPointQuantity;
+import ckollmeier.de.Repository.MutationLog;
+import lombok.NonNull;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only history of every change of the stock, with views derived from it.
+ * <p>
+ * Attached to the {@link ckollmeier.de.Repository.StockRepository} as its {@link MutationLog}, every added stock
+ * article, increase and decrease becomes an immutable {@link StockMovement}, tagged with the order id where there
+ * is one. The repository calls the ledger under the lock of the changed product, so appending only puts the movement
+ * into a lock-free queue and never waits for another product. The queue is drained by one thread at a time, either
+ * an appending thread that finds the ledger idle or a reader, which gives the movements consecutive sequence numbers
+ * in queue order, a total order that keeps the order of the movements of every product.
+ * <p>
+ * {@link StockView Views} are updated incrementally by every drained movement. A view subscribed later is first
+ * rebuilt from the history, so derived state never has to be computed from the full stock again.
+ * <p>
+ * The history is kept in memory only and holds at most the last {@code retainedMovements} movements, older ones are
+ * dropped from it and from the per-product and per-order histories. Views are not affected by that, but a view can
+ * only be subscribed while nothing has been dropped yet. After recovering the repositories from a write-ahead log the
+ * replayed movements carry the time of the recovery, and a snapshot starts the history with the stock articles as
+ * added.
+ */
+public final class StockLedger implements MutationLog {
+    /**
+     * Movements kept by default, all of them.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final Clock clock;
+    private final int retainedMovements;
+    private final Map<String, UnitEnum> unitsByProductId = new ConcurrentHashMap<>();
+    private final Queue<StockMovement> appendedMovements = new ConcurrentLinkedQueue<>();
+    /**
+     * number of movements put into the queue, counted after they are in it.
+     */
+    private final AtomicLong appended = new AtomicLong();
+    /**
+     * guards everything below, held by the thread draining the queue.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * sequence of the last drained movement, read without the lock by appending threads.
+     */
+    private volatile long lastSequence;
+    private final Deque<StockMovement> movements = new ArrayDeque<>();
+    private final Map<String, Deque<StockMovement>> movementsByProductId = new HashMap<>();
+    private final Map<String, Deque<StockMovement>> movementsByOrderId = new HashMap<>();
+    private final List<StockView> views = new ArrayList<>();
+
+    /**
+     * Creates a ledger recording movements with the current UTC time and keeping all of them.
+     */
+    public StockLedger() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param clock clock giving the time of the movements
+     */
+    public StockLedger(final @NonNull Clock clock) {
+        this(clock, UNBOUNDED);
+    }
+
+    /**
+     * @param clock             clock giving the time of the movements
+     * @param retainedMovements number of the latest movements kept in the history
+     */
+    public StockLedger(final @NonNull Clock clock, final int retainedMovements) {
+        if (retainedMovements <= 0) {
+            throw new IllegalArgumentException("Retained movements must be positive");
+        }
+        this.clock = clock;
+        this.retainedMovements = retainedMovements;
+    }
+
+    @Override
+    public void stockAdded(final StockArticle stockArticle) {
+        unitsByProductId.put(stockArticle.productId(), stockArticle.unit());
+        append(stockArticle.productId(), StockMovementTypeEnum.ADDED,
+                FixedPointQuantity.toBaseUnits(stockArticle.quantity(), stockArticle.unit()), null);
+    }
+
+    @Override
+    public void stockIncreased(final String productId, final long baseUnits, final String orderId) {
+        append(productId, StockMovementTypeEnum.INCREASED, baseUnits, orderId);
+    }
+
+    @Override
+    public void stockDecreased(final String productId, final long baseUnits, final String orderId) {
+        append(productId, StockMovementTypeEnum.DECREASED, baseUnits, orderId);
+    }
+
+    // queues the movement without a sequence, then drains unless another thread is draining and will see it
+    private void append(final String productId, final StockMovementTypeEnum type, final long baseUnits, final String orderId) {
+        appendedMovements.offer(new StockMovement(0, productId, type, baseUnits,
+                unitsByProductId.get(productId), orderId, clock.instant()));
+        appended.incrementAndGet();
+        // a thread failing tryLock counted its movement before the drainer unlocks and checks the count again
+        while (lastSequence < appended.get() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // must be called while holding the lock, numbers and records every movement counted so far
+    private void drain() {
+        long target = appended.get();
+        while (lastSequence < target) {
+            StockMovement movement = appendedMovements.poll().withSequence(lastSequence + 1);
+            lastSequence = movement.sequence();
+            movements.addLast(movement);
+            movementsByProductId.computeIfAbsent(movement.productId(), id -> new ArrayDeque<>()).addLast(movement);
+            if (movement.orderId() != null) {
+                movementsByOrderId.computeIfAbsent(movement.orderId(), id -> new ArrayDeque<>()).addLast(movement);
+            }
+            for (StockView view : views) {
+                view.apply(movement);
+            }
+            if (movements.size() > retainedMovements) {
+                drop(movements.removeFirst());
+            }
+        }
+    }
+
+    // removes the oldest movement, which is also the oldest one of its product and order
+    private void drop(final StockMovement movement) {
+        removeFirst(movementsByProductId, movement.productId());
+        if (movement.orderId() != null) {
+            removeFirst(movementsByOrderId, movement.orderId());
+        }
+    }
+
+    private static void removeFirst(final Map<String, Deque<StockMovement>> index, final String key) {
+        Deque<StockMovement> found = index.get(key);
+        found.removeFirst();
+        if (found.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Rebuilds a view from the history and keeps it up to date with every following movement.
+     *
+     * @param view view to subscribe, must not have seen any movement yet
+     * @param <V>  type of the view
+     * @return the view
+     * @throws IllegalStateException if movements have already been dropped from the history
+     */
+    public <V extends StockView> V subscribe(final @NonNull V view) {
+        lock.lock();
+        try {
+            drain();
+            if (lastSequence > movements.size()) {
+                throw new IllegalStateException("Movements before " + movements.getFirst().sequence() + " were dropped");
+            }
+            for (StockMovement movement : movements) {
+                view.apply(movement);
+            }
+            views.add(view);
+            return view;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param view view to stop updating
+     */
+    public void unsubscribe(final @NonNull StockView view) {
+        lock.lock();
+        try {
+            drain();
+            views.remove(view);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return sequence of the last movement, 0 if there is none
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            drain();
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param sequence sequence of the last movement already seen, 0 for all
+     * @return the retained movements after it, in sequence order
+     */
+    public List<StockMovement> since(final long sequence) {
+        lock.lock();
+        try {
+            drain();
+            int count = (int) Math.min(Math.max(lastSequence - sequence, 0), movements.size());
+            StockMovement[] found = new StockMovement[count];
+            Iterator<StockMovement> latest = movements.descendingIterator();
+            for (int i = count - 1; i >= 0; i--) {
+                found[i] = latest.next();
+            }
+            return List.of(found);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param productId id of the product
+     * @return the retained movements of the product, in sequence order
+     */
+    public List<StockMovement> history(final @NonNull String productId) {
+        return copyOf(movementsByProductId, productId);
+    }
+
+    /**
+     * @param orderId id of the order
+     * @return the retained movements caused by the order, in sequence order
+     */
+    public List<StockMovement> forOrder(final @NonNull String orderId) {
+        return copyOf(movementsByOrderId, orderId);
+    }
+
+    private List<StockMovement> copyOf(final Map<String, Deque<StockMovement>> index, final String key) {
+        lock.lock();
+        try {
+            drain();
+            Deque<StockMovement> found = index.get(key);
+            return found == null ? Collections.emptyList() : List.copyOf(found);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
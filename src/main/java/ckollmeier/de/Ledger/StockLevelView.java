@@ -0,0 +1,34 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.StockMovement;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current stock of every product, derived from the movements.
+ */
+public final class StockLevelView implements StockView {
+    private final Map<String, Long> levelsByProductId = new ConcurrentHashMap<>();
+
+    @Override
+    public void apply(final StockMovement movement) {
+        levelsByProductId.merge(movement.productId(), movement.signedBaseUnits(), Long::sum);
+    }
+
+    /**
+     * @param productId id of the product
+     * @return the stock of the product in milligram, milliliter or pieces, 0 if it has never been in stock
+     */
+    public long level(final @NonNull String productId) {
+        return levelsByProductId.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * @return the stock of every product in milligram, milliliter or pieces, by product id
+     */
+    public Map<String, Long> levels() {
+        return Map.copyOf(levelsByProductId);
+    }
+}
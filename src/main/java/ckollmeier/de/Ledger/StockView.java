@@ -0,0 +1,16 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.StockMovement;
+
+/**
+ * State derived from the stock movements, kept up to date by a {@link StockLedger}.
+ * <p>
+ * The ledger passes the movements in sequence order, one at a time, while holding its lock, so {@link #apply} must
+ * be fast and must not call back into the ledger or the repositories. Reads may happen concurrently.
+ */
+public interface StockView {
+    /**
+     * @param movement the next movement
+     */
+    void apply(StockMovement movement);
+}
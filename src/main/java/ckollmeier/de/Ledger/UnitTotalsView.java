@@ -0,0 +1,50 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Enum.UnitEnum;
+import lombok.NonNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Total stock over all products kept in the same unit, derived from the movements.
+ */
+public final class UnitTotalsView implements StockView {
+    private static final UnitEnum[] UNITS = UnitEnum.values();
+
+    /**
+     * totals in milligram, milliliter or pieces, by ordinal of the unit.
+     */
+    private final AtomicLongArray totals = new AtomicLongArray(UNITS.length);
+
+    @Override
+    public void apply(final StockMovement movement) {
+        if (movement.unit() != null) {
+            totals.addAndGet(movement.unit().ordinal(), movement.signedBaseUnits());
+        }
+    }
+
+    /**
+     * @param unit unit of the stock articles
+     * @return total stock of all products kept in the unit, in milligram, milliliter or pieces
+     */
+    public long total(final @NonNull UnitEnum unit) {
+        return totals.get(unit.ordinal());
+    }
+
+    /**
+     * @return total stock by unit, units without any stock are left out
+     */
+    public Map<UnitEnum, Long> totals() {
+        Map<UnitEnum, Long> result = new EnumMap<>(UnitEnum.class);
+        for (UnitEnum unit : UNITS) {
+            long total = totals.get(unit.ordinal());
+            if (total != 0) {
+                result.put(unit, total);
+            }
+        }
+        return result;
+    }
+}
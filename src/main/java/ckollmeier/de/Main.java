@@ -6,16 +6,35 @@ import ckollmeier.de.Entity.OrderProduct;
 import ckollmeier.de.Entity.Product;
 import ckollmeier.de.Entity.ProductBuilder;
 import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Http.ShopHttpServer;
+import ckollmeier.de.Enum.SearchOperatorEnum;
 import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Import.CatalogImporter;
+import ckollmeier.de.Import.ImportError;
+import ckollmeier.de.Import.ImportResult;
+import ckollmeier.de.Ledger.StockLedger;
+import ckollmeier.de.Persistence.Snapshot;
+import ckollmeier.de.Persistence.WriteAheadLog;
+import ckollmeier.de.Repository.MutationLog;
 import ckollmeier.de.Repository.OrderRepository;
 import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.ScoredProduct;
 import ckollmeier.de.Repository.StockRepository;
 import ckollmeier.de.ValidationHelpers.NotBlankString;
 import ckollmeier.de.ValidationHelpers.NotNullString;
 import ckollmeier.de.ValidationHelpers.NotNullUnitEnum;
 import ckollmeier.de.ValidationHelpers.PositiveOrZeroBigDecimal;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,12 +42,76 @@ import java.util.Scanner;
 
 public class Main {
     private static final Scanner SCANNER = new Scanner(System.in);
-    private static final OrderRepository ORDER_REPOSITORY = new OrderRepository();
-    private static final StockRepository STOCK_REPOSITORY = new StockRepository();
-    private static final ProductRepository PRODUCT_REPOSITORY = new ProductRepository();
+    /**
+     * Log file the repositories are persisted to, set with {@code -Dshop.wal=<file>}, in memory only if unset.
+     */
+    private static final String WRITE_AHEAD_LOG_PROPERTY = "shop.wal";
+    /**
+     * Port of the HTTP API, set with {@code -Dshop.http.port=<port>}, no HTTP API if unset.
+     */
+    private static final String HTTP_PORT_PROPERTY = "shop.http.port";
+    private static final int SYNC_EVERY_RECORDS = 64;
+    private static final Duration SYNC_INTERVAL = Duration.ofMillis(100);
+    private static final int SEARCH_LIMIT = 10;
+    /**
+     * Stock movements the ledger keeps for the history of products, older ones are dropped.
+     */
+    private static final int LEDGER_RETAINED_MOVEMENTS = 100_000;
+    private static final WriteAheadLog WRITE_AHEAD_LOG = openWriteAheadLog();
+    private static final StockLedger STOCK_LEDGER = new StockLedger(Clock.systemUTC(), LEDGER_RETAINED_MOVEMENTS);
+    private static final MutationLog MUTATION_LOG = WRITE_AHEAD_LOG == null ? STOCK_LEDGER : MutationLog.of(WRITE_AHEAD_LOG, STOCK_LEDGER);
+    private static final OrderRepository ORDER_REPOSITORY = new OrderRepository(MUTATION_LOG);
+    private static final StockRepository STOCK_REPOSITORY = new StockRepository(MUTATION_LOG);
+    private static final ProductRepository PRODUCT_REPOSITORY = new ProductRepository(MUTATION_LOG);
+    private static final CatalogImporter CATALOG_IMPORTER = new CatalogImporter(PRODUCT_REPOSITORY, STOCK_REPOSITORY);
     private static final ShopService SHOP_SERVICE = new ShopService(ORDER_REPOSITORY, STOCK_REPOSITORY, PRODUCT_REPOSITORY);
 
-    public static void main(final String[] args) {
+    private static WriteAheadLog openWriteAheadLog() {
+        String file = System.getProperty(WRITE_AHEAD_LOG_PROPERTY);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return WriteAheadLog.open(Path.of(file), SYNC_EVERY_RECORDS, SYNC_INTERVAL);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log " + file, e);
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (WRITE_AHEAD_LOG == null) {
+            serve();
+            return;
+        }
+        Path snapshotFile = Path.of(System.getProperty(WRITE_AHEAD_LOG_PROPERTY) + ".snapshot");
+        long records;
+        if (Files.exists(snapshotFile)) {
+            records = WRITE_AHEAD_LOG.recover(Snapshot.open(snapshotFile), PRODUCT_REPOSITORY, STOCK_REPOSITORY, ORDER_REPOSITORY);
+        } else {
+            records = WRITE_AHEAD_LOG.recover(PRODUCT_REPOSITORY, STOCK_REPOSITORY, ORDER_REPOSITORY);
+        }
+        System.out.println("Recovered " + records + " changes.");
+        try {
+            serve();
+            WRITE_AHEAD_LOG.checkpoint(snapshotFile, PRODUCT_REPOSITORY, STOCK_REPOSITORY, ORDER_REPOSITORY);
+        } finally {
+            WRITE_AHEAD_LOG.close();
+        }
+    }
+
+    private static void serve() throws IOException {
+        Integer port = Integer.getInteger(HTTP_PORT_PROPERTY);
+        if (port == null) {
+            run();
+            return;
+        }
+        try (ShopHttpServer httpServer = ShopHttpServer.start(SHOP_SERVICE, new InetSocketAddress(port))) {
+            System.out.println("HTTP API listening on port " + httpServer.getAddress().getPort() + ".");
+            run();
+        }
+    }
+
+    private static void run() {
         boolean running = true;
         while (running) {
             printMainMenu();
@@ -78,6 +161,15 @@ public class Main {
                 case "3":
                     listProducts();
                     break;
+                case "4":
+                    importProducts();
+                    break;
+                case "5":
+                    searchProducts();
+                    break;
+                case "6":
+                    searchProductDescriptions();
+                    break;
                 case "0":
                     managingProducts = false;
                     break;
@@ -93,6 +185,9 @@ public class Main {
         System.out.println("\u001B[1;32m1.\u001B[0m Add Product");
         System.out.println("\u001B[1;32m2.\u001B[0m Remove Product");
         System.out.println("\u001B[1;32m3.\u001B[0m List Products");
+        System.out.println("\u001B[1;32m4.\u001B[0m Import Products");
+        System.out.println("\u001B[1;32m5.\u001B[0m Search Products");
+        System.out.println("\u001B[1;32m6.\u001B[0m Search Product Descriptions");
         System.out.println("\u001B[1;32m0.\u001B[0m Back to Main Menu");
         System.out.print("Enter your choice: ");
     }
@@ -136,6 +231,48 @@ public class Main {
         }
     }
 
+    private static void searchProducts() {
+        String prefix = ValidatedInput.getValidatedInput("Enter start of the product name:", NotNullString.class);
+        List<Product> products = SHOP_SERVICE.searchProducts(prefix, SEARCH_LIMIT);
+        if (products.isEmpty()) {
+            System.out.println("No products found.");
+        } else {
+            for (Product product : products) {
+                System.out.println("ID: " + product.id() + ", Name: " + product.name() + ", Content: " + product.content() + ", Unit: " + product.unit());
+            }
+        }
+    }
+
+    private static void searchProductDescriptions() {
+        String query = ValidatedInput.getValidatedInput("Enter search terms:", NotBlankString.class);
+        String all = ValidatedInput.getValidatedInput("Match all terms (y/n)?", NotBlankString.class);
+        SearchOperatorEnum operator = all.trim().equalsIgnoreCase("y") ? SearchOperatorEnum.AND : SearchOperatorEnum.OR;
+        List<ScoredProduct> hits = SHOP_SERVICE.searchProductDescriptions(query, operator, SEARCH_LIMIT);
+        if (hits.isEmpty()) {
+            System.out.println("No products found.");
+        } else {
+            for (ScoredProduct hit : hits) {
+                System.out.printf("%.2f ID: %s, Name: %s, Description: %s%n", hit.score(), hit.product().id(), hit.product().name(), hit.product().description());
+            }
+        }
+    }
+
+    private static void importProducts() {
+        String file = ValidatedInput.getValidatedInput("Enter path of the product file (" + CatalogImporter.PRODUCT_HEADER + "):", NotBlankString.class);
+        try (Reader reader = Files.newBufferedReader(Path.of(file))) {
+            printImportResult(CATALOG_IMPORTER.importProducts(reader));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error importing products: " + e.getMessage());
+        }
+    }
+
+    private static void printImportResult(final ImportResult result) {
+        System.out.printf("Imported %d of %d rows (%.0f rows/s).%n", result.imported(), result.rows(), result.rowsPerSecond());
+        for (ImportError error : result.errors()) {
+            System.out.println("Line " + error.line() + ": " + error.message());
+        }
+    }
+
     private static void manageStock() {
         boolean managingStock = true;
         while (managingStock) {
@@ -154,6 +291,12 @@ public class Main {
                 case "4":
                     listStock();
                     break;
+                case "5":
+                    importStock();
+                    break;
+                case "6":
+                    listStockMovements();
+                    break;
                 case "0":
                     managingStock = false;
                     break;
@@ -170,6 +313,8 @@ public class Main {
         System.out.println("2. Increase Stock");
         System.out.println("3. Decrease Stock");
         System.out.println("4. List Stock");
+        System.out.println("5. Import Stock");
+        System.out.println("6. List Stock Movements");
         System.out.println("0. Back to Main Menu");
         System.out.print("Enter your choice: ");
     }
@@ -230,6 +375,28 @@ public class Main {
         }
     }
 
+    private static void listStockMovements() {
+        String productId = ValidatedInput.getValidatedInput("Enter product ID:", NotBlankString.class);
+        List<StockMovement> movements = STOCK_LEDGER.history(productId);
+        if (movements.isEmpty()) {
+            System.out.println("No stock movements found.");
+        } else {
+            System.out.println("\nStock Movements:");
+            for (StockMovement movement : movements) {
+                System.out.println("#" + movement.sequence() + " " + movement.time() + " " + movement.type() + " " + movement.baseUnits() + " base units" + (movement.orderId() == null ? "" : ", Order ID: " + movement.orderId()));
+            }
+        }
+    }
+
+    private static void importStock() {
+        String file = ValidatedInput.getValidatedInput("Enter path of the stock file (" + CatalogImporter.STOCK_HEADER + "):", NotBlankString.class);
+        try (Reader reader = Files.newBufferedReader(Path.of(file))) {
+            printImportResult(CATALOG_IMPORTER.importStock(reader));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error importing stock: " + e.getMessage());
+        }
+    }
+
     private static void manageOrders() {
         boolean managingOrders = true;
         while (managingOrders) {
@@ -278,8 +445,8 @@ public class Main {
         }
         Order order = OrderBuilder.builder().products(orderProducts).build();
         try {
-            SHOP_SERVICE.addOrder(order);
-            System.out.println("Order added successfully.");
+            SHOP_SERVICE.addOrder(order).ifPresent(addedOrder -> System.out.println("Order added successfully."
+                    + (addedOrder.total() == null ? "" : " Total: " + addedOrder.total().toPlainString())));
         } catch (IllegalArgumentException e) {
             System.out.println("Error adding order: " + e.getMessage());
         }
@@ -0,0 +1,34 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entity.Order;
+
+/**
+ * Outcome of one order of a batch placed by {@link ShopService#addOrders(java.util.Collection)}.
+ *
+ * @param order the placed order with its id, reserved lines and total, null if the order was not placed
+ * @param error why the order was not placed, null if it was placed
+ */
+public record OrderResult(Order order, String error) {
+    /**
+     * @param order the placed order
+     * @return the result of a placed order
+     */
+    public static OrderResult placed(final Order order) {
+        return new OrderResult(order, null);
+    }
+
+    /**
+     * @param error why the order was not placed
+     * @return the result of an order that was not placed
+     */
+    public static OrderResult rejected(final String error) {
+        return new OrderResult(null, error);
+    }
+
+    /**
+     * @return whether the order was placed
+     */
+    public boolean isPlaced() {
+        return order != null;
+    }
+}
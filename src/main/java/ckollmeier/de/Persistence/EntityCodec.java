@@ -0,0 +1,422 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Pricing.OrderPricer;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the entities, without reflection or Java serialization.
+ * <p>
+ * Ids in canonical UUID form are stored as two longs, other ids as strings. Strings are stored as UTF-8 with a
+ * variable-length length, {@link UnitEnum} as its ordinal byte and {@link BigDecimal} as scale and unscaled value,
+ * the unscaled value as variable-length long whenever it fits. Every value may be null.
+ * <p>
+ * Values are written to and read from the current position of a {@link ByteBuffer}, heap or direct. Decoding reads
+ * straight from the buffer without copying it first; only strings in direct buffers go through a temporary array.
+ * {@code sizeOf} returns the exact number of bytes a value is encoded to, so buffers can be sized up front.
+ */
+public final class EntityCodec {
+    private static final byte NULL = 0;
+    private static final byte UUID_ID = 1;
+    private static final byte STRING_ID = 2;
+    private static final byte LONG_DECIMAL = 1;
+    private static final byte BIG_DECIMAL = 2;
+    private static final byte NULL_UNIT = -1;
+    private static final UnitEnum[] UNITS = UnitEnum.values();
+    private static final int UUID_LENGTH = 36;
+    private static final int HEX_RADIX = 16;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int MAX_ONE_BYTE_CHAR = 0x7F;
+    private static final int MAX_TWO_BYTE_CHAR = 0x7FF;
+
+    private EntityCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @param product product to measure
+     * @return bytes of the encoded product
+     */
+    public static int sizeOf(final @NonNull Product product) {
+        return sizeOfId(product.id()) + sizeOfString(product.name()) + sizeOfDecimal(product.content())
+                + Byte.BYTES + sizeOfString(product.description());
+    }
+
+    /**
+     * @param stockArticle stock article to measure
+     * @return bytes of the encoded stock article
+     */
+    public static int sizeOf(final @NonNull StockArticle stockArticle) {
+        return sizeOfId(stockArticle.id()) + sizeOfNullable(stockArticle.product()) + sizeOfDecimal(stockArticle.quantity())
+                + Byte.BYTES + sizeOfDecimal(stockArticle.price());
+    }
+
+    /**
+     * @param orderProduct order line to measure
+     * @return bytes of the encoded order line
+     */
+    public static int sizeOf(final @NonNull OrderProduct orderProduct) {
+        StockArticle stockArticle = orderProduct.getStockArticle();
+        return sizeOfId(orderProduct.id()) + Byte.BYTES + (stockArticle == null ? 0 : sizeOf(stockArticle))
+                + sizeOfDecimal(orderProduct.getQuantity()) + sizeOfDecimal(orderProduct.getPriceSubTotal());
+    }
+
+    /**
+     * @param order order to measure
+     * @return bytes of the encoded order
+     */
+    public static int sizeOf(final @NonNull Order order) {
+        int size = sizeOfId(order.id());
+        List<OrderProduct> products = order.products();
+        if (products == null) {
+            return size + Byte.BYTES;
+        }
+        size += sizeOfVarLong(products.size() + 1L);
+        for (OrderProduct line : products) {
+            size += sizeOf(line);
+        }
+        return size;
+    }
+
+    private static int sizeOfNullable(final Product product) {
+        return Byte.BYTES + (product == null ? 0 : sizeOf(product));
+    }
+
+    /**
+     * @param buffer  buffer to write to, at least {@link #sizeOf(Product)} bytes must remain
+     * @param product product to write
+     */
+    public static void putProduct(final @NonNull ByteBuffer buffer, final @NonNull Product product) {
+        putId(buffer, product.id());
+        putString(buffer, product.name());
+        putDecimal(buffer, product.content());
+        putUnit(buffer, product.unit());
+        putString(buffer, product.description());
+    }
+
+    /**
+     * @param buffer buffer positioned at a product written by {@link #putProduct(ByteBuffer, Product)}
+     * @return the product
+     */
+    public static Product getProduct(final @NonNull ByteBuffer buffer) {
+        return new Product(getId(buffer), getString(buffer), getDecimal(buffer), getUnit(buffer), getString(buffer));
+    }
+
+    /**
+     * @param buffer       buffer to write to, at least {@link #sizeOf(StockArticle)} bytes must remain
+     * @param stockArticle stock article to write
+     */
+    public static void putStockArticle(final @NonNull ByteBuffer buffer, final @NonNull StockArticle stockArticle) {
+        putId(buffer, stockArticle.id());
+        if (stockArticle.product() == null) {
+            buffer.put(NULL);
+        } else {
+            buffer.put((byte) 1);
+            putProduct(buffer, stockArticle.product());
+        }
+        putDecimal(buffer, stockArticle.quantity());
+        putUnit(buffer, stockArticle.unit());
+        putDecimal(buffer, stockArticle.price());
+    }
+
+    /**
+     * @param buffer buffer positioned at a stock article written by {@link #putStockArticle(ByteBuffer, StockArticle)}
+     * @return the stock article
+     */
+    public static StockArticle getStockArticle(final @NonNull ByteBuffer buffer) {
+        String id = getId(buffer);
+        Product product = buffer.get() == NULL ? null : getProduct(buffer);
+        return new StockArticle(id, product, getDecimal(buffer), getUnit(buffer), getDecimal(buffer));
+    }
+
+    /**
+     * @param buffer       buffer to write to, at least {@link #sizeOf(OrderProduct)} bytes must remain
+     * @param orderProduct order line to write
+     */
+    public static void putOrderProduct(final @NonNull ByteBuffer buffer, final @NonNull OrderProduct orderProduct) {
+        putId(buffer, orderProduct.id());
+        if (orderProduct.getStockArticle() == null) {
+            buffer.put(NULL);
+        } else {
+            buffer.put((byte) 1);
+            putStockArticle(buffer, orderProduct.getStockArticle());
+        }
+        putDecimal(buffer, orderProduct.getQuantity());
+        putDecimal(buffer, orderProduct.getPriceSubTotal());
+    }
+
+    /**
+     * @param buffer buffer positioned at an order line written by {@link #putOrderProduct(ByteBuffer, OrderProduct)}
+     * @return the order line
+     */
+    public static OrderProduct getOrderProduct(final @NonNull ByteBuffer buffer) {
+        String id = getId(buffer);
+        StockArticle stockArticle = buffer.get() == NULL ? null : getStockArticle(buffer);
+        return new OrderProduct(id, stockArticle, getDecimal(buffer), getDecimal(buffer));
+    }
+
+    /**
+     * @param buffer buffer to write to, at least {@link #sizeOf(Order)} bytes must remain
+     * @param order  order to write
+     */
+    public static void putOrder(final @NonNull ByteBuffer buffer, final @NonNull Order order) {
+        putId(buffer, order.id());
+        List<OrderProduct> products = order.products();
+        if (products == null) {
+            buffer.put(NULL);
+            return;
+        }
+        putVarLong(buffer, products.size() + 1L);
+        for (OrderProduct line : products) {
+            putOrderProduct(buffer, line);
+        }
+    }
+
+    /**
+     * The total of the order is not stored, it is the sum of the subtotals of its lines.
+     *
+     * @param buffer buffer positioned at an order written by {@link #putOrder(ByteBuffer, Order)}
+     * @return the order
+     */
+    public static Order getOrder(final @NonNull ByteBuffer buffer) {
+        String id = getId(buffer);
+        int lines = (int) getVarLong(buffer) - 1;
+        if (lines < 0) {
+            return new Order(id, null);
+        }
+        List<OrderProduct> products = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            products.add(getOrderProduct(buffer));
+        }
+        return new Order(id, products, OrderPricer.total(products));
+    }
+
+    private static int sizeOfId(final String id) {
+        if (id == null) {
+            return Byte.BYTES;
+        }
+        if (isUuid(id)) {
+            return Byte.BYTES + 2 * Long.BYTES;
+        }
+        return Byte.BYTES + sizeOfString(id);
+    }
+
+    private static void putId(final ByteBuffer buffer, final String id) {
+        if (id == null) {
+            buffer.put(NULL);
+        } else if (isUuid(id)) {
+            buffer.put(UUID_ID);
+            buffer.putLong(hexToLong(id, 0, 8) << 32 | hexToLong(id, 9, 13) << 16 | hexToLong(id, 14, 18));
+            buffer.putLong(hexToLong(id, 19, 23) << 48 | hexToLong(id, 24, UUID_LENGTH));
+        } else {
+            buffer.put(STRING_ID);
+            putString(buffer, id);
+        }
+    }
+
+    private static String getId(final ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case NULL -> null;
+            case UUID_ID -> new UUID(buffer.getLong(), buffer.getLong()).toString();
+            case STRING_ID -> getString(buffer);
+            default -> throw new IllegalArgumentException("Unknown id type " + type);
+        };
+    }
+
+    /**
+     * Only the lower case form {@link UUID#toString()} produces is stored as UUID, so ids round-trip unchanged.
+     *
+     * @param id id to check
+     * @return whether the id is a UUID in canonical form
+     */
+    private static boolean isUuid(final String id) {
+        if (id.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = id.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : (c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hexToLong(final String id, final int from, final int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | Character.digit(id.charAt(i), HEX_RADIX);
+        }
+        return value;
+    }
+
+    private static void putUnit(final ByteBuffer buffer, final UnitEnum unit) {
+        buffer.put(unit == null ? NULL_UNIT : (byte) unit.ordinal());
+    }
+
+    private static UnitEnum getUnit(final ByteBuffer buffer) {
+        byte ordinal = buffer.get();
+        return ordinal == NULL_UNIT ? null : UNITS[ordinal];
+    }
+
+    private static int sizeOfString(final String value) {
+        if (value == null) {
+            return Byte.BYTES;
+        }
+        int length = utf8Length(value);
+        return sizeOfVarLong(length + 1L) + length;
+    }
+
+    private static void putString(final ByteBuffer buffer, final String value) {
+        if (value == null) {
+            buffer.put(NULL);
+            return;
+        }
+        int length = utf8Length(value);
+        putVarLong(buffer, length + 1L);
+        if (length == value.length()) {
+            // only unpaired surrogates can be non-ASCII here, the encoder replaces them by '?' as well
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                buffer.put(c <= MAX_ONE_BYTE_CHAR ? (byte) c : (byte) '?');
+            }
+        } else {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        int length = (int) getVarLong(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int utf8Length(final String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c > MAX_ONE_BYTE_CHAR) {
+                if (c <= MAX_TWO_BYTE_CHAR) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // four bytes for the pair of two chars
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+                // an unpaired surrogate is encoded as '?', one byte
+            }
+        }
+        return bytes;
+    }
+
+    private static int sizeOfDecimal(final BigDecimal value) {
+        if (value == null) {
+            return Byte.BYTES;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        int scale = sizeOfVarLong(zigZag(value.scale()));
+        if (unscaled.bitLength() < Long.SIZE) {
+            return Byte.BYTES + scale + sizeOfVarLong(zigZag(unscaled.longValue()));
+        }
+        int length = unscaled.bitLength() / Byte.SIZE + 1;
+        return Byte.BYTES + scale + sizeOfVarLong(length) + length;
+    }
+
+    private static void putDecimal(final ByteBuffer buffer, final BigDecimal value) {
+        if (value == null) {
+            buffer.put(NULL);
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            buffer.put(LONG_DECIMAL);
+            putVarLong(buffer, zigZag(value.scale()));
+            putVarLong(buffer, zigZag(unscaled.longValue()));
+        } else {
+            buffer.put(BIG_DECIMAL);
+            putVarLong(buffer, zigZag(value.scale()));
+            byte[] bytes = unscaled.toByteArray();
+            putVarLong(buffer, bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static BigDecimal getDecimal(final ByteBuffer buffer) {
+        byte type = buffer.get();
+        if (type == NULL) {
+            return null;
+        }
+        int scale = (int) unZigZag(getVarLong(buffer));
+        if (type == LONG_DECIMAL) {
+            return BigDecimal.valueOf(unZigZag(getVarLong(buffer)), scale);
+        }
+        byte[] bytes = new byte[(int) getVarLong(buffer)];
+        buffer.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static long zigZag(final long value) {
+        return value << 1 ^ value >> (Long.SIZE - 1);
+    }
+
+    private static long unZigZag(final long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static int sizeOfVarLong(final long value) {
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(value | 1);
+        return (bits + VARINT_PAYLOAD_BITS - 1) / VARINT_PAYLOAD_BITS;
+    }
+
+    private static void putVarLong(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~VARINT_PAYLOAD_MASK) != 0) {
+            buffer.put((byte) (remaining & VARINT_PAYLOAD_MASK | VARINT_CONTINUATION));
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    private static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & VARINT_PAYLOAD_MASK) << shift;
+            shift += VARINT_PAYLOAD_BITS;
+        } while ((b & VARINT_CONTINUATION) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,120 @@
+package ckollmeier.de.Persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Growable buffer records are encoded into, reused for all records of a thread.
+ */
+final class RecordBuffer {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int NULL_LENGTH = -1;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * @return the buffer for reading what was written, valid until the next write
+     */
+    ByteBuffer flip() {
+        return buffer.flip();
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+
+    private void ensureRemaining(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+    }
+
+    /**
+     * @param bytes number of bytes about to be written
+     * @return the buffer positioned for writing, with at least bytes remaining
+     */
+    ByteBuffer reserve(final int bytes) {
+        ensureRemaining(bytes);
+        return buffer;
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * @param index absolute index to write at, must have been written before
+     * @param value value to overwrite with
+     */
+    void putInt(final int index, final int value) {
+        buffer.putInt(index, value);
+    }
+
+    /**
+     * @param from index of the first byte to include
+     * @return CRC32C of the bytes written since from
+     */
+    int checksum(final int from) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), from, buffer.position() - from);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @param other buffer whose written bytes are appended, it is flipped for reading
+     */
+    void putAll(final RecordBuffer other) {
+        ByteBuffer source = other.flip();
+        ensureRemaining(source.remaining());
+        buffer.put(source);
+    }
+
+    void putByte(final int value) {
+        ensureRemaining(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    void putInt(final int value) {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(final long value) {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putBytes(final byte[] bytes) {
+        putInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @param value string to write, may be null
+     */
+    void putString(final String value) {
+        if (value == null) {
+            putInt(NULL_LENGTH);
+            return;
+        }
+        putBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param buffer buffer positioned at a string written by {@link #putString(String)}
+     * @return the string, may be null
+     */
+    static String getString(final ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
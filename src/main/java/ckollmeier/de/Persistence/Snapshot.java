@@ -0,0 +1,327 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Point-in-time image of the repositories in a memory-mapped file.
+ * <p>
+ * The file starts with a fixed header, followed by the records and one index per record type holding the
+ * file offset of every record as a long. The file is mapped in segments of 1 GiB and no record crosses a segment
+ * boundary, so any record is found with one index lookup and decoded straight from the mapping. Opening a snapshot
+ * therefore only maps the file, records are paged in and decoded when they are read, either one by one through
+ * {@link #product(int)}, {@link #stockArticle(int)} and {@link #order(int)} or all at once by
+ * {@link #loadInto(ProductRepository, StockRepository, OrderRepository)}.
+ * <p>
+ * Records are encoded by {@link EntityCodec}.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x53484F50;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_BYTES - 1;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private final MappedByteBuffer[] segments;
+    private final long id;
+    private final Instant createdAt;
+    private final int productCount;
+    private final int stockCount;
+    private final int orderCount;
+    private final long productIndex;
+    private final long stockIndex;
+    private final long orderIndex;
+
+    private Snapshot(final MappedByteBuffer[] segments) throws IOException {
+        this.segments = segments;
+        ByteBuffer header = segments[0];
+        if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot");
+        }
+        if (header.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + header.getInt(Integer.BYTES));
+        }
+        createdAt = Instant.ofEpochMilli(header.getLong(8));
+        productCount = header.getInt(16);
+        stockCount = header.getInt(20);
+        orderCount = header.getInt(24);
+        productIndex = header.getLong(32);
+        stockIndex = header.getLong(40);
+        orderIndex = header.getLong(48);
+        id = header.getLong(56);
+    }
+
+    /**
+     * Maps a snapshot, no record is read yet.
+     *
+     * @param file file written by {@link #write(Path, ProductRepository, StockRepository, OrderRepository)}
+     * @return the mapped snapshot
+     * @throws IOException if the file cannot be mapped or is no snapshot
+     */
+    public static Snapshot open(final @NonNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a snapshot");
+            }
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, size - start));
+            }
+            return new Snapshot(segments);
+        }
+    }
+
+    /**
+     * Writes the current content of the repositories.
+     * <p>
+     * The file is written next to the target and moved into place once complete, so a crash never leaves a partial
+     * snapshot behind. Mutations running concurrently may or may not be included, take snapshots while the
+     * repositories are not changed to get a consistent image.
+     *
+     * @param file              file to write
+     * @param productRepository repository of the products
+     * @param stockRepository   repository of the stock
+     * @param orderRepository   repository of the orders
+     * @return id of the written snapshot
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(final @NonNull Path file, final @NonNull ProductRepository productRepository,
+                             final @NonNull StockRepository stockRepository,
+                             final @NonNull OrderRepository orderRepository) throws IOException {
+        long id = ThreadLocalRandom.current().nextLong();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        List<Product> products = productRepository.findAll();
+        List<StockArticle> stock = stockRepository.findAll();
+        Collection<Order> orders = orderRepository.findAll();
+        try (SegmentWriter writer = new SegmentWriter(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            writer.skip(HEADER_BYTES);
+            long[] productOffsets = writer.putRecords(products, WalCodec::putProduct);
+            long[] stockOffsets = writer.putRecords(stock, WalCodec::putStockArticle);
+            long[] orderOffsets = writer.putRecords(orders, WalCodec::putOrder);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            header.putInt(productOffsets.length).putInt(stockOffsets.length).putInt(orderOffsets.length).putInt(0);
+            header.putLong(writer.putIndex(productOffsets));
+            header.putLong(writer.putIndex(stockOffsets));
+            header.putLong(writer.putIndex(orderOffsets));
+            header.putLong(id);
+            writer.finish(header.clear());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+
+    /**
+     * @return random id telling snapshots apart
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return when the snapshot was written
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getStockCount() {
+        return stockCount;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * @param index index of the product, below {@link #getProductCount()}
+     * @return the decoded product
+     */
+    public Product product(final int index) {
+        return EntityCodec.getProduct(record(productIndex, index, productCount));
+    }
+
+    /**
+     * @param index index of the stock article, below {@link #getStockCount()}
+     * @return the decoded stock article
+     */
+    public StockArticle stockArticle(final int index) {
+        return EntityCodec.getStockArticle(record(stockIndex, index, stockCount));
+    }
+
+    /**
+     * @param index index of the order, below {@link #getOrderCount()}
+     * @return the decoded order
+     */
+    public Order order(final int index) {
+        return EntityCodec.getOrder(record(orderIndex, index, orderCount));
+    }
+
+    /**
+     * Adds all records to the repositories, which should be empty.
+     * <p>
+     * Products keep their order and are added by the calling thread, stock articles and orders are decoded and added
+     * in parallel.
+     *
+     * @param productRepository repository of the products
+     * @param stockRepository   repository of the stock
+     * @param orderRepository   repository of the orders
+     */
+    public void loadInto(final @NonNull ProductRepository productRepository,
+                         final @NonNull StockRepository stockRepository,
+                         final @NonNull OrderRepository orderRepository) {
+        for (int i = 0; i < productCount; i++) {
+            productRepository.addProduct(product(i));
+        }
+        IntStream.range(0, stockCount).parallel().forEach(i -> stockRepository.addProduct(stockArticle(i)));
+        IntStream.range(0, orderCount).parallel().forEach(i -> orderRepository.addOrder(order(i)));
+    }
+
+    private ByteBuffer record(final long indexOffset, final int index, final int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        long entry = indexOffset + (long) index * Long.BYTES;
+        long offset = segments[(int) (entry >>> SEGMENT_BITS)].getLong((int) (entry & SEGMENT_MASK));
+        return segments[(int) (offset >>> SEGMENT_BITS)].duplicate().position((int) (offset & SEGMENT_MASK));
+    }
+
+    /**
+     * Buffered sequential writer keeping records and index entries within a segment.
+     */
+    private static final class SegmentWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final RecordBuffer record = new RecordBuffer();
+        private long position;
+
+        SegmentWriter(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        <T> long[] putRecords(final Collection<T> values, final BiConsumer<RecordBuffer, T> encoder)
+                throws IOException {
+            long[] offsets = new long[values.size()];
+            int count = 0;
+            for (T value : values) {
+                record.clear();
+                encoder.accept(record, value);
+                ByteBuffer bytes = record.flip();
+                if (bytes.remaining() > SEGMENT_BYTES) {
+                    throw new IOException("Record larger than a segment");
+                }
+                long left = SEGMENT_BYTES - (position & SEGMENT_MASK);
+                if (bytes.remaining() > left) {
+                    skip(left);
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2 + 1);
+                }
+                offsets[count++] = position;
+                put(bytes);
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+
+        /**
+         * @param offsets offsets of the records
+         * @return offset of the index, aligned so that no entry crosses a segment boundary
+         * @throws IOException if writing fails
+         */
+        long putIndex(final long[] offsets) throws IOException {
+            skip((Long.BYTES - (position & (Long.BYTES - 1))) & (Long.BYTES - 1));
+            long start = position;
+            for (long offset : offsets) {
+                if (out.remaining() < Long.BYTES) {
+                    flush();
+                }
+                out.putLong(offset);
+                position += Long.BYTES;
+            }
+            return start;
+        }
+
+        void skip(final long bytes) throws IOException {
+            for (long i = 0; i < bytes; i++) {
+                if (!out.hasRemaining()) {
+                    flush();
+                }
+                out.put((byte) 0);
+            }
+            position += bytes;
+        }
+
+        private void put(final ByteBuffer bytes) throws IOException {
+            position += bytes.remaining();
+            while (bytes.hasRemaining()) {
+                if (!out.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(out.remaining(), bytes.remaining());
+                out.put(out.position(), bytes, bytes.position(), chunk);
+                out.position(out.position() + chunk);
+                bytes.position(bytes.position() + chunk);
+            }
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+
+        /**
+         * Writes the header and forces the file to disk.
+         *
+         * @param header header to write at the start of the file
+         * @throws IOException if writing fails
+         */
+        void finish(final ByteBuffer header) throws IOException {
+            flush();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
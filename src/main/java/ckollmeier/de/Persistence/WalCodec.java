@@ -0,0 +1,87 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Records of the {@link WriteAheadLog} and their replay into the repositories, entities are encoded by
+ * {@link EntityCodec}.
+ */
+final class WalCodec {
+    static final byte PRODUCT_ADDED = 1;
+    static final byte PRODUCT_REMOVED = 2;
+    static final byte STOCK_ADDED = 3;
+    static final byte STOCK_INCREASED = 4;
+    static final byte STOCK_DECREASED = 5;
+    static final byte ORDER_ADDED = 6;
+    static final byte ORDER_REMOVED = 7;
+    /**
+     * first record of a log continuing a snapshot, holds the id of the snapshot.
+     */
+    static final byte CHECKPOINT = 8;
+
+    private WalCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static void putProduct(final RecordBuffer buffer, final Product product) {
+        EntityCodec.putProduct(buffer.reserve(EntityCodec.sizeOf(product)), product);
+    }
+
+    static void putStockArticle(final RecordBuffer buffer, final StockArticle stockArticle) {
+        EntityCodec.putStockArticle(buffer.reserve(EntityCodec.sizeOf(stockArticle)), stockArticle);
+    }
+
+    static void putOrder(final RecordBuffer buffer, final Order order) {
+        EntityCodec.putOrder(buffer.reserve(EntityCodec.sizeOf(order)), order);
+    }
+
+    static void putStockChange(final RecordBuffer buffer, final String productId, final long baseUnits, final String orderId) {
+        buffer.putString(productId);
+        buffer.putLong(baseUnits);
+        buffer.putString(orderId);
+    }
+
+    /**
+     * Applies one record to the repositories.
+     *
+     * @param type               type of the record
+     * @param payload            payload of the record
+     * @param productRepository  repository of the products
+     * @param stockRepository    repository of the stock
+     * @param orderRepository    repository of the orders
+     * @throws IOException if the record does not fit the state of the repositories
+     */
+    static void apply(final byte type, final ByteBuffer payload, final ProductRepository productRepository,
+                      final StockRepository stockRepository, final OrderRepository orderRepository) throws IOException {
+        switch (type) {
+            case PRODUCT_ADDED -> productRepository.addProduct(EntityCodec.getProduct(payload));
+            case PRODUCT_REMOVED -> productRepository.removeProductWithId(RecordBuffer.getString(payload));
+            case STOCK_ADDED -> stockRepository.addProduct(EntityCodec.getStockArticle(payload));
+            case STOCK_INCREASED -> {
+                String productId = RecordBuffer.getString(payload);
+                long baseUnits = payload.getLong();
+                if (!stockRepository.increaseBaseUnits(productId, baseUnits, RecordBuffer.getString(payload))) {
+                    throw new IOException("Stock of product " + productId + " increased before it was added");
+                }
+            }
+            case STOCK_DECREASED -> {
+                String productId = RecordBuffer.getString(payload);
+                long baseUnits = payload.getLong();
+                if (!stockRepository.reserveBaseUnits(productId, baseUnits, RecordBuffer.getString(payload))) {
+                    throw new IOException("Stock of product " + productId + " decreased below zero");
+                }
+            }
+            case ORDER_ADDED -> orderRepository.addOrder(EntityCodec.getOrder(payload));
+            case ORDER_REMOVED -> orderRepository.removeOrderWithId(RecordBuffer.getString(payload));
+            default -> throw new IOException("Unknown record type " + type);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Repository.MutationLog;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of all repository mutations, replayed on startup to restore the repositories.
+ * <p>
+ * Every record is framed as {@code [int length][byte type][payload][int CRC32C of type and payload]}. Records are
+ * encoded by the calling thread into a thread-local buffer and only copied into the shared pending buffer under the
+ * append lock. Pending records are written and forced to disk together (group commit) by a background thread, either
+ * once {@code syncEveryRecords} records are pending or every {@code syncInterval}, whichever comes first. Callers never
+ * wait for the disk, so a crash loses at most the records appended since the last sync; call {@link #sync()} when a
+ * mutation must be durable before continuing.
+ * <p>
+ * A crash while writing leaves a torn record at the end of the file, {@link #recover} stops at the first incomplete
+ * or corrupt record and truncates the file there. A {@link #checkpoint checkpoint} writes a {@link Snapshot} and
+ * restarts the log after it, so recovery only has to replay what changed since.
+ */
+public final class WriteAheadLog implements MutationLog, Closeable {
+    /**
+     * upper bound for the length of a single record, larger lengths can only come from a corrupt file.
+     */
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int CHECKSUM_BYTES = Integer.BYTES;
+    private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final FileChannel channel;
+    private final int syncEveryRecords;
+    private final ScheduledExecutorService syncExecutor;
+    private final ThreadLocal<RecordBuffer> recordBuffers = ThreadLocal.withInitial(RecordBuffer::new);
+    /**
+     * guards pending and pendingRecords.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * guards writing and the position of the channel.
+     */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicLong syncs = new AtomicLong();
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer writing = new RecordBuffer();
+    private int pendingRecords;
+    private volatile boolean replaying;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private WriteAheadLog(final FileChannel channel, final int syncEveryRecords, final Duration syncInterval) {
+        this.channel = channel;
+        this.syncEveryRecords = syncEveryRecords;
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-ahead-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!syncInterval.isZero()) {
+            long millis = syncInterval.toMillis();
+            syncExecutor.scheduleWithFixedDelay(this::syncInBackground, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Opens or creates a log, new records are appended after the existing ones.
+     *
+     * @param file             file of the log
+     * @param syncEveryRecords number of pending records that triggers a sync, 1 syncs every record
+     * @param syncInterval     maximum time records stay pending, zero to sync by record count only
+     * @return the opened log
+     * @throws IOException if the file cannot be opened
+     */
+    public static WriteAheadLog open(final @NonNull Path file, final int syncEveryRecords,
+                                     final @NonNull Duration syncInterval) throws IOException {
+        if (syncEveryRecords < 1) {
+            throw new IllegalArgumentException("Records per sync must be positive");
+        }
+        if (syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Sync interval must not be negative");
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return new WriteAheadLog(channel, syncEveryRecords, syncInterval);
+    }
+
+    /**
+     * Replays all records into the repositories, which must be empty and use this log.
+     * <p>
+     * Replayed mutations are not logged again. Replaying stops at the first incomplete or corrupt record, which is
+     * what a crash during a write leaves behind, and the file is truncated there.
+     *
+     * @param productRepository repository of the products
+     * @param stockRepository   repository of the stock
+     * @param orderRepository   repository of the orders
+     * @return number of replayed records
+     * @throws IOException if the file cannot be read, a record does not fit the repositories or the log continues a
+     *                     snapshot
+     */
+    public long recover(final @NonNull ProductRepository productRepository,
+                        final @NonNull StockRepository stockRepository,
+                        final @NonNull OrderRepository orderRepository) throws IOException {
+        syncLock.lock();
+        replaying = true;
+        try {
+            return replay(null, productRepository, stockRepository, orderRepository);
+        } finally {
+            replaying = false;
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays the records logged after it into the repositories, which must be empty and use
+     * this log.
+     * <p>
+     * A log not starting at the snapshot was written before it, its records are all contained in the snapshot and it
+     * is emptied instead of replayed.
+     *
+     * @param snapshot          snapshot written by {@link #checkpoint}
+     * @param productRepository repository of the products
+     * @param stockRepository   repository of the stock
+     * @param orderRepository   repository of the orders
+     * @return number of replayed records, not counting the records of the snapshot
+     * @throws IOException if the file cannot be read or a record does not fit the repositories
+     */
+    public long recover(final @NonNull Snapshot snapshot, final @NonNull ProductRepository productRepository,
+                        final @NonNull StockRepository stockRepository,
+                        final @NonNull OrderRepository orderRepository) throws IOException {
+        syncLock.lock();
+        replaying = true;
+        try {
+            snapshot.loadInto(productRepository, stockRepository, orderRepository);
+            return replay(snapshot, productRepository, stockRepository, orderRepository);
+        } finally {
+            replaying = false;
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the repositories and empties the log, which then continues the snapshot.
+     * <p>
+     * Must only be called while the repositories are not changed, e.g. right after recovery or before closing, since
+     * a mutation applied while the snapshot is written could end up both in the snapshot and in the log.
+     *
+     * @param snapshotFile      file of the snapshot, replaced if it exists
+     * @param productRepository repository of the products
+     * @param stockRepository   repository of the stock
+     * @param orderRepository   repository of the orders
+     * @throws IOException if the snapshot or the log cannot be written
+     */
+    public void checkpoint(final @NonNull Path snapshotFile, final @NonNull ProductRepository productRepository,
+                           final @NonNull StockRepository stockRepository,
+                           final @NonNull OrderRepository orderRepository) throws IOException {
+        syncLock.lock();
+        try {
+            sync();
+            long snapshotId = Snapshot.write(snapshotFile, productRepository, stockRepository, orderRepository);
+            // a crash before the log is restarted is detected by recover, the old log lacks the new checkpoint
+            restart(snapshotId);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // must only be called while holding the sync lock
+    private long replay(final Snapshot snapshot, final ProductRepository productRepository,
+                        final StockRepository stockRepository, final OrderRepository orderRepository)
+            throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long records = 0;
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+        ByteBuffer frame = ByteBuffer.allocate(0);
+        while (readFully(length.clear(), position) == LENGTH_BYTES) {
+            int recordLength = length.getInt(0);
+            if (recordLength < 1 || recordLength > MAX_RECORD_BYTES) {
+                break;
+            }
+            if (frame.capacity() < recordLength + CHECKSUM_BYTES) {
+                frame = ByteBuffer.allocate(Math.max(frame.capacity() * 2, recordLength + CHECKSUM_BYTES));
+            }
+            frame.clear().limit(recordLength + CHECKSUM_BYTES);
+            if (readFully(frame, position + LENGTH_BYTES) < recordLength + CHECKSUM_BYTES) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(frame.array(), 0, recordLength);
+            if ((int) crc.getValue() != frame.getInt(recordLength)) {
+                break;
+            }
+            frame.position(0).limit(recordLength);
+            byte type = frame.get();
+            if (position == 0 && snapshot != null && !continues(type, frame, snapshot)) {
+                restart(snapshot.getId());
+                return 0;
+            }
+            if (type == WalCodec.CHECKPOINT) {
+                if (snapshot == null) {
+                    throw new IOException("Log continues snapshot " + frame.getLong() + ", recover from it");
+                }
+            } else {
+                WalCodec.apply(type, frame, productRepository, stockRepository, orderRepository);
+                records++;
+            }
+            position += LENGTH_BYTES + recordLength + CHECKSUM_BYTES;
+        }
+        if (position == 0 && snapshot != null) {
+            restart(snapshot.getId());
+            return 0;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return records;
+    }
+
+    private static boolean continues(final byte type, final ByteBuffer payload, final Snapshot snapshot) {
+        return type == WalCodec.CHECKPOINT && payload.getLong(payload.position()) == snapshot.getId();
+    }
+
+    // empties the log and starts it with a checkpoint record, must only be called while holding the sync lock
+    private void restart(final long snapshotId) throws IOException {
+        RecordBuffer record = new RecordBuffer();
+        frame(record, WalCodec.CHECKPOINT, buffer -> buffer.putLong(snapshotId));
+        channel.truncate(0);
+        ByteBuffer bytes = record.flip();
+        long position = 0;
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+        channel.force(true);
+        channel.position(position);
+    }
+
+    // encodes a complete frame into the buffer
+    private static void frame(final RecordBuffer record, final byte type, final Consumer<RecordBuffer> payload) {
+        record.clear();
+        record.putInt(0);
+        record.putByte(type);
+        payload.accept(record);
+        record.putInt(0, record.position() - LENGTH_BYTES);
+        record.putInt(record.checksum(LENGTH_BYTES));
+    }
+
+    private int readFully(final ByteBuffer buffer, final long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int bytes = channel.read(buffer, position + read);
+            if (bytes < 0) {
+                break;
+            }
+            read += bytes;
+        }
+        return read;
+    }
+
+    private void append(final byte type, final Consumer<RecordBuffer> payload) {
+        if (replaying) {
+            return;
+        }
+        RecordBuffer record = recordBuffers.get();
+        frame(record, type, payload);
+
+        boolean syncDue;
+        appendLock.lock();
+        try {
+            checkUsable();
+            pending.putAll(record);
+            pendingRecords++;
+            // only the append reaching the threshold schedules a sync, the sync takes all records pending by then
+            syncDue = pendingRecords == syncEveryRecords;
+        } finally {
+            appendLock.unlock();
+        }
+        if (syncDue) {
+            try {
+                syncExecutor.execute(this::syncInBackground);
+            } catch (RejectedExecutionException e) {
+                // closing, close() syncs the record
+            }
+        }
+    }
+
+    private void checkUsable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        IOException cause = failure;
+        if (cause != null) {
+            throw new UncheckedIOException("Write-ahead log failed", cause);
+        }
+    }
+
+    private void syncInBackground() {
+        try {
+            sync();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Writes all pending records and forces them to disk.
+     *
+     * @throws IOException if writing fails, the log rejects all further records then
+     */
+    public void sync() throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                if (pendingRecords == 0) {
+                    return;
+                }
+                RecordBuffer full = pending;
+                pending = writing;
+                writing = full;
+                pendingRecords = 0;
+            } finally {
+                appendLock.unlock();
+            }
+            ByteBuffer bytes = writing.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            writing.clear();
+            syncs.incrementAndGet();
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of syncs, each forcing any number of records to disk
+     */
+    public long getSyncs() {
+        return syncs.get();
+    }
+
+    /**
+     * Syncs all pending records and closes the file, further records are rejected.
+     *
+     * @throws IOException if the last sync fails
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        syncExecutor.shutdown();
+        try {
+            syncExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void productAdded(final Product product) {
+        append(WalCodec.PRODUCT_ADDED, buffer -> WalCodec.putProduct(buffer, product));
+    }
+
+    @Override
+    public void productRemoved(final String productId) {
+        append(WalCodec.PRODUCT_REMOVED, buffer -> buffer.putString(productId));
+    }
+
+    @Override
+    public void stockAdded(final StockArticle stockArticle) {
+        append(WalCodec.STOCK_ADDED, buffer -> WalCodec.putStockArticle(buffer, stockArticle));
+    }
+
+    @Override
+    public void stockIncreased(final String productId, final long baseUnits, final String orderId) {
+        append(WalCodec.STOCK_INCREASED, buffer -> WalCodec.putStockChange(buffer, productId, baseUnits, orderId));
+    }
+
+    @Override
+    public void stockDecreased(final String productId, final long baseUnits, final String orderId) {
+        append(WalCodec.STOCK_DECREASED, buffer -> WalCodec.putStockChange(buffer, productId, baseUnits, orderId));
+    }
+
+    @Override
+    public void orderAdded(final Order order) {
+        append(WalCodec.ORDER_ADDED, buffer -> WalCodec.putOrder(buffer, order));
+    }
+
+    @Override
+    public void orderRemoved(final String orderId) {
+        append(WalCodec.ORDER_REMOVED, buffer -> buffer.putString(orderId));
+    }
+}
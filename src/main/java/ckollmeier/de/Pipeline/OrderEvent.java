@@ -0,0 +1,93 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.OrderResult;
+
+import java.util.function.Consumer;
+
+/**
+ * Slot of the ring buffer, reused for every order passing through it. Each field is written by one stage and read
+ * by the stages after it.
+ */
+final class OrderEvent {
+    /**
+     * the order as published, with an id after validation.
+     */
+    private Order order;
+    private Consumer<OrderResult> acknowledgement;
+    /**
+     * per line whether it was reserved, null if the order was rejected as a whole.
+     */
+    private boolean[] reservedLines;
+    private Order placedOrder;
+    /**
+     * why the order was not placed, null as long as it can be.
+     */
+    private String error;
+
+    /**
+     * @param publishedOrder       the published order
+     * @param orderAcknowledgement receives the result
+     */
+    void publish(final Order publishedOrder, final Consumer<OrderResult> orderAcknowledgement) {
+        order = publishedOrder;
+        acknowledgement = orderAcknowledgement;
+    }
+
+    Order order() {
+        return order;
+    }
+
+    void setOrder(final Order validatedOrder) {
+        order = validatedOrder;
+    }
+
+    boolean[] reservedLines() {
+        return reservedLines;
+    }
+
+    void setReservedLines(final boolean[] lines) {
+        reservedLines = lines;
+    }
+
+    void setPlacedOrder(final Order placed) {
+        placedOrder = placed;
+    }
+
+    boolean isRejected() {
+        return error != null;
+    }
+
+    boolean isPlaced() {
+        return placedOrder != null;
+    }
+
+    void reject(final String reason) {
+        error = reason;
+    }
+
+    /**
+     * @return receives the result
+     */
+    Consumer<OrderResult> acknowledgement() {
+        return acknowledgement;
+    }
+
+    /**
+     * @return the result of the order
+     */
+    OrderResult result() {
+        return error == null ? OrderResult.placed(placedOrder) : OrderResult.rejected(error);
+    }
+
+    /**
+     * Clears the slot, so it keeps no order alive until it is reused.
+     */
+    void clear() {
+        order = null;
+        acknowledgement = null;
+        reservedLines = null;
+        placedOrder = null;
+        error = null;
+    }
+}
@@ -0,0 +1,372 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.WaitStrategyEnum;
+import ckollmeier.de.OrderResult;
+import ckollmeier.de.Pricing.OrderPricer;
+import ckollmeier.de.Repository.FixedPointQuantity;
+import ckollmeier.de.Repository.IdGenerator;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.StockRepository;
+import lombok.NonNull;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Order intake through a preallocated ring buffer passed by four stages, each on its own thread.
+ * <p>
+ * Producers publish orders into the slots of the ring. The stages follow each other around the ring:
+ * <ol>
+ *     <li>validate: checks the lines and gives orders without id one from {@link IdGenerator#TIME_ORDERED}</li>
+ *     <li>reserve: reserves the stock of all orders of a batch together, see
+ *     {@link StockRepository#reserveOrders(List, ReservationModeEnum)}</li>
+ *     <li>persist: prices the reserved lines and adds the order to the {@link OrderRepository}</li>
+ *     <li>acknowledge: passes each result to the acknowledgement given with the order and frees the slot</li>
+ * </ol>
+ * A stage takes everything the stage before it has finished as one batch, so the busier the pipeline, the larger
+ * the batches and the fewer the hand-overs per order. Stages and producers wait by the given
+ * {@link WaitStrategyEnum}, the slots of the ring are reused, so no queue nodes or futures are allocated per order.
+ * <p>
+ * Orders are placed with the same outcome as placing them one after another in publishing order, see
+ * {@link ckollmeier.de.ShopService#addOrders(java.util.Collection)}, but an order with an invalid line is rejected
+ * on its own instead of failing the others.
+ */
+public final class OrderPipeline implements AutoCloseable {
+    /**
+     * default number of slots.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+
+    private final StockRepository stockRepository;
+    private final OrderRepository orderRepository;
+    private final ReservationModeEnum reservationMode;
+    private final WaitStrategyEnum waitStrategy;
+    private final OrderPricer orderPricer = new OrderPricer();
+    private final Sequence validated = new Sequence();
+    private final Sequence reserved = new Sequence();
+    private final Sequence persisted = new Sequence();
+    private final Sequence acknowledged = new Sequence();
+    private final RingBuffer<OrderEvent> ringBuffer;
+    /**
+     * orders of the current batch of the reserve stage, only used by its thread.
+     */
+    private final List<Order> reservationBatch = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    /**
+     * handler of the stage threads, null for the default handler of threads.
+     */
+    private final UncaughtExceptionHandler errorHandler;
+    private volatile boolean closed;
+    private volatile boolean running = true;
+
+    private OrderPipeline(final StockRepository stockRepository, final OrderRepository orderRepository,
+                          final ReservationModeEnum reservationMode, final WaitStrategyEnum waitStrategy,
+                          final int bufferSize, final UncaughtExceptionHandler errorHandler) {
+        this.stockRepository = stockRepository;
+        this.orderRepository = orderRepository;
+        this.reservationMode = reservationMode;
+        this.waitStrategy = waitStrategy;
+        this.ringBuffer = new RingBuffer<>(bufferSize, OrderEvent::new, acknowledged);
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Starts a pipeline with {@link #DEFAULT_BUFFER_SIZE} slots.
+     *
+     * @param stockRepository stock to reserve from
+     * @param orderRepository repository to add the placed orders to
+     * @param reservationMode how the lines of an order are reserved
+     * @param waitStrategy    how stages and producers wait
+     * @return the running pipeline
+     */
+    public static OrderPipeline start(final @NonNull StockRepository stockRepository, final @NonNull OrderRepository orderRepository,
+                                      final @NonNull ReservationModeEnum reservationMode, final @NonNull WaitStrategyEnum waitStrategy) {
+        return start(stockRepository, orderRepository, reservationMode, waitStrategy, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Starts a pipeline passing the exceptions thrown by acknowledgements to the default uncaught exception handler.
+     *
+     * @param stockRepository stock to reserve from
+     * @param orderRepository repository to add the placed orders to
+     * @param reservationMode how the lines of an order are reserved
+     * @param waitStrategy    how stages and producers wait
+     * @param bufferSize      number of slots, a power of two
+     * @return the running pipeline
+     */
+    public static OrderPipeline start(final @NonNull StockRepository stockRepository, final @NonNull OrderRepository orderRepository,
+                                      final @NonNull ReservationModeEnum reservationMode, final @NonNull WaitStrategyEnum waitStrategy,
+                                      final int bufferSize) {
+        return start(new OrderPipeline(stockRepository, orderRepository, reservationMode, waitStrategy, bufferSize, null));
+    }
+
+    /**
+     * @param stockRepository stock to reserve from
+     * @param orderRepository repository to add the placed orders to
+     * @param reservationMode how the lines of an order are reserved
+     * @param waitStrategy    how stages and producers wait
+     * @param bufferSize      number of slots, a power of two
+     * @param errorHandler    receives the exceptions thrown by acknowledgements, on the acknowledging thread, which
+     *                        goes on acknowledging the following orders
+     * @return the running pipeline
+     */
+    public static OrderPipeline start(final @NonNull StockRepository stockRepository, final @NonNull OrderRepository orderRepository,
+                                      final @NonNull ReservationModeEnum reservationMode, final @NonNull WaitStrategyEnum waitStrategy,
+                                      final int bufferSize, final @NonNull UncaughtExceptionHandler errorHandler) {
+        return start(new OrderPipeline(stockRepository, orderRepository, reservationMode, waitStrategy, bufferSize, errorHandler));
+    }
+
+    private static OrderPipeline start(final OrderPipeline pipeline) {
+        pipeline.startStage("validate", null, pipeline.validated, pipeline::validate);
+        pipeline.startStage("reserve", pipeline.validated, pipeline.reserved, pipeline::reserve);
+        pipeline.startStage("persist", pipeline.reserved, pipeline.persisted, pipeline::persist);
+        pipeline.startStage("acknowledge", pipeline.persisted, pipeline.acknowledged, pipeline::acknowledge);
+        return pipeline;
+    }
+
+    /**
+     * Events from one sequence up to another.
+     */
+    @FunctionalInterface
+    private interface BatchHandler {
+        void handle(long from, long to);
+    }
+
+    private void startStage(final String name, final Sequence upstream, final Sequence sequence, final BatchHandler handler) {
+        Thread thread = new Thread(() -> runStage(upstream, sequence, handler), "order-pipeline-" + name);
+        thread.setDaemon(true);
+        if (errorHandler != null) {
+            thread.setUncaughtExceptionHandler(errorHandler);
+        }
+        threads.add(thread);
+        thread.start();
+    }
+
+    // the first stage follows the producers, every other stage the stage before it; a failing handler rejects what is
+    // left of its batch instead of ending the thread, so the orders after it still pass and close() does not wait forever
+    private void runStage(final Sequence upstream, final Sequence sequence, final BatchHandler handler) {
+        long next = sequence.get();
+        int attempt = 0;
+        while (running) {
+            long available = upstream == null ? ringBuffer.firstUnpublished(next) : upstream.get();
+            if (available == next) {
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+            attempt = 0;
+            try {
+                handler.handle(next, available);
+            } catch (RuntimeException e) {
+                rejectAll(next, available, "Order could not be processed: " + e);
+            }
+            sequence.set(available);
+            next = available;
+        }
+    }
+
+    /**
+     * Publishes an order if there is a free slot.
+     *
+     * @param order           order to place
+     * @param acknowledgement receives the result on the acknowledging thread, must not block
+     * @return false if the ring is full
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public boolean tryPublish(final @NonNull Order order, final @NonNull Consumer<OrderResult> acknowledgement) {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        long sequence = ringBuffer.tryClaim();
+        if (sequence < 0) {
+            return false;
+        }
+        ringBuffer.get(sequence).publish(order, acknowledgement);
+        ringBuffer.publish(sequence);
+        return true;
+    }
+
+    /**
+     * Publishes an order, waiting by the wait strategy while the ring is full.
+     *
+     * @param order           order to place
+     * @param acknowledgement receives the result on the acknowledging thread, must not block
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public void publish(final @NonNull Order order, final @NonNull Consumer<OrderResult> acknowledgement) {
+        int attempt = 0;
+        while (!tryPublish(order, acknowledgement)) {
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    private void validate(final long from, final long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            Order order = event.order();
+            String error = invalidLine(order);
+            if (error != null) {
+                event.reject(error);
+            } else if (order.id() == null) {
+                event.setOrder(order.withId(IdGenerator.TIME_ORDERED.nextString()));
+            }
+        }
+    }
+
+    // why the order cannot be reserved, null if it can
+    private static String invalidLine(final Order order) {
+        if (order.products() == null) {
+            return "Order has no products";
+        }
+        for (OrderProduct line : order.products()) {
+            if (line == null || line.getStockArticle() == null || line.getQuantity() == null) {
+                return "Order has a line without stock article or quantity";
+            }
+            if (line.getStockArticle().product() == null || line.productId() == null || line.unit() == null) {
+                return "Order has a line with a stock article without product or unit";
+            }
+            if (line.getQuantity().compareTo(BigDecimal.ZERO) < 0) {
+                return "Quantity must be non-negative";
+            }
+            try {
+                FixedPointQuantity.toBaseUnits(line.getQuantity(), line.unit());
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private void reserve(final long from, final long to) {
+        reservationBatch.clear();
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            if (!event.isRejected()) {
+                reservationBatch.add(event.order());
+            }
+        }
+        boolean[][] reservedLines;
+        try {
+            reservedLines = stockRepository.reserveOrders(reservationBatch, reservationMode);
+        } catch (IllegalArgumentException e) {
+            reserveOneByOne(from, to);
+            return;
+        } catch (RuntimeException e) {
+            rejectAll(from, to, e.getMessage());
+            return;
+        }
+        int i = 0;
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            if (!event.isRejected()) {
+                event.setReservedLines(reservedLines[i++]);
+            }
+        }
+    }
+
+    // a batch rejected before anything was reserved, e.g. for stock changed to an incompatible unit, is retried order by order
+    private void reserveOneByOne(final long from, final long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            if (!event.isRejected()) {
+                try {
+                    event.setReservedLines(stockRepository.reserveOrders(List.of(event.order()), reservationMode)[0]);
+                } catch (RuntimeException e) {
+                    event.reject(e.getMessage());
+                }
+            }
+        }
+    }
+
+    // the stock of a batch failing while reserving is unknown, so none of its orders is placed; placed ones stay placed
+    private void rejectAll(final long from, final long to, final String error) {
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            if (!event.isRejected() && !event.isPlaced()) {
+                event.reject(error);
+            }
+        }
+    }
+
+    private void persist(final long from, final long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            if (event.isRejected()) {
+                continue;
+            }
+            if (event.reservedLines() == null) {
+                event.reject("Not enough stock for order");
+                continue;
+            }
+            Order order = event.order();
+            List<OrderProduct> lines = reservedLines(order.products(), event.reservedLines());
+            try {
+                event.setPlacedOrder(orderRepository.addOrder(orderPricer.price(order.withProducts(lines))).orElseThrow());
+            } catch (RuntimeException e) {
+                stockRepository.releaseAll(lines, order.id());
+                event.reject(e.getMessage());
+            }
+        }
+    }
+
+    // the lines of the order if all are reserved, otherwise a new list of the reserved ones
+    private static List<OrderProduct> reservedLines(final List<OrderProduct> lines, final boolean[] reservedLines) {
+        List<OrderProduct> reservedList = null;
+        for (int line = 0; line < reservedLines.length; line++) {
+            if (!reservedLines[line] && reservedList == null) {
+                reservedList = new ArrayList<>(lines.subList(0, line));
+            } else if (reservedLines[line] && reservedList != null) {
+                reservedList.add(lines.get(line));
+            }
+        }
+        return reservedList == null ? lines : reservedList;
+    }
+
+    private void acknowledge(final long from, final long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            OrderEvent event = ringBuffer.get(sequence);
+            OrderResult result = event.result();
+            Consumer<OrderResult> acknowledgement = event.acknowledgement();
+            event.clear();
+            try {
+                acknowledgement.accept(result);
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    /**
+     * @return number of orders published and not yet acknowledged
+     */
+    public long getBacklog() {
+        return ringBuffer.claimed() - acknowledged.get();
+    }
+
+    /**
+     * Stops taking orders, waits until every order published before is acknowledged and stops the stages.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        int attempt = 0;
+        while (acknowledged.get() < ringBuffer.claimed()) {
+            waitStrategy.idle(attempt++);
+        }
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
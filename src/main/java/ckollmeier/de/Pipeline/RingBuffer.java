@@ -0,0 +1,104 @@
+package ckollmeier.de.Pipeline;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Preallocated ring of events, claimed and published by any number of producers.
+ * <p>
+ * Sequences count up forever, the event of a sequence is the slot at the sequence modulo the size. A sequence can
+ * only be claimed once the gating sequence, the position of the last consumer, is less than a full ring behind.
+ * Producers publish their slots in any order, consumers only read up to the first unpublished one.
+ *
+ * @param <E> type of the events
+ */
+final class RingBuffer<E> {
+    private final Object[] events;
+    private final int mask;
+    private final int shift;
+    /**
+     * per slot the round of the sequence last published in it.
+     */
+    private final AtomicIntegerArray publishedRounds;
+    private final Sequence claimed = new Sequence();
+    private final Sequence gatingSequence;
+
+    /**
+     * @param size           number of slots, a power of two
+     * @param factory        creates the events of all slots up front
+     * @param gatingSequence position of the last consumer, slots before it may be claimed again
+     */
+    RingBuffer(final int size, final Supplier<E> factory, final Sequence gatingSequence) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Size must be a power of two");
+        }
+        events = new Object[size];
+        publishedRounds = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = factory.get();
+            publishedRounds.set(i, -1);
+        }
+        mask = size - 1;
+        shift = Integer.numberOfTrailingZeros(size);
+        this.gatingSequence = gatingSequence;
+    }
+
+    /**
+     * @return number of slots
+     */
+    int size() {
+        return events.length;
+    }
+
+    /**
+     * @param sequence a claimed or published sequence
+     * @return the event of the sequence's slot
+     */
+    @SuppressWarnings("unchecked")
+    E get(final long sequence) {
+        return (E) events[(int) sequence & mask];
+    }
+
+    /**
+     * @return the claimed sequence, -1 if the ring is full
+     */
+    long tryClaim() {
+        while (true) {
+            long next = claimed.get();
+            if (next - events.length >= gatingSequence.get()) {
+                return -1;
+            }
+            if (claimed.compareAndSet(next, next + 1)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * @return number of sequences claimed so far
+     */
+    long claimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Hands the event of a claimed sequence to the consumers.
+     *
+     * @param sequence the claimed sequence
+     */
+    void publish(final long sequence) {
+        publishedRounds.setRelease((int) sequence & mask, (int) (sequence >>> shift));
+    }
+
+    /**
+     * @param from first sequence to check
+     * @return the first sequence from from on that is not published yet
+     */
+    long firstUnpublished(final long from) {
+        long sequence = from;
+        while (publishedRounds.getAcquire((int) sequence & mask) == (int) (sequence >>> shift)) {
+            sequence++;
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,39 @@
+package ckollmeier.de.Pipeline;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Position of a stage in the ring buffer, padded so that the positions of different stages, written by different
+ * threads, never share a cache line.
+ */
+final class Sequence {
+    /**
+     * longs before and after the value, a cache line is at most 128 bytes.
+     */
+    private static final int PADDING = 15;
+
+    private final AtomicLongArray values = new AtomicLongArray(2 * PADDING + 1);
+
+    /**
+     * @return the position, all events before it are done
+     */
+    long get() {
+        return values.getAcquire(PADDING);
+    }
+
+    /**
+     * @param value new position, only set by the thread owning the sequence
+     */
+    void set(final long value) {
+        values.setRelease(PADDING, value);
+    }
+
+    /**
+     * @param expected current position
+     * @param value    new position
+     * @return true if the position was expected and is now value
+     */
+    boolean compareAndSet(final long expected, final long value) {
+        return values.compareAndSet(PADDING, expected, value);
+    }
+}
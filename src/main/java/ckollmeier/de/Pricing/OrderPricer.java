@@ -0,0 +1,107 @@
+package ckollmeier.de.Pricing;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.StockArticle;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Prices order lines by the price of their stock article and sums them up to the order total.
+ * <p>
+ * The price of a stock article is per unit of the stock article, and the quantity of a line is converted into that
+ * unit when it is set, so a subtotal is the quantity times the price, exact and not rounded to a currency.
+ * <p>
+ * The price of every stock article is converted once into an unscaled long and cached, so a line costs a cache
+ * lookup and long arithmetic, and the subtotals and the total are the only objects allocated. The stock repository
+ * keeps one price instance per product, so the cache is keyed by that instance: it is found by its identity hash,
+ * cheaper than hashing the product id, and a changed price is a new instance that is converted again. Amounts too
+ * large for a long are computed as {@link BigDecimal}.
+ * <p>
+ * A line whose stock article has no price stays unpriced, and an order with an unpriced line gets no total.
+ */
+public final class OrderPricer {
+    /**
+     * default number of cached prices, more distinct prices evict each other.
+     */
+    private static final int DEFAULT_CACHE_SIZE = 1 << 14;
+
+    private final UnitPrice[] unitPrices;
+    private final int mask;
+
+    /**
+     * Creates a pricer caching up to 16384 prices.
+     */
+    public OrderPricer() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize number of cached prices, rounded up to a power of two
+     */
+    public OrderPricer(final int cacheSize) {
+        int size = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+        unitPrices = new UnitPrice[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Sets the subtotal of every line of the order and computes its total.
+     *
+     * @param order order to price, its lines are updated in place
+     * @return the order with its total, without total if a line could not be priced
+     */
+    public Order price(final @NonNull Order order) {
+        List<OrderProduct> lines = order.products();
+        if (lines == null) {
+            return order;
+        }
+        PriceSum total = new PriceSum();
+        boolean priced = true;
+        for (int i = 0, size = lines.size(); i < size; i++) {
+            OrderProduct line = lines.get(i);
+            StockArticle stockArticle = line.getStockArticle();
+            if (stockArticle == null || stockArticle.price() == null || line.getQuantity() == null) {
+                line.setPriceSubTotal(null);
+                priced = false;
+            } else {
+                line.setPriceSubTotal(unitPrice(stockArticle.price()).subTotal(line.getQuantity(), total));
+            }
+        }
+        return order.withTotal(priced ? total.toDecimal() : null);
+    }
+
+    /**
+     * Sums the subtotals of already priced lines, e.g. of an order read back from storage.
+     *
+     * @param lines order lines
+     * @return the sum of the subtotals, null if lines is null or a line has no subtotal
+     */
+    public static BigDecimal total(final List<OrderProduct> lines) {
+        if (lines == null) {
+            return null;
+        }
+        PriceSum total = new PriceSum();
+        for (OrderProduct line : lines) {
+            if (line.getPriceSubTotal() == null) {
+                return null;
+            }
+            total.add(line.getPriceSubTotal());
+        }
+        return total.toDecimal();
+    }
+
+    // racing threads may both convert a price and overwrite each other's entry, either entry is correct
+    private UnitPrice unitPrice(final BigDecimal price) {
+        int slot = System.identityHashCode(price) & mask;
+        UnitPrice cached = unitPrices[slot];
+        if (cached != null && cached.isFor(price)) {
+            return cached;
+        }
+        UnitPrice unitPrice = new UnitPrice(price);
+        unitPrices[slot] = unitPrice;
+        return unitPrice;
+    }
+}
@@ -0,0 +1,84 @@
+package ckollmeier.de.Pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Running sum of amounts, kept as an unscaled long as long as it fits and as {@link BigDecimal} after that.
+ */
+final class PriceSum {
+    /**
+     * largest power of ten that fits into a long.
+     */
+    private static final int MAX_EXPONENT = 18;
+    /**
+     * powers of ten up to {@link #MAX_EXPONENT}, by exponent.
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_EXPONENT + 1];
+    /**
+     * base of the powers.
+     */
+    private static final long TEN = 10;
+    /**
+     * shift that extends the sign of a long over all its bits.
+     */
+    private static final int SIGN_SHIFT = 63;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * TEN;
+        }
+    }
+
+    private long unscaled;
+    private int scale;
+    private BigDecimal overflow;
+
+    /**
+     * @param value      unscaled amount
+     * @param valueScale scale of the amount
+     */
+    void add(final long value, final int valueScale) {
+        if (overflow == null) {
+            int commonScale = Math.max(scale, valueScale);
+            if (fits(unscaled, commonScale - scale) && fits(value, commonScale - valueScale)) {
+                long left = unscaled * POWERS_OF_TEN[commonScale - scale];
+                long right = value * POWERS_OF_TEN[commonScale - valueScale];
+                long sum = left + right;
+                if (((left ^ sum) & (right ^ sum)) >= 0) {
+                    unscaled = sum;
+                    scale = commonScale;
+                    return;
+                }
+            }
+            overflow = BigDecimal.valueOf(unscaled, scale);
+        }
+        overflow = overflow.add(BigDecimal.valueOf(value, valueScale));
+    }
+
+    /**
+     * @param value amount to add
+     */
+    void add(final BigDecimal value) {
+        if (overflow == null) {
+            overflow = BigDecimal.valueOf(unscaled, scale);
+        }
+        overflow = overflow.add(value);
+    }
+
+    /**
+     * @return the sum
+     */
+    BigDecimal toDecimal() {
+        return overflow == null ? BigDecimal.valueOf(unscaled, scale) : overflow;
+    }
+
+    // whether value times ten to the power of exponent fits into a long
+    private static boolean fits(final long value, final int exponent) {
+        if (exponent > MAX_EXPONENT) {
+            return false;
+        }
+        long power = POWERS_OF_TEN[exponent];
+        return Math.multiplyHigh(value, power) == (value * power) >> SIGN_SHIFT;
+    }
+}
@@ -0,0 +1,82 @@
+package ckollmeier.de.Pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Price of one unit of a stock article as unscaled long and scale, for pricing lines without {@link BigDecimal}
+ * arithmetic.
+ */
+final class UnitPrice {
+    /**
+     * longest unscaled value that fits into a long.
+     */
+    private static final int LONG_BITS = 63;
+    /**
+     * digits of an unscaled value that survive the round trip through a double, 2^50 is about 10^15.
+     */
+    private static final int EXACT_DOUBLE_DIGITS = 15;
+    /**
+     * largest scale whose power of ten is an exact double.
+     */
+    private static final int MAX_EXACT_SCALE = 22;
+    /**
+     * powers of ten up to {@link #MAX_EXACT_SCALE} as doubles, by exponent.
+     */
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * BigDecimal.TEN.doubleValue();
+        }
+    }
+
+    private final BigDecimal price;
+    private final boolean fitsLong;
+    private final long unscaledPrice;
+    private final int scale;
+
+    /**
+     * @param price price of one unit of the stock article
+     */
+    UnitPrice(final BigDecimal price) {
+        this.price = price;
+        fitsLong = price.unscaledValue().bitLength() <= LONG_BITS;
+        unscaledPrice = fitsLong ? price.unscaledValue().longValue() : 0;
+        scale = price.scale();
+    }
+
+    /**
+     * @param otherPrice price of one unit of a stock article
+     * @return true if this is the converted otherPrice instance
+     */
+    boolean isFor(final BigDecimal otherPrice) {
+        return price == otherPrice;
+    }
+
+    /**
+     * The subtotal equals {@code quantity.multiply(price)}, including its scale.
+     * <p>
+     * For quantities of up to 15 digits the unscaled quantity is recovered from {@link BigDecimal#doubleValue()},
+     * which is exact at that precision and unlike {@link BigDecimal#unscaledValue()} does not allocate.
+     *
+     * @param quantity quantity in the unit of the stock article
+     * @param total    sum the subtotal is added to
+     * @return price of the quantity
+     */
+    BigDecimal subTotal(final BigDecimal quantity, final PriceSum total) {
+        int quantityScale = quantity.scale();
+        if (fitsLong && quantityScale >= 0 && quantityScale <= MAX_EXACT_SCALE
+                && quantity.precision() <= EXACT_DOUBLE_DIGITS) {
+            long unscaledQuantity = Math.round(quantity.doubleValue() * POWERS_OF_TEN[quantityScale]);
+            long unscaled = unscaledQuantity * unscaledPrice;
+            if (Math.multiplyHigh(unscaledQuantity, unscaledPrice) == unscaled >> LONG_BITS) {
+                total.add(unscaled, quantityScale + scale);
+                return BigDecimal.valueOf(unscaled, quantityScale + scale);
+            }
+        }
+        BigDecimal subTotal = quantity.multiply(price);
+        total.add(subTotal);
+        return subTotal;
+    }
+}
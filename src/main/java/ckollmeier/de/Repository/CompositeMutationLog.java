@@ -0,0 +1,67 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+
+import java.util.List;
+
+/**
+ * Passes every mutation to several logs, e.g. to the write-ahead log and the stock ledger.
+ */
+final class CompositeMutationLog implements MutationLog {
+    private final MutationLog[] logs;
+
+    CompositeMutationLog(final List<MutationLog> logs) {
+        this.logs = logs.toArray(MutationLog[]::new);
+    }
+
+    @Override
+    public void productAdded(final Product product) {
+        for (MutationLog log : logs) {
+            log.productAdded(product);
+        }
+    }
+
+    @Override
+    public void productRemoved(final String productId) {
+        for (MutationLog log : logs) {
+            log.productRemoved(productId);
+        }
+    }
+
+    @Override
+    public void stockAdded(final StockArticle stockArticle) {
+        for (MutationLog log : logs) {
+            log.stockAdded(stockArticle);
+        }
+    }
+
+    @Override
+    public void stockIncreased(final String productId, final long baseUnits, final String orderId) {
+        for (MutationLog log : logs) {
+            log.stockIncreased(productId, baseUnits, orderId);
+        }
+    }
+
+    @Override
+    public void stockDecreased(final String productId, final long baseUnits, final String orderId) {
+        for (MutationLog log : logs) {
+            log.stockDecreased(productId, baseUnits, orderId);
+        }
+    }
+
+    @Override
+    public void orderAdded(final Order order) {
+        for (MutationLog log : logs) {
+            log.orderAdded(order);
+        }
+    }
+
+    @Override
+    public void orderRemoved(final String orderId) {
+        for (MutationLog log : logs) {
+            log.orderRemoved(orderId);
+        }
+    }
+}
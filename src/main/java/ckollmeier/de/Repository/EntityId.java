@@ -0,0 +1,108 @@
+package ckollmeier.de.Repository;
+
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Compact id of an entity as two longs, rendered as string in canonical UUID form only where one is needed.
+ * <p>
+ * Ids compare like their strings, so ids ordered by time stay ordered as keys of sorted maps, and
+ * {@link ckollmeier.de.Persistence.EntityCodec} stores them as two longs again.
+ *
+ * @param high most significant bits
+ * @param low  least significant bits
+ */
+public record EntityId(long high, long low) implements Comparable<EntityId>, IdKey {
+    /**
+     * length of the canonical form, 32 hex digits and 4 dashes.
+     */
+    private static final int LENGTH = 36;
+    private static final int BITS_PER_DIGIT = 4;
+    private static final int DIGIT_MASK = 0xF;
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * @param uuid UUID to convert
+     * @return id with the bits of the UUID
+     */
+    public static EntityId of(final @NonNull UUID uuid) {
+        return new EntityId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * @param id id of an entity
+     * @return the id as two longs, null if it is not a UUID in the lower-case form of {@link UUID#toString()}, so
+     *         {@code parse(id).toString()} is always id again
+     */
+    public static EntityId parse(final @NonNull String id) {
+        if (id.length() != LENGTH || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-'
+                || id.charAt(23) != '-') {
+            return null;
+        }
+        long timeLow = digits(id, 0, 8);
+        long timeMid = digits(id, 9, 4);
+        long timeHigh = digits(id, 14, 4);
+        long clockSequence = digits(id, 19, 4);
+        long node = digits(id, 24, 12);
+        if ((timeLow | timeMid | timeHigh | clockSequence | node) < 0) {
+            return null;
+        }
+        return new EntityId((timeLow << 32) | (timeMid << 16) | timeHigh, (clockSequence << 48) | node);
+    }
+
+    // reads at most 12 lower-case hex digits, -1 if any char is none
+    private static long digits(final String id, final int offset, final int count) {
+        long value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = id.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                return -1;
+            }
+            value = (value << BITS_PER_DIGIT) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the id in the lower-case form of {@link UUID#toString()}
+     */
+    @Override
+    public String toString() {
+        byte[] chars = new byte[LENGTH];
+        // xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx, the dashes sit after 8, 12, 16 and 20 digits
+        putDigits(chars, 0, high >>> 32, 8);
+        chars[8] = '-';
+        putDigits(chars, 9, high >>> 16, 4);
+        chars[13] = '-';
+        putDigits(chars, 14, high, 4);
+        chars[18] = '-';
+        putDigits(chars, 19, low >>> 48, 4);
+        chars[23] = '-';
+        putDigits(chars, 24, low, 12);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    // writes the lowest count hex digits of value, most significant first
+    private static void putDigits(final byte[] chars, final int offset, final long value, final int count) {
+        for (int i = 0; i < count; i++) {
+            chars[offset + i] = DIGITS[(int) (value >>> ((count - 1 - i) * BITS_PER_DIGIT)) & DIGIT_MASK];
+        }
+    }
+
+    /**
+     * @param other id to compare with
+     * @return the order of the canonical strings of both ids
+     */
+    @Override
+    public int compareTo(final EntityId other) {
+        int comparison = Long.compareUnsigned(high, other.high);
+        return comparison != 0 ? comparison : Long.compareUnsigned(low, other.low);
+    }
+}
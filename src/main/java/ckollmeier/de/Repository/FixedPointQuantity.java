@@ -0,0 +1,73 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Enum.UnitEnum;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Quantities as scaled longs in the smallest unit of their unit family: milligram, milliliter or pieces.
+ * <p>
+ * All units are a power of ten of the smallest unit of their family, so converting between a {@link BigDecimal}
+ * and the scaled long only moves the decimal point.
+ */
+public final class FixedPointQuantity {
+    /**
+     * decimal places between each unit and the smallest unit of its family, by ordinal.
+     */
+    private static final int[] DECIMALS = new int[UnitEnum.values().length];
+
+    static {
+        for (UnitEnum unit : UnitEnum.values()) {
+            BigDecimal smallestFactor = unit.getFactor();
+            for (UnitEnum other : UnitEnum.values()) {
+                if (unit.isConvertibleTo(other) && other.getFactor().compareTo(smallestFactor) < 0) {
+                    smallestFactor = other.getFactor();
+                }
+            }
+            BigDecimal ratio = unit.getFactor().divide(smallestFactor).stripTrailingZeros();
+            if (!BigInteger.ONE.equals(ratio.unscaledValue())) {
+                throw new IllegalStateException("Unit " + unit + " is not a power of ten of its smallest unit");
+            }
+            DECIMALS[unit.ordinal()] = -ratio.scale();
+        }
+    }
+
+    private FixedPointQuantity() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @param unit unit of a quantity
+     * @return number of decimal places between the unit and the smallest unit of its family
+     */
+    public static int decimals(final UnitEnum unit) {
+        return DECIMALS[unit.ordinal()];
+    }
+
+    /**
+     * @param quantity quantity in amounts of unit
+     * @param unit     unit of the quantity
+     * @return the quantity in the smallest unit of the family of unit
+     * @throws IllegalArgumentException if the quantity is finer than the smallest unit or does not fit into a long
+     */
+    public static long toBaseUnits(final BigDecimal quantity, final UnitEnum unit) {
+        try {
+            return quantity.movePointRight(decimals(unit)).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity " + quantity.toPlainString() + " " + unit.getShortName()
+                    + " is not a whole number of the smallest unit", e);
+        }
+    }
+
+    /**
+     * @param baseUnits    quantity in the smallest unit of the family of unit
+     * @param unit         unit to express the quantity in
+     * @param minimumScale scale the result has at least, e.g. the scale the quantity was entered with
+     * @return the quantity in amounts of unit
+     */
+    public static BigDecimal toDecimal(final long baseUnits, final UnitEnum unit, final int minimumScale) {
+        BigDecimal quantity = BigDecimal.valueOf(baseUnits, decimals(unit)).stripTrailingZeros();
+        return quantity.setScale(Math.max(quantity.scale(), Math.max(0, minimumScale)));
+    }
+}
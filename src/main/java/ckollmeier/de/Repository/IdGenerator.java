@@ -0,0 +1,31 @@
+package ckollmeier.de.Repository;
+
+import java.util.UUID;
+
+/**
+ * Source of the ids of new entities.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+    /**
+     * Random ids from {@link UUID#randomUUID()}, all threads draw them from one shared
+     * {@link java.security.SecureRandom}.
+     */
+    IdGenerator RANDOM = () -> EntityId.of(UUID.randomUUID());
+    /**
+     * Time-ordered ids generated by every thread on its own, see {@link TimeOrderedIdGenerator}.
+     */
+    IdGenerator TIME_ORDERED = new TimeOrderedIdGenerator();
+
+    /**
+     * @return a new id, different from every id returned before
+     */
+    EntityId next();
+
+    /**
+     * @return a new id in canonical UUID form, e.g. for the id of an entity
+     */
+    default String nextString() {
+        return next().toString();
+    }
+}
@@ -0,0 +1,54 @@
+package ckollmeier.de.Repository;
+
+import java.util.Comparator;
+
+/**
+ * Keys of ids in sorted maps: the {@link EntityId} for ids in canonical UUID form, a {@link Text} for any other.
+ * <p>
+ * Generated ids share the milliseconds of their creation as a long prefix, so comparing them as strings reads most
+ * of their chars; as two longs they compare in two steps. Other ids, e.g. chosen by a client, stay strings. Both
+ * kinds are ordered like their strings, so keys convert back to the ids at the edges of a repository unchanged.
+ */
+sealed interface IdKey permits EntityId, IdKey.Text {
+    /**
+     * Order of keys, the order of the ids they stand for.
+     */
+    Comparator<IdKey> ORDER = IdKey::compare;
+
+    /**
+     * Key of an id that is not a UUID in canonical form.
+     *
+     * @param id the id
+     */
+    record Text(String id) implements IdKey {
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    /**
+     * @param id id of an entity
+     * @return the key of the id
+     */
+    static IdKey of(final String id) {
+        EntityId entityId = EntityId.parse(id);
+        return entityId == null ? new Text(id) : entityId;
+    }
+
+    /**
+     * @param key key returned by {@link #of(String)}
+     * @return the id the key stands for
+     */
+    static String idOf(final IdKey key) {
+        return key instanceof Text text ? text.id() : key.toString();
+    }
+
+    // keys of different kinds only meet if a repository holds both kinds of ids, then the entity id is rendered
+    private static int compare(final IdKey first, final IdKey second) {
+        if (first instanceof EntityId firstId && second instanceof EntityId secondId) {
+            return firstId.compareTo(secondId);
+        }
+        return idOf(first).compareTo(idOf(second));
+    }
+}
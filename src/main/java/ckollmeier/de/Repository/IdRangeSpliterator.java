@@ -0,0 +1,162 @@
+package ckollmeier.de.Repository;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the values of a range of {@link IdKey id keys}, splitting the range between its first and last id.
+ * <p>
+ * The spliterators of {@link java.util.concurrent.ConcurrentSkipListMap} hardly ever split, so parallel streams ran
+ * on one thread. This one splits halfway between the first and the last id of its range, as 128-bit numbers for
+ * {@link EntityId entity ids} and as strings otherwise, which halves uniformly distributed ids such as UUIDs;
+ * time-ordered ids from {@link IdGenerator#TIME_ORDERED} split by time, other ids may split unevenly, but never
+ * wrongly. Like the map itself it is weakly consistent.
+ *
+ * @param <T> type of the values
+ */
+final class IdRangeSpliterator<T> implements Spliterator<T> {
+    /**
+     * radix of the digits of UUIDs.
+     */
+    private static final int HEX = 16;
+
+    private final ConcurrentNavigableMap<IdKey, T> map;
+    /**
+     * first id of the range, inclusive, null for unbounded.
+     */
+    private IdKey low;
+    /**
+     * end of the range, exclusive, null for unbounded.
+     */
+    private final IdKey high;
+    private long estimatedSize;
+    private Iterator<T> iterator;
+
+    IdRangeSpliterator(final ConcurrentNavigableMap<IdKey, T> map, final long estimatedSize) {
+        this(map, null, null, estimatedSize);
+    }
+
+    private IdRangeSpliterator(final ConcurrentNavigableMap<IdKey, T> map, final IdKey low, final IdKey high,
+                               final long estimatedSize) {
+        this.map = map;
+        this.low = low;
+        this.high = high;
+        this.estimatedSize = estimatedSize;
+    }
+
+    private ConcurrentNavigableMap<IdKey, T> range() {
+        if (low == null) {
+            return high == null ? map : map.headMap(high, false);
+        }
+        return high == null ? map.tailMap(low, true) : map.subMap(low, true, high, false);
+    }
+
+    private Iterator<T> iterator() {
+        if (iterator == null) {
+            iterator = range().values().iterator();
+        }
+        return iterator;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        Iterator<T> values = iterator();
+        if (!values.hasNext()) {
+            return false;
+        }
+        action.accept(values.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (iterator != null) {
+            return null;
+        }
+        ConcurrentNavigableMap<IdKey, T> range = range();
+        if (range.isEmpty()) {
+            return null;
+        }
+        IdKey first = range.firstKey();
+        IdKey last = range.lastKey();
+        if (IdKey.ORDER.compare(first, last) >= 0) {
+            return null;
+        }
+        IdKey middle = first instanceof EntityId firstId && last instanceof EntityId lastId
+                ? between(firstId, lastId)
+                : IdKey.of(between(IdKey.idOf(first), IdKey.idOf(last)));
+        estimatedSize >>>= 1;
+        // the prefix is split off, so this keeps the upper half and the encounter order stays ascending
+        IdRangeSpliterator<T> prefix = new IdRangeSpliterator<>(map, low, middle, estimatedSize);
+        low = middle;
+        return prefix;
+    }
+
+    /**
+     * @param first smaller id
+     * @param last  larger id
+     * @return the id halfway between them as 128-bit unsigned numbers, after first and not after last
+     */
+    static EntityId between(final EntityId first, final EntityId last) {
+        // distance = last - first, then first + ceil(distance / 2), each with the carry between the longs
+        long distanceLow = last.low() - first.low();
+        long distanceHigh = last.high() - first.high() - (Long.compareUnsigned(last.low(), first.low()) < 0 ? 1 : 0);
+        long halfLow = (distanceLow >>> 1) | (distanceHigh << 63);
+        long halfHigh = distanceHigh >>> 1;
+        if ((distanceLow & 1) != 0 && ++halfLow == 0) {
+            halfHigh++;
+        }
+        long middleLow = first.low() + halfLow;
+        long middleHigh = first.high() + halfHigh + (Long.compareUnsigned(middleLow, first.low()) < 0 ? 1 : 0);
+        return new EntityId(middleHigh, middleLow);
+    }
+
+    /**
+     * @param first smaller id
+     * @param last  larger id
+     * @return a string after first and not after last, halfway between them at their first differing char, counted
+     * in hex digits if both chars are lower-case hex digits, so UUIDs are not split at the gap between 9 and a
+     */
+    static String between(final String first, final String last) {
+        int common = 0;
+        while (common < first.length() && first.charAt(common) == last.charAt(common)) {
+            common++;
+        }
+        if (common == first.length()) {
+            return last;
+        }
+        char lower = first.charAt(common);
+        char upper = last.charAt(common);
+        int lowerDigit = hexDigit(lower);
+        int upperDigit = hexDigit(upper);
+        if (lowerDigit >= 0 && upperDigit >= 0) {
+            return last.substring(0, common) + Character.forDigit((lowerDigit + upperDigit + 1) / 2, HEX);
+        }
+        return last.substring(0, common) + (char) (lower + (upper - lower + 1) / 2);
+    }
+
+    // value of 0-9 and a-f, -1 for other chars, upper-case hex digits do not sort next to the decimal digits
+    private static int hexDigit(final char c) {
+        if ((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')) {
+            return Character.digit(c, HEX);
+        }
+        return -1;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL | CONCURRENT;
+    }
+}
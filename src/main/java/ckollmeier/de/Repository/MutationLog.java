@@ -0,0 +1,79 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+
+import java.util.List;
+
+/**
+ * Receives every mutation of the repositories, e.g. to persist them.
+ * <p>
+ * The repositories call it after the mutation while still holding the lock guarding the changed entity, so the
+ * mutations of one entity arrive in the order they were applied. Implementations must therefore be fast and must
+ * not call back into the repositories. If a call throws, e.g. because a write-ahead log is closed or failed, the
+ * repositories undo the mutation before rethrowing, so they never hold a change the log has not accepted. If the
+ * log rejects one stock decrease of a batch, the decreases of the batch it accepted before are followed by stock
+ * increases, so a replay of the log ends at the stock the repositories hold.
+ */
+public interface MutationLog {
+    /**
+     * Log discarding all mutations.
+     */
+    MutationLog NONE = new MutationLog() {
+    };
+
+    /**
+     * @param logs logs to pass every mutation to, in this order
+     * @return log passing every mutation to all logs
+     */
+    static MutationLog of(final MutationLog... logs) {
+        return new CompositeMutationLog(List.of(logs));
+    }
+
+    /**
+     * @param product the added product
+     */
+    default void productAdded(final Product product) {
+    }
+
+    /**
+     * @param productId id of the removed product
+     */
+    default void productRemoved(final String productId) {
+    }
+
+    /**
+     * @param stockArticle the added stock article
+     */
+    default void stockAdded(final StockArticle stockArticle) {
+    }
+
+    /**
+     * @param productId id of the product
+     * @param baseUnits added quantity in milligram, milliliter or pieces
+     * @param orderId   id of the order causing the change, null if not caused by an order
+     */
+    default void stockIncreased(final String productId, final long baseUnits, final String orderId) {
+    }
+
+    /**
+     * @param productId id of the product
+     * @param baseUnits removed quantity in milligram, milliliter or pieces
+     * @param orderId   id of the order causing the change, null if not caused by an order
+     */
+    default void stockDecreased(final String productId, final long baseUnits, final String orderId) {
+    }
+
+    /**
+     * @param order the added order
+     */
+    default void orderAdded(final Order order) {
+    }
+
+    /**
+     * @param orderId id of the removed order
+     */
+    default void orderRemoved(final String orderId) {
+    }
+}
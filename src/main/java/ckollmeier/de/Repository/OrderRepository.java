@@ -1,27 +1,81 @@
 package ckollmeier.de.Repository;
 
 import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Enum.ValidationScopeEnum;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import ckollmeier.de.ValidationUtils;
 import lombok.NonNull;
 
 public final class OrderRepository {
+    private static final int PAGE_PRESIZE = 1024;
     /**
-     * Orders.
+     * Orders by {@link IdKey key of their id} in ascending id order, which is the order of {@link #scan(String, int)}
+     * and {@link #stream()}.
      */
-    private final Map<String, Order> orders = new HashMap<>();
+    private final ConcurrentNavigableMap<IdKey, Order> orders = new ConcurrentSkipListMap<>(IdKey.ORDER);
+    /**
+     * number of orders, the size of the skip list would have to be counted.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * keys of the ids of the orders containing a product, by product id; a set is only changed inside compute of its
+     * product, empty sets are removed.
+     */
+    private final ConcurrentMap<String, NavigableSet<IdKey>> orderIdsByProductId = new ConcurrentHashMap<>();
+    /**
+     * guards adding and removing an id, the compute methods of the skip list may run their function more than once.
+     */
+    private final StripedLock locks = new StripedLock();
+    private final MutationLog mutationLog;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Creates a repository without persistence.
+     */
+    public OrderRepository() {
+        this(MutationLog.NONE);
+    }
+
+    /**
+     * @param mutationLog receives every added and removed order
+     */
+    public OrderRepository(final @NonNull MutationLog mutationLog) {
+        this(mutationLog, IdGenerator.TIME_ORDERED);
+    }
+
+    /**
+     * @param mutationLog receives every added and removed order
+     * @param idGenerator gives orders without id one
+     */
+    public OrderRepository(final @NonNull MutationLog mutationLog, final @NonNull IdGenerator idGenerator) {
+        this.mutationLog = mutationLog;
+        this.idGenerator = idGenerator;
+    }
 
     private Order orderWithId(final @NonNull Order order) {
         if (order.id() != null) {
             return order;
         }
-        String id = UUID.randomUUID().toString();
+        String id = idGenerator.nextString();
         return order.withId(id);
     }
 
@@ -30,11 +84,26 @@ public final class OrderRepository {
      * @return the added order
      */
     public Optional<Order> addOrder(final @NonNull Order order) {
-        Order orderWithId = ValidationUtils.validated(orderWithId(order));
-        if (find(orderWithId.id()).isPresent()) {
-            throw new IllegalArgumentException("Order with id " + orderWithId.id() + " already exists");
+        Order orderWithId = ValidationUtils.validated(orderWithId(order), ValidationScopeEnum.INPUT);
+        // logged under the lock of the id, so a concurrent removal of the order is logged after it
+        IdKey key = IdKey.of(orderWithId.id());
+        ReentrantLock lock = locks.lockFor(orderWithId.id());
+        lock.lock();
+        try {
+            if (orders.putIfAbsent(key, orderWithId) != null) {
+                throw new IllegalArgumentException("Order with id " + orderWithId.id() + " already exists");
+            }
+            try {
+                mutationLog.orderAdded(orderWithId);
+            } catch (RuntimeException e) {
+                orders.remove(key);
+                throw e;
+            }
+            count.incrementAndGet();
+            indexProducts(orderWithId, key);
+        } finally {
+            lock.unlock();
         }
-        orders.put(orderWithId.id(), orderWithId);
         return Optional.of(orderWithId);
     }
 
@@ -51,10 +120,44 @@ public final class OrderRepository {
      * @return the removed order
      */
     public Optional<Order> removeOrderWithId(final @NonNull String orderId) {
-        return find(orderId).map(order -> {
-            orders.remove(order.id());
-            return order;
-        });
+        ReentrantLock lock = locks.lockFor(orderId);
+        lock.lock();
+        try {
+            IdKey key = IdKey.of(orderId);
+            Order removed = orders.remove(key);
+            if (removed != null) {
+                try {
+                    mutationLog.orderRemoved(orderId);
+                } catch (RuntimeException e) {
+                    orders.put(key, removed);
+                    throw e;
+                }
+                count.decrementAndGet();
+                unindexProducts(removed, key);
+            }
+            return Optional.ofNullable(removed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void indexProducts(final Order order, final IdKey key) {
+        for (OrderProduct orderProduct : order.products()) {
+            orderIdsByProductId.compute(orderProduct.productId(), (productId, orderIds) -> {
+                NavigableSet<IdKey> ids = orderIds == null ? new ConcurrentSkipListSet<>(IdKey.ORDER) : orderIds;
+                ids.add(key);
+                return ids;
+            });
+        }
+    }
+
+    private void unindexProducts(final Order order, final IdKey key) {
+        for (OrderProduct orderProduct : order.products()) {
+            orderIdsByProductId.computeIfPresent(orderProduct.productId(), (productId, orderIds) -> {
+                orderIds.remove(key);
+                return orderIds.isEmpty() ? null : orderIds;
+            });
+        }
     }
 
     /**
@@ -62,14 +165,86 @@ public final class OrderRepository {
      * @return found order or null
      */
     public Optional<Order> find(final @NonNull String id) {
-        return Optional.ofNullable(orders.get(id));
+        return Optional.ofNullable(orders.get(IdKey.of(id)));
     }
 
+    /**
+     * @return unmodifiable view of all orders in ascending id order, weakly consistent like {@link #stream()}
+     */
     public Collection<Order> findAll() {
-        return orders.values();
+        return Collections.unmodifiableCollection(orders.values());
+    }
+
+    /**
+     * Returns a page of orders in ascending id order, the id of the last order is the cursor of the next page.
+     * <p>
+     * Walking all pages visits every order that exists for the whole walk exactly once, orders added or removed
+     * meanwhile are visited if their id is after the cursor when the page is taken.
+     *
+     * @param afterId id of the last order of the previous page, null for the first page
+     * @param limit   maximum number of orders
+     * @return at most limit orders with ids after afterId, fewer only on the last page
+     */
+    public List<Order> scan(final String afterId, final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        Map<IdKey, Order> page = afterId == null ? orders : orders.tailMap(IdKey.of(afterId), false);
+        List<Order> result = new ArrayList<>(Math.min(limit, PAGE_PRESIZE));
+        for (Iterator<Order> iterator = page.values().iterator(); result.size() < limit && iterator.hasNext();) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Streams all orders in ascending id order without copying them.
+     * <p>
+     * The stream is weakly consistent: it never fails on concurrent changes, visits every order existing for the
+     * whole traversal once and may or may not see orders added or removed meanwhile. Its spliterator splits by id
+     * range, so parallel streams divide the orders between threads.
+     *
+     * @return stream of the orders
+     */
+    public Stream<Order> stream() {
+        return StreamSupport.stream(new IdRangeSpliterator<>(orders, count.get()), false);
+    }
+
+    /**
+     * Finds the orders containing a product by the reverse index, in time proportional to the number of matches.
+     * <p>
+     * Weakly consistent like {@link #stream()}: orders added or removed meanwhile may or may not be included.
+     *
+     * @param productId id of the product
+     * @return ids of the orders with a line of the product, in ascending order
+     */
+    public List<String> findOrderIdsByProductId(final @NonNull String productId) {
+        NavigableSet<IdKey> orderIds = orderIdsByProductId.get(productId);
+        return orderIds == null ? List.of() : orderIds.stream().map(IdKey::idOf).toList();
+    }
+
+    /**
+     * Finds the orders containing a product, see {@link #findOrderIdsByProductId(String)}.
+     *
+     * @param productId id of the product
+     * @return the orders with a line of the product, in ascending id order
+     */
+    public List<Order> findByProductId(final @NonNull String productId) {
+        NavigableSet<IdKey> orderIds = orderIdsByProductId.get(productId);
+        if (orderIds == null) {
+            return List.of();
+        }
+        List<Order> result = new ArrayList<>();
+        for (IdKey key : orderIds) {
+            Order order = orders.get(key);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
     }
 
     public int countOrders() {
-        return orders.size();
+        return count.get();
     }
 }
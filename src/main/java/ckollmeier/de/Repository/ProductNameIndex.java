@@ -0,0 +1,194 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.Product;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Case-insensitive prefix index over product names, for autocompletion.
+ * <p>
+ * The products are kept sorted by name, ignoring case, and id in blocks of at most {@value #BLOCK_SIZE} products.
+ * Adding or removing a product shifts the products of one block instead of the whole index, a prefix search is a
+ * binary search over the blocks and within one block followed by reading the matches in order. Names are compared
+ * char by char with case folded, so no normalized copy of the name is kept and the index costs little more than
+ * one reference per product.
+ * <p>
+ * Not thread-safe, guarded like the {@link ProductRepository} owning it.
+ */
+public final class ProductNameIndex {
+    /**
+     * maximum entries per block, a full block is split in halves.
+     */
+    private static final int BLOCK_SIZE = 256;
+    /**
+     * bytes of an object header with compressed class pointers.
+     */
+    private static final int OBJECT_HEADER_BYTES = 12;
+    /**
+     * bytes of an array header with compressed class pointers.
+     */
+    private static final int ARRAY_HEADER_BYTES = 16;
+    /**
+     * bytes of a compressed reference.
+     */
+    private static final int REFERENCE_BYTES = 4;
+    private static final int OBJECT_ALIGNMENT = 8;
+    private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    /**
+     * Sorted run of products.
+     */
+    private static final class Block {
+        private final Product[] products = new Product[BLOCK_SIZE];
+        private int size;
+    }
+
+    ProductNameIndex() {
+    }
+
+    void add(final Product product) {
+        String name = product.name();
+        if (blocks.isEmpty()) {
+            blocks.add(new Block());
+        }
+        int blockIndex = blockIndex(name, product.id());
+        Block block = blocks.get(blockIndex);
+        int position = lowerBound(block, name, product.id());
+        if (block.size == BLOCK_SIZE) {
+            Block right = new Block();
+            int half = BLOCK_SIZE / 2;
+            System.arraycopy(block.products, half, right.products, 0, half);
+            Arrays.fill(block.products, half, BLOCK_SIZE, null);
+            block.size = half;
+            right.size = half;
+            blocks.add(blockIndex + 1, right);
+            if (position > half) {
+                block = right;
+                position -= half;
+            }
+        }
+        System.arraycopy(block.products, position, block.products, position + 1, block.size - position);
+        block.products[position] = product;
+        block.size++;
+        size++;
+    }
+
+    void remove(final Product product) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        String name = product.name();
+        int blockIndex = blockIndex(name, product.id());
+        Block block = blocks.get(blockIndex);
+        int position = lowerBound(block, name, product.id());
+        if (position == block.size || !block.products[position].id().equals(product.id())) {
+            return;
+        }
+        System.arraycopy(block.products, position + 1, block.products, position, block.size - position - 1);
+        block.size--;
+        block.products[block.size] = null;
+        size--;
+        if (block.size == 0) {
+            blocks.remove(blockIndex);
+        }
+    }
+
+    /**
+     * Finds the products whose name starts with the prefix, ignoring case.
+     *
+     * @param prefix start of the name, leading whitespace is ignored and an empty prefix matches every product
+     * @param limit  maximum number of products to return
+     * @return at most limit matching products, ordered by name
+     */
+    public List<Product> search(final @NonNull String prefix, final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        List<Product> matches = new ArrayList<>(Math.min(limit, size));
+        if (blocks.isEmpty() || limit == 0) {
+            return matches;
+        }
+        String start = prefix.stripLeading();
+        int blockIndex = blockIndex(start, "");
+        int position = lowerBound(blocks.get(blockIndex), start, "");
+        for (; blockIndex < blocks.size(); blockIndex++, position = 0) {
+            Block block = blocks.get(blockIndex);
+            for (; position < block.size; position++) {
+                if (!block.products[position].name().regionMatches(true, 0, start, 0, start.length())) {
+                    return matches;
+                }
+                matches.add(block.products[position]);
+                if (matches.size() == limit) {
+                    return matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return number of indexed products
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap used by the index, assuming compressed references. The products themselves are not
+     * counted.
+     *
+     * @return estimated bytes of the index
+     */
+    public long estimatedBytes() {
+        long blockBytes = align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + Integer.BYTES)
+                + align(ARRAY_HEADER_BYTES + (long) BLOCK_SIZE * REFERENCE_BYTES);
+        return align(ARRAY_HEADER_BYTES + (long) blocks.size() * REFERENCE_BYTES) + blocks.size() * blockBytes;
+    }
+
+    private static long align(final long bytes) {
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    // index of the last block whose first entry is not after the key, 0 if the key is before all blocks
+    private int blockIndex(final String name, final String id) {
+        int low = 1;
+        int high = blocks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks.get(middle);
+            if (compare(block.products[0], name, id) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    // position of the first entry of the block that is not before the key
+    private static int lowerBound(final Block block, final String name, final String id) {
+        int low = 0;
+        int high = block.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (compare(block.products[middle], name, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(final Product product, final String name, final String id) {
+        int byName = NAME_ORDER.compare(product.name(), name);
+        return byName != 0 ? byName : product.id().compareTo(id);
+    }
+}
@@ -1,26 +1,64 @@
 package ckollmeier.de.Repository;
 
 import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Enum.SearchOperatorEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import ckollmeier.de.ValidationUtils;
+import jakarta.validation.ConstraintViolationException;
 import lombok.NonNull;
 
 public final class ProductRepository {
     /**
-     * list of products.
+     * products by id, in insertion order.
      */
-    private final List<Product> products = new ArrayList<>();
+    private final Map<String, Product> products = new LinkedHashMap<>();
+    private final ProductNameIndex nameIndex = new ProductNameIndex();
+    private final ProductTextIndex textIndex = new ProductTextIndex();
+    /**
+     * guards the products and both indexes, which are not thread-safe, so searches never see a half-updated index.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MutationLog mutationLog;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Creates a repository without persistence.
+     */
+    public ProductRepository() {
+        this(MutationLog.NONE);
+    }
+
+    /**
+     * @param mutationLog receives every added and removed product
+     */
+    public ProductRepository(final @NonNull MutationLog mutationLog) {
+        this(mutationLog, IdGenerator.TIME_ORDERED);
+    }
+
+    /**
+     * @param mutationLog receives every added and removed product
+     * @param idGenerator gives products without id one
+     */
+    public ProductRepository(final @NonNull MutationLog mutationLog, final @NonNull IdGenerator idGenerator) {
+        this.mutationLog = mutationLog;
+        this.idGenerator = idGenerator;
+    }
 
     private Product productWithId(final @NonNull Product product) {
         if (product.id() != null) {
             return product;
         }
-        String id = UUID.randomUUID().toString();
+        String id = idGenerator.nextString();
         return product.withId(id);
     }
 
@@ -29,12 +67,81 @@ public final class ProductRepository {
      * @return the added product
      */
     public Product addProduct(final @NonNull Product product) {
-        Product productWithId = ValidationUtils.validated(productWithId(product));
-        if (find(productWithId.id()).isPresent()) {
-            throw new IllegalArgumentException("Product with id " + productWithId.id() + " already exists");
+        Product productWithId = ValidationUtils.validated(productWithId(product), ValidationScopeEnum.INPUT);
+        lock.writeLock().lock();
+        try {
+            if (products.containsKey(productWithId.id())) {
+                throw new IllegalArgumentException("Product with id " + productWithId.id() + " already exists");
+            }
+            products.put(productWithId.id(), productWithId);
+            nameIndex.add(productWithId);
+            textIndex.add(productWithId);
+            try {
+                mutationLog.productAdded(productWithId);
+            } catch (RuntimeException e) {
+                products.remove(productWithId.id());
+                nameIndex.remove(productWithId);
+                textIndex.remove(productWithId);
+                throw e;
+            }
+            return productWithId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds many products, e.g. from an import, with a single update of the index.
+     * <p>
+     * The products must have been validated by the caller, e.g. in {@link ValidationScopeEnum#BULK bulk}, here they
+     * are only checked as much as {@link ValidationScopeEnum#INTERNAL internal} copies. Products that cannot be added
+     * are skipped, the others are added nevertheless.
+     *
+     * @param newProducts products to add, missing ids are generated
+     * @return reasons of the skipped products by their index in newProducts
+     * @throws RuntimeException the exception of the {@link MutationLog} if it rejects a product, the products it
+     *                          accepted before stay added
+     */
+    public Map<Integer, String> addProducts(final @NonNull List<Product> newProducts) {
+        Map<Integer, String> rejected = new TreeMap<>();
+        Map<Integer, Product> validated = new LinkedHashMap<>();
+        for (int i = 0; i < newProducts.size(); i++) {
+            try {
+                validated.put(i, ValidationUtils.validated(productWithId(newProducts.get(i)), ValidationScopeEnum.INTERNAL));
+            } catch (ConstraintViolationException e) {
+                rejected.put(i, e.getMessage());
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            Map<String, Product> batch = new LinkedHashMap<>();
+            validated.forEach((i, product) -> {
+                if (products.containsKey(product.id()) || batch.putIfAbsent(product.id(), product) != null) {
+                    rejected.put(i, "Product with id " + product.id() + " already exists");
+                }
+            });
+            products.putAll(batch);
+            batch.values().forEach(nameIndex::add);
+            batch.values().forEach(textIndex::add);
+            List<Product> added = new ArrayList<>(batch.values());
+            int logged = 0;
+            try {
+                for (; logged < added.size(); logged++) {
+                    mutationLog.productAdded(added.get(logged));
+                }
+            } catch (RuntimeException e) {
+                // the products the log accepted stay added, like the products of earlier calls
+                for (Product product : added.subList(logged, added.size())) {
+                    products.remove(product.id());
+                    nameIndex.remove(product);
+                    textIndex.remove(product);
+                }
+                throw e;
+            }
+            return rejected;
+        } finally {
+            lock.writeLock().unlock();
         }
-        products.add(productWithId);
-        return productWithId;
     }
 
     /**
@@ -50,10 +157,25 @@ public final class ProductRepository {
      * @return an optional of the removed product
      */
     public Optional<Product> removeProductWithId(final @NonNull String productId) {
-        return find(productId).map(product -> {
-            products.remove(product);
-            return product;
-        });
+        lock.writeLock().lock();
+        try {
+            Product removed = products.remove(productId);
+            if (removed != null) {
+                nameIndex.remove(removed);
+                textIndex.remove(removed);
+                try {
+                    mutationLog.productRemoved(productId);
+                } catch (RuntimeException e) {
+                    products.put(productId, removed);
+                    nameIndex.add(removed);
+                    textIndex.add(removed);
+                    throw e;
+                }
+            }
+            return Optional.ofNullable(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -61,14 +183,116 @@ public final class ProductRepository {
      * @return an optional of the found product
      */
     public Optional<Product> find(final @NonNull String id) {
-        return products.stream().filter(product -> product.id().equals(id)).findFirst();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(products.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    /**
+     * @return snapshot of all products in insertion order
+     */
     public List<Product> findAll() {
-        return products;
+        lock.readLock().lock();
+        try {
+            return List.copyOf(products.values());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    /**
+     * Finds products by the start of their name, ignoring case, see {@link ProductNameIndex#search(String, int)}.
+     *
+     * @param prefix start of the name
+     * @param limit  maximum number of products to return
+     * @return at most limit matching products, ordered by name
+     */
+    public List<Product> searchByName(final @NonNull String prefix, final int limit) {
+        lock.readLock().lock();
+        try {
+            return nameIndex.search(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of products in the index of the product names
+     */
+    public int countNameIndexEntries() {
+        lock.readLock().lock();
+        try {
+            return nameIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return estimated heap used by the index of the product names, see {@link ProductNameIndex#estimatedBytes()}
+     */
+    public long estimateNameIndexBytes() {
+        lock.readLock().lock();
+        try {
+            return nameIndex.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds products by terms of their description, see {@link ProductTextIndex#search(String, SearchOperatorEnum, int)}.
+     *
+     * @param query    terms to search for
+     * @param operator whether a product must contain all or any of the terms
+     * @param limit    maximum number of products to return
+     * @return at most limit matching products, by descending score
+     */
+    public List<ScoredProduct> searchByDescription(final @NonNull String query, final @NonNull SearchOperatorEnum operator, final int limit) {
+        lock.readLock().lock();
+        try {
+            return textIndex.search(query, operator, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of products in the full-text index of the product descriptions
+     */
+    public int countTextIndexEntries() {
+        lock.readLock().lock();
+        try {
+            return textIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of distinct terms of the product descriptions
+     */
+    public int countTextIndexTerms() {
+        lock.readLock().lock();
+        try {
+            return textIndex.terms();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of products
+     */
     public int countProducts() {
-        return products.size();
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }
\ No newline at end of file
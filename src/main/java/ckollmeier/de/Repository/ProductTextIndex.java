@@ -0,0 +1,475 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Enum.SearchOperatorEnum;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted full-text index over product descriptions, ranked by BM25.
+ * <p>
+ * Every product gets an internal ordinal in the order it was added. For every term the index keeps a posting list of
+ * the ordinals of the products containing it and the term frequencies, as int arrays in ascending ordinal order, so
+ * adding a product only appends. Queries walk the posting lists of their terms side by side: {@link
+ * SearchOperatorEnum#OR OR} merges them, {@link SearchOperatorEnum#AND AND} walks the shortest list and gallops
+ * through the others. Only the best {@code limit} products are kept while walking, nothing proportional to the
+ * number of products is allocated.
+ * <p>
+ * Removing a product leaves its ordinal in the posting lists as a tombstone that queries skip, the statistics used
+ * for ranking only count the remaining products. Once there are more tombstones than a quarter of the products the
+ * ordinals are renumbered and the posting lists compacted.
+ * <p>
+ * Not thread-safe, guarded like the {@link ProductRepository} owning it.
+ */
+public final class ProductTextIndex {
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final double K1 = 1.2;
+    /**
+     * BM25 document length normalization.
+     */
+    private static final double B = 0.75;
+    private static final int INITIAL_POSTINGS = 4;
+    private static final int INITIAL_PRODUCTS = 64;
+    /**
+     * tombstones below this count are never compacted.
+     */
+    private static final int MIN_TOMBSTONES = 1024;
+    /**
+     * compact once tombstones exceed the products divided by this.
+     */
+    private static final int TOMBSTONE_RATIO = 4;
+
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    /**
+     * products by ordinal, null for removed products.
+     */
+    private Product[] products = new Product[INITIAL_PRODUCTS];
+    /**
+     * number of terms of the description by ordinal.
+     */
+    private int[] lengths = new int[INITIAL_PRODUCTS];
+    private int nextOrdinal;
+    private int size;
+    private long totalLength;
+
+    /**
+     * Posting list of one term.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[INITIAL_POSTINGS];
+        private int[] frequencies = new int[INITIAL_POSTINGS];
+        private int size;
+        /**
+         * products containing the term, without tombstones.
+         */
+        private int documentFrequency;
+
+        void append(final int ordinal, final int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size++] = frequency;
+            documentFrequency++;
+        }
+    }
+
+    ProductTextIndex() {
+    }
+
+    /**
+     * Splits a text into terms: runs of letters and digits, in lower case.
+     *
+     * @param text text to split
+     * @return the terms in order of appearance, with repetitions
+     */
+    public static List<String> tokenize(final @NonNull String text) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    void add(final Product product) {
+        List<String> terms = tokenize(product.description());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        if (nextOrdinal == products.length) {
+            products = Arrays.copyOf(products, nextOrdinal * 2);
+            lengths = Arrays.copyOf(lengths, nextOrdinal * 2);
+        }
+        int ordinal = nextOrdinal++;
+        products[ordinal] = product;
+        lengths[ordinal] = terms.size();
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postingsByTerm.computeIfAbsent(frequency.getKey(), term -> new Postings()).append(ordinal, frequency.getValue());
+        }
+        ordinalsById.put(product.id(), ordinal);
+        size++;
+        totalLength += terms.size();
+    }
+
+    void remove(final Product product) {
+        Integer ordinal = ordinalsById.remove(product.id());
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : new LinkedHashSet<>(tokenize(products[ordinal].description()))) {
+            Postings postings = postingsByTerm.get(term);
+            if (--postings.documentFrequency == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+        products[ordinal] = null;
+        size--;
+        totalLength -= lengths[ordinal];
+        int tombstones = nextOrdinal - size;
+        if (tombstones >= MIN_TOMBSTONES && tombstones > size / TOMBSTONE_RATIO) {
+            compact();
+        }
+    }
+
+    // renumbers the remaining products densely, keeping their order, and drops the tombstones from the postings
+    private void compact() {
+        int[] newOrdinals = new int[nextOrdinal];
+        int next = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (products[ordinal] == null) {
+                newOrdinals[ordinal] = -1;
+            } else {
+                newOrdinals[ordinal] = next;
+                products[next] = products[ordinal];
+                lengths[next] = lengths[ordinal];
+                ordinalsById.put(products[next].id(), next);
+                next++;
+            }
+        }
+        for (Postings postings : postingsByTerm.values()) {
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int newOrdinal = newOrdinals[postings.ordinals[i]];
+                if (newOrdinal >= 0) {
+                    postings.ordinals[kept] = newOrdinal;
+                    postings.frequencies[kept++] = postings.frequencies[i];
+                }
+            }
+            postings.size = kept;
+        }
+        Arrays.fill(products, next, nextOrdinal, null);
+        nextOrdinal = next;
+    }
+
+    /**
+     * Finds the products whose description matches the query, best first.
+     *
+     * @param query    terms to search for, split like descriptions by {@link #tokenize(String)}
+     * @param operator whether a product must contain all or any of the terms
+     * @param limit    maximum number of products to return
+     * @return at most limit matching products, by descending score
+     */
+    public List<ScoredProduct> search(final @NonNull String query, final @NonNull SearchOperatorEnum operator, final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings != null) {
+                lists.add(postings);
+            } else if (operator == SearchOperatorEnum.AND) {
+                return List.of();
+            }
+        }
+        if (lists.isEmpty() || limit == 0) {
+            return List.of();
+        }
+        TopScores top = new TopScores(limit);
+        if (operator == SearchOperatorEnum.AND) {
+            lists.sort(Comparator.comparingInt(postings -> postings.size));
+            searchAll(new Query(lists), top);
+        } else {
+            lists.sort(Comparator.comparingInt(postings -> -postings.documentFrequency));
+            searchAny(new Query(lists), top);
+        }
+        return top.toList(products);
+    }
+
+    /**
+     * Posting lists of the terms of a query with their BM25 weights.
+     */
+    private final class Query {
+        private final Postings[] lists;
+        private final int[] positions;
+        private final double[] idfs;
+        /**
+         * score of each term for the current product.
+         */
+        private final double[] termScores;
+        /**
+         * sum of the highest possible scores of the terms up to and including each term.
+         */
+        private final double[] maxScoreSums;
+        private final double lengthBase;
+        private final double lengthFactor;
+
+        Query(final List<Postings> postings) {
+            lists = postings.toArray(Postings[]::new);
+            positions = new int[lists.length];
+            idfs = new double[lists.length];
+            termScores = new double[lists.length];
+            maxScoreSums = new double[lists.length];
+            for (int t = 0; t < lists.length; t++) {
+                double documentFrequency = lists[t].documentFrequency;
+                idfs[t] = Math.log(1 + (size - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                maxScoreSums[t] = (t == 0 ? 0 : maxScoreSums[t - 1]) + idfs[t] * (K1 + 1);
+            }
+            double averageLength = Math.max(1, (double) totalLength / size);
+            lengthBase = K1 * (1 - B);
+            lengthFactor = K1 * B / averageLength;
+        }
+
+        double score(final int term, final int position, final int ordinal) {
+            int frequency = lists[term].frequencies[position];
+            return idfs[term] * frequency * (K1 + 1) / (frequency + lengthBase + lengthFactor * lengths[ordinal]);
+        }
+
+        // moves the position of the term to the first ordinal not below the target, false if there is none
+        boolean advance(final int term, final int target) {
+            Postings postings = lists[term];
+            int[] ordinals = postings.ordinals;
+            int low = positions[term];
+            int high = low;
+            int step = 1;
+            while (high < postings.size && ordinals[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ordinals, low, Math.min(high, postings.size), target);
+            positions[term] = index >= 0 ? index : -index - 1;
+            return positions[term] < postings.size;
+        }
+
+        // sum in term order, so the score of a product does not depend on which lists were looked up
+        double sum() {
+            double sum = 0;
+            for (double termScore : termScores) {
+                sum += termScore;
+            }
+            return sum;
+        }
+
+        boolean at(final int term, final int ordinal) {
+            return positions[term] < lists[term].size && lists[term].ordinals[positions[term]] == ordinal;
+        }
+    }
+
+    // walks the shortest list and gallops through the others to the same ordinal, a product is dropped as soon as
+    // the terms left cannot lift it above the best ones
+    private void searchAll(final Query query, final TopScores top) {
+        Postings lead = query.lists[0];
+        int terms = query.lists.length;
+        double maxScore = query.maxScoreSums[terms - 1];
+        for (int i = 0; i < lead.size; i++) {
+            int ordinal = lead.ordinals[i];
+            if (products[ordinal] == null) {
+                continue;
+            }
+            double score = query.score(0, i, ordinal);
+            boolean all = true;
+            for (int t = 1; t < terms && all; t++) {
+                if (!query.advance(t, ordinal)) {
+                    return;
+                }
+                all = query.at(t, ordinal) && score + maxScore - query.maxScoreSums[t - 1] > top.threshold();
+                if (all) {
+                    score += query.score(t, query.positions[t], ordinal);
+                }
+            }
+            if (all) {
+                top.offer(ordinal, score);
+            }
+        }
+    }
+
+    // merges the lists in ordinal order; once the best products are found, products only containing terms that
+    // together cannot beat them are skipped: only the lists of the other, essential terms are merged and the
+    // non-essential lists are looked up by galloping (MaxScore)
+    private void searchAny(final Query query, final TopScores top) {
+        int terms = query.lists.length;
+        int firstEssential = 0;
+        while (firstEssential < terms) {
+            int ordinal = Integer.MAX_VALUE;
+            for (int t = firstEssential; t < terms; t++) {
+                if (query.positions[t] < query.lists[t].size) {
+                    ordinal = Math.min(ordinal, query.lists[t].ordinals[query.positions[t]]);
+                }
+            }
+            if (ordinal == Integer.MAX_VALUE) {
+                return;
+            }
+            boolean live = products[ordinal] != null;
+            double[] termScores = query.termScores;
+            double score = 0;
+            for (int t = firstEssential; t < terms; t++) {
+                termScores[t] = 0;
+                if (query.at(t, ordinal)) {
+                    if (live) {
+                        termScores[t] = query.score(t, query.positions[t], ordinal);
+                        score += termScores[t];
+                    }
+                    query.positions[t]++;
+                }
+            }
+            if (!live) {
+                continue;
+            }
+            int t = firstEssential - 1;
+            for (; t >= 0 && score + query.maxScoreSums[t] > top.threshold(); t--) {
+                termScores[t] = 0;
+                if (query.advance(t, ordinal) && query.at(t, ordinal)) {
+                    termScores[t] = query.score(t, query.positions[t], ordinal);
+                    score += termScores[t];
+                }
+            }
+            // the remaining terms cannot lift the product above the best ones
+            if (t < 0 && top.offer(ordinal, query.sum())) {
+                while (firstEssential < terms && query.maxScoreSums[firstEssential] <= top.threshold()) {
+                    firstEssential++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of indexed products
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of distinct terms of the indexed descriptions
+     */
+    public int terms() {
+        return postingsByTerm.size();
+    }
+
+    /**
+     * Best scores seen so far, as a min-heap on primitive arrays.
+     */
+    private static final class TopScores {
+        private final int[] ordinals;
+        private final double[] scores;
+        private int size;
+
+        TopScores(final int limit) {
+            ordinals = new int[limit];
+            scores = new double[limit];
+        }
+
+        /**
+         * @return score a product must exceed to be kept, negative infinity while there are fewer than limit
+         */
+        double threshold() {
+            return size < ordinals.length ? Double.NEGATIVE_INFINITY : scores[0];
+        }
+
+        /**
+         * @param ordinal ordinal of the product
+         * @param score   score of the product
+         * @return true if the product was kept
+         */
+        boolean offer(final int ordinal, final double score) {
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                siftUp(size++);
+                return true;
+            }
+            if (score > scores[0]) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                siftDown(0);
+                return true;
+            }
+            return false;
+        }
+
+        // a product ranks lower than another on a lower score, on the same score if it was added later
+        private boolean lower(final int i, final int j) {
+            return scores[i] < scores[j] || scores[i] == scores[j] && ordinals[i] > ordinals[j];
+        }
+
+        private void siftUp(final int index) {
+            int child = index;
+            while (child > 0) {
+                int parent = (child - 1) / 2;
+                if (!lower(child, parent)) {
+                    return;
+                }
+                swap(child, parent);
+                child = parent;
+            }
+        }
+
+        private void siftDown(final int index) {
+            int parent = index;
+            while (true) {
+                int lowest = parent;
+                for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                    if (lower(child, lowest)) {
+                        lowest = child;
+                    }
+                }
+                if (lowest == parent) {
+                    return;
+                }
+                swap(parent, lowest);
+                parent = lowest;
+            }
+        }
+
+        private void swap(final int i, final int j) {
+            int ordinal = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = ordinal;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+
+        List<ScoredProduct> toList(final Product[] products) {
+            ScoredProduct[] result = new ScoredProduct[size];
+            while (size > 0) {
+                result[size - 1] = new ScoredProduct(products[ordinals[0]], scores[0]);
+                size--;
+                swap(0, size);
+                siftDown(0);
+            }
+            return List.of(result);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ckollmeier.de.Repository;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the all-or-nothing reservations of a {@link StockRepository}, used to tune lock striping.
+ */
+public final class ReservationMetrics {
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder contendedLocks = new LongAdder();
+
+    void recordAttempt() {
+        attempts.increment();
+    }
+
+    void recordSuccess() {
+        successes.increment();
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordContendedLock() {
+        contendedLocks.increment();
+    }
+
+    /**
+     * @return number of started reservations
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * @return number of reservations that decreased the stock of all lines
+     */
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    /**
+     * @return number of reservations rejected because a line was not sufficiently in stock
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return number of times all held locks were released because another lock was taken
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of lock acquisitions that found the lock taken
+     */
+    public long getContendedLocks() {
+        return contendedLocks.sum();
+    }
+
+    /**
+     * Sets all counters back to zero.
+     */
+    public void reset() {
+        attempts.reset();
+        successes.reset();
+        rejections.reset();
+        retries.reset();
+        contendedLocks.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationMetrics{attempts=" + getAttempts()
+                + ", successes=" + getSuccesses()
+                + ", rejections=" + getRejections()
+                + ", retries=" + getRetries()
+                + ", contendedLocks=" + getContendedLocks() + "}";
+    }
+}
@@ -0,0 +1,12 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.Product;
+
+/**
+ * A product found by a full-text search.
+ *
+ * @param product the found product
+ * @param score   relevance of the product for the query, higher is more relevant
+ */
+public record ScoredProduct(Product product, double score) {
+}
@@ -0,0 +1,117 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
+import ckollmeier.de.ValidationUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable stock of one product, the quantity is kept as {@link FixedPointQuantity fixed-point long}.
+ * <p>
+ * The quantity is only written under the lock of the product's stripe and read without locking. A
+ * {@link StockArticle} is only built when one is asked for after the quantity changed.
+ */
+final class StockEntry {
+    /**
+     * the stock article as added, everything but the quantity is taken from it.
+     */
+    private final StockArticle stockArticle;
+    private volatile long quantity;
+    /**
+     * scale the quantity is shown with, widened by every change in amounts like BigDecimal arithmetic would.
+     */
+    private final AtomicInteger scale;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Stock article built for a quantity.
+     *
+     * @param quantity     the quantity in base units
+     * @param scale        the scale the quantity is shown with
+     * @param stockArticle the stock article with that quantity
+     */
+    private record Snapshot(long quantity, int scale, StockArticle stockArticle) {
+    }
+
+    StockEntry(final StockArticle stockArticle) {
+        this.stockArticle = stockArticle;
+        this.quantity = FixedPointQuantity.toBaseUnits(stockArticle.quantity(), stockArticle.unit());
+        this.scale = new AtomicInteger(stockArticle.quantity().scale());
+        this.snapshot = new Snapshot(quantity, scale.get(), stockArticle);
+    }
+
+    String productId() {
+        return stockArticle.product().id();
+    }
+
+    UnitEnum unit() {
+        return stockArticle.unit();
+    }
+
+    BigDecimal price() {
+        return stockArticle.price();
+    }
+
+    /**
+     * @return quantity in the smallest unit of the stock unit's family
+     */
+    long quantity() {
+        return quantity;
+    }
+
+    /**
+     * Must only be called while holding the lock of the product's stripe.
+     *
+     * @param newQuantity quantity in the smallest unit of the stock unit's family
+     */
+    void setQuantity(final long newQuantity) {
+        quantity = newQuantity;
+    }
+
+    /**
+     * @param requested quantity in amounts of unit
+     * @param unit      unit of the requested quantity
+     * @return the requested quantity in base units of this stock
+     * @throws IllegalArgumentException if unit is not convertible to the stock unit
+     */
+    long toBaseUnits(final BigDecimal requested, final UnitEnum unit) {
+        if (!stockArticle.unit().isConvertibleTo(unit)) {
+            throw new IllegalArgumentException("units not convertible");
+        }
+        return FixedPointQuantity.toBaseUnits(requested, unit);
+    }
+
+    /**
+     * Widens the scale the quantity is shown with to the scale {@code quantity + requested * conversionFactor} has,
+     * so quantities keep the scale they had when they were BigDecimals, e.g. 10.0 kg less 1 kg is 9.000 kg.
+     *
+     * @param requested quantity in amounts of unit the stock was changed by
+     * @param unit      unit of the requested quantity
+     */
+    void widenScale(final BigDecimal requested, final UnitEnum unit) {
+        int changed = requested.scale() + stockArticle.unit().conversionFactor(unit).scale();
+        if (changed > scale.get()) {
+            scale.accumulateAndGet(changed, Math::max);
+        }
+    }
+
+    /**
+     * @return the stock article with the current quantity
+     */
+    StockArticle toStockArticle() {
+        long current = quantity;
+        int currentScale = scale.get();
+        Snapshot last = snapshot;
+        if (last.quantity() == current && last.scale() == currentScale) {
+            return last.stockArticle();
+        }
+        StockArticle updated = ValidationUtils.validated(stockArticle.withQuantity(
+                FixedPointQuantity.toDecimal(current, stockArticle.unit(), currentScale)),
+                ValidationScopeEnum.INTERNAL);
+        snapshot = new Snapshot(current, currentScale, updated);
+        return updated;
+    }
+}
@@ -0,0 +1,58 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Enum.UnitEnum;
+import io.soabase.recordbuilder.core.RecordBuilder;
+
+import java.math.BigDecimal;
+import java.util.function.Predicate;
+
+/**
+ * Conditions a stock article must meet to be streamed by {@link StockRepository#stream(StockFilter)}, null
+ * components do not restrict.
+ *
+ * @param unit     only stock kept in units of the family of this unit, e.g. any weight for {@link UnitEnum#KG}
+ * @param below    only stock with less than this quantity, in amounts of unit
+ * @param minPrice only stock with at least this price
+ * @param maxPrice only stock with at most this price
+ */
+@RecordBuilder
+public record StockFilter(
+        UnitEnum unit,
+        BigDecimal below,
+        BigDecimal minPrice,
+        BigDecimal maxPrice
+) implements StockFilterBuilder.With {
+    /**
+     * Filter letting all stock pass.
+     */
+    public static final StockFilter ALL = new StockFilter(null, null, null, null);
+
+    /**
+     * @param unit     only stock kept in units of the family of this unit
+     * @param below    only stock with less than this quantity, in amounts of unit
+     * @param minPrice only stock with at least this price
+     * @param maxPrice only stock with at most this price
+     * @throws IllegalArgumentException if below is given without unit or minPrice is above maxPrice
+     */
+    public StockFilter {
+        if (below != null && unit == null) {
+            throw new IllegalArgumentException("Threshold needs a unit");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Minimum price must not be above maximum price");
+        }
+    }
+
+    /**
+     * @return test of a stock entry against this filter, comparing quantities in base units without allocating
+     * @throws IllegalArgumentException if below is not a whole number of base units
+     */
+    Predicate<StockEntry> toPredicate() {
+        boolean hasThreshold = below != null;
+        long threshold = hasThreshold ? FixedPointQuantity.toBaseUnits(below, unit) : 0;
+        return entry -> (unit == null || entry.unit().isConvertibleTo(unit))
+                && (!hasThreshold || entry.quantity() < threshold)
+                && (minPrice == null || entry.price().compareTo(minPrice) >= 0)
+                && (maxPrice == null || entry.price().compareTo(maxPrice) <= 0);
+    }
+}
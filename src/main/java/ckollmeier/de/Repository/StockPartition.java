@@ -0,0 +1,77 @@
+package ckollmeier.de.Repository;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Independent part of the stock of a {@link StockRepository}, holding the products and stock article ids hashing to
+ * it.
+ * <p>
+ * Unlike the sorted maps of orders, the maps are keyed by the id strings the entities hold anyway: a string caches
+ * its hash, so a lookup is cheaper than converting the id into an {@link IdKey}.
+ */
+final class StockPartition {
+    private final Map<String, StockEntry> stockByProductId = new ConcurrentHashMap<>();
+    private final Map<String, String> productIdsByStockArticleId = new ConcurrentHashMap<>();
+
+    /**
+     * @param productId id of a product of this partition
+     * @return the stock of the product, null if the product is not in stock
+     */
+    StockEntry get(final String productId) {
+        return stockByProductId.get(productId);
+    }
+
+    /**
+     * @param entry stock of a product of this partition, replacing its previous stock
+     */
+    void put(final StockEntry entry) {
+        stockByProductId.put(entry.productId(), entry);
+    }
+
+    /**
+     * @param productId id of a product of this partition whose stock to remove
+     */
+    void remove(final String productId) {
+        stockByProductId.remove(productId);
+    }
+
+    /**
+     * @param stockArticleId id of a stock article of this partition
+     * @return id of the product of the stock article, null if not known
+     */
+    String productIdOf(final String stockArticleId) {
+        return productIdsByStockArticleId.get(stockArticleId);
+    }
+
+    /**
+     * @param stockArticleId id of a stock article of this partition
+     * @param productId      id of the product of the stock article
+     * @return true if added, false if the stock article id is already taken
+     */
+    boolean addStockArticleId(final String stockArticleId, final String productId) {
+        return productIdsByStockArticleId.putIfAbsent(stockArticleId, productId) == null;
+    }
+
+    /**
+     * @param stockArticleId id of a stock article of this partition to forget
+     */
+    void removeStockArticleId(final String stockArticleId) {
+        productIdsByStockArticleId.remove(stockArticleId);
+    }
+
+    /**
+     * @return number of products in stock in this partition
+     */
+    int size() {
+        return stockByProductId.size();
+    }
+
+    /**
+     * @return weakly consistent spliterator over the stock of this partition
+     */
+    Spliterator<StockEntry> spliterator() {
+        return stockByProductId.values().spliterator();
+    }
+}
@@ -1,36 +1,123 @@
 package ckollmeier.de.Repository;
 
 import ckollmeier.de.Entity.Interface.ProductInterface;
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
 import ckollmeier.de.Entity.Product;
 import ckollmeier.de.Entity.ProductBuilder;
 import ckollmeier.de.Entity.StockArticle;
 import ckollmeier.de.Entity.StockArticleBuilder;
+import ckollmeier.de.Enum.ReservationModeEnum;
 import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
 
 import ckollmeier.de.ValidationUtils;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.NonNull;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Thread-safe stock of all products.
+ * <p>
+ * Reads are lock-free, every change of the stock of a product happens under the lock of the product's stripe,
+ * so a check and the following update of one product are atomic. Orders spanning several products are reserved
+ * all-or-nothing by {@link #reserveAll(List)}, batches of orders by {@link #reserveOrders(List, ReservationModeEnum)}.
+ * <p>
+ * Quantities are kept as {@link FixedPointQuantity fixed-point longs} in milligram, milliliter or pieces,
+ * {@link BigDecimal} is only used at the API. {@link #isSufficientInStock(String, long)} and
+ * {@link #reserveBaseUnits(String, long)} work on base units directly and do not allocate.
+ * <p>
+ * Every change is passed to the {@link MutationLog}, tagged with the id of the order causing it where there is one,
+ * e.g. to keep a ledger of the stock movements.
+ * <p>
+ * The stock is split into independent {@link StockPartition partitions} by the hash of the product id, each with its
+ * own maps. The partition of a product is chosen by its lock stripe, so every partition is guarded by stripes of its
+ * own and a change of one product only touches its partition. Full scans like {@link #findAll()} read the
+ * partitions in parallel on the common {@link java.util.concurrent.ForkJoinPool}, {@link #stream(StockFilter)}
+ * streams them filtered without copying.
+ */
 public final class StockRepository {
-    private final Map<String, StockArticle> stockArticles = new HashMap<>();
-    private final Map<String, StockArticle> stockArticlesByProductId = new HashMap<>();
+    private final StockPartition[] partitions;
+    private final int partitionMask;
+    private final StripedLock locks;
+    private final ReservationMetrics reservationMetrics = new ReservationMetrics();
+    private final MutationLog mutationLog;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Creates a repository without persistence.
+     */
+    public StockRepository() {
+        this(MutationLog.NONE);
+    }
+
+    /**
+     * @param mutationLog receives every added stock article and every change of a quantity
+     */
+    public StockRepository(final @NonNull MutationLog mutationLog) {
+        this(mutationLog, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param mutationLog    receives every added stock article and every change of a quantity
+     * @param partitionCount number of partitions, rounded up to a power of two
+     */
+    public StockRepository(final @NonNull MutationLog mutationLog, final int partitionCount) {
+        this(mutationLog, partitionCount, IdGenerator.TIME_ORDERED);
+    }
+
+    /**
+     * @param mutationLog    receives every added stock article and every change of a quantity
+     * @param partitionCount number of partitions, rounded up to a power of two
+     * @param idGenerator    gives stock articles without id one
+     */
+    public StockRepository(final @NonNull MutationLog mutationLog, final int partitionCount, final @NonNull IdGenerator idGenerator) {
+        this.mutationLog = mutationLog;
+        this.idGenerator = idGenerator;
+        int size = partitionCount <= 1 ? 1 : Integer.highestOneBit(partitionCount - 1) << 1;
+        partitions = new StockPartition[size];
+        for (int i = 0; i < size; i++) {
+            partitions[i] = new StockPartition();
+        }
+        partitionMask = size - 1;
+        locks = new StripedLock(Math.max(size, Runtime.getRuntime().availableProcessors() * StripedLock.STRIPES_PER_PROCESSOR));
+    }
+
+    // there are at least as many stripes as partitions, so the stripes of different partitions never overlap
+    private StockPartition partition(final String key) {
+        return partitions[locks.stripe(key) & partitionMask];
+    }
+
+    private StockEntry entry(final String productId) {
+        return partition(productId).get(productId);
+    }
 
     private StockArticle stockArticleWithId(final @NonNull StockArticle stockArticle) {
-        String id = UUID.randomUUID().toString();
-        return ValidationUtils.validated(stockArticle.withId(id));
+        String id = idGenerator.nextString();
+        return ValidationUtils.validated(stockArticle.withId(id), ValidationScopeEnum.INPUT);
     }
 
-    private StockArticle updateStockArticle(final @NonNull StockArticle stockArticle) {
-        ValidationUtils.validate(stockArticle);
-        stockArticles.replace(stockArticle.id(), stockArticle);
-        stockArticlesByProductId.put(stockArticle.product().id(), stockArticle);
-        return stockArticle;
+    private <T> T withLock(final String productId, final Supplier<T> action) {
+        ReentrantLock lock = locks.lockFor(productId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -49,14 +136,21 @@ public final class StockRepository {
      */
     public boolean isSufficientInStock(final @NonNull ProductInterface product, final @NonNull @PositiveOrZero BigDecimal quantity, final @NonNull UnitEnum unit) {
         ValidationUtils.validate(quantity);
-        Optional<StockArticle> optionalStockArticle = findByProductId(product.productId());
-        if (optionalStockArticle.isEmpty()) {
+        StockEntry entry = entry(product.productId());
+        if (entry == null) {
             return false;
         }
-        StockArticle stockArticle = optionalStockArticle.get();
-        BigDecimal convertedQuantity = quantity.multiply(stockArticle.unit().conversionFactor(unit));
+        return entry.quantity() >= entry.toBaseUnits(quantity, unit);
+    }
 
-        return stockArticle.quantity().compareTo(convertedQuantity) >= 0;
+    /**
+     * @param productId id of the product to check against
+     * @param baseUnits needed quantity in milligram, milliliter or pieces
+     * @return true if enough in stock
+     */
+    public boolean isSufficientInStock(final @NonNull String productId, final long baseUnits) {
+        StockEntry entry = entry(productId);
+        return entry != null && entry.quantity() >= baseUnits;
     }
 
     /**
@@ -66,9 +160,23 @@ public final class StockRepository {
      * @return product with increased quantity
      */
     public StockArticle increaseQuantity(final @NonNull ProductInterface product, final @NonNull BigDecimal quantity, final @NonNull UnitEnum unit) {
-        ValidationUtils.validate(quantity);
-        StockArticle stockArticle = findByProductId(product.id()).orElseGet(
-                () -> addProduct(
+        return increaseQuantity(product, quantity, unit, null);
+    }
+
+    /**
+     * @param product  product to increase the quantity
+     * @param quantity quantity in amounts of unit
+     * @param unit     unit of the added amount
+     * @param orderId  id of the order giving back the quantity, null if not caused by an order
+     * @return product with increased quantity
+     */
+    public StockArticle increaseQuantity(final @NonNull ProductInterface product, final @NonNull BigDecimal quantity, final @NonNull UnitEnum unit, final String orderId) {
+        if (quantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        return withLock(product.productId(), () -> {
+            if (entry(product.productId()) == null) {
+                addProduct(
                         stockArticleWithId(
                                 StockArticleBuilder.builder()
                                         .product(ProductBuilder.builder()
@@ -83,16 +191,21 @@ public final class StockRepository {
                                         .price(BigDecimal.ZERO) // Default price, can be updated later
                                         .build()
                         )
-                )
-        );
-        return updateStockArticle(
-                stockArticle.withQuantity(
-                        stockArticle.quantity()
-                                .add(
-                                        quantity.multiply(stockArticle.unit().conversionFactor(unit))
-                                )
-                )
-        );
+                );
+            }
+            StockEntry entry = entry(product.productId());
+            long increasedQuantity = entry.toBaseUnits(quantity, unit);
+            long previousQuantity = entry.quantity();
+            entry.setQuantity(Math.addExact(previousQuantity, increasedQuantity));
+            try {
+                mutationLog.stockIncreased(product.productId(), increasedQuantity, orderId);
+            } catch (RuntimeException e) {
+                entry.setQuantity(previousQuantity);
+                throw e;
+            }
+            entry.widenScale(quantity, unit);
+            return entry.toStockArticle();
+        });
     }
 
     /**
@@ -105,26 +218,458 @@ public final class StockRepository {
         if (quantity.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        StockArticle stockArticle = findByProductId(product.id())
-                .orElseThrow(() -> new IllegalArgumentException("Product " + product.id() + " does not exist"));
-        BigDecimal decreasedQuantity = quantity.multiply(stockArticle.unit().conversionFactor(unit));
-        if (stockArticle.quantity().compareTo(decreasedQuantity) <= 0) {
-            throw new IllegalArgumentException("Not enough stock quantity");
+        if (findByProductId(product.productId()).isEmpty()) {
+            throw new IllegalArgumentException("Product " + product.productId() + " does not exist");
+        }
+        return withLock(product.productId(), () -> {
+            StockEntry entry = entry(product.productId());
+            long decreasedQuantity = entry.toBaseUnits(quantity, unit);
+            if (entry.quantity() <= decreasedQuantity) {
+                throw new IllegalArgumentException("Not enough stock quantity");
+            }
+            long previousQuantity = entry.quantity();
+            entry.setQuantity(previousQuantity - decreasedQuantity);
+            try {
+                mutationLog.stockDecreased(product.productId(), decreasedQuantity, null);
+            } catch (RuntimeException e) {
+                entry.setQuantity(previousQuantity);
+                throw e;
+            }
+            entry.widenScale(quantity, unit);
+            return entry.toStockArticle();
+        });
+    }
+
+    /**
+     * Atomically checks that enough is in stock and decreases the stock by the quantity.
+     *
+     * @param product  product to reserve
+     * @param quantity quantity in amounts of unit
+     * @param unit     unit of the reserved amount
+     * @return product with decreased quantity, empty if the product is not in stock or not sufficiently
+     */
+    public Optional<StockArticle> reserve(final @NonNull ProductInterface product, final @NonNull @PositiveOrZero BigDecimal quantity, final @NonNull UnitEnum unit) {
+        return reserve(product, quantity, unit, null);
+    }
+
+    /**
+     * Atomically checks that enough is in stock and decreases the stock by the quantity.
+     *
+     * @param product  product to reserve
+     * @param quantity quantity in amounts of unit
+     * @param unit     unit of the reserved amount
+     * @param orderId  id of the order the quantity is reserved for, null if not reserved for an order
+     * @return product with decreased quantity, empty if the product is not in stock or not sufficiently
+     */
+    public Optional<StockArticle> reserve(final @NonNull ProductInterface product, final @NonNull @PositiveOrZero BigDecimal quantity, final @NonNull UnitEnum unit, final String orderId) {
+        if (quantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        StockEntry entry = entry(product.productId());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long reservedQuantity = entry.toBaseUnits(quantity, unit);
+        if (!reserveBaseUnits(product.productId(), reservedQuantity, orderId)) {
+            return Optional.empty();
+        }
+        entry.widenScale(quantity, unit);
+        return Optional.of(entry.toStockArticle());
+    }
+
+    /**
+     * Atomically checks that enough is in stock and decreases the stock, without allocating.
+     *
+     * @param productId id of the product to reserve
+     * @param baseUnits quantity in milligram, milliliter or pieces
+     * @return true if reserved, false if the product is not in stock or not sufficiently
+     */
+    public boolean reserveBaseUnits(final @NonNull String productId, final long baseUnits) {
+        return reserveBaseUnits(productId, baseUnits, null);
+    }
+
+    /**
+     * Atomically checks that enough is in stock and decreases the stock, without allocating.
+     *
+     * @param productId id of the product to reserve
+     * @param baseUnits quantity in milligram, milliliter or pieces
+     * @param orderId   id of the order the quantity is reserved for, null if not reserved for an order
+     * @return true if reserved, false if the product is not in stock or not sufficiently
+     */
+    public boolean reserveBaseUnits(final @NonNull String productId, final long baseUnits, final String orderId) {
+        if (baseUnits < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        StockEntry entry = entry(productId);
+        if (entry == null) {
+            return false;
+        }
+        ReentrantLock lock = locks.lockFor(productId);
+        lock.lock();
+        try {
+            long quantity = entry.quantity();
+            if (quantity < baseUnits) {
+                return false;
+            }
+            entry.setQuantity(quantity - baseUnits);
+            try {
+                mutationLog.stockDecreased(productId, baseUnits, orderId);
+            } catch (RuntimeException e) {
+                entry.setQuantity(quantity);
+                throw e;
+            }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return updateStockArticle(
-                stockArticle.withQuantity(
-                        stockArticle.quantity()
-                                .subtract(decreasedQuantity)
-                )
-        );
     }
 
+    /**
+     * Increases the stock of a product in stock, without allocating.
+     *
+     * @param productId id of the product
+     * @param baseUnits quantity in milligram, milliliter or pieces
+     * @return true if increased, false if the product is not in stock
+     */
+    public boolean increaseBaseUnits(final @NonNull String productId, final long baseUnits) {
+        return increaseBaseUnits(productId, baseUnits, null);
+    }
+
+    /**
+     * Increases the stock of a product in stock, without allocating.
+     *
+     * @param productId id of the product
+     * @param baseUnits quantity in milligram, milliliter or pieces
+     * @param orderId   id of the order giving back the quantity, null if not caused by an order
+     * @return true if increased, false if the product is not in stock
+     */
+    public boolean increaseBaseUnits(final @NonNull String productId, final long baseUnits, final String orderId) {
+        if (baseUnits < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        StockEntry entry = entry(productId);
+        if (entry == null) {
+            return false;
+        }
+        ReentrantLock lock = locks.lockFor(productId);
+        lock.lock();
+        try {
+            long quantity = entry.quantity();
+            entry.setQuantity(Math.addExact(quantity, baseUnits));
+            try {
+                mutationLog.stockIncreased(productId, baseUnits, orderId);
+            } catch (RuntimeException e) {
+                entry.setQuantity(quantity);
+                throw e;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserves all order lines together: either the stock of every line is decreased or none is.
+     * <p>
+     * The lines are grouped by product id in ascending order and the stripes of all products are locked in
+     * ascending stripe order, so concurrent reservations of overlapping orders cannot deadlock. Only then all lines
+     * are checked and decreased.
+     *
+     * @param orderProducts order lines to reserve
+     * @return true if all lines were reserved, false if any product is not in stock or not sufficiently
+     */
+    public boolean reserveAll(final @NonNull List<OrderProduct> orderProducts) {
+        return reserveAll(orderProducts, null);
+    }
+
+    /**
+     * Reserves all order lines of an order together, see {@link #reserveAll(List)}.
+     *
+     * @param orderProducts order lines to reserve
+     * @param orderId       id of the order the lines belong to, null if not reserved for an order
+     * @return true if all lines were reserved, false if any product is not in stock or not sufficiently
+     */
+    public boolean reserveAll(final @NonNull List<OrderProduct> orderProducts, final String orderId) {
+        Map<String, List<OrderProduct>> linesByProductId = new TreeMap<>();
+        for (OrderProduct orderProduct : orderProducts) {
+            if (orderProduct.getQuantity().compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalArgumentException("Quantity must be non-negative");
+            }
+            linesByProductId.computeIfAbsent(orderProduct.productId(), productId -> new ArrayList<>()).add(orderProduct);
+        }
+        int[] stripes = locks.stripes(linesByProductId.keySet());
+        reservationMetrics.recordAttempt();
+        locks.lockAll(stripes, reservationMetrics);
+        try {
+            StockEntry[] entries = new StockEntry[linesByProductId.size()];
+            long[] reservedQuantities = new long[entries.length];
+            int i = 0;
+            for (Map.Entry<String, List<OrderProduct>> lines : linesByProductId.entrySet()) {
+                StockEntry entry = entry(lines.getKey());
+                if (entry == null) {
+                    reservationMetrics.recordRejection();
+                    return false;
+                }
+                long reservedQuantity = 0;
+                for (OrderProduct line : lines.getValue()) {
+                    reservedQuantity = Math.addExact(reservedQuantity, entry.toBaseUnits(line.getQuantity(), line.unit()));
+                }
+                if (entry.quantity() < reservedQuantity) {
+                    reservationMetrics.recordRejection();
+                    return false;
+                }
+                entries[i] = entry;
+                reservedQuantities[i++] = reservedQuantity;
+            }
+            List<LoggedDecrease> decreases = new ArrayList<>(entries.length);
+            for (i = 0; i < entries.length; i++) {
+                entries[i].setQuantity(entries[i].quantity() - reservedQuantities[i]);
+                decreases.add(new LoggedDecrease(entries[i].productId(), reservedQuantities[i], orderId));
+            }
+            try {
+                logDecreases(decreases);
+            } catch (RuntimeException e) {
+                // still all or nothing: the reservation is given back as a whole
+                for (i = 0; i < entries.length; i++) {
+                    entries[i].setQuantity(entries[i].quantity() + reservedQuantities[i]);
+                }
+                throw e;
+            }
+            for (OrderProduct orderProduct : orderProducts) {
+                entry(orderProduct.productId()).widenScale(orderProduct.getQuantity(), orderProduct.unit());
+            }
+            reservationMetrics.recordSuccess();
+            return true;
+        } finally {
+            locks.unlockAll(stripes);
+        }
+    }
+
+    /**
+     * Gives back the stock of order lines reserved by {@link #reserveAll(List)}.
+     *
+     * @param orderProducts order lines to give back
+     */
+    public void releaseAll(final @NonNull List<OrderProduct> orderProducts) {
+        releaseAll(orderProducts, null);
+    }
+
+    /**
+     * Gives back the stock of order lines reserved by {@link #reserveAll(List, String)}.
+     *
+     * @param orderProducts order lines to give back
+     * @param orderId       id of the order the lines belong to, null if not reserved for an order
+     */
+    public void releaseAll(final @NonNull List<OrderProduct> orderProducts, final String orderId) {
+        for (OrderProduct orderProduct : orderProducts) {
+            increaseQuantity(orderProduct, orderProduct.getQuantity(), orderProduct.unit(), orderId);
+        }
+    }
+
+    /**
+     * Reserves the lines of a batch of orders with the same outcome as reserving the orders one after another.
+     * <p>
+     * Every line is converted to base units and every product is looked up once before anything is locked, so an
+     * invalid line rejects the whole batch without reserving. Then the stripes of all products of the batch are
+     * locked together, the orders are reserved in batch order against running quantities of the products, and the
+     * stock of every product is written once. Then each reserved line is logged with the id of its order; if the log
+     * rejects a line, the lines it accepted are logged as given back and the stock of the whole batch is restored
+     * before the exception is rethrown.
+     *
+     * @param orders orders with ids, reserved in list order
+     * @param mode   {@link ReservationModeEnum#PARTIAL} reserves every line there is enough stock for,
+     *               {@link ReservationModeEnum#ALL_OR_NOTHING} reserves the lines of an order only all together
+     * @return per order whether each of its lines was reserved, null for an order rejected as a whole
+     * @throws IllegalArgumentException if a quantity is negative or not a whole number of base units
+     */
+    public boolean[][] reserveOrders(final @NonNull List<Order> orders, final @NonNull ReservationModeEnum mode) {
+        Map<String, Integer> slotsByProductId = new HashMap<>();
+        List<StockEntry> entries = new ArrayList<>();
+        int[][] lineSlots = new int[orders.size()][];
+        long[][] lineQuantities = new long[orders.size()][];
+        for (int i = 0; i < orders.size(); i++) {
+            List<OrderProduct> lines = orders.get(i).products();
+            lineSlots[i] = new int[lines.size()];
+            lineQuantities[i] = new long[lines.size()];
+            for (int line = 0; line < lines.size(); line++) {
+                OrderProduct orderProduct = lines.get(line);
+                if (orderProduct.getQuantity().compareTo(BigDecimal.ZERO) < 0) {
+                    throw new IllegalArgumentException("Quantity must be non-negative");
+                }
+                int slot = slotsByProductId.computeIfAbsent(orderProduct.productId(), productId -> {
+                    StockEntry entry = entry(productId);
+                    if (entry == null) {
+                        return -1;
+                    }
+                    entries.add(entry);
+                    return entries.size() - 1;
+                });
+                lineSlots[i][line] = slot;
+                if (slot >= 0) {
+                    lineQuantities[i][line] = entries.get(slot).toBaseUnits(orderProduct.getQuantity(), orderProduct.unit());
+                }
+            }
+        }
+        int[] stripes = locks.stripes(entries.stream().map(StockEntry::productId).toList());
+        locks.lockAll(stripes, reservationMetrics);
+        try {
+            long[] previousQuantities = new long[entries.size()];
+            for (int slot = 0; slot < previousQuantities.length; slot++) {
+                previousQuantities[slot] = entries.get(slot).quantity();
+            }
+            long[] quantities = previousQuantities.clone();
+            boolean[][] reserved = new boolean[orders.size()][];
+            for (int i = 0; i < orders.size(); i++) {
+                reserved[i] = reserveLines(lineSlots[i], lineQuantities[i], quantities, mode);
+            }
+            for (int slot = 0; slot < quantities.length; slot++) {
+                entries.get(slot).setQuantity(quantities[slot]);
+            }
+            List<LoggedDecrease> decreases = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                for (int line = 0; reserved[i] != null && line < reserved[i].length; line++) {
+                    if (reserved[i][line]) {
+                        decreases.add(new LoggedDecrease(entries.get(lineSlots[i][line]).productId(), lineQuantities[i][line], orders.get(i).id()));
+                    }
+                }
+            }
+            try {
+                logDecreases(decreases);
+            } catch (RuntimeException e) {
+                // nothing of the batch is reserved if the log rejects any of it
+                for (int slot = 0; slot < previousQuantities.length; slot++) {
+                    entries.get(slot).setQuantity(previousQuantities[slot]);
+                }
+                throw e;
+            }
+            for (int i = 0; i < orders.size(); i++) {
+                for (int line = 0; reserved[i] != null && line < reserved[i].length; line++) {
+                    if (reserved[i][line]) {
+                        OrderProduct orderProduct = orders.get(i).products().get(line);
+                        entries.get(lineSlots[i][line]).widenScale(orderProduct.getQuantity(), orderProduct.unit());
+                    }
+                }
+            }
+            return reserved;
+        } finally {
+            locks.unlockAll(stripes);
+        }
+    }
+
+    /**
+     * A decrease of the stock of a product that is logged as part of a batch.
+     *
+     * @param productId id of the product
+     * @param baseUnits removed quantity in milligram, milliliter or pieces
+     * @param orderId   id of the order causing the change, null if not caused by an order
+     */
+    private record LoggedDecrease(String productId, long baseUnits, String orderId) {
+    }
+
+    // logs the decreases of a batch as a whole: if the log rejects one, the decreases it accepted before are
+    // compensated by increases, so replaying the log does not reserve what was given back in memory
+    private void logDecreases(final List<LoggedDecrease> decreases) {
+        int logged = 0;
+        try {
+            for (; logged < decreases.size(); logged++) {
+                LoggedDecrease decrease = decreases.get(logged);
+                mutationLog.stockDecreased(decrease.productId(), decrease.baseUnits(), decrease.orderId());
+            }
+        } catch (RuntimeException e) {
+            try {
+                while (logged > 0) {
+                    LoggedDecrease decrease = decreases.get(--logged);
+                    mutationLog.stockIncreased(decrease.productId(), decrease.baseUnits(), decrease.orderId());
+                }
+            } catch (RuntimeException compensation) {
+                e.addSuppressed(compensation);
+            }
+            throw e;
+        }
+    }
+
+    // reserves the lines of one order against the running quantities, a slot of -1 is a product without stock
+    private boolean[] reserveLines(final int[] slots, final long[] lineQuantities, final long[] quantities, final ReservationModeEnum mode) {
+        boolean allOrNothing = mode == ReservationModeEnum.ALL_OR_NOTHING;
+        if (allOrNothing) {
+            reservationMetrics.recordAttempt();
+        }
+        boolean[] reserved = new boolean[slots.length];
+        for (int line = 0; line < slots.length; line++) {
+            int slot = slots[line];
+            if (slot >= 0 && quantities[slot] >= lineQuantities[line]) {
+                quantities[slot] -= lineQuantities[line];
+                reserved[line] = true;
+            } else if (allOrNothing) {
+                for (int undone = 0; undone < line; undone++) {
+                    quantities[slots[undone]] += lineQuantities[undone];
+                }
+                reservationMetrics.recordRejection();
+                return null;
+            }
+        }
+        if (allOrNothing) {
+            reservationMetrics.recordSuccess();
+        }
+        return reserved;
+    }
+
+    /**
+     * @return number of lock stripes, a power of two; a product id is guarded by stripe
+     *         {@code (hash ^ (hash >>> 16)) & (stripeCount - 1)} of its hash code
+     */
+    public int getStripeCount() {
+        return locks.size();
+    }
+
+    /**
+     * @return counters of the all-or-nothing reservations
+     */
+    public ReservationMetrics getReservationMetrics() {
+        return reservationMetrics;
+    }
+
+    /**
+     * @param id id of the stock article
+     * @return an optional of the found stock article
+     */
     public Optional<StockArticle> find(final @NonNull String id) {
-        return Optional.ofNullable(stockArticles.get(id));
+        return Optional.ofNullable(partition(id).productIdOf(id)).flatMap(this::findByProductId);
     }
 
     public Optional<StockArticle> findByProductId(final @NonNull String productId) {
-        return Optional.ofNullable(stockArticlesByProductId.get(productId));
+        return Optional.ofNullable(entry(productId)).map(StockEntry::toStockArticle);
+    }
+
+    /**
+     * Reads all partitions in parallel.
+     *
+     * @return all stock articles with their current quantities, in no particular order
+     */
+    public List<StockArticle> findAll() {
+        return StreamSupport.stream(new StockSpliterator(partitions), true)
+                .map(StockEntry::toStockArticle)
+                .toList();
+    }
+
+    /**
+     * Streams the stock articles passing a filter straight from the partitions, without copying the stock.
+     * <p>
+     * The filter is tested on the stored quantities and prices, so only the stock articles passing it are built.
+     * The stream is weakly consistent: it never fails on concurrent changes and may or may not see stock added or
+     * changed meanwhile. Its spliterator splits by partition and within a partition, so parallel streams divide
+     * the stock between threads.
+     *
+     * @param filter conditions the stock articles must meet, {@link StockFilter#ALL} for all
+     * @return stream of the stock articles with their current quantities, in no particular order
+     * @throws IllegalArgumentException if the threshold of the filter is not a whole number of base units
+     */
+    public Stream<StockArticle> stream(final @NonNull StockFilter filter) {
+        Stream<StockEntry> entries = StreamSupport.stream(new StockSpliterator(partitions), false);
+        if (filter != StockFilter.ALL) {
+            entries = entries.filter(filter.toPredicate());
+        }
+        return entries.map(StockEntry::toStockArticle);
     }
 
 
@@ -133,20 +678,88 @@ public final class StockRepository {
      *
      * @param stockArticle the stock article to add
      * @return the added stock article
-     * @throws IllegalArgumentException if stockArticle is null or already exists
+     * @throws IllegalArgumentException if stockArticle is null, already exists or its quantity is finer than the
+     *                                  smallest unit
      */
     public StockArticle addProduct(final @NonNull StockArticle stockArticle) {
-        if (stockArticles.containsKey(stockArticle.id())) {
-            throw new IllegalArgumentException("StockArticle with id " + stockArticle.id() + " already exists");
-        }
-        if (stockArticlesByProductId.containsKey(stockArticle.product().id())) {
-            throw new IllegalArgumentException("StockArticle for product with id " + stockArticle.product().id() + " already exists");
-        }
+        String productId = stockArticle.product().id();
+        StockEntry entry = new StockEntry(stockArticle);
+        return withLock(productId, () -> {
+            if (entry(productId) != null) {
+                throw new IllegalArgumentException("StockArticle for product with id " + productId + " already exists");
+            }
+            if (!partition(stockArticle.id()).addStockArticleId(stockArticle.id(), productId)) {
+                throw new IllegalArgumentException("StockArticle with id " + stockArticle.id() + " already exists");
+            }
+            putLogged(entry, stockArticle);
+            return stockArticle;
+        });
+    }
 
-        stockArticles.put(stockArticle.id(), stockArticle);
-        stockArticlesByProductId.put(stockArticle.product().id(), stockArticle);
+    // adds the stock of a product whose stripe is locked, taking it back out if the log rejects it
+    private void putLogged(final StockEntry entry, final StockArticle stockArticle) {
+        partition(entry.productId()).put(entry);
+        try {
+            mutationLog.stockAdded(stockArticle);
+        } catch (RuntimeException e) {
+            partition(entry.productId()).remove(entry.productId());
+            partition(stockArticle.id()).removeStockArticleId(stockArticle.id());
+            throw e;
+        }
+    }
 
-        return stockArticle;
+    /**
+     * Adds many stock articles, e.g. from an import, taking the lock of every stripe only once.
+     * <p>
+     * The stock articles must have been validated by the caller, e.g. in {@link ValidationScopeEnum#BULK bulk}, here
+     * they are only checked as much as {@link ValidationScopeEnum#INTERNAL internal} copies. Stock articles that
+     * cannot be added are skipped, the others are added nevertheless.
+     *
+     * @param stockArticles stock articles to add, missing ids are generated
+     * @return reasons of the skipped stock articles by their index in stockArticles
+     * @throws RuntimeException the exception of the {@link MutationLog} if it rejects a stock article, the stock
+     *                          articles it accepted before stay added
+     */
+    public Map<Integer, String> addProducts(final @NonNull List<StockArticle> stockArticles) {
+        Map<Integer, String> rejected = new TreeMap<>();
+        StockEntry[] entries = new StockEntry[stockArticles.size()];
+        List<Integer> added = new ArrayList<>(entries.length);
+        for (int i = 0; i < entries.length; i++) {
+            StockArticle stockArticle = stockArticles.get(i);
+            try {
+                if (stockArticle.id() == null) {
+                    stockArticle = stockArticle.withId(idGenerator.nextString());
+                }
+                entries[i] = new StockEntry(ValidationUtils.validated(stockArticle, ValidationScopeEnum.INTERNAL));
+                added.add(i);
+            } catch (IllegalArgumentException | ConstraintViolationException e) {
+                rejected.put(i, e.getMessage());
+            }
+        }
+        added.sort(Comparator.comparingInt(i -> locks.stripe(entries[i].productId())));
+        int next = 0;
+        while (next < added.size()) {
+            int stripe = locks.stripe(entries[added.get(next)].productId());
+            ReentrantLock lock = locks.lockFor(entries[added.get(next)].productId());
+            lock.lock();
+            try {
+                for (; next < added.size() && locks.stripe(entries[added.get(next)].productId()) == stripe; next++) {
+                    int index = added.get(next);
+                    StockEntry entry = entries[index];
+                    StockArticle stockArticle = entry.toStockArticle();
+                    if (entry(entry.productId()) != null) {
+                        rejected.put(index, "StockArticle for product with id " + entry.productId() + " already exists");
+                    } else if (!partition(stockArticle.id()).addStockArticleId(stockArticle.id(), entry.productId())) {
+                        rejected.put(index, "StockArticle with id " + stockArticle.id() + " already exists");
+                    } else {
+                        putLogged(entry, stockArticle);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return rejected;
     }
 
     /**
@@ -167,7 +780,7 @@ public final class StockRepository {
             throw new IllegalArgumentException("Price must be non-negative");
         }
 
-        if (stockArticlesByProductId.containsKey(product.id())) {
+        if (entry(product.id()) != null) {
             throw new IllegalArgumentException("StockArticle for product with id " + product.id() + " already exists");
         }
         Product productFromInterface = ProductBuilder.builder()
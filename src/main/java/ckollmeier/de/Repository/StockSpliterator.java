@@ -0,0 +1,93 @@
+package ckollmeier.de.Repository;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the stock of a range of {@link StockPartition partitions}.
+ * <p>
+ * It splits the range of partitions in halves until a single partition is left, then the spliterator of that
+ * partition's map, so parallel streams divide the stock between threads even with few partitions. Like the maps it
+ * is weakly consistent.
+ */
+final class StockSpliterator implements Spliterator<StockEntry> {
+    private final StockPartition[] partitions;
+    /**
+     * next partition not yet started, inclusive.
+     */
+    private int from;
+    /**
+     * end of the range of partitions, exclusive.
+     */
+    private final int to;
+    /**
+     * spliterator of the partition being traversed, null before the next one is started.
+     */
+    private Spliterator<StockEntry> current;
+
+    StockSpliterator(final StockPartition[] partitions) {
+        this(partitions, 0, partitions.length);
+    }
+
+    private StockSpliterator(final StockPartition[] partitions, final int from, final int to) {
+        this.partitions = partitions;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super StockEntry> action) {
+        while (true) {
+            if (current == null) {
+                if (from == to) {
+                    return false;
+                }
+                current = partitions[from++].spliterator();
+            }
+            if (current.tryAdvance(action)) {
+                return true;
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super StockEntry> action) {
+        if (current != null) {
+            current.forEachRemaining(action);
+            current = null;
+        }
+        while (from < to) {
+            partitions[from++].spliterator().forEachRemaining(action);
+        }
+    }
+
+    @Override
+    public Spliterator<StockEntry> trySplit() {
+        if (current == null && to - from == 1) {
+            current = partitions[from++].spliterator();
+        }
+        if (from == to) {
+            return current == null ? null : current.trySplit();
+        }
+        // a partition being traversed stays here, so only untouched partitions are split off
+        int middle = current == null ? (from + to) >>> 1 : to;
+        StockSpliterator prefix = new StockSpliterator(partitions, from, middle);
+        from = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = current == null ? 0 : current.estimateSize();
+        for (int i = from; i < to; i++) {
+            size += partitions[i].size();
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL | CONCURRENT;
+    }
+}
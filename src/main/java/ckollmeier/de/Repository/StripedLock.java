@@ -0,0 +1,114 @@
+package ckollmeier.de.Repository;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks, each key is guarded by the lock of its stripe.
+ */
+final class StripedLock {
+    /**
+     * stripes per available processor, keeps unrelated keys from sharing a lock.
+     */
+    static final int STRIPES_PER_PROCESSOR = 4;
+    /**
+     * rounds of trying all locks without blocking before blocking in stripe order.
+     */
+    private static final int OPTIMISTIC_ROUNDS = 3;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    StripedLock() {
+        this(Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR);
+    }
+
+    StripedLock(final int minimumStripes) {
+        int stripes = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    /**
+     * @return number of stripes, a power of two
+     */
+    int size() {
+        return locks.length;
+    }
+
+    /**
+     * @param key key to guard
+     * @return index of the stripe guarding the key
+     */
+    int stripe(final Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * @param key key to guard
+     * @return the lock guarding the key
+     */
+    ReentrantLock lockFor(final Object key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * @param keys keys to guard
+     * @return distinct indexes of the stripes guarding the keys, ascending
+     */
+    int[] stripes(final Collection<?> keys) {
+        return keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+    }
+
+    /**
+     * Acquires the locks of all stripes.
+     * <p>
+     * The locks are first tried without blocking, on a taken lock everything held is released and tried again,
+     * so no thread waits while holding locks. After a few rounds the locks are taken blocking in ascending stripe
+     * order, which is the same order for every caller and therefore cannot deadlock.
+     *
+     * @param stripes ascending stripe indexes as returned by {@link #stripes(Collection)}
+     * @param metrics receives retries and contended locks
+     */
+    void lockAll(final int[] stripes, final ReservationMetrics metrics) {
+        for (int round = 0; round < OPTIMISTIC_ROUNDS; round++) {
+            int locked = 0;
+            while (locked < stripes.length && locks[stripes[locked]].tryLock()) {
+                locked++;
+            }
+            if (locked == stripes.length) {
+                return;
+            }
+            metrics.recordContendedLock();
+            unlock(stripes, locked);
+            metrics.recordRetry();
+            Thread.onSpinWait();
+        }
+        for (int stripe : stripes) {
+            ReentrantLock lock = locks[stripe];
+            if (!lock.tryLock()) {
+                metrics.recordContendedLock();
+                lock.lock();
+            }
+        }
+    }
+
+    /**
+     * Releases the locks taken by {@link #lockAll(int[], ReservationMetrics)}.
+     *
+     * @param stripes the stripe indexes passed to lockAll
+     */
+    void unlockAll(final int[] stripes) {
+        unlock(stripes, stripes.length);
+    }
+
+    private void unlock(final int[] stripes, final int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+}
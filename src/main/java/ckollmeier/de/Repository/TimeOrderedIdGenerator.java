@@ -0,0 +1,59 @@
+package ckollmeier.de.Repository;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates ids in the layout of version 7 UUIDs without locks: milliseconds since the epoch, then a counter.
+ * <p>
+ * Every thread takes a block of counter values from a shared counter and counts up within the block on its own, so
+ * threads only meet at the shared counter once per block. The counter never repeats, so ids are unique within the
+ * process even if the clock goes back; it starts at a random value and the remaining 12 bits of the
+ * id are random per process, which keeps ids of different processes apart. The ids of one thread always increase,
+ * ids of different threads are ordered by their millisecond.
+ */
+final class TimeOrderedIdGenerator implements IdGenerator {
+    /**
+     * counter values a thread takes at once.
+     */
+    private static final int BLOCK_SIZE = 1 << 10;
+    private static final int TIMESTAMP_SHIFT = 16;
+    private static final long VERSION = 0x7000L;
+    private static final long RANDOM_BITS = 0x0FFFL;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    /**
+     * the 62 bits of the counter below the variant.
+     */
+    private static final long COUNTER_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final long random;
+    private final AtomicLong counter;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Counter values and time of one thread.
+     */
+    private static final class Block {
+        private long next;
+        private long limit;
+        private long lastMillis;
+    }
+
+    TimeOrderedIdGenerator() {
+        SecureRandom secureRandom = new SecureRandom();
+        random = secureRandom.nextLong() & RANDOM_BITS;
+        // the start leaves half of the range, so the counter does not wrap
+        counter = new AtomicLong(secureRandom.nextLong() & (COUNTER_MASK >>> 1));
+    }
+
+    @Override
+    public EntityId next() {
+        Block block = blocks.get();
+        if (block.next == block.limit) {
+            block.next = counter.getAndAdd(BLOCK_SIZE);
+            block.limit = block.next + BLOCK_SIZE;
+        }
+        block.lastMillis = Math.max(block.lastMillis, System.currentTimeMillis());
+        return new EntityId(block.lastMillis << TIMESTAMP_SHIFT | VERSION | random, VARIANT | (block.next++ & COUNTER_MASK));
+    }
+}
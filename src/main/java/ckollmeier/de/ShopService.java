@@ -5,18 +5,28 @@ import ckollmeier.de.Entity.Order;
 import ckollmeier.de.Entity.OrderProduct;
 import ckollmeier.de.Entity.Product;
 import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.SearchOperatorEnum;
 import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Pricing.OrderPricer;
+import ckollmeier.de.Repository.IdGenerator;
 import ckollmeier.de.Repository.OrderRepository;
 import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.ScoredProduct;
+import ckollmeier.de.Repository.StockFilter;
 import ckollmeier.de.Repository.StockRepository;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.checkerframework.checker.index.qual.NonNegative;
 
 import javax.annotation.Nonnegative;
@@ -26,26 +36,188 @@ public class ShopService {
     private final OrderRepository orderRepository;
     private final StockRepository stockRepository;
     private final ProductRepository productRepository;
+    private final OrderPricer orderPricer = new OrderPricer();
+
+    @Getter
+    @Setter
+    private volatile @NonNull ReservationModeEnum reservationMode = ReservationModeEnum.PARTIAL;
+
+    /**
+     * gives orders without id one before their stock is reserved.
+     */
+    @Setter
+    private volatile @NonNull IdGenerator idGenerator = IdGenerator.TIME_ORDERED;
 
     /**
-     * @param order orders to place
-     * @return the placed order
+     * Places an order according to the {@link #getReservationMode() reservation mode}.
+     * <p>
+     * An order without id gets its id before the stock is reserved, so the stock movements are tagged with it.
+     * The reserved lines are priced by their stock articles and the order gets their total.
+     *
+     * @param placedOrder order to place
+     * @return the placed order, empty if the order was rejected for lack of stock
      */
-    public Optional<Order> addOrder(final @NonNull Order order) {
-        List<OrderProduct> productList = new ArrayList<>();
-        for (OrderProduct product : order.products()) {
-            if (stockRepository.isSufficientInStock(product, product.getQuantity(), product.unit())) {
-                productList.add(product);
-                stockRepository.decreaseQuantity(product, product.getQuantity(), product.unit());
-            } else {
-                System.out.println("Not enough stock for product: " + product.name());
+    public Optional<Order> addOrder(final @NonNull Order placedOrder) {
+        Order order = withId(placedOrder);
+        if (reservationMode == ReservationModeEnum.ALL_OR_NOTHING) {
+            return addOrderAllOrNothing(order);
+        }
+        List<OrderProduct> reserved = reserveEach(order.products(), order.id());
+        try {
+            return store(order.withProducts(reserved));
+        } catch (RuntimeException e) {
+            releaseAll(reserved, order.id());
+            throw e;
+        }
+    }
+
+    /**
+     * Places a batch of orders with the same outcome as placing them one after another by {@link #addOrder(Order)}.
+     * <p>
+     * The whole batch is checked before any stock is reserved, then the stock of all orders is reserved in one pass
+     * over the products of the batch, see {@link StockRepository#reserveOrders(List, ReservationModeEnum)}. An
+     * order that cannot be stored gives back its stock and is reported as not placed, the other orders are placed
+     * anyway.
+     *
+     * @param placedOrders orders to place, reserved in iteration order
+     * @return per order in iteration order the placed order or why it was not placed
+     * @throws IllegalArgumentException if a line has no stock article or no valid quantity, nothing is placed then
+     */
+    public List<OrderResult> addOrders(final @NonNull Collection<Order> placedOrders) {
+        List<Order> orders = checkedWithIds(placedOrders);
+        boolean[][] reserved = stockRepository.reserveOrders(orders, reservationMode);
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (reserved[i] == null) {
+                results.add(OrderResult.rejected("Not enough stock for order"));
+                continue;
+            }
+            Order order = orders.get(i);
+            List<OrderProduct> productList = new ArrayList<>(reserved[i].length);
+            for (int line = 0; line < reserved[i].length; line++) {
+                if (reserved[i][line]) {
+                    productList.add(order.products().get(line));
+                }
+            }
+            try {
+                results.add(OrderResult.placed(orderRepository.addOrder(orderPricer.price(order.withProducts(productList))).orElseThrow()));
+            } catch (RuntimeException e) {
+                stockRepository.releaseAll(productList, order.id());
+                results.add(OrderResult.rejected(e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private List<Order> checkedWithIds(final Collection<Order> placedOrders) {
+        List<Order> orders = new ArrayList<>(placedOrders.size());
+        for (Order order : placedOrders) {
+            if (order == null || order.products() == null) {
+                throw new IllegalArgumentException("Order " + orders.size() + " has no products");
+            }
+            for (OrderProduct product : order.products()) {
+                if (product == null || product.getStockArticle() == null || product.getQuantity() == null) {
+                    throw new IllegalArgumentException("Order " + orders.size() + " has a line without stock article or quantity");
+                }
             }
+            orders.add(withId(order));
         }
-        return orderRepository.addOrder(order.withProducts(productList));
+        return orders;
+    }
+
+    private Optional<Order> addOrderAllOrNothing(final Order order) {
+        if (!reserveAll(order.products(), order.id())) {
+            System.out.println("Not enough stock for order");
+            return Optional.empty();
+        }
+        try {
+            return store(order);
+        } catch (RuntimeException e) {
+            releaseAll(order.products(), order.id());
+            throw e;
+        }
+    }
+
+    /**
+     * @param order order to place
+     * @return the order, with a new id if it had none
+     */
+    Order withId(final Order order) {
+        return order.id() == null ? order.withId(idGenerator.nextString()) : order;
+    }
+
+    /**
+     * Reserves each line on its own, the {@link ReservationModeEnum#PARTIAL partial} reservation of an order.
+     *
+     * @param lines   order lines to reserve
+     * @param orderId id of the order
+     * @return the reserved lines, lines without enough stock are left out
+     * @throws IllegalArgumentException if a line has no valid quantity, the lines reserved before it are given back
+     */
+    List<OrderProduct> reserveEach(final List<OrderProduct> lines, final String orderId) {
+        List<OrderProduct> productList = new ArrayList<>(lines.size());
+        try {
+            for (OrderProduct product : lines) {
+                if (stockRepository.reserve(product, product.getQuantity(), product.unit(), orderId).isPresent()) {
+                    productList.add(product);
+                } else {
+                    System.out.println("Not enough stock for product: " + product.name());
+                }
+            }
+        } catch (RuntimeException e) {
+            releaseAll(productList, orderId);
+            throw e;
+        }
+        return productList;
+    }
+
+    /**
+     * @return number of lock stripes of the stock, see {@link StockRepository#getStripeCount()}
+     */
+    int stockStripeCount() {
+        return stockRepository.getStripeCount();
+    }
+
+    /**
+     * @param lines   order lines to reserve together
+     * @param orderId id of the order
+     * @return true if all lines were reserved, false if none was
+     */
+    boolean reserveAll(final List<OrderProduct> lines, final String orderId) {
+        return stockRepository.reserveAll(lines, orderId);
+    }
+
+    /**
+     * @param lines   reserved order lines to give back
+     * @param orderId id of the order
+     */
+    void releaseAll(final List<OrderProduct> lines, final String orderId) {
+        stockRepository.releaseAll(lines, orderId);
+    }
+
+    /**
+     * Prices an order whose lines are reserved and stores it.
+     *
+     * @param order order with id and reserved lines
+     * @return the stored order
+     */
+    Optional<Order> store(final Order order) {
+        return orderRepository.addOrder(orderPricer.price(order));
+    }
+
+    /**
+     * @param orderId id of the order to remove without giving back its stock
+     * @return the removed order, empty if there is no order with the id
+     */
+    Optional<Order> removeStored(final String orderId) {
+        return orderRepository.removeOrderWithId(orderId);
     }
 
     /**
      * Removes an order and restores stock quantities.
+     * <p>
+     * The order is removed before its stock is restored, so removing the same order concurrently restores its stock
+     * only once.
      *
      * @param order the order to remove
      * @return the removed order
@@ -54,12 +226,20 @@ public class ShopService {
         if (order.id() == null) {
             throw new IllegalArgumentException("Order id cannot be null");
         }
-        orderRepository.find(order.id()).orElseThrow(() -> new IllegalArgumentException("Order with id " + order.id() + " not found"));
-        for (OrderProduct product : order.products()) {
-            stockRepository.increaseQuantity(product, product.getQuantity(), product.unit());
+        Order removed = orderRepository.removeOrder(order)
+                .orElseThrow(() -> new IllegalArgumentException("Order with id " + order.id() + " not found"));
+        for (OrderProduct product : removed.products()) {
+            stockRepository.increaseQuantity(product, product.getQuantity(), product.unit(), order.id());
         }
+        return Optional.of(removed);
+    }
 
-        return orderRepository.removeOrder(order);
+    /**
+     * @param orderId id of the order
+     * @return the order, empty if there is no order with the id
+     */
+    public Optional<Order> findOrder(final @NonNull String orderId) {
+        return orderRepository.find(orderId);
     }
 
     /**
@@ -91,6 +271,37 @@ public class ShopService {
         return productRepository.findAll();
     }
 
+    /**
+     * @param productId id of the product
+     * @return the product, empty if there is no product with the id
+     */
+    public Optional<Product> findProduct(final @NonNull String productId) {
+        return productRepository.find(productId);
+    }
+
+    /**
+     * Searches products by the start of their name, ignoring case.
+     *
+     * @param prefix start of the product name
+     * @param limit  maximum number of products to return
+     * @return at most limit matching products, ordered by name
+     */
+    public List<Product> searchProducts(final @NonNull String prefix, final int limit) {
+        return productRepository.searchByName(prefix, limit);
+    }
+
+    /**
+     * Searches products by terms of their description, ranked by relevance.
+     *
+     * @param query    terms to search for
+     * @param operator whether a product must contain all or any of the terms
+     * @param limit    maximum number of products to return
+     * @return at most limit matching products, most relevant first
+     */
+    public List<ScoredProduct> searchProductDescriptions(final @NonNull String query, final @NonNull SearchOperatorEnum operator, final int limit) {
+        return productRepository.searchByDescription(query, operator, limit);
+    }
+
     /**
      * Adds stock to the repository for a given product.
      *
@@ -128,17 +339,40 @@ public class ShopService {
         return stockRepository.decreaseQuantity(product, quantity, unit);
     }
 
+    /**
+     * @param productId id of the product
+     * @return the stock article of the product with its current quantity, empty if the product has no stock
+     */
+    public Optional<StockArticle> findStock(final @NonNull String productId) {
+        return stockRepository.findByProductId(productId);
+    }
+
     /**
      * Retrieves all stock articles from the repository.
+     * <p>
+     * The stock of the products is looked up in parallel on the common {@link java.util.concurrent.ForkJoinPool},
+     * each lookup touching only the partition of its product.
      *
-     * @return a list of all stock articles
+     * @return a list of all stock articles, in the order of the products
      */
     public List<StockArticle> getAllStock() {
-        List<StockArticle> allStock = new ArrayList<>();
-        for (Product product : productRepository.findAll()) {
-            Optional<StockArticle> stockArticle = stockRepository.findByProductId(product.id());
-            stockArticle.ifPresent(allStock::add);
-        }
-        return allStock;
+        return productRepository.findAll().parallelStream()
+                .map(product -> stockRepository.findByProductId(product.id()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Streams the stock straight from the stock repository, e.g. for exports, without collecting it into a list
+     * and without looking up every product, see {@link StockRepository#stream(StockFilter)}.
+     * <p>
+     * Unlike {@link #getAllStock()} the stream is in no particular order and includes stock of products removed from
+     * the catalog. Call {@link java.util.stream.Stream#parallel()} on it to filter and consume it in parallel.
+     *
+     * @param filter conditions the stock articles must meet, {@link StockFilter#ALL} for all
+     * @return stream of the stock articles passing the filter
+     */
+    public Stream<StockArticle> streamStock(final @NonNull StockFilter filter) {
+        return stockRepository.stream(filter);
     }
 }
\ No newline at end of file
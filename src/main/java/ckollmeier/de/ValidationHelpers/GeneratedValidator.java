@@ -0,0 +1,29 @@
+package ckollmeier.de.ValidationHelpers;
+
+/**
+ * Checks the constraints of one type without reflection, generated at compile time by the validator processor.
+ * <p>
+ * Validators are registered as services and picked up by {@link ckollmeier.de.ValidationUtils}.
+ *
+ * @param <T> the validated type
+ */
+public interface GeneratedValidator<T> {
+    /**
+     * @return the validated type
+     */
+    Class<T> type();
+
+    /**
+     * @param object object to check, not null
+     * @return true if no constraint is violated
+     */
+    boolean isValid(T object);
+
+    /**
+     * Only checks that required properties are present, e.g. for copies of already validated objects.
+     *
+     * @param object object to check, not null
+     * @return true if no required property is missing
+     */
+    boolean isStructurallyValid(T object);
+}
@@ -0,0 +1,107 @@
+package ckollmeier.de;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counters and time spent of the validations by {@link ValidationUtils}, per validated type.
+ */
+public final class ValidationMetrics {
+    private final Map<Class<?>, Counters> countersByType = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of one type.
+     *
+     * @param validations     all validations
+     * @param fullValidations validations checking all constraints
+     * @param failures        validations finding a violation
+     * @param nanos           time spent validating
+     */
+    private record Counters(LongAdder validations, LongAdder fullValidations, LongAdder failures, LongAdder nanos) {
+        Counters() {
+            this(new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    private static final Counters NONE = new Counters();
+
+    void record(final Class<?> type, final boolean full, final boolean failed, final long nanos) {
+        Counters counters = countersByType.get(type);
+        if (counters == null) {
+            counters = countersByType.computeIfAbsent(type, key -> new Counters());
+        }
+        counters.validations().increment();
+        if (full) {
+            counters.fullValidations().increment();
+        }
+        if (failed) {
+            counters.failures().increment();
+        }
+        counters.nanos().add(nanos);
+    }
+
+    private Counters counters(final Class<?> type) {
+        return countersByType.getOrDefault(type, NONE);
+    }
+
+    /**
+     * @return all types validated since the last reset
+     */
+    public Set<Class<?>> getTypes() {
+        return Set.copyOf(countersByType.keySet());
+    }
+
+    /**
+     * @param type validated type
+     * @return number of validations of objects of the type
+     */
+    public long getValidations(final Class<?> type) {
+        return counters(type).validations().sum();
+    }
+
+    /**
+     * @param type validated type
+     * @return number of validations checking all constraints, the others only checked the structure
+     */
+    public long getFullValidations(final Class<?> type) {
+        return counters(type).fullValidations().sum();
+    }
+
+    /**
+     * @param type validated type
+     * @return number of validations that found a violation
+     */
+    public long getFailures(final Class<?> type) {
+        return counters(type).failures().sum();
+    }
+
+    /**
+     * @param type validated type
+     * @return time spent validating objects of the type
+     */
+    public Duration getTime(final Class<?> type) {
+        return Duration.ofNanos(counters(type).nanos().sum());
+    }
+
+    /**
+     * Forgets all types and counters.
+     */
+    public void reset() {
+        countersByType.clear();
+    }
+
+    @Override
+    public String toString() {
+        return countersByType.keySet().stream()
+                .map(type -> type.getSimpleName() + "{validations=" + getValidations(type)
+                        + ", full=" + getFullValidations(type)
+                        + ", failures=" + getFailures(type)
+                        + ", time=" + getTime(type) + "}")
+                .sorted()
+                .collect(Collectors.joining(", ", "ValidationMetrics{", "}"));
+    }
+}
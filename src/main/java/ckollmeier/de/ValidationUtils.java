@@ -2,13 +2,21 @@ package ckollmeier.de;
 
 // Utility-Klasse zur zentralen Validierung beliebiger Objekte
 
+import ckollmeier.de.Enum.ValidationPolicyEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
+import ckollmeier.de.ValidationHelpers.GeneratedValidator;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import lombok.NonNull;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 public final class ValidationUtils {
     private ValidationUtils() {
@@ -17,14 +25,149 @@ public final class ValidationUtils {
 
     private static final ValidatorFactory VALIDATOR_FACTORY = Validation.buildDefaultValidatorFactory();
     private static final Validator VALIDATOR = VALIDATOR_FACTORY.getValidator();
+    /**
+     * validators generated by the validator processor, by validated type.
+     */
+    private static final Map<Class<?>, GeneratedValidator<?>> GENERATED_VALIDATORS = loadGeneratedValidators();
+    private static final ValidationMetrics METRICS = new ValidationMetrics();
+    private static final int DEFAULT_SAMPLE_RATE = 100;
+
+    /**
+     * policy by ordinal of the scope, replaced as a whole on change.
+     */
+    private static volatile ValidationPolicyEnum[] policies = {
+            ValidationPolicyEnum.FULL,
+            ValidationPolicyEnum.STRUCTURAL,
+            ValidationPolicyEnum.SAMPLED
+    };
+    private static volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    /**
+     * whether Hibernate Validator finds any constraint on a type without generated validator.
+     */
+    private static final ClassValue<Boolean> CONSTRAINED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return VALIDATOR.getConstraintsForClass(type).isBeanConstrained();
+        }
+    };
+
+    private static Map<Class<?>, GeneratedValidator<?>> loadGeneratedValidators() {
+        Map<Class<?>, GeneratedValidator<?>> validators = new HashMap<>();
+        for (GeneratedValidator<?> validator : ServiceLoader.load(GeneratedValidator.class, ValidationUtils.class.getClassLoader())) {
+            validators.put(validator.type(), validator);
+        }
+        return Map.copyOf(validators);
+    }
+
+    /**
+     * Checks the object with its generated validator, if there is one.
+     *
+     * @param object the object to check
+     * @param full   false to only check the structure
+     * @param <T>    the type of the object
+     * @return true if the object is valid without asking Hibernate Validator
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> boolean isValidWithoutReflection(final T object, final boolean full) {
+        GeneratedValidator<T> validator = (GeneratedValidator<T>) GENERATED_VALIDATORS.get(object.getClass());
+        if (validator == null) {
+            return !CONSTRAINED.get(object.getClass());
+        }
+        return full ? validator.isValid(object) : validator.isStructurallyValid(object);
+    }
+
+    /**
+     * @param scope where objects are validated
+     * @return the policy of the scope
+     */
+    public static ValidationPolicyEnum getPolicy(final @NonNull ValidationScopeEnum scope) {
+        return policies[scope.ordinal()];
+    }
+
+    /**
+     * Sets how much is validated in a scope, by default input is validated fully, internal copies structurally and
+     * bulk imports sampled.
+     *
+     * @param scope  where objects are validated
+     * @param policy how much to validate there
+     */
+    public static synchronized void setPolicy(final @NonNull ValidationScopeEnum scope, final @NonNull ValidationPolicyEnum policy) {
+        ValidationPolicyEnum[] changed = policies.clone();
+        changed[scope.ordinal()] = policy;
+        policies = changed;
+    }
+
+    /**
+     * @return with {@link ValidationPolicyEnum#SAMPLED}, one in this many objects is validated fully
+     */
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param oneIn with {@link ValidationPolicyEnum#SAMPLED}, one in this many objects is validated fully
+     */
+    public static void setSampleRate(final int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        sampleRate = oneIn;
+    }
+
+    /**
+     * @return counters and time spent per validated type
+     */
+    public static ValidationMetrics getMetrics() {
+        return METRICS;
+    }
 
     /**
      * Validiert ein beliebiges Objekt anhand seiner Constraint-Annotations.
+     * <p>
+     * Valid objects of types with a generated validator are checked without reflection, Hibernate Validator only
+     * runs to report the violations of invalid objects. Uses the policy of {@link ValidationScopeEnum#INPUT}.
+     *
      * @param object das zu validierende Objekt
      * @param <T> Class of the object
      * @throws ConstraintViolationException wenn eine oder mehrere Constraints verletzt wurden
      */
     public static <T> void validate(final T object) {
+        validate(object, ValidationScopeEnum.INPUT);
+    }
+
+    /**
+     * Validates the object as much as the policy of the scope demands.
+     * <p>
+     * A structural check only tests that required properties are present. Types without generated validator are
+     * always validated fully.
+     *
+     * @param object the object to validate
+     * @param scope  where the object is validated
+     * @param <T>    the type of the object
+     * @throws ConstraintViolationException if one or more checked constraints are violated
+     */
+    public static <T> void validate(final T object, final @NonNull ValidationScopeEnum scope) {
+        ValidationPolicyEnum policy = policies[scope.ordinal()];
+        boolean full = policy == ValidationPolicyEnum.FULL
+                || policy == ValidationPolicyEnum.SAMPLED && ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+        if (object != null && !GENERATED_VALIDATORS.containsKey(object.getClass())) {
+            full = true;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if (object == null || !isValidWithoutReflection(object, full)) {
+                validateWithHibernate(object);
+            }
+            failed = false;
+        } finally {
+            if (object != null) {
+                METRICS.record(object.getClass(), full, failed, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static <T> void validateWithHibernate(final T object) {
         Set<ConstraintViolation<T>> violations = VALIDATOR.validate(object);
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException("Validation failed", Set.copyOf(violations));
@@ -43,6 +186,20 @@ public final class ValidationUtils {
         validate(object);
         return object;
     }
+
+    /**
+     * Validates the provided object as much as the policy of the scope demands and returns it.
+     *
+     * @param object the object to validate
+     * @param scope  where the object is validated
+     * @param <T>    the type of the object
+     * @return the validated object
+     * @throws ConstraintViolationException if one or more checked constraints are violated
+     */
+    public static <T> T validated(final T object, final @NonNull ValidationScopeEnum scope) {
+        validate(object, scope);
+        return object;
+    }
 }
 
 // Beispielhafte Verwendung:
@@ -0,0 +1,163 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncShopServiceTest {
+    private ShopService shopService;
+    private AsyncShopService asyncShopService;
+    private Product flour;
+    private Product milk;
+
+    @BeforeEach
+    void setUp() {
+        shopService = new ShopService(new OrderRepository(), new StockRepository(), new ProductRepository());
+        asyncShopService = new AsyncShopService(shopService, 4);
+        flour = addProduct("Flour", UnitEnum.KG);
+        do {
+            milk = addProduct("Milk", UnitEnum.L);
+        } while (asyncShopService.shardOf(milk.id()) == asyncShopService.shardOf(flour.id()));
+        shopService.addStock(flour, BigDecimal.TEN, UnitEnum.KG, new BigDecimal("1.30"));
+        shopService.addStock(milk, new BigDecimal("2"), UnitEnum.L, new BigDecimal("0.90"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncShopService.close();
+    }
+
+    private Product addProduct(final String name, final UnitEnum unit) {
+        return shopService.addProduct(ProductBuilder.builder()
+                .name(name)
+                .description(name)
+                .content(BigDecimal.ONE)
+                .unit(unit)
+                .build());
+    }
+
+    private OrderProduct orderLine(final Product product, final String quantity, final UnitEnum unit) {
+        OrderProduct orderProduct = new OrderProduct(shopService.findStock(product.id()).orElseThrow());
+        orderProduct.setQuantity(new BigDecimal(quantity), unit);
+        return orderProduct;
+    }
+
+    private BigDecimal stock(final Product product) {
+        return shopService.findStock(product.id()).map(StockArticle::quantity).orElseThrow();
+    }
+
+    private static <T> T await(final CompletableFuture<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void addOrder_shouldReserveOnEveryShard_whenOrderSpansShards() throws Exception {
+        Order order = new Order(null, List.of(orderLine(flour, "500", UnitEnum.G), orderLine(milk, "3", UnitEnum.L)));
+
+        Optional<Order> placed = await(asyncShopService.addOrder(order));
+
+        assertThat(placed).isPresent();
+        assertThat(placed.get().products()).hasSize(1);
+        assertThat(placed.get().total()).isEqualByComparingTo("0.65");
+        assertThat(stock(flour)).isEqualByComparingTo("9.5");
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void addOrder_shouldGiveBackOtherShards_whenAllOrNothingAndOneShardShort() throws Exception {
+        shopService.setReservationMode(ReservationModeEnum.ALL_OR_NOTHING);
+        Order order = new Order(null, List.of(orderLine(flour, "500", UnitEnum.G), orderLine(milk, "3", UnitEnum.L)));
+
+        Optional<Order> placed = await(asyncShopService.addOrder(order));
+
+        assertThat(placed).isEmpty();
+        assertThat(stock(flour)).isEqualByComparingTo("10");
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void addOrder_shouldGiveBackOtherShards_whenOneShardFails() throws Exception {
+        Order order = new Order(null, List.of(orderLine(flour, "500", UnitEnum.G), orderLine(milk, "0.0001", UnitEnum.L)));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> await(asyncShopService.addOrder(order)));
+
+        assertThat(failure).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(stock(flour)).isEqualByComparingTo("10");
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void addOrder_shouldGiveBackOtherShards_whenAllOrNothingAndOneShardFails() throws Exception {
+        shopService.setReservationMode(ReservationModeEnum.ALL_OR_NOTHING);
+        Order order = new Order(null, List.of(orderLine(flour, "500", UnitEnum.G), orderLine(milk, "0.0001", UnitEnum.L)));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> await(asyncShopService.addOrder(order)));
+
+        assertThat(failure).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(stock(flour)).isEqualByComparingTo("10");
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void removeOrder_shouldGiveBackStockOnlyOnce() throws Exception {
+        Order placed = await(asyncShopService.addOrder(new Order(null, List.of(
+                orderLine(flour, "1", UnitEnum.KG), orderLine(milk, "1", UnitEnum.L))))).orElseThrow();
+
+        await(asyncShopService.removeOrder(placed));
+        ExecutionException secondRemoval = assertThrows(ExecutionException.class, () -> await(asyncShopService.removeOrder(placed)));
+
+        assertThat(secondRemoval).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(stock(flour)).isEqualByComparingTo("10");
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+        assertTrue(shopService.findOrder(placed.id()).isEmpty());
+    }
+
+    @Test
+    void decreaseStock_shouldApplyChangesOfOneProductInSubmissionOrder() throws Exception {
+        List<CompletableFuture<StockArticle>> changes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            changes.add(asyncShopService.increaseStock(milk, BigDecimal.TEN, UnitEnum.L));
+            changes.add(asyncShopService.decreaseStock(milk, BigDecimal.TEN, UnitEnum.L));
+        }
+
+        await(CompletableFuture.allOf(changes.toArray(CompletableFuture[]::new)));
+
+        assertThat(stock(milk)).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void shardCount_shouldKeepOneShardAndNotExceedLockStripes() {
+        int stripes = shopService.stockStripeCount();
+        try (AsyncShopService single = new AsyncShopService(shopService, 1);
+             AsyncShopService oversized = new AsyncShopService(shopService, stripes * 4)) {
+            for (int i = 0; i < 1000; i++) {
+                String productId = "product-" + i;
+                assertThat(single.shardOf(productId)).isZero();
+                int hash = productId.hashCode();
+                assertThat(oversized.shardOf(productId)).isEqualTo((hash ^ (hash >>> 16)) & (stripes - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ckollmeier.de.Enum;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitEnumTest {
+
+    @Test
+    void conversionFactor_shouldConvertWithinFamily() {
+        assertEquals(new BigDecimal("0.001"), UnitEnum.KG.conversionFactor(UnitEnum.G));
+        assertEquals(new BigDecimal("1000"), UnitEnum.G.conversionFactor(UnitEnum.KG));
+        assertEquals(BigDecimal.TEN, UnitEnum.CL.conversionFactor(UnitEnum.DL));
+        assertEquals(BigDecimal.ONE, UnitEnum.PCS.conversionFactor(UnitEnum.PCS));
+    }
+
+    @Test
+    void conversionFactor_shouldThrowException_whenUnitsNotConvertible() {
+        assertThrows(IllegalArgumentException.class, () -> UnitEnum.KG.conversionFactor(UnitEnum.L));
+        assertThrows(IllegalArgumentException.class, () -> UnitEnum.PCS.conversionFactor(UnitEnum.G));
+        assertThrows(IllegalArgumentException.class, () -> UnitEnum.KG.conversionFactor(null));
+    }
+
+    @Test
+    void isConvertibleTo_shouldCompareFamilies() {
+        assertTrue(UnitEnum.MG.isConvertibleTo(UnitEnum.T));
+        assertTrue(UnitEnum.M3.isConvertibleTo(UnitEnum.ML));
+        assertFalse(UnitEnum.L.isConvertibleTo(UnitEnum.KG));
+        assertFalse(UnitEnum.L.isConvertibleTo(null));
+    }
+
+    @Test
+    void conversionFactorAsDouble_shouldMatchConversionFactor() {
+        for (UnitEnum from : UnitEnum.values()) {
+            for (UnitEnum to : UnitEnum.values()) {
+                if (from.isConvertibleTo(to)) {
+                    assertEquals(from.conversionFactor(to).doubleValue(), from.conversionFactorAsDouble(to));
+                } else {
+                    assertThrows(IllegalArgumentException.class, () -> from.conversionFactorAsDouble(to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void conversionFactorAsLong_shouldReturnWholeFactors() {
+        assertEquals(1000L, UnitEnum.G.conversionFactorAsLong(UnitEnum.KG));
+        assertEquals(1_000_000_000L, UnitEnum.MG.conversionFactorAsLong(UnitEnum.T));
+        assertEquals(1L, UnitEnum.L.conversionFactorAsLong(UnitEnum.L));
+    }
+
+    @Test
+    void conversionFactorAsLong_shouldThrowException_whenFactorIsFractionalOrNotConvertible() {
+        assertThrows(IllegalArgumentException.class, () -> UnitEnum.KG.conversionFactorAsLong(UnitEnum.G));
+        assertThrows(IllegalArgumentException.class, () -> UnitEnum.KG.conversionFactorAsLong(UnitEnum.L));
+    }
+}
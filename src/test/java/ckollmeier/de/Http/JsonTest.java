@@ -0,0 +1,83 @@
+package ckollmeier.de.Http;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void parse_shouldReadNestedValuesWithExactNumbers() {
+        Map<String, Object> object = Json.parseObject(
+                " {\"name\": \"Milk \\\"fresh\\\" \\u00e4\", \"price\": 1.290, \"lines\": [{\"quantity\": 1e3}, true, null]} ");
+
+        assertEquals("Milk \"fresh\" \u00e4", object.get("name"));
+        assertEquals(new BigDecimal("1.290"), object.get("price"));
+        List<?> lines = (List<?>) object.get("lines");
+        assertThat(((Map<?, ?>) lines.get(0)).get("quantity")).isEqualTo(new BigDecimal("1e3"));
+        assertEquals(Boolean.TRUE, lines.get(1));
+        assertNull(lines.get(2));
+    }
+
+    @Test
+    void parse_shouldRejectInvalidJson() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"name\": }"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"name\": \"open"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2] 3"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1, 2]"));
+    }
+
+    @Test
+    void parse_shouldOnlyAcceptPairedSurrogateEscapes() {
+        assertEquals("\ud83e\uddc0", Json.parse("\"\\ud83e\\uddc0\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"bad\\ud800name\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"bad\\udc00name\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"bad\\ud800\\u0041\""));
+    }
+
+    @Test
+    void parse_shouldRejectNumbersWithTooManyDigits() {
+        assertEquals(new BigDecimal("1E+64"), Json.parse("1e64"));
+        assertEquals(new BigDecimal("1E-64"), Json.parse("1e-64"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("1e999999999"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("1e2147483648"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("1e-65"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("1" + "0".repeat(Json.MAX_DIGITS)));
+    }
+
+    @Test
+    void parse_shouldOnlyAcceptAsciiHexInUnicodeEscapes() {
+        assertEquals("A", Json.parse("\"\\u0041\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"\\u+041\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"\\u-041\""));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"\\u\uff10041\""));
+    }
+
+    @Test
+    void parse_shouldRejectJsonNestedTooDeeply() {
+        String deepest = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+        assertThat(Json.parse(deepest)).isInstanceOf(List.class);
+        assertThrows(IllegalArgumentException.class,
+                () -> Json.parse("{\"a\": " + "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH) + "}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(100_000)));
+    }
+
+    @Test
+    void writer_shouldSeparateAndEscapeValues() {
+        String json = new JsonWriter().beginObject()
+                .name("name").value("Milk \"fresh\"\n")
+                .name("price").value(new BigDecimal("1E+3"))
+                .name("lines").beginArray().beginObject().endObject().value((String) null).endArray()
+                .endObject().toString();
+
+        assertEquals("{\"name\":\"Milk \\\"fresh\\\"\\n\",\"price\":1000,\"lines\":[{},null]}", json);
+        assertEquals("Milk \"fresh\"\n", Json.parseObject(json).get("name"));
+    }
+}
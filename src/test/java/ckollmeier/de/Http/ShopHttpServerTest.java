@@ -0,0 +1,150 @@
+package ckollmeier.de.Http;
+
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import ckollmeier.de.ShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShopHttpServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ShopHttpServer server;
+    private URI base;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ShopService shopService = new ShopService(new OrderRepository(), new StockRepository(), new ProductRepository());
+        server = ShopHttpServer.start(shopService, new InetSocketAddress("127.0.0.1", 0));
+        base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> send(final String method, final String path, final String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path)).method(method, publisher).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String addFlourWithStock() throws Exception {
+        HttpResponse<String> product = send("POST", "/products",
+                "{\"name\": \"Flour\", \"description\": \"Wheat flour\", \"content\": 1, \"unit\": \"KG\"}");
+        assertEquals(201, product.statusCode());
+        String productId = (String) Json.parseObject(product.body()).get("id");
+        HttpResponse<String> stock = send("POST", "/stock",
+                "{\"productId\": \"" + productId + "\", \"quantity\": 10, \"unit\": \"kg\", \"price\": 1.30}");
+        assertEquals(201, stock.statusCode());
+        return productId;
+    }
+
+    @Test
+    void products_shouldBeAddedFoundAndSearched() throws Exception {
+        String productId = addFlourWithStock();
+
+        HttpResponse<String> found = send("GET", "/products/" + productId, null);
+        HttpResponse<String> byPrefix = send("GET", "/products?prefix=fl&limit=5", null);
+        HttpResponse<String> byDescription = send("GET", "/products?query=wheat", null);
+
+        assertEquals(200, found.statusCode());
+        assertEquals("Flour", Json.parseObject(found.body()).get("name"));
+        assertThat(found.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("application/json"));
+        assertThat((List<?>) Json.parse(byPrefix.body())).hasSize(1);
+        assertThat(((Map<?, ?>) ((List<?>) Json.parse(byDescription.body())).get(0)).containsKey("score")).isTrue();
+    }
+
+    @Test
+    void orders_shouldBePricedFoundAndRemoved() throws Exception {
+        String productId = addFlourWithStock();
+
+        HttpResponse<String> placed = send("POST", "/orders",
+                "{\"lines\": [{\"productId\": \"" + productId + "\", \"quantity\": 500, \"unit\": \"g\"}]}");
+        Map<String, Object> order = Json.parseObject(placed.body());
+        String orderId = (String) order.get("id");
+        HttpResponse<String> found = send("GET", "/orders/" + orderId, null);
+        HttpResponse<String> removed = send("DELETE", "/orders/" + orderId, null);
+        HttpResponse<String> stock = send("GET", "/stock/" + productId, null);
+
+        assertEquals(201, placed.statusCode());
+        assertThat((BigDecimal) order.get("total")).isEqualByComparingTo("0.65");
+        assertEquals(200, found.statusCode());
+        assertEquals(200, removed.statusCode());
+        assertEquals(404, send("GET", "/orders/" + orderId, null).statusCode());
+        assertThat((BigDecimal) Json.parseObject(stock.body()).get("quantity")).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void orders_shouldDropLinesWithoutEnoughStock() throws Exception {
+        String productId = addFlourWithStock();
+
+        HttpResponse<String> placed = send("POST", "/orders",
+                "{\"lines\": [{\"productId\": \"" + productId + "\", \"quantity\": 11}]}");
+
+        assertEquals(201, placed.statusCode());
+        assertThat((List<?>) Json.parseObject(placed.body()).get("lines")).isEmpty();
+    }
+
+    @Test
+    void errors_shouldBeAnsweredWithStatusAndMessage() throws Exception {
+        HttpResponse<String> malformed = send("POST", "/products", "{\"name\": ");
+        HttpResponse<String> missingField = send("POST", "/products", "{\"name\": \"Flour\"}");
+        HttpResponse<String> unknownProduct = send("GET", "/products/unknown", null);
+        HttpResponse<String> unknownPath = send("GET", "/products/unknown/lines", null);
+        HttpResponse<String> wrongMethod = send("PUT", "/orders", "{}");
+
+        assertEquals(400, malformed.statusCode());
+        assertThat(Json.parseObject(malformed.body())).containsKey("error");
+        assertEquals(400, missingField.statusCode());
+        assertEquals(404, unknownProduct.statusCode());
+        assertEquals(404, unknownPath.statusCode());
+        assertEquals(405, wrongMethod.statusCode());
+    }
+
+    @Test
+    void oversizedOrDeeplyNestedBodies_shouldBeRejected() throws Exception {
+        HttpResponse<String> oversized = send("POST", "/products",
+                "{\"name\": \"" + "x".repeat(ShopHttpServer.MAX_BODY_BYTES) + "\"}");
+        HttpResponse<String> deeplyNested = send("POST", "/orders",
+                "{\"lines\": " + "[".repeat(100_000) + "]".repeat(100_000) + "}");
+
+        assertEquals(400, oversized.statusCode());
+        assertThat(Json.parseObject(oversized.body()).get("error").toString()).contains("larger than");
+        assertEquals(400, deeplyNested.statusCode());
+        assertThat(Json.parseObject(deeplyNested.body()).get("error").toString()).contains("nested deeper");
+    }
+
+    @Test
+    void unexpectedFailures_shouldBeAnsweredWithoutDetails() throws Exception {
+        ShopService failing = mock(ShopService.class);
+        when(failing.findProduct("flour")).thenThrow(new NullPointerException("secret detail"));
+        try (ShopHttpServer failingServer = ShopHttpServer.start(failing, new InetSocketAddress("127.0.0.1", 0))) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + failingServer.getAddress().getPort() + "/products/flour")).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(500, response.statusCode());
+            assertThat(response.body()).doesNotContain("secret").doesNotContain("NullPointerException");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ckollmeier.de.Import;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImporterTest {
+
+    private ProductRepository productRepository;
+    private StockRepository stockRepository;
+    private CatalogImporter importer;
+
+    @BeforeEach
+    void init() {
+        productRepository = new ProductRepository();
+        stockRepository = new StockRepository();
+        importer = new CatalogImporter(productRepository, stockRepository, ForkJoinPool.commonPool(), 2, 2);
+    }
+
+    private ImportResult importProducts(final String... rows) throws IOException {
+        return importer.importProducts(new StringReader(CatalogImporter.PRODUCT_HEADER + "\n" + String.join("\n", rows)));
+    }
+
+    @Test
+    void importProducts_shouldAddAllRowsInFileOrder() throws IOException {
+        ImportResult result = importProducts(
+                "p-1,Milk,Fresh milk,1,L",
+                ",\"Cheese, aged\",\"The \"\"good\"\" one\",0.5,kg",
+                "p-3,Eggs,,10,PCS");
+
+        assertEquals(3, result.rows());
+        assertThat(result.errors()).isEmpty();
+        assertEquals(3, result.imported());
+        assertThat(result.errors()).isEmpty();
+        List<Product> products = productRepository.findAll();
+        assertThat(products).extracting(Product::name).containsExactly("Milk", "Cheese, aged", "Eggs");
+        assertEquals("The \"good\" one", products.get(1).description());
+        assertEquals(UnitEnum.KG, products.get(1).unit());
+        assertNotNull(products.get(1).id());
+    }
+
+    @Test
+    void importProducts_shouldReportFailedRowsAndContinue() throws IOException {
+        ImportResult result = importProducts(
+                "p-1,Milk,Fresh milk,1,L",
+                "p-2,Butter,,one,KG",
+                "",
+                "p-3,Eggs,,10,BOX",
+                "p-4,Bread,,1",
+                "p-1,Milk again,,1,L",
+                "p-6,Flour,,1,KG");
+
+        assertEquals(6, result.rows());
+        assertEquals(2, result.imported());
+        assertThat(result.errors()).containsExactly(
+                new ImportError(3, "Invalid content: one"),
+                new ImportError(5, "Unknown unit: BOX"),
+                new ImportError(6, "Expected 5 columns but found 4"),
+                new ImportError(7, "Product with id p-1 already exists"));
+        assertThat(productRepository.findAll()).extracting(Product::id).containsExactly("p-1", "p-6");
+    }
+
+    @Test
+    void importStock_shouldAddStockOfKnownProducts() throws IOException {
+        importProducts("p-1,Milk,Fresh milk,1,L", "p-2,Eggs,,10,PCS", "p-3,Flour,,1,KG");
+
+        ImportResult result = importer.importStock(new StringReader(CatalogImporter.STOCK_HEADER + "\n"
+                + "p-1,12.5,L,1.29\n"
+                + "p-9,1,PCS,1\n"
+                + "p-2,-1,PCS,0.25\n"
+                + "p-3,2,KG,0.99\n"
+                + "p-1,1,L,1.29\n"));
+
+        assertEquals(5, result.rows());
+        assertEquals(2, result.imported());
+        assertThat(result.errors()).containsExactly(
+                new ImportError(3, "Product with id p-9 not found"),
+                new ImportError(4, "Quantity must be non-negative"),
+                new ImportError(6, "StockArticle for product with id p-1 already exists"));
+        StockArticle milk = stockRepository.findByProductId("p-1").orElseThrow();
+        assertEquals(new BigDecimal("12.5"), milk.quantity());
+        assertNotNull(milk.id());
+        assertThat(stockRepository.findByProductId("p-2")).isEmpty();
+    }
+
+    @Test
+    void importProducts_shouldThrowExceptionWhenHeaderDoesNotMatch() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> importer.importProducts(new StringReader("name,unit\nMilk,L\n")));
+        assertEquals("Expected header " + CatalogImporter.PRODUCT_HEADER, e.getMessage());
+    }
+
+    @Test
+    void importProducts_shouldMeasureThroughput() throws IOException {
+        ImportResult result = importProducts("p-1,Milk,Fresh milk,1,L");
+
+        assertThat(result.duration()).isPositive();
+        assertThat(result.rowsPerSecond()).isPositive();
+    }
+}
@@ -0,0 +1,219 @@
+package ckollmeier.de.Ledger;
+
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Enum.StockMovementTypeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StockLedgerTest {
+    private static final Instant DAY_1 = Instant.parse("2025-03-01T10:00:00Z");
+    private static final Instant DAY_2 = Instant.parse("2025-03-02T10:00:00Z");
+
+    private MovableClock clock;
+    private StockLedger ledger;
+    private StockRepository stockRepository;
+    private StockArticle flour;
+    private StockArticle milk;
+
+    /**
+     * Clock whose time is set by the test.
+     */
+    private static final class MovableClock extends Clock {
+        private volatile Instant now = DAY_1;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new MovableClock();
+        ledger = new StockLedger(clock);
+        stockRepository = new StockRepository(ledger);
+        flour = stockArticle("flour", new BigDecimal("10"), UnitEnum.KG);
+        milk = stockArticle("milk", new BigDecimal("5"), UnitEnum.L);
+        stockRepository.addProduct(flour);
+        stockRepository.addProduct(milk);
+    }
+
+    private static StockArticle stockArticle(final String productId, final BigDecimal quantity, final UnitEnum unit) {
+        Product product = new Product(productId, productId, BigDecimal.ONE, unit, productId);
+        return new StockArticle("stock-" + productId, product, quantity, unit, BigDecimal.ONE);
+    }
+
+    private static OrderProduct line(final StockArticle stockArticle, final String quantity) {
+        OrderProduct line = new OrderProduct(stockArticle);
+        line.setQuantity(new BigDecimal(quantity));
+        return line;
+    }
+
+    @Test
+    void addedStock_shouldBeRecordedAsMovements() {
+        List<StockMovement> history = ledger.history("flour");
+
+        assertThat(history).hasSize(1);
+        assertThat(history.get(0).sequence()).isEqualTo(1);
+        assertThat(history.get(0).type()).isEqualTo(StockMovementTypeEnum.ADDED);
+        assertThat(history.get(0).baseUnits()).isEqualTo(10_000_000L);
+        assertThat(history.get(0).unit()).isEqualTo(UnitEnum.KG);
+        assertThat(history.get(0).orderId()).isNull();
+        assertThat(history.get(0).time()).isEqualTo(DAY_1);
+        assertThat(ledger.lastSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void changes_shouldBeRecordedWithTheirOrderId() {
+        stockRepository.reserve(flour, new BigDecimal("2"), UnitEnum.KG, "order-1");
+        stockRepository.reserveAll(List.of(line(flour, "1"), line(milk, "0.5")), "order-2");
+        stockRepository.increaseQuantity(flour, new BigDecimal("500"), UnitEnum.G);
+
+        assertThat(ledger.history("flour")).extracting(StockMovement::type).containsExactly(
+                StockMovementTypeEnum.ADDED, StockMovementTypeEnum.DECREASED, StockMovementTypeEnum.DECREASED,
+                StockMovementTypeEnum.INCREASED);
+        assertThat(ledger.history("flour").get(3).orderId()).isNull();
+        assertThat(ledger.forOrder("order-1")).singleElement().satisfies(movement -> {
+            assertThat(movement.productId()).isEqualTo("flour");
+            assertThat(movement.baseUnits()).isEqualTo(2_000_000L);
+        });
+        assertThat(ledger.forOrder("order-2")).extracting(StockMovement::productId).containsExactlyInAnyOrder("flour", "milk");
+        assertThat(ledger.forOrder("unknown")).isEmpty();
+    }
+
+    @Test
+    void rejectedReservation_shouldNotBeRecorded() {
+        stockRepository.reserveAll(List.of(line(flour, "1"), line(milk, "6")), "order-1");
+
+        assertThat(ledger.forOrder("order-1")).isEmpty();
+        assertThat(ledger.lastSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void since_shouldReturnMovementsAfterSequence() {
+        stockRepository.reserve(milk, BigDecimal.ONE, UnitEnum.L, "order-1");
+
+        assertThat(ledger.since(2)).extracting(StockMovement::sequence).containsExactly(3L);
+        assertThat(ledger.since(0)).hasSize(3);
+        assertThat(ledger.since(3)).isEmpty();
+    }
+
+    @Test
+    void stockLevelView_shouldMatchRepository() {
+        StockLevelView levels = ledger.subscribe(new StockLevelView());
+        stockRepository.reserve(flour, new BigDecimal("2"), UnitEnum.KG, "order-1");
+        stockRepository.decreaseQuantity(milk, new BigDecimal("1"), UnitEnum.L);
+        stockRepository.releaseAll(List.of(line(flour, "2")), "order-1");
+
+        assertThat(levels.level("flour")).isEqualTo(10_000_000L);
+        assertThat(levels.level("milk")).isEqualTo(4_000L);
+        assertThat(levels.level("unknown")).isZero();
+        assertThat(levels.levels()).containsOnlyKeys("flour", "milk");
+    }
+
+    @Test
+    void subscribe_shouldRebuildViewFromHistory() {
+        stockRepository.reserve(flour, new BigDecimal("2"), UnitEnum.KG, "order-1");
+        stockRepository.addProduct(stockArticle("sugar", new BigDecimal("3"), UnitEnum.KG));
+
+        UnitTotalsView totals = ledger.subscribe(new UnitTotalsView());
+        stockRepository.increaseQuantity(milk, new BigDecimal("1"), UnitEnum.L);
+
+        assertThat(totals.total(UnitEnum.KG)).isEqualTo(11_000_000L);
+        assertThat(totals.total(UnitEnum.L)).isEqualTo(6_000L);
+        assertThat(totals.totals()).containsOnlyKeys(UnitEnum.KG, UnitEnum.L);
+    }
+
+    @Test
+    void unsubscribe_shouldStopUpdatingView() {
+        StockLevelView levels = ledger.subscribe(new StockLevelView());
+        ledger.unsubscribe(levels);
+        stockRepository.reserve(flour, new BigDecimal("2"), UnitEnum.KG, "order-1");
+
+        assertThat(levels.level("flour")).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void dailyConsumptionView_shouldCountOrdersPerDay() {
+        DailyConsumptionView consumption = ledger.subscribe(new DailyConsumptionView(ZoneOffset.UTC));
+        stockRepository.reserve(flour, new BigDecimal("2"), UnitEnum.KG, "order-1");
+        stockRepository.decreaseQuantity(flour, new BigDecimal("1"), UnitEnum.KG);
+        clock.now = DAY_2;
+        stockRepository.reserve(flour, new BigDecimal("3"), UnitEnum.KG, "order-2");
+        stockRepository.releaseAll(List.of(line(flour, "1")), "order-2");
+        stockRepository.reserve(milk, new BigDecimal("1"), UnitEnum.L, "order-3");
+
+        LocalDate day1 = LocalDate.of(2025, 3, 1);
+        LocalDate day2 = LocalDate.of(2025, 3, 2);
+        assertThat(consumption.consumption(day1, "flour")).isEqualTo(2_000_000L);
+        assertThat(consumption.consumption(day2)).isEqualTo(Map.of("flour", 2_000_000L, "milk", 1_000L));
+        assertThat(consumption.consumption(day1, day2)).containsOnlyKeys(day1, day2);
+        assertThat(consumption.consumption(day2.plusDays(1), "flour")).isZero();
+    }
+
+    @Test
+    void retainedMovements_shouldBoundHistoryButNotViews() {
+        ledger = new StockLedger(clock, 3);
+        StockLevelView levels = ledger.subscribe(new StockLevelView());
+        stockRepository = new StockRepository(ledger);
+        stockRepository.addProduct(flour);
+        stockRepository.addProduct(milk);
+        stockRepository.reserveAll(List.of(line(flour, "1")), "order-1");
+        stockRepository.reserveAll(List.of(line(flour, "2")), "order-2");
+
+        assertThat(ledger.lastSequence()).isEqualTo(4);
+        assertThat(ledger.since(0)).extracting(StockMovement::sequence).containsExactly(2L, 3L, 4L);
+        assertThat(ledger.history("flour")).extracting(StockMovement::sequence).containsExactly(3L, 4L);
+        assertThat(ledger.forOrder("order-2")).extracting(StockMovement::sequence).containsExactly(4L);
+        assertThat(levels.level("flour")).isEqualTo(7_000_000L);
+        assertThatThrownBy(() -> ledger.subscribe(new StockLevelView())).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void concurrentReservations_shouldKeepViewsConsistent() throws InterruptedException {
+        StockLevelView levels = ledger.subscribe(new StockLevelView());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1_000; i++) {
+            String orderId = "order-" + i;
+            StockArticle stockArticle = i % 2 == 0 ? flour : milk;
+            executor.execute(() -> stockRepository.reserve(stockArticle, new BigDecimal("0.001"), stockArticle.unit(), orderId));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ledger.lastSequence()).isEqualTo(1_002);
+        assertThat(ledger.since(0)).extracting(StockMovement::sequence).isSorted();
+        assertThat(levels.level("flour")).isEqualTo(9_500_000L);
+        assertThat(levels.level("milk")).isEqualTo(4_500L);
+    }
+}
@@ -0,0 +1,166 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCodecTest {
+
+    private static final Product MILK = new Product(UUID.randomUUID().toString(), "Milk", new BigDecimal("1.5"),
+            UnitEnum.L, "Fresh milk");
+    private static final StockArticle MILK_STOCK = new StockArticle(UUID.randomUUID().toString(), MILK,
+            new BigDecimal("120.250"), UnitEnum.L, new BigDecimal("1.29"));
+
+    private static ByteBuffer encode(final Order order, final ByteBuffer buffer) {
+        EntityCodec.putOrder(buffer, order);
+        assertEquals(EntityCodec.sizeOf(order), buffer.position());
+        return buffer.flip();
+    }
+
+    private static Order order(final String id) {
+        OrderProduct line = new OrderProduct(UUID.randomUUID().toString(), MILK_STOCK, new BigDecimal("2"),
+                new BigDecimal("2.58"));
+        return new Order(id, List.of(line, new OrderProduct(MILK_STOCK)));
+    }
+
+    private static void assertOrderEquals(final Order expected, final Order actual) {
+        assertEquals(expected.id(), actual.id());
+        assertEquals(expected.products().size(), actual.products().size());
+        for (int i = 0; i < expected.products().size(); i++) {
+            OrderProduct expectedLine = expected.products().get(i);
+            OrderProduct actualLine = actual.products().get(i);
+            assertEquals(expectedLine.id(), actualLine.id());
+            assertEquals(expectedLine.getStockArticle(), actualLine.getStockArticle());
+            assertEquals(expectedLine.getQuantity(), actualLine.getQuantity());
+            assertEquals(expectedLine.getPriceSubTotal(), actualLine.getPriceSubTotal());
+        }
+    }
+
+    @Test
+    void product_shouldRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(MILK));
+        EntityCodec.putProduct(buffer, MILK);
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(MILK, EntityCodec.getProduct(buffer.flip()));
+    }
+
+    @Test
+    void product_shouldStoreUuidAsTwoLongs() {
+        int uuidSize = EntityCodec.sizeOf(MILK);
+        int stringSize = EntityCodec.sizeOf(MILK.withId(MILK.id().toUpperCase()));
+
+        assertEquals(UUID.randomUUID().toString().length() + 1 - 2 * Long.BYTES, stringSize - uuidSize);
+    }
+
+    @Test
+    void product_shouldRoundTripNullsAndOtherIds() {
+        Product product = new Product("product-1", null, null, null, "Käse 🧀 vom Hof");
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(product));
+        EntityCodec.putProduct(buffer, product);
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(product, EntityCodec.getProduct(buffer.flip()));
+    }
+
+    @Test
+    void product_shouldEncodeUnpairedSurrogatesLikeTheUtf8Encoder() {
+        Product product = new Product("product-1", "bad\ud800name", null, null, "K\u00e4se \udc00");
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(product));
+        EntityCodec.putProduct(buffer, product);
+
+        assertFalse(buffer.hasRemaining());
+        Product decoded = EntityCodec.getProduct(buffer.flip());
+        assertEquals("bad?name", decoded.name());
+        assertEquals("K\u00e4se ?", decoded.description());
+    }
+
+    @Test
+    void product_shouldOnlyStoreAsciiHexIdsAsUuid() {
+        Product product = MILK.withId("\u0660\u0660\u0660\u0660\u0660\u0660\u0660\u0660-0000-0000-0000-000000000000");
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(product));
+        EntityCodec.putProduct(buffer, product);
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(product, EntityCodec.getProduct(buffer.flip()));
+    }
+
+    @Test
+    void stockArticle_shouldRoundTripLargeAndNegativeScaledDecimals() {
+        StockArticle stockArticle = MILK_STOCK
+                .withQuantity(new BigDecimal("123456789012345678901234567890.123456789"))
+                .withPrice(new BigDecimal("-4E+3"));
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(stockArticle));
+        EntityCodec.putStockArticle(buffer, stockArticle);
+
+        assertFalse(buffer.hasRemaining());
+        StockArticle decoded = EntityCodec.getStockArticle(buffer.flip());
+        assertEquals(stockArticle, decoded);
+        assertEquals(-3, decoded.price().scale());
+    }
+
+    @Test
+    void orderProduct_shouldRoundTrip() {
+        OrderProduct line = new OrderProduct("line-1", MILK_STOCK, new BigDecimal("0.5"), null);
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(line));
+        EntityCodec.putOrderProduct(buffer, line);
+
+        OrderProduct decoded = EntityCodec.getOrderProduct(buffer.flip());
+        assertEquals("line-1", decoded.id());
+        assertEquals(MILK_STOCK, decoded.getStockArticle());
+        assertEquals(new BigDecimal("0.5"), decoded.getQuantity());
+        assertNull(decoded.getPriceSubTotal());
+    }
+
+    @Test
+    void order_shouldRoundTripThroughHeapBuffer() {
+        Order order = order(UUID.randomUUID().toString());
+
+        assertOrderEquals(order, EntityCodec.getOrder(encode(order, ByteBuffer.allocate(EntityCodec.sizeOf(order)))));
+    }
+
+    @Test
+    void order_shouldRoundTripThroughDirectBufferAtOffset() {
+        Order order = order("order-1");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(EntityCodec.sizeOf(order) + 8).position(8).slice();
+
+        assertOrderEquals(order, EntityCodec.getOrder(encode(order, buffer)));
+    }
+
+    @Test
+    void order_shouldRestoreTotalFromSubtotals() {
+        OrderProduct second = new OrderProduct("line-2", MILK_STOCK, new BigDecimal("0.5"), new BigDecimal("0.645"));
+        Order order = new Order("order-1", List.of(order("order-1").products().get(0), second), new BigDecimal("3.225"));
+
+        Order decoded = EntityCodec.getOrder(encode(order, ByteBuffer.allocate(EntityCodec.sizeOf(order))));
+
+        assertEquals(new BigDecimal("3.225"), decoded.total());
+        assertNull(EntityCodec.getOrder(encode(order("order-2"), ByteBuffer.allocate(256))).total());
+    }
+
+    @Test
+    void order_shouldRoundTripMany() {
+        Order first = order(null);
+        Order second = new Order("order-2", null);
+        ByteBuffer buffer = ByteBuffer.allocate(EntityCodec.sizeOf(first) + EntityCodec.sizeOf(second));
+        EntityCodec.putOrder(buffer, first);
+        EntityCodec.putOrder(buffer, second);
+        buffer.flip();
+
+        assertOrderEquals(first, EntityCodec.getOrder(buffer));
+        Order decoded = EntityCodec.getOrder(buffer);
+        assertEquals("order-2", decoded.id());
+        assertNull(decoded.products());
+        assertFalse(buffer.hasRemaining());
+    }
+}
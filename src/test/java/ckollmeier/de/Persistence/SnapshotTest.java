@@ -0,0 +1,155 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderBuilder;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private Path directory;
+    private Path snapshotFile;
+    private Path logFile;
+    private ProductRepository productRepository;
+    private StockRepository stockRepository;
+    private OrderRepository orderRepository;
+    private StockArticle milk;
+
+    @BeforeEach
+    void init() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        snapshotFile = directory.resolve("shop.snapshot");
+        logFile = directory.resolve("shop.wal");
+        productRepository = new ProductRepository();
+        stockRepository = new StockRepository();
+        orderRepository = new OrderRepository();
+        milk = addMilk(productRepository, stockRepository);
+        OrderProduct line = new OrderProduct(milk);
+        line.setQuantity(new BigDecimal("2"));
+        orderRepository.addOrder(OrderBuilder.builder().id("order-1").products(List.of(line)).build());
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static StockArticle addMilk(final ProductRepository products, final StockRepository stock) {
+        Product product = products.addProduct(ProductBuilder.builder()
+                .name("Milk").description("Fresh milk").content(BigDecimal.ONE).unit(UnitEnum.L).build());
+        return stock.addProduct(product, new BigDecimal("10"), UnitEnum.L, new BigDecimal("1.29"));
+    }
+
+    @Test
+    void open_shouldReadRecordsLazily() throws IOException {
+        long id = Snapshot.write(snapshotFile, productRepository, stockRepository, orderRepository);
+
+        Snapshot snapshot = Snapshot.open(snapshotFile);
+
+        assertEquals(id, snapshot.getId());
+        assertEquals(1, snapshot.getProductCount());
+        assertEquals(1, snapshot.getStockCount());
+        assertEquals(1, snapshot.getOrderCount());
+        assertEquals(milk.product(), snapshot.product(0));
+        assertEquals(milk, snapshot.stockArticle(0));
+        Order order = snapshot.order(0);
+        assertEquals("order-1", order.id());
+        assertEquals(milk, order.products().get(0).getStockArticle());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.order(1));
+    }
+
+    @Test
+    void loadInto_shouldRestoreAllRepositories() throws IOException {
+        Snapshot.write(snapshotFile, productRepository, stockRepository, orderRepository);
+        ProductRepository products = new ProductRepository();
+        StockRepository stock = new StockRepository();
+        OrderRepository orders = new OrderRepository();
+
+        Snapshot.open(snapshotFile).loadInto(products, stock, orders);
+
+        assertEquals(productRepository.findAll(), products.findAll());
+        assertThat(stock.findByProductId(milk.productId())).contains(milk);
+        assertThat(orders.find("order-1")).isPresent();
+    }
+
+    @Test
+    void open_shouldThrowExceptionWhenFileIsNoSnapshot() throws IOException {
+        Files.write(snapshotFile, new byte[128]);
+        Exception e = assertThrows(IOException.class, () -> Snapshot.open(snapshotFile));
+        assertEquals("Not a snapshot", e.getMessage());
+    }
+
+    @Test
+    void recover_shouldReplayOnlyRecordsAfterCheckpoint() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            ProductRepository products = new ProductRepository(log);
+            StockRepository stock = new StockRepository(log);
+            OrderRepository orders = new OrderRepository(log);
+            StockArticle logged = addMilk(products, stock);
+            log.checkpoint(snapshotFile, products, stock, orders);
+            stock.increaseQuantity(logged, BigDecimal.ONE, UnitEnum.L);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            StockRepository stock = new StockRepository(log);
+            assertEquals(1, log.recover(Snapshot.open(snapshotFile),
+                    new ProductRepository(log), stock, new OrderRepository(log)));
+            assertEquals(0, new BigDecimal("11").compareTo(stock.findAll().get(0).quantity()));
+        }
+    }
+
+    @Test
+    void recover_shouldSkipLogWrittenBeforeSnapshot() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            ProductRepository products = new ProductRepository(log);
+            StockRepository stock = new StockRepository(log);
+            addMilk(products, stock);
+            log.sync();
+            // crash after the snapshot was written but before the log was restarted
+            Snapshot.write(snapshotFile, products, stock, new OrderRepository(log));
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            StockRepository stock = new StockRepository(log);
+            assertEquals(0, log.recover(Snapshot.open(snapshotFile),
+                    new ProductRepository(log), stock, new OrderRepository(log)));
+            assertEquals(0, BigDecimal.TEN.compareTo(stock.findAll().get(0).quantity()));
+        }
+    }
+
+    @Test
+    void recover_shouldThrowExceptionWhenSnapshotIsMissing() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            log.checkpoint(snapshotFile, productRepository, stockRepository, orderRepository);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logFile, 1, Duration.ZERO)) {
+            assertThrows(IOException.class, () -> log.recover(
+                    new ProductRepository(log), new StockRepository(log), new OrderRepository(log)));
+        }
+    }
+}
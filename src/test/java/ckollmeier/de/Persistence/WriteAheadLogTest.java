@@ -0,0 +1,225 @@
+package ckollmeier.de.Persistence;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderBuilder;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Entity.StockMovement;
+import ckollmeier.de.Enum.StockMovementTypeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Ledger.StockLedger;
+import ckollmeier.de.Repository.MutationLog;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    private Path file;
+    private WriteAheadLog log;
+    private ProductRepository productRepository;
+    private StockRepository stockRepository;
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void init() throws IOException {
+        file = Files.createTempFile("shop", ".wal");
+        open();
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        log.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void open() throws IOException {
+        log = WriteAheadLog.open(file, 64, Duration.ZERO);
+        productRepository = new ProductRepository(log);
+        stockRepository = new StockRepository(log);
+        orderRepository = new OrderRepository(log);
+    }
+
+    private long reopen() throws IOException {
+        log.close();
+        open();
+        return log.recover(productRepository, stockRepository, orderRepository);
+    }
+
+    private StockArticle addMilk() {
+        Product milk = productRepository.addProduct(ProductBuilder.builder()
+                .name("Milk").description("Fresh milk").content(BigDecimal.ONE).unit(UnitEnum.L).build());
+        return stockRepository.addProduct(milk, new BigDecimal("10"), UnitEnum.L, new BigDecimal("1.29"));
+    }
+
+    @Test
+    void recover_shouldRestoreAllRepositories() throws IOException {
+        StockArticle milk = addMilk();
+        stockRepository.increaseQuantity(milk, new BigDecimal("500"), UnitEnum.ML);
+        OrderProduct line = new OrderProduct(milk);
+        line.setQuantity(new BigDecimal("2.5"));
+        assertTrue(stockRepository.reserveAll(List.of(line)));
+        Order order = orderRepository.addOrder(OrderBuilder.builder().id("order-1").products(List.of(line)).build())
+                .orElseThrow();
+        orderRepository.addOrder(OrderBuilder.builder().id("order-2").products(List.of()).build());
+        orderRepository.removeOrderWithId("order-2");
+
+        assertEquals(7, reopen());
+
+        assertThat(productRepository.find(milk.productId())).contains(milk.product());
+        StockArticle recovered = stockRepository.findByProductId(milk.productId()).orElseThrow();
+        assertEquals(0, new BigDecimal("8.0").compareTo(recovered.quantity()));
+        assertEquals(milk.price(), recovered.price());
+        Order recoveredOrder = orderRepository.find("order-1").orElseThrow();
+        assertEquals(order.products().size(), recoveredOrder.products().size());
+        assertEquals(0, line.getQuantity().compareTo(recoveredOrder.products().get(0).getQuantity()));
+        assertEquals(milk, recoveredOrder.products().get(0).getStockArticle());
+        assertThat(orderRepository.find("order-2")).isEmpty();
+    }
+
+    @Test
+    void recover_shouldReplayStockMovementsWithTheirOrderId() throws IOException {
+        StockArticle milk = addMilk();
+        OrderProduct line = new OrderProduct(milk);
+        line.setQuantity(new BigDecimal("2.5"));
+        assertTrue(stockRepository.reserveAll(List.of(line), "order-1"));
+        stockRepository.increaseQuantity(milk, BigDecimal.ONE, UnitEnum.L);
+        log.close();
+
+        log = WriteAheadLog.open(file, 64, Duration.ZERO);
+        StockLedger ledger = new StockLedger();
+        stockRepository = new StockRepository(MutationLog.of(log, ledger));
+        log.recover(new ProductRepository(log), stockRepository, new OrderRepository(log));
+
+        assertThat(ledger.history(milk.productId())).extracting(StockMovement::type).containsExactly(
+                StockMovementTypeEnum.ADDED, StockMovementTypeEnum.DECREASED, StockMovementTypeEnum.INCREASED);
+        assertThat(ledger.forOrder("order-1")).singleElement().extracting(StockMovement::baseUnits).isEqualTo(2_500L);
+        assertThat(ledger.history(milk.productId()).get(2).orderId()).isNull();
+    }
+
+    @Test
+    void recover_shouldNotLogReplayedRecordsAgain() throws IOException {
+        addMilk();
+        assertEquals(2, reopen());
+        assertEquals(2, reopen());
+    }
+
+    @Test
+    void recover_shouldTruncateTornRecord() throws IOException {
+        StockArticle milk = addMilk();
+        log.sync();
+        long intact = Files.size(file);
+        stockRepository.increaseQuantity(milk, BigDecimal.ONE, UnitEnum.L);
+        log.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        open();
+        assertEquals(2, log.recover(productRepository, stockRepository, orderRepository));
+        assertEquals(intact, Files.size(file));
+        assertEquals(0, BigDecimal.TEN.compareTo(stockRepository.findByProductId(milk.productId()).orElseThrow().quantity()));
+
+        stockRepository.increaseQuantity(milk, BigDecimal.ONE, UnitEnum.L);
+        assertEquals(3, reopen());
+    }
+
+    @Test
+    void recover_shouldStopAtCorruptRecord() throws IOException {
+        StockArticle milk = addMilk();
+        log.close();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        open();
+        assertEquals(1, log.recover(productRepository, stockRepository, orderRepository));
+        assertThat(stockRepository.findByProductId(milk.productId())).isEmpty();
+    }
+
+    @Test
+    void append_shouldSyncInGroups() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            productRepository.addProduct(ProductBuilder.builder()
+                    .name("Product " + i).description("").content(BigDecimal.ONE).unit(UnitEnum.PCS).build());
+        }
+        log.sync();
+        assertEquals(1, log.getSyncs());
+        assertEquals(10, reopen());
+    }
+
+    @Test
+    void append_shouldThrowExceptionWhenClosed() throws IOException {
+        log.close();
+        Product product = ProductBuilder.builder()
+                .name("Milk").description("").content(BigDecimal.ONE).unit(UnitEnum.L).build();
+        Exception e = assertThrows(IllegalStateException.class, () -> productRepository.addProduct(product));
+        assertEquals("Write-ahead log is closed", e.getMessage());
+        assertTrue(productRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void append_shouldUndoMutationsWhenClosed() throws IOException {
+        StockArticle milk = addMilk();
+        Product butter = productRepository.addProduct(ProductBuilder.builder()
+                .name("Butter").description("").content(BigDecimal.ONE).unit(UnitEnum.PCS).build());
+        StockArticle butterStock = stockRepository.addProduct(butter, new BigDecimal("4"), UnitEnum.PCS, new BigDecimal("2.49"));
+        OrderProduct milkLine = new OrderProduct(milk);
+        milkLine.setQuantity(BigDecimal.ONE);
+        OrderProduct butterLine = new OrderProduct(butterStock);
+        butterLine.setQuantity(BigDecimal.ONE);
+        Order order = OrderBuilder.builder().id("order-1").products(List.of(milkLine, butterLine)).build();
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> stockRepository.reserveAll(List.of(milkLine, butterLine), "order-1"));
+        assertThrows(IllegalStateException.class, () -> stockRepository.reserve(milk, BigDecimal.ONE, UnitEnum.L));
+        assertThrows(IllegalStateException.class, () -> stockRepository.increaseQuantity(milk, BigDecimal.ONE, UnitEnum.L));
+        assertThrows(IllegalStateException.class, () -> stockRepository.decreaseQuantity(milk, BigDecimal.ONE, UnitEnum.L));
+        assertThrows(IllegalStateException.class, () -> orderRepository.addOrder(order));
+        assertThrows(IllegalStateException.class, () -> productRepository.removeProduct(butter));
+
+        assertEquals(0, new BigDecimal("10").compareTo(stockRepository.findByProductId(milk.product().id()).orElseThrow().quantity()));
+        assertEquals(0, new BigDecimal("4").compareTo(stockRepository.findByProductId(butter.id()).orElseThrow().quantity()));
+        assertTrue(orderRepository.find("order-1").isEmpty());
+        assertEquals(0, orderRepository.countOrders());
+        assertTrue(orderRepository.findByProductId(milk.product().id()).isEmpty());
+        assertTrue(productRepository.find(butter.id()).isPresent());
+    }
+
+    @Test
+    void append_shouldNotKeepAddedEntitiesWhenClosed() throws IOException {
+        Product milk = productRepository.addProduct(ProductBuilder.builder()
+                .name("Milk").description("Fresh milk").content(BigDecimal.ONE).unit(UnitEnum.L).build());
+        Product butter = ProductBuilder.builder()
+                .id("butter").name("Butter").description("Salted butter").content(BigDecimal.ONE).unit(UnitEnum.PCS).build();
+        StockArticle milkStock = new StockArticle("stock-milk", milk, BigDecimal.TEN, UnitEnum.L, new BigDecimal("1.29"));
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> stockRepository.addProduct(milkStock));
+        assertThrows(IllegalStateException.class, () -> stockRepository.addProducts(List.of(milkStock)));
+        assertThrows(IllegalStateException.class, () -> productRepository.addProducts(List.of(butter)));
+
+        assertTrue(stockRepository.findByProductId(milk.id()).isEmpty());
+        assertTrue(stockRepository.find("stock-milk").isEmpty());
+        assertTrue(productRepository.find("butter").isEmpty());
+        assertTrue(productRepository.searchByName("butter", 10).isEmpty());
+        assertEquals(1, productRepository.countProducts());
+    }
+}
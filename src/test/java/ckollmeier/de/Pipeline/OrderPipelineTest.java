@@ -0,0 +1,155 @@
+package ckollmeier.de.Pipeline;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Enum.WaitStrategyEnum;
+import ckollmeier.de.OrderResult;
+import ckollmeier.de.Repository.OrderRepository;
+import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderPipelineTest {
+    private final StockRepository stockRepository = new StockRepository();
+    private final OrderRepository orderRepository = new OrderRepository();
+    private Product flour;
+
+    @BeforeEach
+    void setUp() {
+        flour = new ProductRepository().addProduct(ProductBuilder.builder()
+                .name("Flour")
+                .description("Wheat flour")
+                .content(BigDecimal.ONE)
+                .unit(UnitEnum.KG)
+                .build());
+        stockRepository.addProduct(flour, BigDecimal.TEN, UnitEnum.KG, new BigDecimal("1.30"));
+    }
+
+    private Order order(final String quantity, final UnitEnum unit) {
+        OrderProduct orderProduct = new OrderProduct(stockRepository.findByProductId(flour.id()).orElseThrow());
+        orderProduct.setQuantity(new BigDecimal(quantity), unit);
+        return new Order(null, List.of(orderProduct));
+    }
+
+    private static CompletableFuture<OrderResult> publish(final OrderPipeline pipeline, final Order order) {
+        CompletableFuture<OrderResult> result = new CompletableFuture<>();
+        pipeline.publish(order, result::complete);
+        return result;
+    }
+
+    @Test
+    void publish_shouldPlaceAndPriceOrder() throws Exception {
+        try (OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.PARTIAL, WaitStrategyEnum.PARK)) {
+            OrderResult result = publish(pipeline, order("500", UnitEnum.G)).get(10, TimeUnit.SECONDS);
+
+            assertTrue(result.isPlaced());
+            assertThat(result.order().total()).isEqualByComparingTo("0.65");
+            assertThat(orderRepository.find(result.order().id())).isPresent();
+            assertThat(stockRepository.findByProductId(flour.id()).orElseThrow().quantity()).isEqualByComparingTo("9.5");
+        }
+    }
+
+    @Test
+    void publish_shouldRejectOnlyInvalidOrder_whenBatchedWithValidOnes() throws Exception {
+        try (OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.ALL_OR_NOTHING, WaitStrategyEnum.PARK)) {
+            CompletableFuture<OrderResult> tooMuch = publish(pipeline, order("11", UnitEnum.KG));
+            CompletableFuture<OrderResult> invalid = publish(pipeline, order("0.0001", UnitEnum.G));
+            CompletableFuture<OrderResult> valid = publish(pipeline, order("1", UnitEnum.KG));
+
+            assertThat(tooMuch.get(10, TimeUnit.SECONDS).error()).isEqualTo("Not enough stock for order");
+            assertFalse(invalid.get(10, TimeUnit.SECONDS).isPlaced());
+            assertTrue(valid.get(10, TimeUnit.SECONDS).isPlaced());
+            assertThat(stockRepository.findByProductId(flour.id()).orElseThrow().quantity()).isEqualByComparingTo("9");
+        }
+    }
+
+    @Test
+    void publish_shouldReuseSlots_whenMoreOrdersThanSlots() throws Exception {
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        try (OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.PARTIAL, WaitStrategyEnum.PARK, 8)) {
+            for (int i = 0; i < 100; i++) {
+                results.add(publish(pipeline, order("1", UnitEnum.G)));
+            }
+        }
+
+        for (CompletableFuture<OrderResult> result : results) {
+            assertTrue(result.isDone());
+            assertTrue(result.get().isPlaced());
+        }
+        assertThat(orderRepository.countOrders()).isEqualTo(100);
+        assertThat(stockRepository.findByProductId(flour.id()).orElseThrow().quantity()).isEqualByComparingTo("9.9");
+    }
+
+    @Test
+    void publish_shouldRejectLineWithoutUnit() throws Exception {
+        OrderProduct withoutUnit = new OrderProduct(stockRepository.findByProductId(flour.id()).orElseThrow().withUnit(null));
+        withoutUnit.setQuantity(BigDecimal.ONE);
+        try (OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.PARTIAL, WaitStrategyEnum.PARK)) {
+            OrderResult rejected = publish(pipeline, new Order(null, List.of(withoutUnit))).get(10, TimeUnit.SECONDS);
+            OrderResult placed = publish(pipeline, order("1", UnitEnum.KG)).get(10, TimeUnit.SECONDS);
+
+            assertThat(rejected.error()).isEqualTo("Order has a line with a stock article without product or unit");
+            assertTrue(placed.isPlaced());
+        }
+    }
+
+    @Test
+    void publish_shouldRejectBatchAndKeepStageRunning_whenHandlerFails() throws Exception {
+        StockRepository failingStock = mock(StockRepository.class);
+        when(failingStock.reserveOrders(anyList(), any()))
+                .thenReturn(new boolean[][]{{false, true}})
+                .thenReturn(new boolean[][]{{true}});
+        try (OrderPipeline pipeline = OrderPipeline.start(failingStock, orderRepository, ReservationModeEnum.PARTIAL, WaitStrategyEnum.PARK)) {
+            OrderResult failed = publish(pipeline, order("1", UnitEnum.KG)).get(10, TimeUnit.SECONDS);
+            OrderResult placed = publish(pipeline, order("1", UnitEnum.KG)).get(10, TimeUnit.SECONDS);
+
+            assertFalse(failed.isPlaced());
+            assertThat(failed.error()).startsWith("Order could not be processed");
+            assertTrue(placed.isPlaced());
+        }
+    }
+
+    @Test
+    void publish_shouldPassFailedAcknowledgementToErrorHandler() throws Exception {
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        try (OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.PARTIAL,
+                WaitStrategyEnum.PARK, 8, (thread, e) -> errors.add(e))) {
+            pipeline.publish(order("1", UnitEnum.KG), result -> {
+                throw new IllegalStateException("Client gone");
+            });
+            OrderResult placed = publish(pipeline, order("1", UnitEnum.KG)).get(10, TimeUnit.SECONDS);
+
+            assertTrue(placed.isPlaced());
+            assertThat(errors).singleElement().extracting(Throwable::getMessage).isEqualTo("Client gone");
+        }
+    }
+
+    @Test
+    void publish_shouldFail_whenClosed() {
+        OrderPipeline pipeline = OrderPipeline.start(stockRepository, orderRepository, ReservationModeEnum.PARTIAL, WaitStrategyEnum.BUSY_SPIN);
+        pipeline.close();
+
+        assertThrows(IllegalStateException.class, () -> pipeline.publish(order("1", UnitEnum.G), result -> { }));
+    }
+}
@@ -0,0 +1,125 @@
+package ckollmeier.de.Pricing;
+
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderPricerTest {
+    private static final Product FLOUR = new Product("flour", "Flour", BigDecimal.ONE, UnitEnum.KG, "Wheat flour");
+    private static final Product MILK = new Product("milk", "Milk", BigDecimal.ONE, UnitEnum.L, "Fresh milk");
+    private static final StockArticle FLOUR_STOCK = new StockArticle("flour-stock", FLOUR, new BigDecimal("100"),
+            UnitEnum.KG, new BigDecimal("1.30"));
+    private static final StockArticle MILK_STOCK = new StockArticle("milk-stock", MILK, new BigDecimal("100"),
+            UnitEnum.L, new BigDecimal("1.29"));
+
+    private final OrderPricer orderPricer = new OrderPricer();
+
+    private static OrderProduct line(final StockArticle stockArticle, final String quantity, final UnitEnum unit) {
+        OrderProduct line = new OrderProduct(stockArticle);
+        line.setQuantity(new BigDecimal(quantity), unit);
+        return line;
+    }
+
+    @Test
+    void price_shouldConvertRequestedUnitsIntoThePriceOfTheStockUnit() {
+        OrderProduct flour = line(FLOUR_STOCK, "500", UnitEnum.G);
+        OrderProduct milk = line(MILK_STOCK, "3", UnitEnum.L);
+        OrderProduct milkInCentiliters = line(MILK_STOCK, "50", UnitEnum.CL);
+
+        Order priced = orderPricer.price(new Order("order-1", List.of(flour, milk, milkInCentiliters)));
+
+        assertThat(flour.getPriceSubTotal()).isEqualByComparingTo("0.65");
+        assertThat(milk.getPriceSubTotal()).isEqualByComparingTo("3.87");
+        assertThat(milkInCentiliters.getPriceSubTotal()).isEqualByComparingTo("0.645");
+        assertThat(priced.total()).isEqualByComparingTo("5.165");
+        assertEquals("order-1", priced.id());
+        for (OrderProduct line : priced.products()) {
+            assertEquals(line.getQuantity().multiply(line.getStockArticle().price()), line.getPriceSubTotal());
+        }
+    }
+
+    @Test
+    void price_shouldPriceRepeatedProductsFromTheCache() {
+        List<OrderProduct> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add(line(i % 2 == 0 ? FLOUR_STOCK : MILK_STOCK, "1", i % 2 == 0 ? UnitEnum.KG : UnitEnum.L));
+        }
+
+        Order priced = orderPricer.price(new Order("order-1", lines));
+
+        assertThat(priced.total()).isEqualByComparingTo("1295");
+        assertThat(lines).allSatisfy(line -> assertThat(line.getPriceSubTotal()).isEqualByComparingTo(
+                line.getStockArticle().price()));
+    }
+
+    @Test
+    void price_shouldUseTheNewPriceWhenTheStockArticleChanges() {
+        OrderPricer smallPricer = new OrderPricer(1);
+        smallPricer.price(new Order("order-0", List.of(line(MILK_STOCK, "1", UnitEnum.L))));
+        orderPricer.price(new Order("order-1", List.of(line(FLOUR_STOCK, "1", UnitEnum.KG))));
+        OrderProduct cheaper = line(FLOUR_STOCK.withPrice(new BigDecimal("0.99")), "2", UnitEnum.KG);
+
+        Order priced = orderPricer.price(new Order("order-2", List.of(cheaper)));
+        Order pricedBySmallPricer = smallPricer.price(new Order("order-3", List.of(line(FLOUR_STOCK, "2", UnitEnum.KG))));
+
+        assertThat(priced.total()).isEqualByComparingTo("1.98");
+        assertThat(pricedBySmallPricer.total()).isEqualByComparingTo("2.60");
+    }
+
+    @Test
+    void price_shouldLeaveOrderWithoutTotalIfALineHasNoPrice() {
+        OrderProduct flour = line(FLOUR_STOCK, "1", UnitEnum.KG);
+        OrderProduct unpriced = line(MILK_STOCK.withPrice(null), "1", UnitEnum.L);
+
+        Order priced = orderPricer.price(new Order("order-1", List.of(flour, unpriced)));
+
+        assertThat(flour.getPriceSubTotal()).isEqualByComparingTo("1.30");
+        assertNull(unpriced.getPriceSubTotal());
+        assertNull(priced.total());
+    }
+
+    @Test
+    void price_shouldComputeAmountsBeyondLongExactly() {
+        StockArticle gold = new StockArticle("gold-stock", new Product("gold", "Gold", BigDecimal.ONE, UnitEnum.T, "Gold"),
+                new BigDecimal("1000000"), UnitEnum.T, new BigDecimal("99999999999999.99"));
+        OrderProduct line = line(gold, "1000", UnitEnum.T);
+
+        Order priced = orderPricer.price(new Order("order-1", List.of(line, line(FLOUR_STOCK, "1", UnitEnum.KG))));
+
+        assertThat(line.getPriceSubTotal()).isEqualByComparingTo("99999999999999990.00");
+        assertThat(priced.total()).isEqualByComparingTo("99999999999999991.30");
+    }
+
+    @Test
+    void price_shouldComputeQuantitiesOfManyDigitsExactly() {
+        OrderProduct line = new OrderProduct(FLOUR_STOCK);
+        line.setQuantity(new BigDecimal("123456789.123456789"));
+
+        Order priced = orderPricer.price(new Order("order-1", List.of(line, line(FLOUR_STOCK, "1", UnitEnum.KG))));
+
+        assertEquals(new BigDecimal("160493825.86049382570"), line.getPriceSubTotal());
+        assertThat(priced.total()).isEqualByComparingTo("160493827.16049382570");
+    }
+
+    @Test
+    void total_shouldSumPricedLinesOnly() {
+        OrderProduct flour = line(FLOUR_STOCK, "1", UnitEnum.KG);
+        OrderProduct milk = line(MILK_STOCK, "1", UnitEnum.L);
+        orderPricer.price(new Order("order-1", List.of(flour, milk)));
+
+        assertThat(OrderPricer.total(List.of(flour, milk))).isEqualByComparingTo("2.59");
+        assertNull(OrderPricer.total(List.of(flour, line(MILK_STOCK, "1", UnitEnum.L))));
+        assertEquals(BigDecimal.ZERO, OrderPricer.total(List.of()));
+    }
+}
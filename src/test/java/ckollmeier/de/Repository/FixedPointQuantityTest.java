@@ -0,0 +1,40 @@
+package ckollmeier.de.Repository;
+
+import ckollmeier.de.Enum.UnitEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointQuantityTest {
+
+    @Test
+    void toBaseUnits_shouldScaleToSmallestUnitOfFamily() {
+        assertEquals(2_500_000L, FixedPointQuantity.toBaseUnits(new BigDecimal("2.5"), UnitEnum.KG));
+        assertEquals(1_000_000_000L, FixedPointQuantity.toBaseUnits(BigDecimal.ONE, UnitEnum.T));
+        assertEquals(250L, FixedPointQuantity.toBaseUnits(new BigDecimal("2.5"), UnitEnum.DL));
+        assertEquals(3L, FixedPointQuantity.toBaseUnits(new BigDecimal("3.00"), UnitEnum.PCS));
+    }
+
+    @Test
+    void toBaseUnits_shouldThrowException_whenFinerThanSmallestUnit() {
+        assertThrows(IllegalArgumentException.class, () -> FixedPointQuantity.toBaseUnits(new BigDecimal("0.5"), UnitEnum.MG));
+        assertThrows(IllegalArgumentException.class, () -> FixedPointQuantity.toBaseUnits(new BigDecimal("1.5"), UnitEnum.PCS));
+    }
+
+    @Test
+    void toBaseUnits_shouldThrowException_whenTooLarge() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FixedPointQuantity.toBaseUnits(new BigDecimal("1E+12"), UnitEnum.T));
+    }
+
+    @Test
+    void toDecimal_shouldKeepMinimumScale() {
+        assertEquals(new BigDecimal("7.5"), FixedPointQuantity.toDecimal(7_500_000L, UnitEnum.KG, 0));
+        assertEquals(new BigDecimal("7.50"), FixedPointQuantity.toDecimal(7_500_000L, UnitEnum.KG, 2));
+        assertEquals(new BigDecimal("1000"), FixedPointQuantity.toDecimal(1000L, UnitEnum.ML, 0));
+        assertEquals(BigDecimal.ZERO, FixedPointQuantity.toDecimal(0L, UnitEnum.PCS, 0));
+    }
+}
@@ -0,0 +1,84 @@
+package ckollmeier.de.Repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdGeneratorTest {
+
+    @Test
+    void toString_shouldRenderCanonicalUuid() {
+        UUID uuid = UUID.randomUUID();
+
+        assertEquals(uuid.toString(), EntityId.of(uuid).toString());
+        assertEquals("00000000-0000-0000-0000-000000000000", new EntityId(0, 0).toString());
+        assertEquals("ffffffff-ffff-ffff-ffff-ffffffffffff", new EntityId(-1, -1).toString());
+    }
+
+    @Test
+    void parse_shouldReadOnlyCanonicalUuids() {
+        UUID uuid = UUID.randomUUID();
+
+        assertEquals(EntityId.of(uuid), EntityId.parse(uuid.toString()));
+        assertEquals(new EntityId(-1, -1), EntityId.parse("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+        assertNull(EntityId.parse(uuid.toString().toUpperCase()));
+        assertNull(EntityId.parse("order-1"));
+        assertNull(EntityId.parse("0000000-00000-0000-0000-000000000000"));
+        assertNull(EntityId.parse("00000000-0000-0000-0000-00000000000g"));
+    }
+
+    @Test
+    void compareTo_shouldOrderLikeStrings() {
+        EntityId small = new EntityId(0x7fff_ffff_ffff_ffffL, -1);
+        EntityId large = new EntityId(0x8000_0000_0000_0000L, 0);
+
+        assertThat(small).isLessThan(large);
+        assertThat(small.toString()).isLessThan(large.toString());
+    }
+
+    @Test
+    void next_shouldGenerateIncreasingVersion7Ids() {
+        EntityId previous = IdGenerator.TIME_ORDERED.next();
+        for (int i = 0; i < 10000; i++) {
+            EntityId next = IdGenerator.TIME_ORDERED.next();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+
+        UUID uuid = UUID.fromString(previous.toString());
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertThat(uuid.getMostSignificantBits() >>> 16).isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+
+    @Test
+    void next_shouldGenerateUniqueIds_whenCalledConcurrently() throws Exception {
+        Set<EntityId> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    ids.add(IdGenerator.TIME_ORDERED.next());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(40000, ids.size());
+    }
+}
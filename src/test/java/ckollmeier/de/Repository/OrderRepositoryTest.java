@@ -6,10 +6,17 @@ import ckollmeier.de.Entity.OrderProduct;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -182,4 +189,156 @@ class OrderRepositoryTest {
         orderRepository.removeOrder(added);
         assertEquals(1, orderRepository.countOrders());
     }
-}
\ No newline at end of file
+
+    private void addOrders(final int count) {
+        for (int i = 0; i < count; i++) {
+            orderRepository.addOrder(testOrder1.withId(String.format("order-%03d", i)));
+        }
+    }
+
+    @Test
+    void scan_shouldWalkAllOrdersPageByPageInIdOrder() {
+        addOrders(25);
+
+        List<String> ids = new ArrayList<>();
+        List<Order> page = orderRepository.scan(null, 10);
+        List<Integer> pageSizes = new ArrayList<>();
+        while (!page.isEmpty()) {
+            pageSizes.add(page.size());
+            page.forEach(order -> ids.add(order.id()));
+            page = orderRepository.scan(page.get(page.size() - 1).id(), 10);
+        }
+
+        assertThat(pageSizes).containsExactly(10, 10, 5);
+        assertThat(ids).hasSize(25).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void scan_shouldContinueAfterRemovedCursor() {
+        addOrders(5);
+        orderRepository.removeOrderWithId("order-001");
+
+        assertThat(orderRepository.scan("order-001", 2)).extracting(Order::id).containsExactly("order-002", "order-003");
+    }
+
+    @Test
+    void scan_shouldThrowExceptionWhenLimitIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> orderRepository.scan(null, -1));
+    }
+
+    @Test
+    void stream_shouldSplitForParallelProcessing() {
+        addOrders(1000);
+
+        Spliterator<Order> spliterator = orderRepository.stream().spliterator();
+        assertNotNull(spliterator.trySplit());
+        assertEquals(1000, orderRepository.stream().parallel().map(Order::id).distinct().count());
+    }
+
+    @Test
+    void stream_shouldSplitUuidsEvenly() {
+        orderRepository = new OrderRepository(MutationLog.NONE, IdGenerator.RANDOM);
+        for (int i = 0; i < 1000; i++) {
+            orderRepository.addOrder(testOrder1.withId(null));
+        }
+
+        Spliterator<Order> upper = orderRepository.stream().spliterator();
+        Spliterator<Order> lower = upper.trySplit();
+        long lowerCount = StreamSupport.stream(lower, false).count();
+        long upperCount = StreamSupport.stream(upper, false).count();
+
+        assertEquals(1000, lowerCount + upperCount);
+        assertThat(lowerCount).isBetween(350L, 650L);
+    }
+
+    @Test
+    void between_shouldSplitHexDigitsInTheMiddle() {
+        assertEquals("8", IdRangeSpliterator.between("0a", "f3"));
+        assertEquals("4d", IdRangeSpliterator.between("4a", "4f"));
+        assertEquals("u", IdRangeSpliterator.between("order-a", "z"));
+    }
+
+    @Test
+    void between_shouldSplitEntityIdsInTheMiddle() {
+        assertEquals(new EntityId(0, 1), IdRangeSpliterator.between(new EntityId(0, 0), new EntityId(0, 1)));
+        assertEquals(new EntityId(0, 0x8000_0000_0000_0000L), IdRangeSpliterator.between(new EntityId(0, 0), new EntityId(1, 0)));
+        assertEquals(new EntityId(1, 0), IdRangeSpliterator.between(new EntityId(0, -1), new EntityId(1, 1)));
+        assertEquals(new EntityId(0x8000_0000_0000_0000L, 0), IdRangeSpliterator.between(new EntityId(0, 0), new EntityId(-1, -1)));
+    }
+
+    @Test
+    void scan_shouldOrderUuidAndOtherIdsLikeStrings() {
+        List<String> ids = List.of("ffffffff-0000-7000-8000-000000000000", "order-1", "00000000-0000-7000-8000-000000000001",
+                "A-order", "12345678-9abc-7def-8000-000000000000");
+        for (String id : ids) {
+            orderRepository.addOrder(testOrder1.withId(id));
+        }
+
+        assertThat(orderRepository.scan(null, 10)).extracting(Order::id).isSortedAccordingTo(Comparator.naturalOrder())
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(orderRepository.scan("12345678-9abc-7def-8000-000000000000", 10)).extracting(Order::id)
+                .containsExactly("A-order", "ffffffff-0000-7000-8000-000000000000", "order-1");
+        assertThat(orderRepository.find("order-1")).isPresent();
+        assertThat(orderRepository.find("00000000-0000-7000-8000-000000000001")).isPresent();
+        assertThat(orderRepository.findOrderIdsByProductId(testOrder1.products().get(0).productId()))
+                .isSortedAccordingTo(Comparator.naturalOrder()).hasSize(5);
+        assertEquals(5, orderRepository.stream().parallel().map(Order::id).distinct().count());
+    }
+
+    @Test
+    void stream_shouldToleratePlacingOrdersWhileStreaming() {
+        addOrders(100);
+
+        long streamed = orderRepository.stream()
+                .peek(order -> orderRepository.addOrder(testOrder2.withId("new-" + order.id())))
+                .count();
+
+        assertThat(streamed).isBetween(100L, 200L);
+        assertEquals(200, orderRepository.countOrders());
+    }
+
+    @Test
+    void findByProductId_shouldReturnOrdersContainingProduct() {
+        OrderProduct product3 = mock(OrderProduct.class);
+        when(product3.productId()).thenReturn("prod-3");
+        orderRepository.addOrder(testOrder2);
+        orderRepository.addOrder(testOrder1);
+        orderRepository.addOrder(testOrder1.withId("order-3").withProducts(List.of(product3, product3)));
+
+        assertThat(orderRepository.findOrderIdsByProductId("prod-1")).containsExactly("order-1", "order-2");
+        assertThat(orderRepository.findByProductId("prod-3")).extracting(Order::id).containsExactly("order-3");
+        assertThat(orderRepository.findByProductId("unknown")).isEmpty();
+    }
+
+    @Test
+    void findByProductId_shouldNotReturnRemovedOrders() {
+        orderRepository.addOrder(testOrder1);
+        orderRepository.addOrder(testOrder2);
+        orderRepository.removeOrder(testOrder1);
+
+        assertThat(orderRepository.findOrderIdsByProductId("prod-2")).containsExactly("order-2");
+        orderRepository.removeOrderWithId("order-2");
+        assertThat(orderRepository.findOrderIdsByProductId("prod-2")).isEmpty();
+        assertThat(orderRepository.findByProductId("prod-1")).isEmpty();
+    }
+
+    @Test
+    void findByProductId_shouldStayConsistent_whenOrdersChangeConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 2_000; i++) {
+            String orderId = String.format("order-%04d", i);
+            executor.execute(() -> {
+                orderRepository.addOrder(testOrder1.withId(orderId));
+                if (orderId.hashCode() % 2 == 0) {
+                    orderRepository.removeOrderWithId(orderId);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String> expected = orderRepository.stream().map(Order::id).toList();
+        assertThat(orderRepository.findOrderIdsByProductId("prod-1")).isEqualTo(expected);
+        assertThat(orderRepository.findOrderIdsByProductId("prod-2")).isEqualTo(expected);
+    }
+}
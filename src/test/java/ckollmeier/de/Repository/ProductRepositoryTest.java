@@ -2,12 +2,20 @@ package ckollmeier.de.Repository;
 
 import ckollmeier.de.Entity.Product;
 import ckollmeier.de.Entity.ProductBuilder;
+import ckollmeier.de.Enum.SearchOperatorEnum;
 import ckollmeier.de.Enum.UnitEnum;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -138,9 +146,229 @@ class ProductRepositoryTest {
         assertThat(allProducts).containsExactlyInAnyOrder(addedProduct1, addedProduct2);
     }
 
+    @Test
+    void findAll_shouldKeepInsertionOrder_whenProductWasRemoved() {
+        Product addedProduct1 = productRepository.addProduct(testProduct1);
+        Product addedProduct2 = productRepository.addProduct(testProduct2);
+        Product addedProduct3 = productRepository.addProduct(testProduct1.withName("Sprite"));
+        productRepository.removeProduct(addedProduct2);
+        assertThat(productRepository.findAll()).containsExactly(addedProduct1, addedProduct3);
+    }
+
     @Test
     void findAll_shouldReturnEmptyList_whenNoProducts() {
         List<Product> allProducts = productRepository.findAll();
         assertThat(allProducts).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchByName_shouldMatchPrefixIgnoringCase() {
+        Product cola = productRepository.addProduct(testProduct1);
+        productRepository.addProduct(testProduct2);
+        Product zero = productRepository.addProduct(testProduct1.withName("coca-cola zero"));
+
+        assertThat(productRepository.searchByName("COCA", 10)).containsExactly(cola, zero);
+        assertThat(productRepository.searchByName("  coca-cola", 10)).containsExactly(cola, zero);
+        assertThat(productRepository.searchByName("coca-cola z", 10)).containsExactly(zero);
+        assertThat(productRepository.searchByName("sprite", 10)).isEmpty();
+    }
+
+    @Test
+    void searchByName_shouldReturnTopMatchesInNameOrder() {
+        productRepository.addProduct(testProduct1.withName("Milk 3.5%"));
+        Product first = productRepository.addProduct(testProduct1.withName("Milk"));
+        Product second = productRepository.addProduct(testProduct1.withName("milk 1.5%"));
+        productRepository.addProduct(testProduct2);
+
+        assertThat(productRepository.searchByName("mi", 2)).containsExactly(first, second);
+        assertThat(productRepository.searchByName("", 10)).hasSize(4);
+        assertThat(productRepository.searchByName("mi", 0)).isEmpty();
+        assertThrows(IllegalArgumentException.class, () -> productRepository.searchByName("mi", -1));
+    }
+
+    @Test
+    void searchByName_shouldNotFindRemovedProducts() {
+        Product cola = productRepository.addProduct(testProduct1);
+        Product sameName = productRepository.addProduct(testProduct1);
+        productRepository.removeProduct(cola);
+
+        assertThat(productRepository.searchByName("coca", 10)).containsExactly(sameName);
+        assertThat(productRepository.countNameIndexEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void searchByName_shouldFindImportedProducts() {
+        productRepository.addProducts(List.of(testProduct1, testProduct2));
+
+        assertThat(productRepository.searchByName("fan", 10)).extracting(Product::name).containsExactly("Fanta");
+    }
+
+    @Test
+    void searchByName_shouldMatchLinearScan_whenIndexSpansManyBlocks() {
+        Random random = new Random(42);
+        List<Product> added = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            added.add(productRepository.addProduct(testProduct1.withName("p" + random.nextInt(2_000))));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            productRepository.removeProduct(added.remove(random.nextInt(added.size())));
+        }
+
+        for (String prefix : List.of("p1", "p19", "p123", "p999", "p5")) {
+            List<Product> expected = added.stream()
+                    .filter(product -> product.name().startsWith(prefix))
+                    .sorted(Comparator.comparing(Product::name).thenComparing(Product::id))
+                    .limit(20)
+                    .toList();
+            assertThat(productRepository.searchByName(prefix, 20)).containsExactlyElementsOf(expected);
+        }
+        assertThat(productRepository.countNameIndexEntries()).isEqualTo(3_000);
+    }
+
+    @Test
+    void nameIndex_shouldEstimateFewBytesPerProduct() {
+        for (int i = 0; i < 10_000; i++) {
+            productRepository.addProduct(testProduct1.withName("Product " + i));
+        }
+
+        assertThat(productRepository.estimateNameIndexBytes() / 10_000).isBetween(4L, 8L);
+    }
+
+    private Product addWithDescription(final String name, final String description) {
+        return productRepository.addProduct(testProduct1.withName(name).withDescription(description));
+    }
+
+    @Test
+    void tokenize_shouldSplitIntoLowerCaseTerms() {
+        assertThat(ProductTextIndex.tokenize("Fresh MILK, 3.5% fat - fresh!")).containsExactly("fresh", "milk", "3", "5", "fat", "fresh");
+        assertThat(ProductTextIndex.tokenize(" -- ")).isEmpty();
+    }
+
+    @Test
+    void searchByDescription_shouldCombineTermsWithOperator() {
+        Product milk = addWithDescription("Milk", "fresh whole milk");
+        Product cheese = addWithDescription("Cheese", "aged cheese made from whole milk");
+        addWithDescription("Bread", "fresh bread");
+
+        assertThat(productRepository.searchByDescription("WHOLE milk", SearchOperatorEnum.AND, 10))
+                .extracting(ScoredProduct::product).containsExactlyInAnyOrder(milk, cheese);
+        assertThat(productRepository.searchByDescription("fresh milk", SearchOperatorEnum.AND, 10))
+                .extracting(ScoredProduct::product).containsExactly(milk);
+        assertThat(productRepository.searchByDescription("cheese bread", SearchOperatorEnum.OR, 10)).hasSize(2);
+        assertThat(productRepository.searchByDescription("milk butter", SearchOperatorEnum.AND, 10)).isEmpty();
+        assertThat(productRepository.searchByDescription("milk butter", SearchOperatorEnum.OR, 10)).hasSize(2);
+        assertThat(productRepository.searchByDescription("...", SearchOperatorEnum.OR, 10)).isEmpty();
+    }
+
+    @Test
+    void searchByDescription_shouldRankByBm25() {
+        Product often = addWithDescription("Often", "milk milk milk and more");
+        Product shortOnce = addWithDescription("Short", "milk drink");
+        Product longOnce = addWithDescription("Long", "a long description mentioning milk only once among many other words");
+        addWithDescription("Bread", "bread and butter");
+        Product rare = addWithDescription("Rare", "oat drink");
+
+        List<ScoredProduct> hits = productRepository.searchByDescription("milk", SearchOperatorEnum.OR, 10);
+        assertThat(hits).extracting(ScoredProduct::product).containsExactly(often, shortOnce, longOnce);
+        assertThat(hits).extracting(ScoredProduct::score).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(hits.get(2).score()).isPositive();
+
+        // the rarer term weighs more
+        assertThat(productRepository.searchByDescription("oat milk", SearchOperatorEnum.OR, 1))
+                .extracting(ScoredProduct::product).containsExactly(rare);
+    }
+
+    @Test
+    void searchByDescription_shouldReturnTopMatches() {
+        for (int i = 0; i < 100; i++) {
+            addWithDescription("Product " + i, "milk " + "filler ".repeat(i));
+        }
+
+        List<ScoredProduct> hits = productRepository.searchByDescription("milk", SearchOperatorEnum.AND, 3);
+        assertThat(hits).extracting(hit -> hit.product().name()).containsExactly("Product 0", "Product 1", "Product 2");
+        assertThat(productRepository.searchByDescription("milk", SearchOperatorEnum.AND, 0)).isEmpty();
+        assertThrows(IllegalArgumentException.class,
+                () -> productRepository.searchByDescription("milk", SearchOperatorEnum.AND, -1));
+    }
+
+    @Test
+    void searchByDescription_shouldNotFindRemovedProducts_beforeAndAfterCompaction() {
+        List<Product> added = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            added.add(addWithDescription("Product " + i, "product number" + i + (i % 2 == 0 ? " even" : " odd")));
+        }
+        Product unique = addWithDescription("Unique", "unique product");
+        productRepository.removeProduct(added.get(0));
+        assertThat(productRepository.searchByDescription("number0", SearchOperatorEnum.OR, 10)).isEmpty();
+        assertThat(productRepository.searchByDescription("even", SearchOperatorEnum.OR, 5_000)).hasSize(1_499);
+
+        for (int i = 1; i < 2_000; i++) {
+            productRepository.removeProduct(added.get(i));
+        }
+
+        assertThat(productRepository.countTextIndexEntries()).isEqualTo(1_001);
+        assertThat(productRepository.searchByDescription("even", SearchOperatorEnum.OR, 5_000)).hasSize(500);
+        assertThat(productRepository.searchByDescription("product odd", SearchOperatorEnum.AND, 5_000))
+                .extracting(ScoredProduct::product).containsExactlyInAnyOrderElementsOf(
+                        added.subList(2_000, 3_000).stream().filter(product -> product.name().matches(".*[13579]")).toList());
+        assertThat(productRepository.searchByDescription("unique", SearchOperatorEnum.AND, 10))
+                .extracting(ScoredProduct::product).containsExactly(unique);
+        assertThat(productRepository.searchByDescription("number1", SearchOperatorEnum.OR, 10)).isEmpty();
+        Product readded = productRepository.addProduct(added.get(1));
+        assertThat(productRepository.searchByDescription("number1", SearchOperatorEnum.OR, 10))
+                .extracting(ScoredProduct::product).containsExactly(readded);
+    }
+
+    @Test
+    void searchByDescription_shouldReturnSameTopMatches_asFullRanking() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int term = 0; term < 1 + random.nextInt(12); term++) {
+                description.append("t").append((int) Math.pow(30, random.nextDouble())).append(' ');
+            }
+            addWithDescription("Product " + i, description.toString());
+        }
+
+        for (String query : List.of("t0 t1", "t0 t1 t2 t3", "t25 t0", "t5 t9 t13 t0 t2")) {
+            for (SearchOperatorEnum operator : SearchOperatorEnum.values()) {
+                List<ScoredProduct> all = productRepository.searchByDescription(query, operator, 10_000);
+                assertThat(productRepository.searchByDescription(query, operator, 5))
+                        .containsExactlyElementsOf(all.subList(0, Math.min(5, all.size())));
+            }
+        }
+    }
+
+    @Test
+    void concurrentAddAndSearch_shouldKeepIndexesConsistent() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int writer = 0; writer < 2; writer++) {
+            int offset = writer * 1_000;
+            tasks.add(executor.submit(() -> {
+                for (int i = offset; i < offset + 1_000; i++) {
+                    addWithDescription("Product " + i, "fresh milk " + i);
+                }
+            }));
+        }
+        for (int reader = 0; reader < 2; reader++) {
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    assertThat(productRepository.searchByName("product", 20)).hasSizeLessThanOrEqualTo(20);
+                    assertThat(productRepository.searchByDescription("fresh milk", SearchOperatorEnum.AND, 20))
+                            .hasSizeLessThanOrEqualTo(20);
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        for (Future<?> task : tasks) {
+            assertDoesNotThrow(() -> task.get());
+        }
+
+        assertThat(productRepository.countProducts()).isEqualTo(2_000);
+        assertThat(productRepository.countNameIndexEntries()).isEqualTo(2_000);
+        assertThat(productRepository.countTextIndexEntries()).isEqualTo(2_000);
+        assertThat(productRepository.searchByDescription("milk", SearchOperatorEnum.AND, 5_000)).hasSize(2_000);
+    }
+}
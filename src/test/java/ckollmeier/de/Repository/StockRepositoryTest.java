@@ -1,17 +1,32 @@
 package ckollmeier.de.Repository;
 
 import ckollmeier.de.Entity.Interface.ProductInterface;
+import ckollmeier.de.Entity.Order;
+import ckollmeier.de.Entity.OrderProduct;
 import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.ProductBuilder;
 import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.ReservationModeEnum;
 import ckollmeier.de.Enum.UnitEnum;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -91,6 +106,13 @@ public class StockRepositoryTest {
         assertEquals(new BigDecimal("7.0").setScale(updated.quantity().scale(), RoundingMode.HALF_UP), updated.quantity());
     }
 
+    @Test
+    void decreaseQuantity_shouldLookUpByProductId_whenCalledWithStockArticle() {
+        StockArticle stockArticle = stockRepository.findByProductId("prod-1").orElseThrow();
+        StockArticle updated = stockRepository.decreaseQuantity(stockArticle, new BigDecimal("3.0"), UnitEnum.KG);
+        assertEquals(new BigDecimal("7.0").setScale(updated.quantity().scale(), RoundingMode.HALF_UP), updated.quantity());
+    }
+
     @Test
     void decreaseQuantity_shouldThrowException_whenQuantityTooHigh() {
         assertThrows(IllegalArgumentException.class,
@@ -103,6 +125,358 @@ public class StockRepositoryTest {
                 () -> stockRepository.decreaseQuantity(product, new BigDecimal("-2.0"), UnitEnum.KG));
     }
 
+    @Test
+    void reserve_shouldDecreaseQuantity_whenEnoughQuantityAvailable() {
+        Optional<StockArticle> reserved = stockRepository.reserve(product, new BigDecimal("10.0"), UnitEnum.KG);
+        assertThat(reserved).isPresent();
+        assertThat(reserved.get().quantity()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void reserve_shouldConvertQuantity_whenUnitDiffers() {
+        Optional<StockArticle> reserved = stockRepository.reserve(product, new BigDecimal("2500"), UnitEnum.G);
+        assertThat(reserved).isPresent();
+        assertThat(reserved.get().quantity()).isEqualByComparingTo("7.5");
+    }
+
+    @Test
+    void reserve_shouldKeepScaleOfStockQuantity() {
+        Optional<StockArticle> reserved = stockRepository.reserve(product, new BigDecimal("1"), UnitEnum.KG);
+        assertThat(reserved).isPresent();
+        assertThat(reserved.get().quantity()).isEqualTo(new BigDecimal("9.000"));
+    }
+
+    @Test
+    void reserve_shouldWidenScaleLikeBigDecimalArithmetic() {
+        stockRepository.reserve(product, new BigDecimal("2500"), UnitEnum.G);
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity())
+                .isEqualTo(new BigDecimal("10.0").subtract(new BigDecimal("2500").multiply(UnitEnum.KG.conversionFactor(UnitEnum.G))));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualTo(new BigDecimal("7.500"));
+    }
+
+    @Test
+    void increaseQuantity_shouldWidenScaleLikeBigDecimalArithmetic() {
+        StockArticle increased = stockRepository.increaseQuantity(product, new BigDecimal("0.25"), UnitEnum.KG);
+        assertThat(increased.quantity()).isEqualTo(new BigDecimal("10.25000"));
+    }
+
+    @Test
+    void reserve_shouldThrowException_whenQuantityIsFinerThanMilligram() {
+        assertThrows(IllegalArgumentException.class,
+                () -> stockRepository.reserve(product, new BigDecimal("0.0001"), UnitEnum.G));
+    }
+
+    @Test
+    void reserve_shouldThrowException_whenUnitNotConvertible() {
+        assertThrows(IllegalArgumentException.class,
+                () -> stockRepository.reserve(product, BigDecimal.ONE, UnitEnum.L));
+    }
+
+    @Test
+    void reserveBaseUnits_shouldDecreaseQuantityInMilligram() {
+        assertTrue(stockRepository.reserveBaseUnits("prod-1", 2_500_000L));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("7.5");
+    }
+
+    @Test
+    void reserveBaseUnits_shouldLeaveStockUnchanged_whenNotEnoughQuantityAvailable() {
+        assertFalse(stockRepository.reserveBaseUnits("prod-1", 10_000_001L));
+        assertFalse(stockRepository.reserveBaseUnits("other-prod", 1L));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10.0");
+    }
+
+    @Test
+    void isSufficientInStock_shouldCompareBaseUnits() {
+        assertTrue(stockRepository.isSufficientInStock("prod-1", 10_000_000L));
+        assertFalse(stockRepository.isSufficientInStock("prod-1", 10_000_001L));
+        assertFalse(stockRepository.isSufficientInStock("other-prod", 0L));
+    }
+
+    @Test
+    void reserve_shouldLeaveStockUnchanged_whenNotEnoughQuantityAvailable() {
+        assertThat(stockRepository.reserve(product, new BigDecimal("10.5"), UnitEnum.KG)).isEmpty();
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10.0");
+    }
+
+    @Test
+    void reserve_shouldReturnEmpty_whenProductNotInStock() {
+        ProductInterface otherProduct = mock(ProductInterface.class);
+        when(otherProduct.productId()).thenReturn("other-prod");
+        assertThat(stockRepository.reserve(otherProduct, BigDecimal.ONE, UnitEnum.KG)).isEmpty();
+    }
+
+    @Test
+    void reserve_shouldNeverOversell_whenCalledConcurrently() throws InterruptedException {
+        int threads = 8;
+        AtomicInteger successful = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads * 100; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stockRepository.reserve(product, new BigDecimal("0.5"), UnitEnum.KG).ifPresent(s -> successful.incrementAndGet());
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertThat(successful.get()).isEqualTo(20);
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private OrderProduct orderLine(final String productId, final String quantity, final UnitEnum unit) {
+        OrderProduct orderProduct = new OrderProduct(stockRepository.findByProductId(productId).orElseThrow());
+        orderProduct.setQuantity(new BigDecimal(quantity), unit);
+        return orderProduct;
+    }
+
+    private ProductInterface addSecondProduct() {
+        ProductInterface secondProduct = mock(ProductInterface.class);
+        when(secondProduct.id()).thenReturn("prod-2");
+        when(secondProduct.productId()).thenReturn("prod-2");
+        when(secondProduct.name()).thenReturn("Second Product");
+        when(secondProduct.description()).thenReturn("Second Description");
+        when(secondProduct.content()).thenReturn(BigDecimal.ONE);
+        when(secondProduct.unit()).thenReturn(UnitEnum.L);
+        stockRepository.addProduct(secondProduct, new BigDecimal("2"), UnitEnum.L, BigDecimal.ONE);
+        return secondProduct;
+    }
+
+    @Test
+    void reserveAll_shouldDecreaseAllLines_whenEverythingInStock() {
+        addSecondProduct();
+        boolean reserved = stockRepository.reserveAll(List.of(
+                orderLine("prod-1", "4", UnitEnum.KG),
+                orderLine("prod-2", "500", UnitEnum.ML),
+                orderLine("prod-1", "1000", UnitEnum.G)));
+
+        assertTrue(reserved);
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("5");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("1.5");
+        assertThat(stockRepository.getReservationMetrics().getSuccesses()).isEqualTo(1);
+    }
+
+    @Test
+    void reserveAll_shouldDecreaseNothing_whenOneLineNotInStock() {
+        addSecondProduct();
+        boolean reserved = stockRepository.reserveAll(List.of(
+                orderLine("prod-1", "4", UnitEnum.KG),
+                orderLine("prod-2", "3", UnitEnum.L)));
+
+        assertFalse(reserved);
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("2");
+        assertThat(stockRepository.getReservationMetrics().getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void reserveAll_shouldSumLinesOfSameProduct_whenCheckingStock() {
+        assertFalse(stockRepository.reserveAll(List.of(
+                orderLine("prod-1", "6", UnitEnum.KG),
+                orderLine("prod-1", "6", UnitEnum.KG))));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void releaseAll_shouldRestoreReservedLines() {
+        List<OrderProduct> lines = List.of(orderLine("prod-1", "4", UnitEnum.KG));
+        stockRepository.reserveAll(lines);
+        stockRepository.releaseAll(lines);
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void reserveAll_shouldNotDeadlock_whenOrdersOverlapInOppositeOrder() throws InterruptedException {
+        addSecondProduct();
+        stockRepository.increaseQuantity(product, new BigDecimal("1000"), UnitEnum.KG);
+        List<OrderProduct> forward = List.of(orderLine("prod-1", "1", UnitEnum.G), orderLine("prod-2", "1", UnitEnum.ML));
+        List<OrderProduct> backward = List.of(orderLine("prod-2", "1", UnitEnum.ML), orderLine("prod-1", "1", UnitEnum.G));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            List<OrderProduct> lines = i % 2 == 0 ? forward : backward;
+            executor.execute(() -> stockRepository.reserveAll(lines));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertThat(stockRepository.getReservationMetrics().getSuccesses()).isEqualTo(1000);
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void reserveOrders_shouldReserveLikeOrdersOneAfterAnother_whenPartial() {
+        addSecondProduct();
+        List<Order> orders = List.of(
+                new Order("order-1", List.of(orderLine("prod-1", "6", UnitEnum.KG), orderLine("prod-2", "1", UnitEnum.L))),
+                new Order("order-2", List.of(orderLine("prod-1", "6", UnitEnum.KG), orderLine("prod-2", "1", UnitEnum.L))),
+                new Order("order-3", List.of(orderLine("prod-1", "4000", UnitEnum.G))));
+
+        boolean[][] reserved = stockRepository.reserveOrders(orders, ReservationModeEnum.PARTIAL);
+
+        assertThat(reserved).isDeepEqualTo(new boolean[][]{{true, true}, {false, true}, {true}});
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("0");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void reserveOrders_shouldRejectWholeOrder_whenAllOrNothingAndOneLineNotInStock() {
+        addSecondProduct();
+        List<Order> orders = List.of(
+                new Order("order-1", List.of(orderLine("prod-1", "4", UnitEnum.KG), orderLine("prod-2", "3", UnitEnum.L))),
+                new Order("order-2", List.of(orderLine("prod-1", "4", UnitEnum.KG), orderLine("prod-1", "6", UnitEnum.KG))));
+
+        boolean[][] reserved = stockRepository.reserveOrders(orders, ReservationModeEnum.ALL_OR_NOTHING);
+
+        assertThat(reserved).isDeepEqualTo(new boolean[][]{null, {true, true}});
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("0");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("2");
+        assertThat(stockRepository.getReservationMetrics().getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void reserveOrders_shouldReserveNothing_whenQuantityNotWholeBaseUnits() {
+        List<Order> orders = List.of(
+                new Order("order-1", List.of(orderLine("prod-1", "1", UnitEnum.KG))),
+                new Order("order-2", List.of(orderLine("prod-1", "0.0001", UnitEnum.G))));
+
+        assertThrows(IllegalArgumentException.class, () -> stockRepository.reserveOrders(orders, ReservationModeEnum.PARTIAL));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+    }
+
+    /**
+     * Log rejecting the n-th stock decrease, summing the stock changes it accepted per product.
+     */
+    private static final class RejectingLog implements MutationLog {
+        private final int rejectedDecrease;
+        private final Map<String, Long> acceptedChanges = new HashMap<>();
+        private int decreases;
+
+        private RejectingLog(final int rejectedDecrease) {
+            this.rejectedDecrease = rejectedDecrease;
+        }
+
+        @Override
+        public void stockIncreased(final String productId, final long baseUnits, final String orderId) {
+            acceptedChanges.merge(productId, baseUnits, Long::sum);
+        }
+
+        @Override
+        public void stockDecreased(final String productId, final long baseUnits, final String orderId) {
+            if (++decreases == rejectedDecrease) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            acceptedChanges.merge(productId, -baseUnits, Long::sum);
+        }
+    }
+
+    @Test
+    void reserveOrders_shouldRestoreStock_whenLogRejectsALine() {
+        RejectingLog log = new RejectingLog(3);
+        stockRepository = new StockRepository(log);
+        stockRepository.addProduct(product, new BigDecimal("10.0"), UnitEnum.KG, new BigDecimal("19.99"));
+        addSecondProduct();
+        List<Order> orders = List.of(
+                new Order("order-1", List.of(orderLine("prod-1", "4", UnitEnum.KG))),
+                new Order("order-2", List.of(orderLine("prod-1", "1", UnitEnum.KG), orderLine("prod-2", "1", UnitEnum.L))));
+
+        assertThrows(IllegalStateException.class, () -> stockRepository.reserveOrders(orders, ReservationModeEnum.PARTIAL));
+
+        assertThat(log.decreases).isEqualTo(3);
+        assertThat(log.acceptedChanges).containsOnly(entry("prod-1", 0L));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void reserveAll_shouldLogReservedLinesAsGivenBack_whenLogRejectsALine() {
+        RejectingLog log = new RejectingLog(2);
+        stockRepository = new StockRepository(log);
+        stockRepository.addProduct(product, new BigDecimal("10.0"), UnitEnum.KG, new BigDecimal("19.99"));
+        addSecondProduct();
+
+        assertThrows(IllegalStateException.class, () -> stockRepository.reserveAll(
+                List.of(orderLine("prod-1", "4", UnitEnum.KG), orderLine("prod-2", "1", UnitEnum.L)), "order-1"));
+
+        assertThat(log.acceptedChanges).containsOnly(entry("prod-1", 0L));
+        assertThat(stockRepository.findByProductId("prod-1").orElseThrow().quantity()).isEqualByComparingTo("10");
+        assertThat(stockRepository.findByProductId("prod-2").orElseThrow().quantity()).isEqualByComparingTo("2");
+    }
+
+    private static Product piecesProduct(final int i) {
+        return ProductBuilder.builder()
+                .id("partitioned-" + i)
+                .name("Product " + i)
+                .description("Product " + i)
+                .content(BigDecimal.ONE)
+                .unit(UnitEnum.PCS)
+                .build();
+    }
+
+    @Test
+    void findAll_shouldReturnStockOfEveryPartition_whenPartitioned() {
+        StockRepository partitioned = new StockRepository(MutationLog.NONE, 8);
+        List<OrderProduct> lines = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            StockArticle stockArticle = partitioned.addProduct(piecesProduct(i), BigDecimal.TEN, UnitEnum.PCS, BigDecimal.ONE);
+            assertThat(partitioned.find(stockArticle.id())).contains(stockArticle);
+            OrderProduct line = new OrderProduct(stockArticle);
+            line.setQuantity(BigDecimal.ONE, UnitEnum.PCS);
+            lines.add(line);
+        }
+
+        assertTrue(partitioned.reserveAll(lines));
+
+        assertThat(partitioned.findAll())
+                .hasSize(64)
+                .allSatisfy(stockArticle -> assertThat(stockArticle.quantity()).isEqualByComparingTo("9"));
+    }
+
+    @Test
+    void stream_shouldReturnOnlyStockPassingFilter() {
+        addSecondProduct();
+
+        assertThat(stockRepository.stream(StockFilter.ALL)).hasSize(2);
+        assertThat(stockRepository.stream(StockFilterBuilder.builder().unit(UnitEnum.G).build()))
+                .extracting(StockArticle::productId).containsExactly("prod-1");
+        assertThat(stockRepository.stream(StockFilterBuilder.builder().unit(UnitEnum.ML).below(new BigDecimal("2500")).build()))
+                .extracting(StockArticle::productId).containsExactly("prod-2");
+        assertThat(stockRepository.stream(StockFilterBuilder.builder().unit(UnitEnum.L).below(new BigDecimal("2")).build()))
+                .isEmpty();
+        assertThat(stockRepository.stream(StockFilterBuilder.builder().minPrice(BigDecimal.ONE).maxPrice(BigDecimal.TEN).build()))
+                .extracting(StockArticle::productId).containsExactly("prod-2");
+    }
+
+    @Test
+    void stream_shouldSplitForParallelProcessing_whenPartitioned() {
+        StockRepository partitioned = new StockRepository(MutationLog.NONE, 4);
+        for (int i = 0; i < 1000; i++) {
+            partitioned.addProduct(piecesProduct(i), BigDecimal.valueOf(i), UnitEnum.PCS, BigDecimal.ONE);
+        }
+
+        Spliterator<StockArticle> spliterator = partitioned.stream(StockFilter.ALL).parallel().spliterator();
+        assertNotNull(spliterator.trySplit());
+        assertEquals(1000, partitioned.stream(StockFilter.ALL).parallel().map(StockArticle::productId).distinct().count());
+        assertEquals(100, partitioned.stream(StockFilterBuilder.builder().unit(UnitEnum.PCS).below(new BigDecimal("100")).build())
+                .parallel()
+                .count());
+    }
+
+    @Test
+    void stockFilter_shouldThrowException_whenThresholdWithoutUnit() {
+        assertThrows(IllegalArgumentException.class, () -> StockFilterBuilder.builder().below(BigDecimal.ONE).build());
+    }
+
+    @Test
+    void find_shouldReturnStockArticle_whenIdStored() {
+        StockArticle stockArticle = stockRepository.findByProductId("prod-1").orElseThrow();
+        assertThat(stockRepository.find(stockArticle.id())).contains(stockArticle);
+    }
+
     @Test
     void find_shouldReturnNull_whenIdNotStored() {
         Optional<StockArticle> found = stockRepository.find("non-existent-id");
@@ -124,8 +498,12 @@ public class StockRepositoryTest {
     @Test
     void addProduct_shouldAddStockArticleSuccessfully() {
         StockArticle stockArticle = mock(StockArticle.class);
+        Product stockProduct = mock(Product.class);
+        when(stockProduct.id()).thenReturn("prod-new");
         when(stockArticle.id()).thenReturn("new-id");
-        when(stockArticle.product()).thenReturn(mock(Product.class));
+        when(stockArticle.product()).thenReturn(stockProduct);
+        when(stockArticle.quantity()).thenReturn(BigDecimal.ONE);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
 
         StockArticle added = stockRepository.addProduct(stockArticle);
 
@@ -136,8 +514,12 @@ public class StockRepositoryTest {
     @Test
     void addProduct_shouldThrowException_whenStockArticleAlreadyExists() {
         StockArticle stockArticle = mock(StockArticle.class);
+        Product stockProduct = mock(Product.class);
+        when(stockProduct.id()).thenReturn("prod-existing");
         when(stockArticle.id()).thenReturn("existing-id");
-        when(stockArticle.product()).thenReturn(mock(Product.class));
+        when(stockArticle.product()).thenReturn(stockProduct);
+        when(stockArticle.quantity()).thenReturn(BigDecimal.ONE);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
 
         // Erstes Hinzufügen
         stockRepository.addProduct(stockArticle);
@@ -1,9 +1,14 @@
 package ckollmeier.de;
 
 import ckollmeier.de.Entity.*;
+import ckollmeier.de.Enum.ReservationModeEnum;
+import ckollmeier.de.Enum.SearchOperatorEnum;
 import ckollmeier.de.Enum.UnitEnum;
 import ckollmeier.de.Repository.OrderRepository;
 import ckollmeier.de.Repository.ProductRepository;
+import ckollmeier.de.Repository.ScoredProduct;
+import ckollmeier.de.Repository.StockFilter;
+import ckollmeier.de.Repository.StockFilterBuilder;
 import ckollmeier.de.Repository.StockRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,7 +65,7 @@ class ShopServiceTest {
         List<OrderProduct> orderProducts = List.of(orderProduct);
         Order order = new Order("order-1", orderProducts);
 
-        when(stockRepository.isSufficientInStock(orderProduct, BigDecimal.ONE, UnitEnum.PCS)).thenReturn(true);
+        when(stockRepository.reserve(orderProduct, BigDecimal.ONE, UnitEnum.PCS, "order-1")).thenReturn(Optional.of(stockArticle));
         when(orderRepository.addOrder(any(Order.class))).thenReturn(Optional.of(order));
 
         // Act
@@ -68,10 +74,124 @@ class ShopServiceTest {
         // Assert
         assertThat(result).isPresent();
         assertEquals(order.id(), result.get().id());
-        verify(stockRepository, times(1)).decreaseQuantity(orderProduct, BigDecimal.ONE, UnitEnum.PCS);
+        verify(stockRepository, times(1)).reserve(orderProduct, BigDecimal.ONE, UnitEnum.PCS, "order-1");
         verify(orderRepository, times(1)).addOrder(any(Order.class));
     }
 
+    @Test
+    void addOrder_ReservedLines_LinesAndOrderPriced() {
+        // Arrange
+        Product product = ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Flour").build();
+        StockArticle stockArticle = StockArticleBuilder.builder()
+                .id(UUID.randomUUID().toString())
+                .product(product)
+                .quantity(BigDecimal.TEN)
+                .unit(UnitEnum.KG)
+                .price(new BigDecimal("1.30"))
+                .build();
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(new BigDecimal("500"), UnitEnum.G);
+        Order order = new Order("order-1", List.of(orderProduct));
+
+        when(stockRepository.reserve(orderProduct, orderProduct.getQuantity(), UnitEnum.KG, "order-1")).thenReturn(Optional.of(stockArticle));
+        when(orderRepository.addOrder(any(Order.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // Act
+        Optional<Order> result = shopService.addOrder(order);
+
+        // Assert
+        assertThat(result).isPresent();
+        assertThat(orderProduct.getPriceSubTotal()).isEqualByComparingTo("0.65");
+        assertThat(result.get().total()).isEqualByComparingTo("0.65");
+        verify(orderRepository, times(1)).addOrder(argThat(added -> added.total().compareTo(new BigDecimal("0.65")) == 0));
+    }
+
+    @Test
+    void addOrders_ReservedBatch_ResultPerOrder() {
+        // Arrange
+        Product product = ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Product 1").build();
+        StockArticle stockArticle = StockArticleBuilder.builder()
+                .id(UUID.randomUUID().toString())
+                .product(product)
+                .quantity(BigDecimal.TEN)
+                .unit(UnitEnum.PCS)
+                .price(BigDecimal.valueOf(5.0))
+                .build();
+        OrderProduct reservedLine = new OrderProduct(stockArticle);
+        reservedLine.setQuantity(BigDecimal.ONE);
+        OrderProduct droppedLine = new OrderProduct(stockArticle);
+        droppedLine.setQuantity(BigDecimal.TEN);
+        OrderProduct rejectedLine = new OrderProduct(stockArticle);
+        rejectedLine.setQuantity(BigDecimal.TEN);
+        Order partialOrder = OrderBuilder.builder().products(List.of(reservedLine, droppedLine)).build();
+        Order rejectedOrder = new Order("order-2", List.of(rejectedLine));
+
+        when(stockRepository.reserveOrders(anyList(), eq(ReservationModeEnum.PARTIAL))).thenReturn(new boolean[][]{{true, false}, null});
+        when(orderRepository.addOrder(any(Order.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // Act
+        List<OrderResult> results = shopService.addOrders(List.of(partialOrder, rejectedOrder));
+
+        // Assert
+        assertThat(results).hasSize(2);
+        assertTrue(results.get(0).isPlaced());
+        assertThat(results.get(0).order().id()).isNotBlank();
+        assertThat(results.get(0).order().products()).containsExactly(reservedLine);
+        assertThat(results.get(0).order().total()).isEqualByComparingTo("5");
+        assertFalse(results.get(1).isPlaced());
+        assertThat(results.get(1).error()).isEqualTo("Not enough stock for order");
+        verify(orderRepository, times(1)).addOrder(any(Order.class));
+    }
+
+    @Test
+    void addOrders_StoringFails_StockReleased() {
+        // Arrange
+        Product product = ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Product 1").build();
+        StockArticle stockArticle = StockArticleBuilder.builder()
+                .id(UUID.randomUUID().toString())
+                .product(product)
+                .quantity(BigDecimal.TEN)
+                .unit(UnitEnum.PCS)
+                .price(BigDecimal.valueOf(5.0))
+                .build();
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.ONE);
+        Order order = new Order("order-1", List.of(orderProduct));
+
+        when(stockRepository.reserveOrders(anyList(), eq(ReservationModeEnum.PARTIAL))).thenReturn(new boolean[][]{{true}});
+        when(orderRepository.addOrder(any(Order.class))).thenThrow(new IllegalArgumentException("Order with id order-1 already exists"));
+
+        // Act
+        List<OrderResult> results = shopService.addOrders(List.of(order));
+
+        // Assert
+        assertFalse(results.get(0).isPlaced());
+        assertThat(results.get(0).error()).isEqualTo("Order with id order-1 already exists");
+        verify(stockRepository, times(1)).releaseAll(List.of(orderProduct), "order-1");
+    }
+
+    @Test
+    void addOrders_LineWithoutQuantity_NothingReserved() {
+        // Arrange
+        Product product = ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Product 1").build();
+        StockArticle stockArticle = StockArticleBuilder.builder()
+                .id(UUID.randomUUID().toString())
+                .product(product)
+                .quantity(BigDecimal.TEN)
+                .unit(UnitEnum.PCS)
+                .price(BigDecimal.valueOf(5.0))
+                .build();
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.ONE);
+        Order order = new Order("order-1", List.of(orderProduct));
+        Order invalidOrder = new Order("order-2", List.of(new OrderProduct(stockArticle)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> shopService.addOrders(List.of(order, invalidOrder)));
+        verify(stockRepository, never()).reserveOrders(anyList(), any());
+        verify(orderRepository, never()).addOrder(any(Order.class));
+    }
+
     @Test
     void addOrder_InsufficientStock_OrderNotAdded() {
         // Arrange
@@ -94,7 +214,7 @@ class ShopServiceTest {
         List<OrderProduct> orderProducts = List.of(orderProduct);
         Order order = new Order("order-1", orderProducts);
 
-        when(stockRepository.isSufficientInStock(orderProduct, BigDecimal.TEN, unit)).thenReturn(false);
+        when(stockRepository.reserve(orderProduct, BigDecimal.TEN, unit, "order-1")).thenReturn(Optional.empty());
         when(orderRepository.addOrder(any(Order.class))).thenReturn(Optional.of(order.withId(order.id()).withProducts(new ArrayList<>())));
 
         // Act
@@ -103,10 +223,92 @@ class ShopServiceTest {
         // Assert
         assertThat(result).isPresent();
         assertEquals(0, result.get().products().size());
+        verify(stockRepository, times(1)).reserve(orderProduct, BigDecimal.TEN, unit, "order-1");
         verify(stockRepository, never()).decreaseQuantity(any(), any(), any());
         verify(orderRepository, times(1)).addOrder(any(Order.class));
     }
 
+    @Test
+    void addOrder_InvalidQuantityAfterReservedLine_ReservedLineReleased() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
+        OrderProduct reservedLine = new OrderProduct(stockArticle);
+        reservedLine.setQuantity(BigDecimal.TWO);
+        OrderProduct invalidLine = new OrderProduct(stockArticle);
+        invalidLine.setQuantity(new BigDecimal("1.5"));
+        Order order = new Order("order-1", List.of(reservedLine, invalidLine));
+
+        when(stockRepository.reserve(reservedLine, BigDecimal.TWO, UnitEnum.PCS, "order-1")).thenReturn(Optional.of(stockArticle));
+        when(stockRepository.reserve(invalidLine, new BigDecimal("1.5"), UnitEnum.PCS, "order-1"))
+                .thenThrow(new IllegalArgumentException("Quantity 1.5 pcs is not a whole number of the smallest unit"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> shopService.addOrder(order));
+        verify(stockRepository, times(1)).releaseAll(List.of(reservedLine), "order-1");
+        verify(orderRepository, never()).addOrder(any(Order.class));
+    }
+
+    @Test
+    void addOrder_AllOrNothingInsufficientStock_OrderRejected() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.TEN);
+        Order order = new Order("order-1", List.of(orderProduct));
+
+        shopService.setReservationMode(ReservationModeEnum.ALL_OR_NOTHING);
+        when(stockRepository.reserveAll(order.products(), "order-1")).thenReturn(false);
+
+        // Act
+        Optional<Order> result = shopService.addOrder(order);
+
+        // Assert
+        assertThat(result).isEmpty();
+        verify(stockRepository, never()).reserve(any(), any(), any(), any());
+        verify(orderRepository, never()).addOrder(any(Order.class));
+    }
+
+    @Test
+    void addOrder_AllOrNothingSufficientStock_OrderAddedWithAllLines() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.ONE);
+        Order order = new Order("order-1", List.of(orderProduct));
+
+        shopService.setReservationMode(ReservationModeEnum.ALL_OR_NOTHING);
+        when(stockRepository.reserveAll(order.products(), "order-1")).thenReturn(true);
+        when(orderRepository.addOrder(order)).thenReturn(Optional.of(order));
+
+        // Act
+        Optional<Order> result = shopService.addOrder(order);
+
+        // Assert
+        assertThat(result).contains(order);
+        verify(orderRepository, times(1)).addOrder(order);
+    }
+
+    @Test
+    void addOrder_AllOrNothingAddFails_ReservationReleased() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.ONE);
+        Order order = new Order("order-1", List.of(orderProduct));
+
+        shopService.setReservationMode(ReservationModeEnum.ALL_OR_NOTHING);
+        when(stockRepository.reserveAll(order.products(), "order-1")).thenReturn(true);
+        when(orderRepository.addOrder(order)).thenThrow(new IllegalArgumentException("Order with id order-1 already exists"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> shopService.addOrder(order));
+        verify(stockRepository, times(1)).releaseAll(order.products(), "order-1");
+    }
+
     @Test
     void removeOrder_ValidOrder_OrderRemovedAndStockRestored() {
         // Arrange
@@ -121,7 +323,6 @@ class ShopServiceTest {
         List<OrderProduct> orderProducts = List.of(orderProduct);
         Order order = new Order("order-1", orderProducts);
 
-        when(orderRepository.find(order.id())).thenReturn(Optional.of(order));
         when(orderRepository.removeOrder(order)).thenReturn(Optional.of(order.withId(order.id())));
 
         // Act
@@ -130,7 +331,7 @@ class ShopServiceTest {
         // Assert
         assertThat(result).isPresent();
         assertEquals(order.id(), result.get().id());
-        verify(stockRepository, times(1)).increaseQuantity(orderProduct, BigDecimal.ONE, UnitEnum.PCS);
+        verify(stockRepository, times(1)).increaseQuantity(orderProduct, BigDecimal.ONE, UnitEnum.PCS, "order-1");
         verify(orderRepository, times(1)).removeOrder(order);
     }
 
@@ -154,12 +355,28 @@ class ShopServiceTest {
     void removeOrder_OrderNotFound_ThrowsNullPointerException() {
         // Arrange
         Order order = new Order("order-1", new ArrayList<>());
-        when(orderRepository.find(order.id())).thenReturn(null);
+        when(orderRepository.removeOrder(order)).thenReturn(null);
 
         // Act & Assert
         assertThrows(NullPointerException.class, () -> shopService.removeOrder(order));
     }
 
+    @Test
+    void removeOrder_AlreadyRemoved_StockNotRestored() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockArticle.unit()).thenReturn(UnitEnum.PCS);
+        OrderProduct orderProduct = new OrderProduct(stockArticle);
+        orderProduct.setQuantity(BigDecimal.ONE);
+        Order order = new Order("order-1", List.of(orderProduct));
+        when(orderRepository.find(order.id())).thenReturn(Optional.of(order));
+        when(orderRepository.removeOrder(order)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> shopService.removeOrder(order));
+        verify(stockRepository, never()).increaseQuantity(any(), any(), any(), any());
+    }
+
     @Test
     void addProduct_ValidProduct_ProductAdded() {
         // Arrange
@@ -224,6 +441,93 @@ class ShopServiceTest {
         verify(productRepository, times(1)).findAll();
     }
 
+    @Test
+    void findProduct_ProductExists_ReturnsProduct() {
+        // Arrange
+        Product product = ProductBuilder.builder().id("prod-1").name("Milk").build();
+        when(productRepository.find("prod-1")).thenReturn(Optional.of(product));
+
+        // Act
+        Optional<Product> result = shopService.findProduct("prod-1");
+
+        // Assert
+        assertThat(result).contains(product);
+        verify(productRepository, times(1)).find("prod-1");
+    }
+
+    @Test
+    void findStock_StockExists_ReturnsStockArticle() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        when(stockRepository.findByProductId("prod-1")).thenReturn(Optional.of(stockArticle));
+
+        // Act
+        Optional<StockArticle> result = shopService.findStock("prod-1");
+
+        // Assert
+        assertThat(result).contains(stockArticle);
+        verify(stockRepository, times(1)).findByProductId("prod-1");
+    }
+
+    @Test
+    void streamStock_Filtered_StreamsFromStockRepository() {
+        // Arrange
+        StockArticle stockArticle = mock(StockArticle.class);
+        StockFilter filter = StockFilterBuilder.builder().unit(UnitEnum.KG).below(BigDecimal.ONE).build();
+        when(stockRepository.stream(filter)).thenReturn(Stream.of(stockArticle));
+
+        // Act
+        List<StockArticle> result = shopService.streamStock(filter).toList();
+
+        // Assert
+        assertThat(result).containsExactly(stockArticle);
+        verify(stockRepository, times(1)).stream(filter);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findOrder_OrderExists_ReturnsOrder() {
+        // Arrange
+        Order order = new Order("order-1", List.of());
+        when(orderRepository.find("order-1")).thenReturn(Optional.of(order));
+
+        // Act
+        Optional<Order> result = shopService.findOrder("order-1");
+
+        // Assert
+        assertThat(result).contains(order);
+        verify(orderRepository, times(1)).find("order-1");
+    }
+
+    @Test
+    void searchProducts_ProductsMatch_ReturnsMatches() {
+        // Arrange
+        List<Product> products = List.of(ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Milk").build());
+        when(productRepository.searchByName("mi", 10)).thenReturn(products);
+
+        // Act
+        List<Product> result = shopService.searchProducts("mi", 10);
+
+        // Assert
+        assertEquals(products, result);
+        verify(productRepository, times(1)).searchByName("mi", 10);
+    }
+
+    @Test
+    void searchProductDescriptions_ProductsMatch_ReturnsHits() {
+        // Arrange
+        Product product = ProductBuilder.builder().id(UUID.randomUUID().toString()).name("Milk").build();
+        List<ScoredProduct> hits = List.of(new ScoredProduct(product, 1.5));
+        when(productRepository.searchByDescription("fresh milk", SearchOperatorEnum.AND, 10)).thenReturn(hits);
+
+        // Act
+        List<ScoredProduct> result = shopService.searchProductDescriptions("fresh milk", SearchOperatorEnum.AND, 10);
+
+        // Assert
+        assertEquals(hits, result);
+        verify(productRepository, times(1)).searchByDescription("fresh milk", SearchOperatorEnum.AND, 10);
+    }
+
     @Test
     void addStock_ValidInput_StockAdded() {
         // Arrange
@@ -0,0 +1,123 @@
+package ckollmeier.de;
+
+import ckollmeier.de.Entity.Product;
+import ckollmeier.de.Entity.StockArticle;
+import ckollmeier.de.Enum.UnitEnum;
+import ckollmeier.de.Enum.ValidationPolicyEnum;
+import ckollmeier.de.Enum.ValidationScopeEnum;
+import ckollmeier.de.ValidationHelpers.DecimalString;
+import ckollmeier.de.ValidationHelpers.NotBlankString;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ValidationUtilsTest {
+
+    private static final Product PRODUCT = new Product("prod-1", "Apple", BigDecimal.ONE, UnitEnum.KG, "");
+
+    @AfterEach
+    void tearDown() {
+        ValidationUtils.setPolicy(ValidationScopeEnum.INPUT, ValidationPolicyEnum.FULL);
+        ValidationUtils.setPolicy(ValidationScopeEnum.INTERNAL, ValidationPolicyEnum.STRUCTURAL);
+        ValidationUtils.setPolicy(ValidationScopeEnum.BULK, ValidationPolicyEnum.SAMPLED);
+        ValidationUtils.setSampleRate(100);
+    }
+
+    @Test
+    void validate_shouldAcceptValidRecords() {
+        assertDoesNotThrow(() -> ValidationUtils.validate(PRODUCT));
+        assertDoesNotThrow(() -> ValidationUtils.validate(
+                new StockArticle("stock-1", PRODUCT, BigDecimal.ZERO, UnitEnum.KG, BigDecimal.ZERO)));
+        assertDoesNotThrow(() -> ValidationUtils.validate(new DecimalString("-12.5")));
+    }
+
+    @Test
+    void validate_shouldReportConstraintMessages_whenInvalid() {
+        Product invalid = new Product(" ", "Apple", BigDecimal.ZERO, UnitEnum.KG, null);
+
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
+                () -> ValidationUtils.validate(invalid));
+
+        assertThat(exception.getConstraintViolations())
+                .extracting(ConstraintViolation::getMessage)
+                .containsExactlyInAnyOrder("Id must not be empty", "Content must be positive", "Description must not be null");
+    }
+
+    @Test
+    void validate_shouldReportDefaultMessages_whenInvalid() {
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
+                () -> ValidationUtils.validate(new NotBlankString("")));
+
+        assertThat(exception.getConstraintViolations())
+                .extracting(violation -> violation.getPropertyPath().toString())
+                .containsExactly("value");
+    }
+
+    @Test
+    void validate_shouldRejectPatternMismatch() {
+        assertThrows(ConstraintViolationException.class, () -> ValidationUtils.validate(new DecimalString("1.")));
+    }
+
+    @Test
+    void validate_shouldRejectNegativeQuantity() {
+        StockArticle invalid = new StockArticle("stock-1", PRODUCT, new BigDecimal("-0.001"), UnitEnum.KG, BigDecimal.ONE);
+
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
+                () -> ValidationUtils.validate(invalid));
+
+        assertThat(exception.getConstraintViolations())
+                .extracting(ConstraintViolation::getMessage)
+                .containsExactly("Quantity must be positive or zero");
+    }
+
+    @Test
+    void validate_shouldOnlyCheckRequiredProperties_whenPolicyIsStructural() {
+        StockArticle negative = new StockArticle("stock-1", PRODUCT, new BigDecimal("-1"), UnitEnum.KG, BigDecimal.ONE);
+        StockArticle withoutProduct = new StockArticle("stock-1", null, BigDecimal.ONE, UnitEnum.KG, BigDecimal.ONE);
+
+        assertDoesNotThrow(() -> ValidationUtils.validate(negative, ValidationScopeEnum.INTERNAL));
+        assertThrows(ConstraintViolationException.class, () -> ValidationUtils.validate(withoutProduct, ValidationScopeEnum.INTERNAL));
+        assertThrows(ConstraintViolationException.class, () -> ValidationUtils.validate(negative, ValidationScopeEnum.INPUT));
+    }
+
+    @Test
+    void validate_shouldValidateEverything_whenSampleRateIsOne() {
+        ValidationUtils.setSampleRate(1);
+        StockArticle negative = new StockArticle("stock-1", PRODUCT, new BigDecimal("-1"), UnitEnum.KG, BigDecimal.ONE);
+
+        assertThrows(ConstraintViolationException.class, () -> ValidationUtils.validate(negative, ValidationScopeEnum.BULK));
+    }
+
+    @Test
+    void validate_shouldUseConfiguredPolicy() {
+        ValidationUtils.setPolicy(ValidationScopeEnum.INPUT, ValidationPolicyEnum.STRUCTURAL);
+
+        assertEquals(ValidationPolicyEnum.STRUCTURAL, ValidationUtils.getPolicy(ValidationScopeEnum.INPUT));
+        assertDoesNotThrow(() -> ValidationUtils.validate(new DecimalString("not a number")));
+    }
+
+    @Test
+    void validate_shouldRecordMetricsPerType() {
+        ValidationMetrics metrics = ValidationUtils.getMetrics();
+        metrics.reset();
+
+        ValidationUtils.validate(PRODUCT);
+        ValidationUtils.validate(PRODUCT, ValidationScopeEnum.INTERNAL);
+        assertThrows(ConstraintViolationException.class, () -> ValidationUtils.validate(new NotBlankString(" ")));
+
+        assertEquals(2, metrics.getValidations(Product.class));
+        assertEquals(1, metrics.getFullValidations(Product.class));
+        assertEquals(0, metrics.getFailures(Product.class));
+        assertEquals(1, metrics.getFailures(NotBlankString.class));
+        assertThat(metrics.getTime(Product.class)).isPositive();
+        assertThat(metrics.getTypes()).contains(Product.class, NotBlankString.class);
+    }
+}
@@ -0,0 +1,168 @@
+package ckollmeier.de.ValidatorProcessor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Translates one jakarta constraint on one property into a Java condition that is true if the constraint is violated.
+ * <p>
+ * The conditions follow the Hibernate Validator implementations of the constraints, e.g. {@code @NotBlank} trims
+ * and {@code @Positive} accepts null.
+ */
+final class ConstraintCondition {
+    private static final String CONSTRAINTS = "jakarta.validation.constraints.";
+    private static final Set<TypeKind> INTEGRAL_KINDS = Set.of(TypeKind.BYTE, TypeKind.SHORT, TypeKind.INT, TypeKind.LONG);
+    private static final Set<String> INTEGRAL_BOXES = Set.of(
+            "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long");
+    private static final Set<String> SIGNUM_TYPES = Set.of("java.math.BigDecimal", "java.math.BigInteger");
+
+    private final Elements elements;
+    private final Types types;
+    private final TypeMirror charSequence;
+    private final TypeMirror collection;
+    private final TypeMirror map;
+
+    ConstraintCondition(final ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.charSequence = erasure("java.lang.CharSequence");
+        this.collection = erasure("java.util.Collection");
+        this.map = erasure("java.util.Map");
+    }
+
+    private TypeMirror erasure(final String qualifiedName) {
+        return types.erasure(elements.getTypeElement(qualifiedName).asType());
+    }
+
+    /**
+     * @param constraint the constraint annotation
+     * @param access     Java expression reading the property
+     * @param type       type of the property
+     * @param writer     validator the condition is for, receives constants the condition needs
+     * @return condition that is true if the constraint is violated, null if it can never be violated
+     * @throws UnsupportedConstraintException if the constraint or its use is not supported
+     */
+    String invalidIf(final AnnotationMirror constraint, final String access, final TypeMirror type, final ValidatorWriter writer)
+            throws UnsupportedConstraintException {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = constraint.getElementValues();
+        List<?> groups = (List<?>) value(values, "groups");
+        if (groups != null && !groups.isEmpty()) {
+            throw new UnsupportedConstraintException("validation groups");
+        }
+        String name = ((TypeElement) constraint.getAnnotationType().asElement()).getQualifiedName().toString();
+        return switch (name) {
+            case CONSTRAINTS + "NotNull" -> type.getKind().isPrimitive() ? null : access + " == null";
+            case CONSTRAINTS + "NotBlank" -> {
+                requireCharSequence(name, type);
+                yield access + " == null || " + access + ".toString().trim().isEmpty()";
+            }
+            case CONSTRAINTS + "NotEmpty" -> notEmpty(name, access, type);
+            case CONSTRAINTS + "Positive" -> signum(name, access, type, "<= 0");
+            case CONSTRAINTS + "PositiveOrZero" -> signum(name, access, type, "< 0");
+            case CONSTRAINTS + "Negative" -> signum(name, access, type, ">= 0");
+            case CONSTRAINTS + "NegativeOrZero" -> signum(name, access, type, "> 0");
+            case CONSTRAINTS + "Pattern" -> {
+                requireCharSequence(name, type);
+                String pattern = writer.addPattern(
+                        elements.getConstantExpression(value(values, "regexp")),
+                        patternFlags((List<?>) value(values, "flags")));
+                yield access + " != null && !" + pattern + ".matcher(" + access + ").matches()";
+            }
+            default -> throw new UnsupportedConstraintException("constraint @" + name);
+        };
+    }
+
+    /**
+     * Structural checks only make sure required properties are present, they skip all checks of values.
+     *
+     * @param constraint the constraint annotation
+     * @param access     Java expression reading the property
+     * @param type       type of the property
+     * @return condition that is true if a required property is missing, null if the constraint does not require it
+     */
+    String structurallyInvalidIf(final AnnotationMirror constraint, final String access, final TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return null;
+        }
+        String name = ((TypeElement) constraint.getAnnotationType().asElement()).getQualifiedName().toString();
+        return switch (name) {
+            case CONSTRAINTS + "NotNull", CONSTRAINTS + "NotBlank", CONSTRAINTS + "NotEmpty" -> access + " == null";
+            default -> null;
+        };
+    }
+
+    private static Object value(final Map<? extends ExecutableElement, ? extends AnnotationValue> values, final String element) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(element)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String patternFlags(final List<?> flags) {
+        if (flags == null || flags.isEmpty()) {
+            return "0";
+        }
+        return flags.stream()
+                .map(flag -> "java.util.regex.Pattern." + ((VariableElement) ((AnnotationValue) flag).getValue()).getSimpleName())
+                .collect(Collectors.joining(" | "));
+    }
+
+    private void requireCharSequence(final String constraint, final TypeMirror type) throws UnsupportedConstraintException {
+        if (type.getKind().isPrimitive() || !types.isAssignable(types.erasure(type), charSequence)) {
+            throw unsupportedType(constraint, type);
+        }
+    }
+
+    private String notEmpty(final String constraint, final String access, final TypeMirror type) throws UnsupportedConstraintException {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return access + " == null || " + access + ".length == 0";
+        }
+        if (type.getKind().isPrimitive()) {
+            throw unsupportedType(constraint, type);
+        }
+        TypeMirror erased = types.erasure(type);
+        if (types.isAssignable(erased, charSequence)) {
+            return access + " == null || " + access + ".length() == 0";
+        }
+        if (types.isAssignable(erased, collection) || types.isAssignable(erased, map)) {
+            return access + " == null || " + access + ".isEmpty()";
+        }
+        throw unsupportedType(constraint, type);
+    }
+
+    private String signum(final String constraint, final String access, final TypeMirror type, final String invalidComparison)
+            throws UnsupportedConstraintException {
+        if (INTEGRAL_KINDS.contains(type.getKind())) {
+            return access + " " + invalidComparison;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            String typeName = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            if (SIGNUM_TYPES.contains(typeName)) {
+                return access + " != null && " + access + ".signum() " + invalidComparison;
+            }
+            if (INTEGRAL_BOXES.contains(typeName)) {
+                return access + " != null && " + access + " " + invalidComparison;
+            }
+        }
+        throw unsupportedType(constraint, type);
+    }
+
+    private static UnsupportedConstraintException unsupportedType(final String constraint, final TypeMirror type) {
+        return new UnsupportedConstraintException("constraint @" + constraint + " on " + type);
+    }
+}
@@ -0,0 +1,12 @@
+package ckollmeier.de.ValidatorProcessor;
+
+/**
+ * A type uses something the generated validators cannot check, it is left to Hibernate Validator.
+ */
+final class UnsupportedConstraintException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedConstraintException(final String message) {
+        super(message);
+    }
+}
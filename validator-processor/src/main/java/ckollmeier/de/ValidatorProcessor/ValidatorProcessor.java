@@ -0,0 +1,267 @@
+package ckollmeier.de.ValidatorProcessor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Generates a plain Java validator for every record and class whose fields carry jakarta constraints.
+ * <p>
+ * A generated validator only decides whether an object is valid, by reading the properties and comparing them, and
+ * is registered as service of {@value #VALIDATOR_INTERFACE}. A second, structural check only tests that required
+ * properties are present. Violations are still reported by Hibernate Validator,
+ * so messages and property paths stay exactly the same. Types using anything the generator does not understand,
+ * e.g. cascaded validation, groups or custom constraints, get no validator and are validated by Hibernate Validator
+ * alone.
+ */
+@SupportedAnnotationTypes("jakarta.validation.constraints.*")
+public final class ValidatorProcessor extends AbstractProcessor {
+    /**
+     * interface the generated validators implement.
+     */
+    static final String VALIDATOR_INTERFACE = "ckollmeier.de.ValidationHelpers.GeneratedValidator";
+    private static final String CONSTRAINT = "jakarta.validation.Constraint";
+    private static final Set<String> UNSUPPORTED_ANNOTATIONS = Set.of(
+            "jakarta.validation.Valid",
+            "jakarta.validation.GroupSequence",
+            "org.hibernate.validator.group.GroupSequenceProvider");
+    /**
+     * methods Hibernate Validator treats as getters, their constraints are validated as well.
+     */
+    private static final Pattern GETTER = Pattern.compile("(get|is|has)\\p{Lu}.*");
+
+    private final Set<String> processedTypes = new HashSet<>();
+    private final Set<String> validators = new TreeSet<>();
+    private ConstraintCondition conditions;
+
+    @Override
+    public synchronized void init(final ProcessingEnvironment environment) {
+        super.init(environment);
+        conditions = new ConstraintCondition(environment);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD
+                        && element.getEnclosingElement() instanceof TypeElement type
+                        && processedTypes.add(type.getQualifiedName().toString())) {
+                    generate(type);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !validators.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private void generate(final TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String qualifiedName = type.getQualifiedName().toString();
+        ValidatorWriter writer = new ValidatorWriter(packageName,
+                packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1));
+        try {
+            requireSupportedType(type);
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                List<AnnotationMirror> constraints = constraints(field);
+                requireNoContainerElementConstraints(field.asType());
+                if (field.getModifiers().contains(Modifier.STATIC) || constraints.isEmpty()) {
+                    continue;
+                }
+                String access = access(type, field);
+                for (AnnotationMirror constraint : constraints) {
+                    String invalidCondition = conditions.invalidIf(constraint, access, field.asType(), writer);
+                    if (invalidCondition != null) {
+                        writer.addCheck(field.getSimpleName().toString(), invalidCondition,
+                                conditions.structurallyInvalidIf(constraint, access, field.asType()));
+                    }
+                }
+            }
+        } catch (UnsupportedConstraintException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No validator generated, " + qualifiedName + " is validated by Hibernate Validator: " + e.getMessage(), type);
+            return;
+        }
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.qualifiedValidatorName(), type);
+            try (Writer out = file.openWriter()) {
+                out.write(writer.source());
+            }
+            validators.add(writer.qualifiedValidatorName());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write validator of " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private void requireSupportedType(final TypeElement type) throws UnsupportedConstraintException {
+        if (type.getKind() != ElementKind.RECORD && type.getKind() != ElementKind.CLASS) {
+            throw new UnsupportedConstraintException(type.getKind() + " is not a record or class");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedConstraintException("generic type");
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            TypeElement enclosingType = (TypeElement) enclosing;
+            if (enclosingType.getNestingKind() == NestingKind.LOCAL || enclosingType.getNestingKind() == NestingKind.ANONYMOUS
+                    || enclosingType.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedConstraintException("type not accessible from its package");
+            }
+        }
+        if (!constraints(type).isEmpty()) {
+            throw new UnsupportedConstraintException("class level constraint");
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (isGetter(method) && !constraints(method).isEmpty()) {
+                throw new UnsupportedConstraintException("constraint on getter " + method.getSimpleName());
+            }
+        }
+        requireNoInheritedConstraints(type.asType(), new HashSet<>());
+    }
+
+    private void requireNoInheritedConstraints(final TypeMirror type, final Set<String> visited) throws UnsupportedConstraintException {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            TypeElement superElement = (TypeElement) processingEnv.getTypeUtils().asElement(supertype);
+            String name = superElement.getQualifiedName().toString();
+            if (name.equals("java.lang.Object") || name.equals("java.lang.Record") || !visited.add(name)) {
+                continue;
+            }
+            if (!constraints(superElement).isEmpty()) {
+                throw new UnsupportedConstraintException("constraint inherited from " + name);
+            }
+            for (Element member : superElement.getEnclosedElements()) {
+                if ((member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.METHOD) && !constraints(member).isEmpty()) {
+                    throw new UnsupportedConstraintException("constraint inherited from " + name);
+                }
+            }
+            requireNoInheritedConstraints(supertype, visited);
+        }
+    }
+
+    private void requireNoContainerElementConstraints(final TypeMirror type) throws UnsupportedConstraintException {
+        List<TypeMirror> elementTypes = new ArrayList<>();
+        if (type.getKind() == TypeKind.ARRAY) {
+            elementTypes.add(((ArrayType) type).getComponentType());
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            elementTypes.addAll(((DeclaredType) type).getTypeArguments());
+        }
+        for (TypeMirror elementType : elementTypes) {
+            for (AnnotationMirror annotation : elementType.getAnnotationMirrors()) {
+                if (isConstraintRelated(annotation)) {
+                    throw new UnsupportedConstraintException("container element constraint");
+                }
+            }
+            requireNoContainerElementConstraints(elementType);
+        }
+    }
+
+    private String access(final TypeElement type, final VariableElement field) throws UnsupportedConstraintException {
+        String name = field.getSimpleName().toString();
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "object." + name;
+        }
+        if (type.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : type.getRecordComponents()) {
+                if (component.getSimpleName().contentEquals(name)) {
+                    // an accessor returns the component, as required for records
+                    return "object." + name + "()";
+                }
+            }
+        }
+        throw new UnsupportedConstraintException("private field " + name);
+    }
+
+    /**
+     * @param element annotated element
+     * @return constraints on the element
+     * @throws UnsupportedConstraintException if the element uses cascaded validation, groups or repeated constraints
+     */
+    private List<AnnotationMirror> constraints(final Element element) throws UnsupportedConstraintException {
+        List<AnnotationMirror> constraints = new ArrayList<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (isConstraint(annotationType)) {
+                constraints.add(annotation);
+            } else if (isConstraintRelated(annotation)) {
+                throw new UnsupportedConstraintException("@" + annotationType.getQualifiedName() + " on " + element.getSimpleName());
+            }
+        }
+        return constraints;
+    }
+
+    private boolean isConstraintRelated(final AnnotationMirror annotation) {
+        TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+        return isConstraint(annotationType)
+                || UNSUPPORTED_ANNOTATIONS.contains(annotationType.getQualifiedName().toString())
+                // container of repeated constraints, e.g. @Pattern.List
+                || annotationType.getEnclosingElement() instanceof TypeElement enclosing && isConstraint(enclosing);
+    }
+
+    private static boolean isConstraint(final TypeElement annotationType) {
+        for (AnnotationMirror metaAnnotation : annotationType.getAnnotationMirrors()) {
+            if (((TypeElement) metaAnnotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGetter(final ExecutableElement method) {
+        return method.getParameters().isEmpty()
+                && method.getReturnType().getKind() != TypeKind.VOID
+                && !method.getModifiers().contains(Modifier.STATIC)
+                && GETTER.matcher(method.getSimpleName()).matches();
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + VALIDATOR_INTERFACE);
+            try (Writer out = file.openWriter()) {
+                for (String validator : validators) {
+                    out.write(validator);
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not register validators: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ckollmeier.de.ValidatorProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source of the validator of one type.
+ */
+final class ValidatorWriter {
+    private final String packageName;
+    private final String typeName;
+    private final String validatorName;
+    private final List<String> constants = new ArrayList<>();
+    private final List<String> checks = new ArrayList<>();
+    private final List<String> structuralChecks = new ArrayList<>();
+
+    /**
+     * @param packageName package of the validated type, the validator is generated into the same package
+     * @param typeName    name of the validated type within its package, e.g. {@code Outer.Inner}
+     */
+    ValidatorWriter(final String packageName, final String typeName) {
+        this.packageName = packageName;
+        this.typeName = typeName;
+        this.validatorName = typeName.replace('.', '_') + "Validator";
+    }
+
+    /**
+     * @return fully qualified name of the validator
+     */
+    String qualifiedValidatorName() {
+        return packageName.isEmpty() ? validatorName : packageName + "." + validatorName;
+    }
+
+    /**
+     * @param regexpLiteral the regular expression as Java string literal
+     * @param flags         the flags as Java int expression
+     * @return name of the constant holding the compiled pattern
+     */
+    String addPattern(final String regexpLiteral, final String flags) {
+        String name = "PATTERN_" + constants.size();
+        constants.add("    private static final java.util.regex.Pattern " + name
+                + " = java.util.regex.Pattern.compile(" + regexpLiteral + ", " + flags + ");");
+        return name;
+    }
+
+    /**
+     * @param property                    name of the checked property
+     * @param invalidCondition            Java expression that is true if the constraint is violated
+     * @param structurallyInvalidCondition Java expression that is true if a required property is missing, null if
+     *                                     the constraint is not part of the structural check
+     */
+    void addCheck(final String property, final String invalidCondition, final String structurallyInvalidCondition) {
+        checks.add(check(property, invalidCondition));
+        if (structurallyInvalidCondition != null) {
+            structuralChecks.add(check(property, structurallyInvalidCondition));
+        }
+    }
+
+    private static String check(final String property, final String invalidCondition) {
+        return "        // " + property + "\n"
+                + "        if (" + invalidCondition + ") {\n"
+                + "            return false;\n"
+                + "        }\n";
+    }
+
+    /**
+     * @return the Java source of the validator
+     */
+    String source() {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Checks the constraints of {@link ").append(typeName).append("} without reflection.\n")
+                .append(" */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(ValidatorProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(validatorName)
+                .append(" implements ").append(ValidatorProcessor.VALIDATOR_INTERFACE).append('<').append(typeName).append("> {\n");
+        for (String constant : constants) {
+            source.append(constant).append('\n');
+        }
+        if (!constants.isEmpty()) {
+            source.append('\n');
+        }
+        source.append("    @Override\n")
+                .append("    public Class<").append(typeName).append("> type() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public boolean isValid(final ").append(typeName).append(" object) {\n");
+        appendChecks(source, checks);
+        source.append("\n")
+                .append("    @Override\n")
+                .append("    public boolean isStructurallyValid(final ").append(typeName).append(" object) {\n");
+        appendChecks(source, structuralChecks);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static void appendChecks(final StringBuilder source, final List<String> methodChecks) {
+        for (String check : methodChecks) {
+            source.append(check);
+        }
+        source.append("        return true;\n")
+                .append("    }\n");
+    }
+}